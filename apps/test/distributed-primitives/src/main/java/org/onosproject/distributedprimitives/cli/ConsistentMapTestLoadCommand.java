@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.distributedprimitives.cli;
+
+import org.apache.karaf.shell.commands.Argument;
+import org.apache.karaf.shell.commands.Command;
+import org.apache.karaf.shell.commands.Option;
+import org.onosproject.cli.AbstractShellCommand;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.StorageService;
+import org.slf4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * CLI command to measure the throughput of concurrent consistent map updates.
+ */
+@Command(scope = "onos", name = "consistent-map-test-load",
+        description = "Measure the throughput of concurrent updates to a consistent map")
+public class ConsistentMapTestLoadCommand extends AbstractShellCommand {
+
+    private final Logger log = getLogger(getClass());
+
+    @Option(name = "-c", aliases = "--concurrency", description = "maximum number of outstanding updates",
+            required = false, multiValued = false)
+    private int concurrency = 1000;
+
+    @Argument(index = 0, name = "numKeys",
+            description = "Number of keys to put into the map",
+            required = true, multiValued = false)
+    private int numKeys = 1;
+
+    String prefix = "Key";
+    String mapName = "Test-Load-Map";
+    Serializer serializer = Serializer.using(KryoNamespaces.BASIC);
+
+    @Override
+    protected void execute() {
+        StorageService storageService = get(StorageService.class);
+        AsyncConsistentMap<String, String> map = storageService.<String, String>consistentMapBuilder()
+                .withName(mapName)
+                .withSerializer(serializer)
+                .buildAsyncMap();
+
+        Semaphore outstanding = new Semaphore(concurrency);
+        CompletableFuture<?>[] updates = new CompletableFuture<?>[numKeys];
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < numKeys; i++) {
+                outstanding.acquire();
+                updates[i] = map.put(prefix + i, String.valueOf(i))
+                        .whenComplete((r, e) -> outstanding.release());
+            }
+            CompletableFuture.allOf(updates).get(numKeys, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            print("Error executing command");
+            log.error("Error executing command consistent-map-test-load", e);
+            return;
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        print("Put %d keys in %d ms (%d updates/s)", numKeys, elapsedMillis, numKeys * 1000L / elapsedMillis);
+    }
+}
@@ -68,6 +68,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -98,6 +99,8 @@ public class IntentPerfInstaller {
 
     private static final int DEFAULT_NUM_NEIGHBORS = 0;
 
+    private static final boolean DEFAULT_BULK = false;
+
     private static final int START_DELAY = 5_000; // ms
     private static final int REPORT_PERIOD = 1_000; //ms
 
@@ -124,6 +127,10 @@ public class IntentPerfInstaller {
             label = "Number of neighbors to generate intents for")
     private int numNeighbors = DEFAULT_NUM_NEIGHBORS;
 
+    @Property(name = "bulk", boolValue = DEFAULT_BULK,
+            label = "Submit and withdraw intents in bulk batches")
+    private boolean bulk = DEFAULT_BULK;
+
     @Reference(cardinality = MANDATORY_UNARY)
     protected CoreService coreService;
 
@@ -221,6 +228,7 @@ public class IntentPerfInstaller {
 
         Dictionary<?, ?> properties = context.getProperties();
         int newNumKeys, newCyclePeriod, newNumNeighbors;
+        boolean newBulk;
         try {
             String s = get(properties, "numKeys");
             newNumKeys = isNullOrEmpty(s) ? numKeys : Integer.parseInt(s.trim());
@@ -231,17 +239,23 @@ public class IntentPerfInstaller {
             s = get(properties, "numNeighbors");
             newNumNeighbors = isNullOrEmpty(s) ? numNeighbors : Integer.parseInt(s.trim());
 
+            s = get(properties, "bulk");
+            newBulk = isNullOrEmpty(s) ? bulk : Boolean.parseBoolean(s.trim());
+
         } catch (NumberFormatException | ClassCastException e) {
             log.warn("Malformed configuration detected; using defaults", e);
             newNumKeys = DEFAULT_NUM_KEYS;
             newCyclePeriod = DEFAULT_GOAL_CYCLE_PERIOD;
             newNumNeighbors = DEFAULT_NUM_NEIGHBORS;
+            newBulk = DEFAULT_BULK;
         }
 
-        if (newNumKeys != numKeys || newCyclePeriod != cyclePeriod || newNumNeighbors != numNeighbors) {
+        if (newNumKeys != numKeys || newCyclePeriod != cyclePeriod ||
+                newNumNeighbors != numNeighbors || newBulk != bulk) {
             numKeys = newNumKeys;
             cyclePeriod = newCyclePeriod;
             numNeighbors = newNumNeighbors;
+            bulk = newBulk;
             logConfig("Reconfigured");
         }
     }
@@ -262,8 +276,8 @@ public class IntentPerfInstaller {
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with appId {}; numKeys = {}; cyclePeriod = {} ms; numNeighbors={}",
-                 prefix, appId.id(), numKeys, cyclePeriod, numNeighbors);
+        log.info("{} with appId {}; numKeys = {}; cyclePeriod = {} ms; numNeighbors={}; bulk={}",
+                 prefix, appId.id(), numKeys, cyclePeriod, numNeighbors, bulk);
     }
 
     private void startTestRun() {
@@ -443,21 +457,49 @@ public class IntentPerfInstaller {
             submitted.remove(intent); //TODO could check result here...
         }
 
+        // Submits the specified intents, in a single batch if in bulk mode,
+        // and returns the future of their completion.
+        private CompletableFuture<?> submitAll(Iterable<Intent> intents) {
+            if (!bulk) {
+                intents.forEach(this::submit);
+                return CompletableFuture.completedFuture(null);
+            }
+            List<Intent> batch = Lists.newArrayList(intents);
+            submitted.addAll(batch);
+            withdrawn.removeAll(batch);
+            return intentService.submitAll(batch);
+        }
+
+        // Withdraws the specified intents, in a single batch if in bulk mode.
+        private void withdrawAll(Iterable<Intent> intents) {
+            if (!bulk) {
+                intents.forEach(this::withdraw);
+                return;
+            }
+            List<Intent> batch = Lists.newArrayList(intents);
+            withdrawn.addAll(batch);
+            submitted.removeAll(batch);
+            intentService.withdrawAll(batch);
+        }
+
         // Primes the cycle.
         private void prime() {
-            int i = 0;
             withdrawn.addAll(intents);
-            for (Intent intent : intents) {
-                submit(intent);
-                // only submit half of the intents to start
-                if (i++ >= intents.size() / 2) {
-                    break;
+            // only submit half of the intents to start
+            List<Intent> half = Lists.newArrayList(intents)
+                    .subList(0, Math.min(intents.size(), intents.size() / 2 + 1));
+            long start = currentTimeMillis();
+            submitAll(half).thenRun(() -> {
+                if (bulk) {
+                    long delta = Math.max(currentTimeMillis() - start, 1);
+                    log.info("Bulk installed {} intents in {} ms ({} intents/s)",
+                             half.size(), delta, half.size() * 1_000 / delta);
                 }
-            }
+            });
         }
 
         private void clear() {
-            submitted.forEach(this::withdraw);
+            withdrawAll(Lists.newArrayList(submitted));
         }
 
         // Runs a single operation cycle.
@@ -466,8 +508,8 @@ public class IntentPerfInstaller {
             adjustRates();
 
             long start = currentTimeMillis();
-            subset(submitted).forEach(this::withdraw);
-            subset(withdrawn).forEach(this::submit);
+            withdrawAll(subset(submitted));
+            submitAll(subset(withdrawn));
             long delta = currentTimeMillis() - start;
 
             if (delta > cyclePeriod * 3 || delta < 0) {
@@ -15,14 +15,18 @@
  */
 package org.onosproject.intentperf;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Snapshot;
 import org.apache.karaf.shell.commands.Command;
 import org.apache.karaf.shell.commands.Option;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cli.AbstractShellCommand;
 import org.onosproject.intentperf.IntentPerfCollector.Sample;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Displays accumulated performance metrics.
@@ -31,14 +35,23 @@ import java.util.List;
         description = "Displays accumulated performance metrics")
 public class IntentPerfListCommand extends AbstractShellCommand {
 
+    // Prefix of the names of the intent phase latency histograms
+    private static final String PHASES = "IntentManager.phases.";
+
     @Option(name = "-s", aliases = "--summary", description = "Output just summary",
             required = false, multiValued = false)
     private boolean summary = false;
 
+    @Option(name = "-p", aliases = "--phases", description = "Output intent phase latencies",
+            required = false, multiValued = false)
+    private boolean phases = false;
+
     @Override
     protected void execute() {
         if (summary) {
             printSummary();
+        } else if (phases) {
+            printPhases();
         } else {
             printSamples();
         }
@@ -61,6 +74,19 @@ public class IntentPerfListCommand extends AbstractShellCommand {
         print("%12s: %14.2f", "total", total);
     }
 
+    private void printPhases() {
+        Map<String, Histogram> histograms =
+                get(MetricsService.class).getHistograms((name, metric) -> name.startsWith(PHASES));
+        print("%12s  %10s  %10s  %10s  %10s  %10s", "Phase", "Count", "Mean(us)",
+              "Median(us)", "95th(us)", "99th(us)");
+        histograms.forEach((name, histogram) -> {
+            Snapshot snapshot = histogram.getSnapshot();
+            print("%12s  %10d  %10.1f  %10.1f  %10.1f  %10.1f", name.substring(PHASES.length()),
+                  histogram.getCount(), snapshot.getMean(), snapshot.getMedian(),
+                  snapshot.get95thPercentile(), snapshot.get99thPercentile());
+        });
+    }
+
     private void printSamples() {
         IntentPerfCollector collector = get(IntentPerfCollector.class);
         List<String> headers = collector.getSampleHeaders();
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.messagingperf;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.apache.felix.scr.annotations.ReferenceCardinality.MANDATORY_UNARY;
+import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Dictionary;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.felix.scr.annotations.Activate;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.Service;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.cluster.ClusterService;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.serializers.KryoSerializer;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.EventuallyConsistentMapBuilder;
+import org.onosproject.store.service.EventuallyConsistentMapEvent;
+import org.onosproject.store.service.EventuallyConsistentMapListener;
+import org.onosproject.store.service.StorageService;
+import org.onosproject.store.service.WallClockTimestamp;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+
+/**
+ * Application for measuring the replication cost and convergence time of
+ * eventually consistent maps.
+ * <p>
+ * Each instance keeps rewriting its own range of keys in a test map and
+ * periodically writes a probe entry. Peers acknowledge each probe they see
+ * through a second map, which lets the writer measure the round-trip
+ * convergence time. The update rate and the volume of serialized entry data
+ * handed to the map are reported every second.
+ * </p>
+ * <p>
+ * The component is disabled by default so that it does not skew the results
+ * of the messaging tests; enable it on every instance to run the test.
+ * </p>
+ */
+@Component(immediate = true, enabled = false)
+@Service(value = EventuallyConsistentMapPerfApp.class)
+public class EventuallyConsistentMapPerfApp {
+    private final Logger log = getLogger(getClass());
+
+    @Reference(cardinality = MANDATORY_UNARY)
+    protected ClusterService clusterService;
+
+    @Reference(cardinality = MANDATORY_UNARY)
+    protected StorageService storageService;
+
+    @Reference(cardinality = MANDATORY_UNARY)
+    protected ComponentConfigService configService;
+
+    private static final String MAP_NAME = "messaging-perf-ecmap";
+    private static final String ACK_MAP_NAME = "messaging-perf-ecmap-acks";
+    private static final String PROBE_PREFIX = "probe/";
+    private static final String ACK_PREFIX = "ack/";
+
+    private static final int DEFAULT_TOTAL_KEYS = 10_000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int PROBE_INTERVAL_MS = 1_000;
+
+    @Property(name = "totalKeys", intValue = DEFAULT_TOTAL_KEYS,
+            label = "Number of keys written by each instance")
+    protected int totalKeys = DEFAULT_TOTAL_KEYS;
+
+    @Property(name = "batchSize", intValue = DEFAULT_BATCH_SIZE,
+            label = "Number of keys written by each instance per millisecond")
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+
+    @Property(name = "bucketedAntiEntropy", boolValue = false,
+            label = "Use bucketed anti-entropy for the test maps")
+    private boolean bucketedAntiEntropy = false;
+
+    protected int reportIntervalSeconds = 1;
+
+    protected static final KryoSerializer SERIALIZER = new KryoSerializer() {
+        @Override
+        protected void setupKryoPool() {
+            serializerPool = KryoNamespace.newBuilder()
+                    .register(KryoNamespaces.BASIC)
+                    .build();
+        }
+    };
+
+    private ScheduledExecutorService writer;
+    private final ScheduledExecutorService reporter =
+            Executors.newSingleThreadScheduledExecutor(
+                    groupedThreads("onos/ecmap-perf-test", "reporter"));
+
+    private EventuallyConsistentMap<String, Long> map;
+    private EventuallyConsistentMap<String, Long> acks;
+    private final EventuallyConsistentMapListener<String, Long> probeListener = new ProbeListener();
+    private final EventuallyConsistentMapListener<String, Long> ackListener = new AckListener();
+
+    private NodeId localNodeId;
+    private int nextKey = 0;
+    private long nextValue = 0;
+
+    private final AtomicLong probeSequence = new AtomicLong();
+    private volatile long probeSentNanos = 0;
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong acksReceived = new AtomicLong();
+    private final AtomicLong convergenceNanos = new AtomicLong();
+
+    @Activate
+    public void activate(ComponentContext context) {
+        configService.registerProperties(getClass());
+        localNodeId = clusterService.getLocalNode().id();
+        startTest();
+        reporter.scheduleWithFixedDelay(this::reportPerformance,
+                reportIntervalSeconds,
+                reportIntervalSeconds,
+                TimeUnit.SECONDS);
+        logConfig("Started");
+    }
+
+    @Deactivate
+    public void deactivate(ComponentContext context) {
+        configService.unregisterProperties(getClass(), false);
+        stopTest();
+        reporter.shutdown();
+        log.info("Stopped.");
+    }
+
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            totalKeys = DEFAULT_TOTAL_KEYS;
+            batchSize = DEFAULT_BATCH_SIZE;
+            bucketedAntiEntropy = false;
+            return;
+        }
+
+        Dictionary properties = context.getProperties();
+
+        int newTotalKeys = totalKeys;
+        int newBatchSize = batchSize;
+        boolean newBucketedAntiEntropy = bucketedAntiEntropy;
+        try {
+            String s = get(properties, "totalKeys");
+            newTotalKeys = isNullOrEmpty(s) ? totalKeys : Integer.parseInt(s.trim());
+
+            s = get(properties, "batchSize");
+            newBatchSize = isNullOrEmpty(s) ? batchSize : Integer.parseInt(s.trim());
+
+            s = get(properties, "bucketedAntiEntropy");
+            newBucketedAntiEntropy = isNullOrEmpty(s)
+                    ? bucketedAntiEntropy : Boolean.parseBoolean(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            return;
+        }
+
+        boolean modified = newTotalKeys != totalKeys ||
+                newBatchSize != batchSize ||
+                newBucketedAntiEntropy != bucketedAntiEntropy;
+
+        // If nothing has changed, simply return.
+        if (!modified) {
+            return;
+        }
+
+        totalKeys = newTotalKeys;
+        batchSize = newBatchSize;
+        bucketedAntiEntropy = newBucketedAntiEntropy;
+
+        // restart test.
+        stopTest();
+        startTest();
+
+        logConfig("Reconfigured");
+    }
+
+    private void logConfig(String prefix) {
+        log.info("{} with totalKeys = {}; batchSize = {}; bucketedAntiEntropy = {}",
+                 prefix, totalKeys, batchSize, bucketedAntiEntropy);
+    }
+
+    private EventuallyConsistentMap<String, Long> buildMap(String name) {
+        EventuallyConsistentMapBuilder<String, Long> builder =
+                storageService.<String, Long>eventuallyConsistentMapBuilder()
+                        .withName(name)
+                        .withSerializer(KryoNamespace.newBuilder().register(KryoNamespaces.BASIC))
+                        .withTimestampProvider((k, v) -> new WallClockTimestamp());
+        if (bucketedAntiEntropy) {
+            builder.withBucketedAntiEntropy();
+        }
+        return builder.build();
+    }
+
+    private void startTest() {
+        map = buildMap(MAP_NAME);
+        acks = buildMap(ACK_MAP_NAME);
+        map.addListener(probeListener);
+        acks.addListener(ackListener);
+
+        writer = Executors.newSingleThreadScheduledExecutor(
+                groupedThreads("onos/ecmap-perf-test", "writer"));
+        writer.scheduleAtFixedRate(this::writeBatch, 1, 1, TimeUnit.MILLISECONDS);
+        writer.scheduleAtFixedRate(this::writeProbe, PROBE_INTERVAL_MS,
+                                   PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void stopTest() {
+        writer.shutdownNow();
+        map.removeListener(probeListener);
+        acks.removeListener(ackListener);
+        map.destroy();
+        acks.destroy();
+    }
+
+    // Rewrites the next batch of this instance's keys.
+    private void writeBatch() {
+        try {
+            for (int i = 0; i < batchSize; i++) {
+                String key = localNodeId.toString() + "/" + nextKey;
+                Long value = nextValue++;
+                map.put(key, value);
+                updates.incrementAndGet();
+                bytes.addAndGet(SERIALIZER.encode(key).length + SERIALIZER.encode(value).length);
+                nextKey = (nextKey + 1) % totalKeys;
+            }
+        } catch (Exception e) {
+            log.warn("Unable to write batch", e);
+        }
+    }
+
+    // Writes a probe entry which peers are expected to acknowledge.
+    private void writeProbe() {
+        probeSentNanos = System.nanoTime();
+        map.put(PROBE_PREFIX + localNodeId.toString(), probeSequence.incrementAndGet());
+    }
+
+    private void reportPerformance() {
+        long acked = acksReceived.getAndSet(0);
+        long convergence = convergenceNanos.getAndSet(0);
+        log.info("Updates/s: {} Entry bytes/s: {} Probe acks: {} Mean round-trip convergence: {} ms",
+                 updates.getAndSet(0), bytes.getAndSet(0), acked,
+                 acked == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(convergence / acked));
+    }
+
+    // Acknowledges probes written by other instances.
+    private class ProbeListener implements EventuallyConsistentMapListener<String, Long> {
+        @Override
+        public void event(EventuallyConsistentMapEvent<String, Long> event) {
+            String key = event.key();
+            if (event.type() == EventuallyConsistentMapEvent.Type.PUT &&
+                    key.startsWith(PROBE_PREFIX) &&
+                    !key.equals(PROBE_PREFIX + localNodeId.toString())) {
+                String origin = key.substring(PROBE_PREFIX.length());
+                acks.put(ACK_PREFIX + origin + "/" + localNodeId.toString(), event.value());
+            }
+        }
+    }
+
+    // Measures the round-trip time of acknowledgements for local probes.
+    private class AckListener implements EventuallyConsistentMapListener<String, Long> {
+        @Override
+        public void event(EventuallyConsistentMapEvent<String, Long> event) {
+            if (event.type() == EventuallyConsistentMapEvent.Type.PUT &&
+                    event.key().startsWith(ACK_PREFIX + localNodeId.toString() + "/") &&
+                    event.value() == probeSequence.get()) {
+                acksReceived.incrementAndGet();
+                convergenceNanos.addAndGet(System.nanoTime() - probeSentNanos);
+            }
+        }
+    }
+}
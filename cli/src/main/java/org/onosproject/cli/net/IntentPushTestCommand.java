@@ -84,6 +84,11 @@ public class IntentPushTestCommand extends AbstractShellCommand
             required = false, multiValued = false)
     private boolean withdrawOnly = false;
 
+    @Option(name = "-b", aliases = "--bulk",
+            description = "Submit or withdraw all intents in a single batch",
+            required = false, multiValued = false)
+    private boolean bulk = false;
+
     private IntentService service;
     private CountDownLatch latch;
     private volatile long start, end;
@@ -153,11 +158,19 @@ public class IntentPushTestCommand extends AbstractShellCommand
     private void submitIntents(List<Intent> intents) {
         latch = new CountDownLatch(count);
         start = System.currentTimeMillis();
-        for (Intent intent : intents) {
+        if (bulk) {
             if (add) {
-                service.submit(intent);
+                service.submitAll(intents);
             } else {
-                service.withdraw(intent);
+                service.withdrawAll(intents);
+            }
+        } else {
+            for (Intent intent : intents) {
+                if (add) {
+                    service.submit(intent);
+                } else {
+                    service.withdraw(intent);
+                }
             }
         }
 
@@ -34,7 +34,9 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
         description = "Lists information about partitions in the system")
 public class PartitionsListCommand extends AbstractShellCommand {
 
-    private static final String FMT = "%-20s %8s %25s %s";
+    private static final String FMT = "%-20s %8s %12s %12s %25s %s";
+    private static final String SEPARATOR =
+            "--------------------------------------------------------------------------------------";
 
     /**
      * Displays partition info as text.
@@ -42,24 +44,24 @@ public class PartitionsListCommand extends AbstractShellCommand {
      * @param partitionInfo partition descriptions
      */
     private void displayPartitions(List<PartitionInfo> partitionInfo) {
-        print("----------------------------------------------------------");
-        print(FMT, "Name", "Term", "Members", "");
-        print("----------------------------------------------------------");
+        print(SEPARATOR);
+        print(FMT, "Name", "Term", "Reads", "Writes", "Members", "");
+        print(SEPARATOR);
 
         for (PartitionInfo info : partitionInfo) {
             boolean first = true;
             for (String member : info.members()) {
                 if (first) {
-                    print(FMT, info.name(), info.term(), member,
+                    print(FMT, info.name(), info.term(), info.reads(), info.writes(), member,
                             member.equals(info.leader()) ? "*" : "");
                     first = false;
                 } else {
-                    print(FMT, "", "", member,
+                    print(FMT, "", "", "", "", member,
                             member.equals(info.leader()) ? "*" : "");
                 }
             }
             if (!first) {
-                print("----------------------------------------------------------");
+                print(SEPARATOR);
             }
         }
     }
@@ -87,7 +89,9 @@ public class PartitionsListCommand extends AbstractShellCommand {
                 // Complete the partition attributes and add it to the array
                 partition.put("name", info.name())
                          .put("term", info.term())
-                         .put("leader", info.leader());
+                         .put("leader", info.leader())
+                         .put("reads", info.reads())
+                         .put("writes", info.writes());
                 partitions.add(partition);
 
             });
@@ -15,6 +15,8 @@
  */
 package org.onosproject.event;
 
+import java.util.Set;
+
 /**
  * Abstraction of an entity capable of accepting events to be posted and
  * then dispatching them to the appropriate event sink.
@@ -35,4 +37,26 @@ public interface EventDeliveryService extends EventDispatcher, EventSinkRegistry
      */
     long getDispatchTimeLimit();
 
+    /**
+     * Configures how events are spread across dispatch lanes. When not
+     * partitioned, all events are delivered in order of posting through a
+     * single queue and thread. When partitioned, each event class gets its
+     * own bounded queue and dispatch thread, unless it is listed in one of
+     * the given groups, in which case it shares a lane with the other members
+     * of that group. In either mode, events of the same class are delivered
+     * in the order in which they were posted.
+     *
+     * @param partitioned true to dispatch through per-sink lanes
+     * @param groups      sets of event class names which share a lane;
+     *                    ignored unless partitioned
+     */
+    void setDispatchLanes(boolean partitioned, Set<Set<String>> groups);
+
+    /**
+     * Indicates whether events are dispatched through per-sink lanes.
+     *
+     * @return true if dispatch is partitioned into per-sink lanes
+     */
+    boolean isDispatchPartitioned();
+
 }
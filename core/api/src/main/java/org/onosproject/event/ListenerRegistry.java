@@ -15,12 +15,20 @@
  */
 package org.onosproject.event;
 
+import com.codahale.metrics.Timer;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.slf4j.Logger;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -37,6 +45,12 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
     private long lastStart;
     private L lastListener;
 
+    // Optional per-listener processing timers
+    private volatile MetricsService metricsService;
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+    private final Map<L, Timer> listenerTimers = new ConcurrentHashMap<>();
+
     /**
      * Set of listeners that have registered.
      */
@@ -54,11 +68,31 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
         if (!listeners.remove(listener)) {
             log.warn("Listener {} not registered", listener);
         }
+        listenerTimers.remove(listener);
+    }
+
+    /**
+     * Enables tracking of the time each listener spends processing events.
+     * Timers are registered with the given metrics service under the
+     * specified component and feature, one per listener class.
+     *
+     * @param metricsService metrics service; null to disable tracking
+     * @param component      metrics component
+     * @param feature        metrics feature
+     */
+    public void enableListenerMetrics(MetricsService metricsService,
+                                      MetricsComponent component,
+                                      MetricsFeature feature) {
+        this.metricsComponent = component;
+        this.metricsFeature = feature;
+        this.listenerTimers.clear();
+        this.metricsService = metricsService;
     }
 
     @Override
     public void process(E event) {
         for (L listener : listeners) {
+            Timer.Context timer = startTimer(listenerTimer(listener));
             try {
                 lastListener = listener;
                 lastStart = System.currentTimeMillis();
@@ -68,10 +102,23 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
                 lastStart = 0;
             } catch (Exception error) {
                 reportProblem(event, error);
+            } finally {
+                stopTimer(timer);
             }
         }
     }
 
+    // Returns the processing timer for the given listener, if tracking is on.
+    private Timer listenerTimer(L listener) {
+        MetricsService service = metricsService;
+        if (service == null) {
+            return null;
+        }
+        return listenerTimers.computeIfAbsent(listener, l ->
+                service.createTimer(metricsComponent, metricsFeature,
+                                    l.getClass().getName()));
+    }
+
     @Override
     public void onProcessLimit() {
         if (lastStart > 0) {
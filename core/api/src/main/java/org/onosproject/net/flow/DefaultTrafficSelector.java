@@ -35,19 +35,29 @@ import org.onosproject.net.flow.criteria.Criterion;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 /**
  * Default traffic selector implementation.
+ * <p>
+ * Selectors are interned: all equal selectors built through the builder
+ * share one instance, so that the many flow rules matching alike do not each
+ * hold their own copy of the criteria.
+ * </p>
  */
 public final class DefaultTrafficSelector implements TrafficSelector {
 
     private static final Comparator<? super Criterion> TYPE_COMPARATOR =
             (c1, c2) -> c1.type().compareTo(c2.type());
 
+    private static final Interner<DefaultTrafficSelector> INTERNER = Interners.newWeakInterner();
+
     private final Set<Criterion> criteria;
+    private final int hash;
 
     private static final TrafficSelector EMPTY
-            = new DefaultTrafficSelector(Collections.emptySet());
+            = INTERNER.intern(new DefaultTrafficSelector(Collections.emptySet()));
 
     /**
      * Creates a new traffic selector with the specified criteria.
@@ -58,6 +68,7 @@ public final class DefaultTrafficSelector implements TrafficSelector {
         TreeSet<Criterion> elements = new TreeSet<>(TYPE_COMPARATOR);
         elements.addAll(criteria);
         this.criteria = ImmutableSet.copyOf(elements);
+        this.hash = this.criteria.hashCode();
     }
 
     @Override
@@ -77,7 +88,7 @@ public final class DefaultTrafficSelector implements TrafficSelector {
 
     @Override
     public int hashCode() {
-        return criteria.hashCode();
+        return hash;
     }
 
     @Override
@@ -87,7 +98,7 @@ public final class DefaultTrafficSelector implements TrafficSelector {
         }
         if (obj instanceof DefaultTrafficSelector) {
             DefaultTrafficSelector that = (DefaultTrafficSelector) obj;
-            return Objects.equals(criteria, that.criteria);
+            return hash == that.hash && Objects.equals(criteria, that.criteria);
 
         }
         return false;
@@ -354,7 +365,7 @@ public final class DefaultTrafficSelector implements TrafficSelector {
 
         @Override
         public TrafficSelector build() {
-            return new DefaultTrafficSelector(ImmutableSet.copyOf(selector.values()));
+            return INTERNER.intern(new DefaultTrafficSelector(ImmutableSet.copyOf(selector.values())));
         }
     }
 }
@@ -37,13 +37,23 @@ import org.onosproject.net.meter.MeterId;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Lists;
 
 /**
  * Default traffic treatment implementation.
+ * <p>
+ * Treatments are interned: equal treatments built through the builder
+ * share one instance, so that the many flow rules acting alike do not each
+ * hold their own copy of the instructions. Treatments clearing the deferred
+ * instructions or applying a meter are left out.
+ * </p>
  */
 public final class DefaultTrafficTreatment implements TrafficTreatment {
 
+    private static final Interner<DefaultTrafficTreatment> INTERNER = Interners.newWeakInterner();
+
     private final List<Instruction> immediate;
     private final List<Instruction> deferred;
     private final List<Instruction> all;
@@ -53,9 +63,11 @@ public final class DefaultTrafficTreatment implements TrafficTreatment {
     private final boolean hasClear;
 
     private static final DefaultTrafficTreatment EMPTY
-            = new DefaultTrafficTreatment(ImmutableList.of(Instructions.createNoAction()));
+            = INTERNER.intern(new DefaultTrafficTreatment(ImmutableList.of(Instructions.createNoAction())));
     private final Instructions.MeterInstruction meter;
 
+    private final int hash;
+
     /**
      * Creates a new traffic treatment from the specified list of instructions.
      *
@@ -69,6 +81,7 @@ public final class DefaultTrafficTreatment implements TrafficTreatment {
         this.table = null;
         this.meta = null;
         this.meter = null;
+        this.hash = computeHash();
     }
 
     /**
@@ -87,14 +100,21 @@ public final class DefaultTrafficTreatment implements TrafficTreatment {
                                    Instructions.MeterInstruction meter) {
         this.immediate = ImmutableList.copyOf(checkNotNull(immediate));
         this.deferred = ImmutableList.copyOf(checkNotNull(deferred));
-        this.all = new ImmutableList.Builder<Instruction>()
-                .addAll(immediate)
-                .addAll(deferred)
-                .build();
+        // without deferred instructions, all of them are the immediate ones
+        this.all = this.deferred.isEmpty() ? this.immediate :
+                new ImmutableList.Builder<Instruction>()
+                        .addAll(immediate)
+                        .addAll(deferred)
+                        .build();
         this.table = table;
         this.meta = meta;
         this.hasClear = clear;
         this.meter = meter;
+        this.hash = computeHash();
+    }
+
+    private int computeHash() {
+        return Objects.hash(immediate, deferred, table, meta);
     }
 
     @Override
@@ -164,7 +184,7 @@ public final class DefaultTrafficTreatment implements TrafficTreatment {
     //FIXME: Order of instructions may affect hashcode
     @Override
     public int hashCode() {
-        return Objects.hash(immediate, deferred, table, meta);
+        return hash;
     }
 
     @Override
@@ -174,7 +194,8 @@ public final class DefaultTrafficTreatment implements TrafficTreatment {
         }
         if (obj instanceof DefaultTrafficTreatment) {
             DefaultTrafficTreatment that = (DefaultTrafficTreatment) obj;
-            return Objects.equals(immediate, that.immediate) &&
+            return hash == that.hash &&
+                    Objects.equals(immediate, that.immediate) &&
                     Objects.equals(deferred, that.deferred) &&
                     Objects.equals(table, that.table) &&
                     Objects.equals(meta, that.meta);
@@ -496,7 +517,11 @@ public final class DefaultTrafficTreatment implements TrafficTreatment {
                 immediate();
                 noAction();
             }
-            return new DefaultTrafficTreatment(deferred, immediate, table, clear, meta, meter);
+            DefaultTrafficTreatment treatment =
+                    new DefaultTrafficTreatment(deferred, immediate, table, clear, meta, meter);
+            // equality leaves out clearing and metering, which switches do
+            // not always report back, so such treatments are not shared
+            return clear || meter != null ? treatment : INTERNER.intern(treatment);
         }
 
     }
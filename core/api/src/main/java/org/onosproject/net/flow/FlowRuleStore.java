@@ -15,8 +15,11 @@
  */
 package org.onosproject.net.flow;
 
+import java.util.Collection;
 import java.util.List;
 
+import com.google.common.collect.Lists;
+
 import org.onosproject.net.DeviceId;
 import org.onosproject.store.Store;
 
@@ -90,6 +93,25 @@ public interface FlowRuleStore extends Store<FlowRuleBatchEvent, FlowRuleStoreDe
      */
     FlowRuleEvent addOrUpdateFlowRule(FlowEntry rule);
 
+    /**
+     * Stores new flow rules, or updates existing entries, of a single device
+     * in bulk; typically all entries of one flow statistics reply.
+     *
+     * @param deviceId device the rules belong to
+     * @param rules the flow rules to add or update
+     * @return events generated for the rules; empty if just updates
+     */
+    default List<FlowRuleEvent> addOrUpdateFlowRules(DeviceId deviceId, Collection<FlowEntry> rules) {
+        List<FlowRuleEvent> events = Lists.newArrayList();
+        for (FlowEntry rule : rules) {
+            FlowRuleEvent event = addOrUpdateFlowRule(rule);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
     /**
      * @param rule the flow entry to remove
      * @return flow_removed event, or null if nothing removed
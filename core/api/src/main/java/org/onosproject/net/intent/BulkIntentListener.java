@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableMap;
+import org.onlab.util.SharedExecutors;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Intent listener that tracks a bulk intent request until every intent of
+ * the request has reached a final state, and reports the final state of each
+ * through a single future.
+ * <p>
+ * Intents may never reach a final state, for instance when they are
+ * withdrawn while not installed, so the listener stops waiting after a
+ * timeout and reports the last state seen for each intent still pending.
+ * </p>
+ */
+@Beta
+public final class BulkIntentListener implements IntentListener {
+
+    private static final Set<IntentState> INSTALL_STATES =
+            EnumSet.of(IntentState.INSTALLED, IntentState.FAILED, IntentState.CORRUPT);
+    private static final Set<IntentState> WITHDRAW_STATES =
+            EnumSet.of(IntentState.WITHDRAWN, IntentState.FAILED, IntentState.CORRUPT);
+
+    /**
+     * Default time, in milliseconds, the listener waits for the intents to
+     * reach a final state.
+     */
+    public static final long DEFAULT_TIMEOUT_MS = 60_000;
+
+    private final Set<IntentState> finalStates;
+    private final Set<Key> pending = ConcurrentHashMap.newKeySet();
+    private final Map<Key, IntentState> results = new ConcurrentHashMap<>();
+    private final CompletableFuture<Map<Key, IntentState>> future = new CompletableFuture<>();
+
+    private BulkIntentListener(Collection<Intent> intents, IntentState request,
+                               Set<IntentState> finalStates) {
+        checkNotNull(intents, "Intents cannot be null");
+        this.finalStates = finalStates;
+        intents.forEach(intent -> {
+            pending.add(intent.key());
+            results.put(intent.key(), request);
+        });
+        completeIfDone();
+    }
+
+    /**
+     * Creates a listener tracking the submission of the given intents; each
+     * completes once installed, failed or corrupt.
+     *
+     * @param intents intents being submitted
+     * @return bulk intent listener
+     */
+    public static BulkIntentListener forSubmit(Collection<Intent> intents) {
+        return new BulkIntentListener(intents, IntentState.INSTALL_REQ, INSTALL_STATES);
+    }
+
+    /**
+     * Creates a listener tracking the withdrawal of the given intents; each
+     * completes once withdrawn, failed or corrupt.
+     *
+     * @param intents intents being withdrawn
+     * @return bulk intent listener
+     */
+    public static BulkIntentListener forWithdraw(Collection<Intent> intents) {
+        return new BulkIntentListener(intents, IntentState.WITHDRAW_REQ, WITHDRAW_STATES);
+    }
+
+    /**
+     * Returns the future completed with the final state of each intent,
+     * keyed by intent key, once all intents reached a final state, or with
+     * the last state seen for the intents still pending once timed out.
+     *
+     * @return future of the per-intent results
+     */
+    public CompletableFuture<Map<Key, IntentState>> future() {
+        return future;
+    }
+
+    /**
+     * Starts the timeout after which the future completes even if some
+     * intents have not reached a final state.
+     *
+     * @param timeoutMillis timeout in milliseconds
+     * @return this listener
+     */
+    public BulkIntentListener startTimeout(long timeoutMillis) {
+        checkArgument(timeoutMillis > 0, "Timeout must be positive");
+        TimerTask task = new TimerTask() {
+            @Override
+            public void run() {
+                expire();
+            }
+        };
+        future.whenComplete((results, error) -> task.cancel());
+        if (!future.isDone()) {
+            SharedExecutors.getTimer().schedule(task, timeoutMillis);
+        }
+        return this;
+    }
+
+    /**
+     * Completes the future right away, reporting the last state seen for
+     * the intents still pending.
+     */
+    public void expire() {
+        pending.clear();
+        completeIfDone();
+    }
+
+    @Override
+    public void event(IntentEvent event) {
+        IntentState state = state(event.type());
+        Key key = event.subject().key();
+        if (state == null || !pending.contains(key)) {
+            return;
+        }
+        results.put(key, state);
+        if (finalStates.contains(state) && pending.remove(key)) {
+            completeIfDone();
+        }
+    }
+
+    private void completeIfDone() {
+        if (pending.isEmpty() && !future.isDone()) {
+            future.complete(ImmutableMap.copyOf(results));
+        }
+    }
+
+    // Returns the intent state signalled by the given event type.
+    private static IntentState state(IntentEvent.Type type) {
+        switch (type) {
+            case INSTALL_REQ:
+                return IntentState.INSTALL_REQ;
+            case WITHDRAW_REQ:
+                return IntentState.WITHDRAW_REQ;
+            case INSTALLED:
+                return IntentState.INSTALLED;
+            case WITHDRAWN:
+                return IntentState.WITHDRAWN;
+            case FAILED:
+                return IntentState.FAILED;
+            case CORRUPT:
+                return IntentState.CORRUPT;
+            default:
+                return null;
+        }
+    }
+}
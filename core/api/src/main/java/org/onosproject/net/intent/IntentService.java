@@ -19,7 +19,10 @@ package org.onosproject.net.intent;
 import com.google.common.annotations.Beta;
 import org.onosproject.event.ListenerService;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for application submitting or withdrawing their intents.
@@ -48,6 +51,46 @@ public interface IntentService
      */
     void withdraw(Intent intent);
 
+    /**
+     * Submits a batch of intents into the system at once.
+     * <p>
+     * This is an asynchronous request; the returned future completes once
+     * every intent has been either installed or has failed, or once the
+     * bulk request timed out.
+     * </p>
+     *
+     * @param intents intents to be submitted
+     * @return future of the final state of each intent, keyed by intent key
+     */
+    default CompletableFuture<Map<Key, IntentState>> submitAll(Collection<Intent> intents) {
+        BulkIntentListener listener = BulkIntentListener.forSubmit(intents);
+        addListener(listener);
+        listener.future().whenComplete((results, error) -> removeListener(listener));
+        intents.forEach(this::submit);
+        listener.startTimeout(BulkIntentListener.DEFAULT_TIMEOUT_MS);
+        return listener.future();
+    }
+
+    /**
+     * Withdraws a batch of intents from the system at once.
+     * <p>
+     * This is an asynchronous request; the returned future completes once
+     * every intent has been either withdrawn or has failed, or once the
+     * bulk request timed out.
+     * </p>
+     *
+     * @param intents intents to be withdrawn
+     * @return future of the final state of each intent, keyed by intent key
+     */
+    default CompletableFuture<Map<Key, IntentState>> withdrawAll(Collection<Intent> intents) {
+        BulkIntentListener listener = BulkIntentListener.forWithdraw(intents);
+        addListener(listener);
+        listener.future().whenComplete((results, error) -> removeListener(listener));
+        intents.forEach(this::withdraw);
+        listener.startTimeout(BulkIntentListener.DEFAULT_TIMEOUT_MS);
+        return listener.future();
+    }
+
     /**
      * Purges a specific intent from the system if it is <b>FAILED</b> or
      * <b>WITHDRAWN</b>. Otherwise, the intent remains in its current state.
@@ -18,6 +18,7 @@ package org.onosproject.net.intent;
 import com.google.common.annotations.Beta;
 import org.onosproject.store.Store;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -106,6 +107,16 @@ public interface IntentStore extends Store<IntentEvent, IntentStoreDelegate> {
      */
     void addPending(IntentData intent);
 
+    /**
+     * Adds a batch of new operations, which should be persisted and
+     * delegated, in a single write.
+     *
+     * @param intents operations
+     */
+    default void batchAddPending(Collection<IntentData> intents) {
+        intents.forEach(this::addPending);
+    }
+
     /**
      * Checks to see whether the calling instance is the master for processing
      * this intent, or more specifically, the key contained in this intent.
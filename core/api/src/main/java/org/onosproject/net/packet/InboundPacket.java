@@ -17,6 +17,7 @@ package org.onosproject.net.packet;
 
 import org.onosproject.net.ConnectPoint;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.PacketView;
 
 import java.nio.ByteBuffer;
 
@@ -47,4 +48,15 @@ public interface InboundPacket {
      */
     ByteBuffer unparsed();
 
+    /**
+     * Returns a lazily decoded, read-only view of the unparsed packet data.
+     * Processors that only inspect a few header fields should prefer it
+     * over {@link #parsed()}, which decodes the complete packet.
+     *
+     * @return packet view
+     */
+    default PacketView view() {
+        return PacketView.wrap(unparsed());
+    }
+
 }
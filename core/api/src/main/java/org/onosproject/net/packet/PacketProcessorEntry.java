@@ -15,6 +15,9 @@
  */
 package org.onosproject.net.packet;
 
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.TrafficSelector;
+
 /**
  * Packet processor entry tracking the processor, its priority and
  * time consumption.
@@ -55,4 +58,23 @@ public interface PacketProcessorEntry {
      * @return average time in nanos
      */
     long averageNanos();
+
+    /**
+     * Returns the selector the packets given to the processor must match.
+     *
+     * @return packet selector; empty if the processor sees all packets
+     */
+    default TrafficSelector selector() {
+        return DefaultTrafficSelector.emptySelector();
+    }
+
+    /**
+     * Returns whether the processor runs asynchronously to the thread
+     * delivering the packets.
+     *
+     * @return true if asynchronous
+     */
+    default boolean isAsync() {
+        return false;
+    }
 }
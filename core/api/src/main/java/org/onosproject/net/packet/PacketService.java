@@ -41,7 +41,36 @@ public interface PacketService {
      */
     void addProcessor(PacketProcessor processor, int priority);
 
-    // TODO allow processors to register for particular types of packets
+    /**
+     * Adds the specified processor to the list of packet processors, to be
+     * given only the packets matching the specified selector.
+     * <p>
+     * A synchronous processor runs on the thread delivering the packet, in
+     * priority order. An asynchronous processor runs on an executor chosen
+     * by the connect point the packet was received on, after all
+     * synchronous processors have seen the packet; packets received on the
+     * same connect point reach it in order. Asynchronous execution suits
+     * processors that only observe packets or whose work does not need to
+     * complete before lower priority processors run. An asynchronous
+     * processor gets a read-only view of the packet context: it cannot send
+     * or block the packet, but may emit packets through this service.
+     * <p>
+     * The default implementation ignores the selector and the execution
+     * mode.
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param selector  selector the packets must match; criteria that
+     *                  cannot be evaluated against the parsed packet
+     *                  are considered matched
+     * @param async     true to process packets asynchronously
+     * @throws java.lang.IllegalArgumentException if a processor with the
+     *                                            given priority already exists
+     */
+    default void addProcessor(PacketProcessor processor, int priority,
+                              TrafficSelector selector, boolean async) {
+        addProcessor(processor, priority);
+    }
 
     /**
      * Removes the specified processor from the processing pipeline.
@@ -16,8 +16,10 @@
 
 package org.onosproject.net.statistic;
 
+import org.onlab.util.RollupTimeSeries.Resolution;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.flow.TypedStoredFlowEntry;
 import org.onosproject.net.flow.instructions.Instruction;
@@ -31,6 +33,13 @@ import java.util.Map;
  */
 public interface FlowStatisticService {
 
+    /**
+     * Flow counters kept in the statistics history.
+     */
+    enum MetricType {
+        BYTES, PACKETS
+    }
+
     /**
      * Obtain the summary load list for the device with the given link.
      *
@@ -101,6 +110,26 @@ public interface FlowStatisticService {
                                                 TypedStoredFlowEntry.FlowLiveType liveType,
                                                 Instruction.Type instType,
                                                 int topn);
+
+    /**
+     * Obtain the history of the flow counters of a device, as the increase
+     * of the counter summed over all flows of the device in each interval of
+     * the given resolution overlapping the time range. The history is
+     * recorded from the flow statistics already collected, without polling
+     * the device.
+     *
+     * @param deviceId   the device to query
+     * @param metricType counter to query
+     * @param resolution interval resolution
+     * @param fromMillis start of the time range, in milliseconds
+     * @param toMillis   end of the time range, exclusive, in milliseconds
+     * @return counter increase per interval, starting with the interval
+     * containing the start of the range; empty if the device is not known
+     * @throws IllegalArgumentException if the range spans more intervals
+     * than are kept at the given resolution
+     */
+    long[] history(DeviceId deviceId, MetricType metricType,
+                   Resolution resolution, long fromMillis, long toMillis);
 }
 
 
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.statistic;
+
+import org.onlab.util.RollupTimeSeries.Resolution;
+import org.onosproject.net.ConnectPoint;
+
+/**
+ * Service for obtaining the history of the port counters in the system.
+ * The history is recorded from the port statistics already reported by the
+ * devices, without polling them.
+ */
+public interface PortStatisticHistoryService {
+
+    /**
+     * Port counters kept in the statistics history.
+     */
+    enum MetricType {
+        BYTES_SENT, BYTES_RECEIVED, PACKETS_SENT, PACKETS_RECEIVED
+    }
+
+    /**
+     * Obtain the history of a port counter, as the increase of the counter
+     * in each interval of the given resolution overlapping the time range.
+     *
+     * @param connectPoint the port to query
+     * @param metricType   counter to query
+     * @param resolution   interval resolution
+     * @param fromMillis   start of the time range, in milliseconds
+     * @param toMillis     end of the time range, exclusive, in milliseconds
+     * @return counter increase per interval, starting with the interval
+     * containing the start of the range; empty if the port is not known
+     * @throws IllegalArgumentException if the range spans more intervals
+     * than are kept at the given resolution
+     */
+    long[] history(ConnectPoint connectPoint, MetricType metricType,
+                   Resolution resolution, long fromMillis, long toMillis);
+}
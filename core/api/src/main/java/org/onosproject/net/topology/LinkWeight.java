@@ -22,4 +22,16 @@ import org.onlab.graph.EdgeWeight;
  * graph edge.
  */
 public interface LinkWeight extends EdgeWeight<TopologyVertex, TopologyEdge> {
+
+    /**
+     * Indicates whether paths computed with this weight may be cached and
+     * reused for as long as the topology does not change. Only a weight
+     * that depends on nothing but the edge it is given should say so;
+     * cached paths are found again only through the same weight instance.
+     *
+     * @return true if paths computed with this weight may be cached
+     */
+    default boolean isCacheable() {
+        return false;
+    }
 }
@@ -15,10 +15,13 @@
  */
 package org.onosproject.store.cluster.messaging;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -157,6 +160,83 @@ public interface ClusterCommunicationService {
                            Consumer<M> handler,
                            Executor executor);
 
+    /**
+     * Sends a message to the specified controller node, serializing it
+     * directly into the transport buffer.
+     * <p>
+     * Messages sent this way carry no cluster message envelope and must be
+     * received by a subscriber added via
+     * {@link #addDirectSubscriber(MessageSubject, Function, Consumer, Executor)}.
+     * The encoder is invoked once and writes the message into a stream over
+     * the transport buffer, which grows as needed.
+     *
+     * @param message message to send
+     * @param subject message subject
+     * @param encoder function for writing message into a stream
+     * @param toNodeId destination node identifier
+     * @param <M> message type
+     * @return future that is completed when the message is sent
+     */
+    <M> CompletableFuture<Void> unicastDirect(M message,
+                                              MessageSubject subject,
+                                              BiConsumer<M, OutputStream> encoder,
+                                              NodeId toNodeId);
+
+    /**
+     * Sends a message, serializing it directly into the transport buffer,
+     * and expects a reply.
+     *
+     * @param message message to send
+     * @param subject message subject
+     * @param encoder function for writing request into a stream
+     * @param decoder function for decoding response from byte[]
+     * @param toNodeId recipient node identifier
+     * @param <M> request type
+     * @param <R> reply type
+     * @return reply future
+     * @see #unicastDirect(Object, MessageSubject, BiConsumer, NodeId)
+     */
+    <M, R> CompletableFuture<R> sendAndReceiveDirect(M message,
+                                                     MessageSubject subject,
+                                                     BiConsumer<M, OutputStream> encoder,
+                                                     Function<byte[], R> decoder,
+                                                     NodeId toNodeId);
+
+    /**
+     * Adds a new subscriber for messages sent directly, decoding them
+     * straight from the receive buffer.
+     *
+     * @param subject message subject
+     * @param decoder decoder for resurrecting incoming message; the buffer
+     *                is only valid for the duration of the call
+     * @param handler handler for handling message
+     * @param executor executor to run this handler on
+     * @param <M> incoming message type
+     */
+    <M> void addDirectSubscriber(MessageSubject subject,
+                                 Function<ByteBuffer, M> decoder,
+                                 Consumer<M> handler,
+                                 Executor executor);
+
+    /**
+     * Adds a new subscriber for messages sent directly, decoding them
+     * straight from the receive buffer.
+     *
+     * @param subject message subject
+     * @param decoder decoder for resurrecting incoming message; the buffer
+     *                is only valid for the duration of the call
+     * @param handler handler function that processes the incoming message and produces a reply
+     * @param encoder encoder for serializing reply
+     * @param executor executor to run this handler on
+     * @param <M> incoming message type
+     * @param <R> reply message type
+     */
+    <M, R> void addDirectSubscriber(MessageSubject subject,
+                                    Function<ByteBuffer, M> decoder,
+                                    Function<M, R> handler,
+                                    Function<R, byte[]> encoder,
+                                    Executor executor);
+
     /**
      * Removes a subscriber for the specified message subject.
      *
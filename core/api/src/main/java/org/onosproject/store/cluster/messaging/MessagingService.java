@@ -15,16 +15,31 @@
  */
 package org.onosproject.store.cluster.messaging;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.onlab.util.Tools;
+
 /**
  * Interface for low level messaging primitives.
  */
 public interface MessagingService {
 
+    /**
+     * Initial capacity of buffers that payload writers write into.
+     */
+    int DEFAULT_PAYLOAD_CAPACITY = 4096;
+
+    /**
+     * Largest payload that a payload writer may produce.
+     */
+    int MAX_PAYLOAD_CAPACITY = 100 * 1000 * 1000;
+
     /**
      * Sends a message asynchronously to the specified communication end point.
      * The message is specified using the type and payload.
@@ -44,6 +59,50 @@ public interface MessagingService {
      */
     CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload);
 
+    /**
+     * Sends a message asynchronously to the specified communication end point,
+     * letting the payload be written straight into a transport buffer.
+     * <p>
+     * The writer is invoked once; the stream grows as the payload is
+     * written, up to {@link #MAX_PAYLOAD_CAPACITY} bytes. The default
+     * implementation writes into a heap array and delegates to
+     * {@link #sendAsync(Endpoint, String, byte[])}.
+     *
+     * @param ep end point to send the message to.
+     * @param type type of message.
+     * @param payloadWriter function writing the payload into a stream
+     * @return future that is completed when the message is sent
+     */
+    default CompletableFuture<Void> sendAsync(Endpoint ep, String type, Consumer<OutputStream> payloadWriter) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(DEFAULT_PAYLOAD_CAPACITY);
+            payloadWriter.accept(payload);
+            return sendAsync(ep, type, payload.toByteArray());
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
+    /**
+     * Sends a message and waits for a response, letting the payload be
+     * written straight into a transport buffer.
+     *
+     * @param ep end point to send the message to.
+     * @param type type of message.
+     * @param payloadWriter function writing the payload into a stream
+     * @return a response future
+     * @see #sendAsync(Endpoint, String, Consumer)
+     */
+    default CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, Consumer<OutputStream> payloadWriter) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(DEFAULT_PAYLOAD_CAPACITY);
+            payloadWriter.accept(payload);
+            return sendAndReceive(ep, type, payload.toByteArray());
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
     /**
      * Registers a new message handler for message type.
      * @param type message type.
@@ -52,6 +111,34 @@ public interface MessagingService {
      */
     void registerHandler(String type, Consumer<byte[]> handler, Executor executor);
 
+    /**
+     * Registers a new message handler for message type that reads the payload
+     * directly from the receive buffer. The buffer is only valid for the
+     * duration of the handler call.
+     *
+     * @param type message type.
+     * @param handler message handler
+     * @param executor executor to use for running message handler logic.
+     */
+    default void registerBufferHandler(String type, Consumer<ByteBuffer> handler, Executor executor) {
+        Consumer<byte[]> arrayHandler = bytes -> handler.accept(ByteBuffer.wrap(bytes));
+        registerHandler(type, arrayHandler, executor);
+    }
+
+    /**
+     * Registers a new message handler for message type that reads the payload
+     * directly from the receive buffer. The buffer is only valid for the
+     * duration of the handler call.
+     *
+     * @param type message type.
+     * @param handler message handler
+     * @param executor executor to use for running message handler logic.
+     */
+    default void registerBufferHandler(String type, Function<ByteBuffer, byte[]> handler, Executor executor) {
+        Function<byte[], byte[]> arrayHandler = bytes -> handler.apply(ByteBuffer.wrap(bytes));
+        registerHandler(type, arrayHandler, executor);
+    }
+
     /**
      * Registers a new message handler for message type.
      * @param type message type.
@@ -55,6 +55,23 @@ public interface AtomicCounterBuilder {
      */
     AtomicCounterBuilder withMeteringDisabled();
 
+    /**
+     * Makes the counter reserve ranges of values and hand them out locally,
+     * so that most increments complete without a round trip to the cluster.
+     * <p>
+     * Values remain unique across the cluster, but instances hand them out
+     * from different ranges at the same time, and values reserved but left
+     * unused by an instance are skipped.
+     * </p>
+     * <p>
+     * Note: By default every increment is applied to the shared counter.
+     * </p>
+     *
+     * @param rangeSize number of values reserved at a time
+     * @return this AtomicCounterBuilder
+     */
+    AtomicCounterBuilder withRangeReservation(int rangeSize);
+
     /**
      * Builds a AtomicCounter based on the configuration options
      * supplied to this builder.
@@ -86,6 +86,36 @@ public interface ConsistentMap<K, V> {
      */
     Versioned<V> get(K key);
 
+    /**
+     * Returns the value (and version) to which the specified key is mapped, or null if this
+     * map contains no mapping for the key, as known locally in a version no older than the
+     * given one; if no such version is known locally, the value is read as by
+     * {@link #getLinearizable(Object)}. Only differs from {@link #get(Object)} for maps
+     * built with relaxed read consistency.
+     *
+     * @param key the key whose associated value (and version) is to be returned
+     * @param minVersion minimum version of the value, such as one returned by an update
+     * @return the value (and version) to which the specified key is mapped, or null if
+     * this map contains no mapping for the key
+     */
+    default Versioned<V> getAtLeast(K key, long minVersion) {
+        return get(key);
+    }
+
+    /**
+     * Returns the value (and version) to which the specified key is mapped, or null if this
+     * map contains no mapping for the key, bypassing any local cache of the map so that the
+     * value reflects all updates completed before the read. Only differs from
+     * {@link #get(Object)} for maps built with relaxed read consistency.
+     *
+     * @param key the key whose associated value (and version) is to be returned
+     * @return the value (and version) to which the specified key is mapped, or null if
+     * this map contains no mapping for the key
+     */
+    default Versioned<V> getLinearizable(K key) {
+        return get(key);
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null),
      * attempts to compute its value using the given mapping function and enters it into
@@ -123,6 +123,19 @@ public interface ConsistentMapBuilder<K, V> {
      */
     ConsistentMapBuilder<K, V> withRelaxedReadConsistency();
 
+    /**
+     * Provides weak consistency for map gets, served from a local cache of at most the
+     * given number of entries.
+     * <p>
+     * The cache is kept up to date by the map events of updates made anywhere in the
+     * cluster, so reads may lag updates by the delay of event delivery. Reads that must
+     * observe a given version or the latest value can use getAtLeast and getLinearizable.
+     *
+     * @param maxEntries maximum number of cached entries
+     * @return this ConsistentMapBuilder
+     */
+    ConsistentMapBuilder<K, V> withNearCache(int maxEntries);
+
     /**
      * Builds an consistent map based on the configuration options
      * supplied to this builder.
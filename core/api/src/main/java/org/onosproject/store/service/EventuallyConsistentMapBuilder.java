@@ -166,6 +166,32 @@ public interface EventuallyConsistentMapBuilder<K, V> {
      */
     EventuallyConsistentMapBuilder<K, V> withFasterConvergence();
 
+    /**
+     * Configure anti-entropy to advertise a fixed-size summary of hashed key
+     * buckets rather than a digest of every key. Peers then only exchange
+     * digests for the buckets that differ, making steady-state anti-entropy
+     * rounds cheap for maps with a large number of entries, at the cost of
+     * maintaining the bucket hashes on every update.
+     * <p>
+     * The default behavior is to advertise the digest of every key.
+     * </p>
+     *
+     * @return this EventuallyConsistentMapBuilder
+     */
+    EventuallyConsistentMapBuilder<K, V> withBucketedAntiEntropy();
+
+    /**
+     * Configure the map to compress large batches of updates sent to peers.
+     * All instances sharing the map must be configured alike, as compressed
+     * batches carry a header that uncompressed ones do not.
+     * <p>
+     * The default behavior is to send updates uncompressed.
+     * </p>
+     *
+     * @return this EventuallyConsistentMapBuilder
+     */
+    EventuallyConsistentMapBuilder<K, V> withCompression();
+
     /**
      * Configure the map to persist data to disk.
      * <p>
@@ -27,6 +27,8 @@ public class PartitionInfo {
     private final long term;
     private final List<String> members;
     private final String leader;
+    private final long reads;
+    private final long writes;
 
     /**
      * Class constructor.
@@ -37,10 +39,26 @@ public class PartitionInfo {
      * @param leader leader name
      */
     public PartitionInfo(String name, long term, List<String> members, String leader) {
+        this(name, term, members, leader, 0, 0);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param name partition name
+     * @param term term number
+     * @param members partition members
+     * @param leader leader name
+     * @param reads number of reads issued to the partition by this instance
+     * @param writes number of writes issued to the partition by this instance
+     */
+    public PartitionInfo(String name, long term, List<String> members, String leader, long reads, long writes) {
         this.name = name;
         this.term = term;
         this.members = ImmutableList.copyOf(members);
         this.leader = leader;
+        this.reads = reads;
+        this.writes = writes;
     }
 
     /**
@@ -78,4 +96,22 @@ public class PartitionInfo {
     public String leader() {
         return leader;
     }
+
+    /**
+     * Returns the number of reads issued to the partition by this instance.
+     *
+     * @return number of reads
+     */
+    public long reads() {
+        return reads;
+    }
+
+    /**
+     * Returns the number of writes issued to the partition by this instance.
+     *
+     * @return number of writes
+     */
+    public long writes() {
+        return writes;
+    }
 }
@@ -31,6 +31,16 @@ public class EventDeliveryServiceAdapter implements EventDeliveryService {
         return 0;
     }
 
+    @Override
+    public void setDispatchLanes(boolean partitioned, Set<Set<String>> groups) {
+
+    }
+
+    @Override
+    public boolean isDispatchPartitioned() {
+        return false;
+    }
+
     @Override
     public void post(Event event) {
 
@@ -38,6 +38,7 @@ import com.google.common.testing.EqualsTester;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.onlab.junit.ImmutableClassChecker.assertThatClassIsImmutable;
 import static org.onosproject.net.flow.criteria.Criterion.Type;
 
@@ -126,6 +127,24 @@ public class DefaultTrafficSelectorTest {
     }
 
 
+    /**
+     * Tests that equal selectors share one instance.
+     */
+    @Test
+    public void testInterning() {
+        final TrafficSelector selector1 = DefaultTrafficSelector.builder()
+                .matchInPort(PortNumber.portNumber(1))
+                .matchEthType((short) 0x800)
+                .build();
+        final TrafficSelector sameAsSelector1 = DefaultTrafficSelector.builder()
+                .matchEthType((short) 0x800)
+                .matchInPort(PortNumber.portNumber(1))
+                .build();
+        assertThat(sameAsSelector1, sameInstance(selector1));
+        assertThat(DefaultTrafficSelector.builder().build(),
+                   sameInstance(DefaultTrafficSelector.emptySelector()));
+    }
+
     /**
      * Tests the builder functions that add specific criteria.
      */
@@ -31,6 +31,8 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * Unit tests for the DefaultTrafficTreatment class.
@@ -121,4 +123,29 @@ public class DefaultTrafficTreatmentTest {
                 .addEqualityGroup(treatment2)
                 .testEquals();
     }
+
+    /**
+     * Tests that equal treatments share one instance, unless they clear the
+     * deferred instructions.
+     */
+    @Test
+    public void testInterning() {
+        final TrafficTreatment treatment1 =
+                DefaultTrafficTreatment.builder()
+                        .setOutput(PortNumber.portNumber(1))
+                        .build();
+        final TrafficTreatment sameAsTreatment1 =
+                DefaultTrafficTreatment.builder()
+                        .setOutput(PortNumber.portNumber(1))
+                        .build();
+        final TrafficTreatment clearing =
+                DefaultTrafficTreatment.builder()
+                        .setOutput(PortNumber.portNumber(1))
+                        .wipeDeferred()
+                        .build();
+        assertThat(sameAsTreatment1, sameInstance(treatment1));
+        assertThat(clearing, is(equalTo(treatment1)));
+        assertThat(clearing, not(sameInstance(treatment1)));
+        assertThat(clearing.clearedDeferred(), is(true));
+    }
 }
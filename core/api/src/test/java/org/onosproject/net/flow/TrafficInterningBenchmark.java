@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.flow;
+
+import com.google.common.collect.Sets;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.PortNumber;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+
+/**
+ * Auxiliary test fixture to measure the heap saved and the time spent by
+ * interning the traffic treatments and selectors of many flows.
+ * <p>
+ * Treatments that clear the deferred instructions are not interned, so
+ * building the same treatments with a clear gives the baseline without
+ * interning.
+ * </p>
+ * <p>
+ * Arguments: flow count, distinct treatments.
+ */
+public final class TrafficInterningBenchmark {
+
+    private TrafficInterningBenchmark() {
+    }
+
+    /**
+     * Main entry point to launch the benchmark.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) {
+        int flows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int distinct = args.length > 1 ? Integer.parseInt(args[1]) : 48;
+
+        measure("Treatments, not interned", flows, i -> treatment(i % distinct, true));
+        measure("Treatments, interned", flows, i -> treatment(i % distinct, false));
+        measure("Selectors, interned", flows, i -> DefaultTrafficSelector.builder()
+                .matchInPort(PortNumber.portNumber(i % distinct))
+                .matchEthDst(MacAddress.valueOf(i))
+                .build());
+    }
+
+    private static TrafficTreatment treatment(int port, boolean clear) {
+        TrafficTreatment.Builder builder = DefaultTrafficTreatment.builder()
+                .setEthDst(MacAddress.valueOf(port))
+                .setOutput(PortNumber.portNumber(port));
+        if (clear) {
+            builder.wipeDeferred();
+        }
+        return builder.build();
+    }
+
+    // Builds and retains the objects of all flows, then looks each one up
+    // in a hash set of them, as the flow tables do.
+    private static void measure(String label, int flows, IntFunction<Object> factory) {
+        Object[] retained = new Object[flows];
+        long base = usedHeap();
+        long start = nanoTime();
+        for (int i = 0; i < flows; i++) {
+            retained[i] = factory.apply(i);
+        }
+        long built = nanoTime() - start;
+        long heap = usedHeap() - base;
+
+        Set<Object> instances = Sets.newIdentityHashSet();
+        Set<Object> values = new HashSet<>();
+        for (Object object : retained) {
+            instances.add(object);
+            values.add(object);
+        }
+        start = nanoTime();
+        int found = 0;
+        for (Object object : retained) {
+            found += values.contains(object) ? 1 : 0;
+        }
+        long lookups = nanoTime() - start;
+
+        out.println(String.format("%s: %,d instances for %,d flows, %,d MB, %,.0f ns per build, " +
+                                          "%,.0f ns per lookup (%,d found)",
+                                  label, instances.size(), flows, heap >> 20,
+                                  (double) built / flows, (double) lookups / flows, found));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
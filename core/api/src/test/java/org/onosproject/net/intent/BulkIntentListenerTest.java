@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.core.IdGenerator;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.onosproject.net.intent.IntentTestsMocks.MockIntent;
+
+/**
+ * Unit tests for the bulk intent listener.
+ */
+public class BulkIntentListenerTest {
+
+    private IdGenerator idGenerator;
+    private Intent intent1;
+    private Intent intent2;
+
+    @Before
+    public void setUpTest() {
+        idGenerator = new MockIdGenerator();
+        Intent.bindIdGenerator(idGenerator);
+        intent1 = new MockIntent(1L);
+        intent2 = new MockIntent(2L);
+    }
+
+    @After
+    public void tearDownTest() {
+        Intent.unbindIdGenerator(idGenerator);
+    }
+
+    /**
+     * Tests that the future completes once all intents reached a final state.
+     */
+    @Test
+    public void submit() throws Exception {
+        BulkIntentListener listener = BulkIntentListener.forSubmit(ImmutableList.of(intent1, intent2));
+        listener.event(new IntentEvent(IntentEvent.Type.INSTALL_REQ, intent1));
+        listener.event(new IntentEvent(IntentEvent.Type.INSTALLED, intent1));
+        listener.event(new IntentEvent(IntentEvent.Type.WITHDRAWN, intent2));
+        assertThat(listener.future().isDone(), is(false));
+
+        listener.event(new IntentEvent(IntentEvent.Type.FAILED, intent2));
+        assertThat(listener.future().isDone(), is(true));
+        Map<Key, IntentState> results = listener.future().get();
+        assertThat(results.size(), is(2));
+        assertThat(results.get(intent1.key()), is(IntentState.INSTALLED));
+        assertThat(results.get(intent2.key()), is(IntentState.FAILED));
+    }
+
+    /**
+     * Tests that the future of withdrawals ignores installations.
+     */
+    @Test
+    public void withdraw() throws Exception {
+        BulkIntentListener listener = BulkIntentListener.forWithdraw(ImmutableList.of(intent1));
+        listener.event(new IntentEvent(IntentEvent.Type.INSTALLED, intent1));
+        assertThat(listener.future().isDone(), is(false));
+
+        listener.event(new IntentEvent(IntentEvent.Type.WITHDRAWN, intent1));
+        assertThat(listener.future().get().get(intent1.key()), is(IntentState.WITHDRAWN));
+    }
+
+    /**
+     * Tests that an expired listener reports the last state seen for the
+     * intents still pending.
+     */
+    @Test
+    public void expire() throws Exception {
+        BulkIntentListener listener = BulkIntentListener.forWithdraw(ImmutableList.of(intent1, intent2));
+        listener.event(new IntentEvent(IntentEvent.Type.WITHDRAWN, intent1));
+        listener.event(new IntentEvent(IntentEvent.Type.INSTALLED, intent2));
+        listener.expire();
+
+        Map<Key, IntentState> results = listener.future().get();
+        assertThat(results.get(intent1.key()), is(IntentState.WITHDRAWN));
+        assertThat(results.get(intent2.key()), is(IntentState.INSTALLED));
+    }
+
+    /**
+     * Tests that the future completes once the timeout elapsed, with the
+     * requested state for intents that produced no event.
+     */
+    @Test
+    public void timeout() throws Exception {
+        BulkIntentListener listener = BulkIntentListener.forSubmit(ImmutableList.of(intent1))
+                .startTimeout(10);
+        Map<Key, IntentState> results = listener.future().get(5, TimeUnit.SECONDS);
+        assertThat(results.get(intent1.key()), is(IntentState.INSTALL_REQ));
+    }
+
+    /**
+     * Tests that the future of an empty request completes right away.
+     */
+    @Test
+    public void empty() throws Exception {
+        BulkIntentListener listener = BulkIntentListener.forSubmit(Collections.emptyList());
+        assertThat(listener.future().get().isEmpty(), is(true));
+    }
+}
@@ -15,10 +15,13 @@
  */
 package org.onosproject.store.cluster.messaging;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -85,4 +88,29 @@ public class ClusterCommunicationServiceAdapter
                                   Executor executor) {
 
     }
+
+    @Override
+    public <M> CompletableFuture<Void> unicastDirect(M message, MessageSubject subject,
+                                                     BiConsumer<M, OutputStream> encoder, NodeId toNodeId) {
+        return null;
+    }
+
+    @Override
+    public <M, R> CompletableFuture<R> sendAndReceiveDirect(M message,
+                                                            MessageSubject subject, BiConsumer<M, OutputStream> encoder,
+                                                            Function<byte[], R> decoder, NodeId toNodeId) {
+        return null;
+    }
+
+    @Override
+    public <M> void addDirectSubscriber(MessageSubject subject,
+                                        Function<ByteBuffer, M> decoder, Consumer<M> handler,
+                                        Executor executor) {
+    }
+
+    @Override
+    public <M, R> void addDirectSubscriber(MessageSubject subject,
+                                           Function<ByteBuffer, M> decoder, Function<M, R> handler,
+                                           Function<R, byte[]> encoder, Executor executor) {
+    }
 }
@@ -82,6 +82,11 @@ public final class TestAtomicCounter implements AtomicCounter {
             return this;
         }
 
+        @Override
+        public AtomicCounterBuilder withRangeReservation(int rangeSize) {
+            return this;
+        }
+
         @Override
         public AsyncAtomicCounter buildAsyncCounter() {
             throw new UnsupportedOperationException("Async Counter is not supported");
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import org.onlab.graph.AdjacencyListsGraph;
+import org.onlab.graph.TarjanGraphSearch;
+import org.onlab.graph.TarjanGraphSearch.SCCResult;
+import org.onosproject.net.topology.LinkWeight;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+import org.onosproject.net.topology.TopologyVertex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Strongly connected clusters of a topology graph, either searched for in
+ * the whole graph or derived from the clusters of a previous graph.
+ * <p>
+ * When derived, only the clusters that the differences between the two
+ * graphs can affect are searched for again: clusters that lost a vertex or
+ * an internal edge, and clusters that new edges may have merged, i.e. those
+ * reachable from and reaching the end-points of edges added between
+ * clusters. All other clusters are carried over.
+ * </p>
+ */
+final class ClusterResults {
+
+    private static final TarjanGraphSearch<TopologyVertex, TopologyEdge> TARJAN = new TarjanGraphSearch<>();
+
+    // Beyond this share of dirty vertexes, searching the whole graph is cheaper.
+    private static final double MAX_DIRTY_SHARE = 0.5;
+
+    private final List<Set<TopologyVertex>> clusterVertexes;
+    private final List<Set<TopologyEdge>> clusterEdges;
+    private final int[] previousIndexes;
+
+    private ClusterResults(List<Set<TopologyVertex>> clusterVertexes,
+                           List<Set<TopologyEdge>> clusterEdges,
+                           int[] previousIndexes) {
+        this.clusterVertexes = clusterVertexes;
+        this.clusterEdges = clusterEdges;
+        this.previousIndexes = previousIndexes;
+    }
+
+    /**
+     * Searches for the clusters of the whole graph.
+     *
+     * @param graph  topology graph
+     * @param weight weight of edges; edges with negative weight do not
+     *               connect clusters
+     * @return cluster results
+     */
+    static ClusterResults search(TopologyGraph graph, LinkWeight weight) {
+        SCCResult<TopologyVertex, TopologyEdge> result = TARJAN.search(graph, weight);
+        int[] previousIndexes = new int[result.clusterCount()];
+        Arrays.fill(previousIndexes, -1);
+        return new ClusterResults(result.clusterVertexes(), result.clusterEdges(), previousIndexes);
+    }
+
+    /**
+     * Derives the clusters of a graph from those of a previous graph.
+     *
+     * @param previousGraph   previous topology graph
+     * @param previousResults clusters of the previous graph
+     * @param graph           topology graph
+     * @param weight          weight of edges; edges with negative weight do
+     *                        not connect clusters
+     * @return cluster results
+     */
+    static ClusterResults update(TopologyGraph previousGraph, ClusterResults previousResults,
+                                 TopologyGraph graph, LinkWeight weight) {
+        Map<TopologyVertex, Integer> previousIndex = new HashMap<>();
+        for (int i = 0; i < previousResults.clusterCount(); i++) {
+            for (TopologyVertex vertex : previousResults.clusterVertexes.get(i)) {
+                previousIndex.put(vertex, i);
+            }
+        }
+
+        Set<TopologyEdge> previousEdges = connectingEdges(previousGraph, weight);
+        Set<TopologyEdge> edges = connectingEdges(graph, weight);
+        Set<TopologyVertex> vertexes = graph.getVertexes();
+
+        // Clusters that lost a vertex or an internal edge may have split.
+        Set<Integer> dirtyClusters = new HashSet<>();
+        for (TopologyVertex vertex : previousGraph.getVertexes()) {
+            if (!vertexes.contains(vertex)) {
+                dirtyClusters.add(previousIndex.get(vertex));
+            }
+        }
+        for (TopologyEdge edge : Sets.difference(previousEdges, edges)) {
+            Integer index = previousIndex.get(edge.src());
+            if (index != null && index.equals(previousIndex.get(edge.dst()))) {
+                dirtyClusters.add(index);
+            }
+        }
+
+        // Edges added between clusters may have merged every cluster that
+        // lies both downstream of their destinations and upstream of their
+        // sources.
+        Set<TopologyVertex> sources = new HashSet<>();
+        Set<TopologyVertex> destinations = new HashSet<>();
+        for (TopologyEdge edge : Sets.difference(edges, previousEdges)) {
+            Integer index = previousIndex.get(edge.src());
+            if (index == null || !index.equals(previousIndex.get(edge.dst()))) {
+                sources.add(edge.src());
+                destinations.add(edge.dst());
+            }
+        }
+        Set<TopologyVertex> merged = Collections.emptySet();
+        if (!sources.isEmpty()) {
+            merged = reachable(destinations, graph::getEdgesFrom, TopologyEdge::dst, weight);
+            merged.retainAll(reachable(sources, graph::getEdgesTo, TopologyEdge::src, weight));
+        }
+
+        Set<TopologyVertex> dirtyVertexes = new HashSet<>();
+        for (TopologyVertex vertex : merged) {
+            Integer index = previousIndex.get(vertex);
+            if (index != null) {
+                dirtyClusters.add(index);
+            }
+        }
+        for (TopologyVertex vertex : vertexes) {
+            Integer index = previousIndex.get(vertex);
+            if (index == null || dirtyClusters.contains(index)) {
+                dirtyVertexes.add(vertex);
+            }
+        }
+
+        if (dirtyVertexes.size() > vertexes.size() * MAX_DIRTY_SHARE) {
+            return search(graph, weight);
+        }
+
+        // Carry over the clean clusters, refreshing their edges from the new
+        // graph, and search the dirty remainder.
+        List<Set<TopologyVertex>> clusterVertexes = new ArrayList<>();
+        List<Set<TopologyEdge>> clusterEdges = new ArrayList<>();
+        List<Integer> previousIndexes = new ArrayList<>();
+        for (int i = 0; i < previousResults.clusterCount(); i++) {
+            if (!dirtyClusters.contains(i)) {
+                Set<TopologyVertex> clusterSet = previousResults.clusterVertexes.get(i);
+                Set<TopologyEdge> edgeSet = internalEdges(graph, clusterSet);
+                clusterVertexes.add(clusterSet);
+                clusterEdges.add(edgeSet);
+                previousIndexes.add(sameEdges(edgeSet, previousResults.clusterEdges.get(i),
+                                              weight) ? i : -1);
+            }
+        }
+
+        if (!dirtyVertexes.isEmpty()) {
+            Set<TopologyEdge> dirtyEdges = new HashSet<>();
+            for (TopologyVertex vertex : dirtyVertexes) {
+                for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                    if (dirtyVertexes.contains(edge.dst())) {
+                        dirtyEdges.add(edge);
+                    }
+                }
+            }
+            SCCResult<TopologyVertex, TopologyEdge> result =
+                    TARJAN.search(new AdjacencyListsGraph<>(dirtyVertexes, dirtyEdges), weight);
+            for (int i = 0; i < result.clusterCount(); i++) {
+                clusterVertexes.add(result.clusterVertexes().get(i));
+                clusterEdges.add(result.clusterEdges().get(i));
+                previousIndexes.add(-1);
+            }
+        }
+
+        return new ClusterResults(ImmutableList.copyOf(clusterVertexes),
+                                  ImmutableList.copyOf(clusterEdges),
+                                  previousIndexes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Returns the number of clusters.
+     *
+     * @return cluster count
+     */
+    int clusterCount() {
+        return clusterVertexes.size();
+    }
+
+    /**
+     * Returns the vertexes of each cluster.
+     *
+     * @return list of cluster vertex sets
+     */
+    List<Set<TopologyVertex>> clusterVertexes() {
+        return clusterVertexes;
+    }
+
+    /**
+     * Returns the edges between the vertexes of each cluster.
+     *
+     * @return list of cluster edge sets
+     */
+    List<Set<TopologyEdge>> clusterEdges() {
+        return clusterEdges;
+    }
+
+    /**
+     * Returns the index the given cluster had in the previous results if it
+     * was carried over with the very same vertexes and edges.
+     *
+     * @param index cluster index
+     * @return previous cluster index; -1 if the cluster is new or changed
+     */
+    int previousIndex(int index) {
+        return previousIndexes[index];
+    }
+
+    // Returns the edges that connect clusters.
+    private static Set<TopologyEdge> connectingEdges(TopologyGraph graph, LinkWeight weight) {
+        Set<TopologyEdge> edges = new HashSet<>();
+        for (TopologyEdge edge : graph.getEdges()) {
+            if (weight.weight(edge) >= 0) {
+                edges.add(edge);
+            }
+        }
+        return edges;
+    }
+
+    // Returns all edges of the graph between vertexes of the given set.
+    private static Set<TopologyEdge> internalEdges(TopologyGraph graph, Set<TopologyVertex> vertexes) {
+        Set<TopologyEdge> edges = new HashSet<>();
+        for (TopologyVertex vertex : vertexes) {
+            for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                if (vertexes.contains(edge.dst())) {
+                    edges.add(edge);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    // Indicates whether two edge sets hold the same links with the same
+    // connecting weight; link equality alone disregards the link state.
+    private static boolean sameEdges(Set<TopologyEdge> edges, Set<TopologyEdge> previousEdges,
+                                     LinkWeight weight) {
+        if (!edges.equals(previousEdges)) {
+            return false;
+        }
+        Map<TopologyEdge, TopologyEdge> previous = new HashMap<>();
+        previousEdges.forEach(e -> previous.put(e, e));
+        for (TopologyEdge edge : edges) {
+            TopologyEdge other = previous.get(edge);
+            if (edge.link().state() != other.link().state() ||
+                    (weight.weight(edge) >= 0) != (weight.weight(other) >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the vertexes reachable from the given ones over connecting
+    // edges, walking in the direction given by the edge functions.
+    private static Set<TopologyVertex> reachable(Set<TopologyVertex> start,
+                                                 Function<TopologyVertex, Set<TopologyEdge>> edges,
+                                                 Function<TopologyEdge, TopologyVertex> next,
+                                                 LinkWeight weight) {
+        Set<TopologyVertex> visited = new HashSet<>(start);
+        Deque<TopologyVertex> queue = new ArrayDeque<>(start);
+        while (!queue.isEmpty()) {
+            for (TopologyEdge edge : edges.apply(queue.poll())) {
+                TopologyVertex vertex = next.apply(edge);
+                if (weight.weight(edge) >= 0 && visited.add(vertex)) {
+                    queue.add(vertex);
+                }
+            }
+        }
+        return visited;
+    }
+}
@@ -28,8 +28,6 @@ import org.onlab.graph.GraphPathSearch;
 import org.onlab.graph.GraphPathSearch.Result;
 import org.onlab.graph.SRLGGraphSearch;
 import org.onlab.graph.SuurballeGraphSearch;
-import org.onlab.graph.TarjanGraphSearch;
-import org.onlab.graph.TarjanGraphSearch.SCCResult;
 import org.onosproject.net.AbstractModel;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultDisjointPath;
@@ -72,9 +70,9 @@ import static org.onosproject.net.Link.Type.INDIRECT;
 public class DefaultTopology extends AbstractModel implements Topology {
 
     private static final DijkstraGraphSearch<TopologyVertex, TopologyEdge> DIJKSTRA = new DijkstraGraphSearch<>();
-    private static final TarjanGraphSearch<TopologyVertex, TopologyEdge> TARJAN = new TarjanGraphSearch<>();
     private static final SuurballeGraphSearch<TopologyVertex, TopologyEdge> SUURBALLE =
             new SuurballeGraphSearch<>();
+    private static final LinkWeight NO_INDIRECT_LINKS = new NoIndirectLinksWeight();
 
 
     private final long time;
@@ -83,13 +81,17 @@ public class DefaultTopology extends AbstractModel implements Topology {
     private final TopologyGraph graph;
 
     private final LinkWeight weight;
-    private final Supplier<SCCResult<TopologyVertex, TopologyEdge>> clusterResults;
+    private final Supplier<ClusterResults> clusterResults;
     private final Supplier<ImmutableMap<ClusterId, TopologyCluster>> clusters;
     private final Supplier<ImmutableSet<ConnectPoint>> infrastructurePoints;
     private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
 
+    // Broadcast sets of clusters carried over unchanged from the previous
+    // topology, by their index in this one.
+    private final Map<Integer, Set<ConnectPoint>> reusedBroadcastSets;
+
     /**
      * Creates a topology descriptor attributed to the specified provider.
      *
@@ -99,6 +101,24 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * deriving it from the given previous topology where possible. Only the
+     * clusters affected by the differences between the previous and the new
+     * graph are searched for again; unaffected clusters keep their broadcast
+     * sets. The new topology holds no reference to the previous one.
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null to compute from scratch
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -108,7 +128,15 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                                               description.edges());
 
-        this.clusterResults = Suppliers.memoize(() -> searchForClusters());
+        if (previous == null) {
+            this.clusterResults = Suppliers.memoize(() -> searchForClusters());
+            this.reusedBroadcastSets = ImmutableMap.of();
+        } else {
+            ClusterResults results = ClusterResults.update(previous.graph, previous.clusterResults.get(),
+                                                           graph, NO_INDIRECT_LINKS);
+            this.clusterResults = Suppliers.ofInstance(results);
+            this.reusedBroadcastSets = reusedBroadcastSets(results, previous);
+        }
         this.clusters = Suppliers.memoize(() -> buildTopologyClusters());
 
         this.clusterIndexes = Suppliers.memoize(() -> buildIndexes());
@@ -455,14 +483,28 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     // Searches for SCC clusters in the network topology graph using Tarjan
     // algorithm.
-    private SCCResult<TopologyVertex, TopologyEdge> searchForClusters() {
-        return TARJAN.search(graph, new NoIndirectLinksWeight());
+    private ClusterResults searchForClusters() {
+        return ClusterResults.search(graph, NO_INDIRECT_LINKS);
+    }
+
+    // Collects the broadcast sets of the clusters carried over unchanged
+    // from the previous topology.
+    private static Map<Integer, Set<ConnectPoint>> reusedBroadcastSets(ClusterResults results,
+                                                                       DefaultTopology previous) {
+        ImmutableMap.Builder<Integer, Set<ConnectPoint>> builder = ImmutableMap.builder();
+        for (int i = 0, n = results.clusterCount(); i < n; i++) {
+            int previousIndex = results.previousIndex(i);
+            if (previousIndex >= 0) {
+                builder.put(i, previous.broadcastPoints(ClusterId.clusterId(previousIndex)));
+            }
+        }
+        return builder.build();
     }
 
     // Builds the topology clusters and returns the id-cluster bindings.
     private ImmutableMap<ClusterId, TopologyCluster> buildTopologyClusters() {
         ImmutableMap.Builder<ClusterId, TopologyCluster> clusterBuilder = ImmutableMap.builder();
-        SCCResult<TopologyVertex, TopologyEdge> results = clusterResults.get();
+        ClusterResults results = clusterResults.get();
 
         // Extract both vertexes and edges from the results; the lists form
         // pairs along the same index.
@@ -502,7 +544,12 @@ public class DefaultTopology extends AbstractModel implements Topology {
         Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap
                 .builder();
         for (TopologyCluster cluster : clusters.get().values()) {
-            addClusterBroadcastSet(cluster, builder);
+            Set<ConnectPoint> reused = reusedBroadcastSets.get(cluster.id().index());
+            if (reused != null) {
+                builder.putAll(cluster.id(), reused);
+            } else {
+                addClusterBroadcastSet(cluster, builder);
+            }
         }
         return builder.build();
     }
@@ -33,6 +33,7 @@ import org.onosproject.net.topology.GraphDescription;
 import org.onosproject.net.topology.LinkWeight;
 import org.onosproject.net.topology.TopologyCluster;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import static com.google.common.collect.ImmutableSet.of;
@@ -120,6 +121,65 @@ public class DefaultTopologyTest {
         assertFalse("cluster should not contain D5", devs.contains(D5));
     }
 
+    @Test
+    public void incrementalUpdate() {
+        // Ten pods of four devices connected in bi-directional rings.
+        Set<Device> devices = new HashSet<>();
+        Set<Link> links = new HashSet<>();
+        for (int p = 0; p < 10; p++) {
+            for (int i = 0; i < 4; i++) {
+                String a = Integer.toString(p * 4 + i + 1);
+                String b = Integer.toString(p * 4 + (i + 1) % 4 + 1);
+                devices.add(device(a));
+                links.add(link(a, 1, b, 2));
+                links.add(link(b, 2, a, 1));
+            }
+        }
+        DefaultTopology previous = topology(devices, links, null);
+        assertEquals("incorrect cluster count", 10, previous.clusterCount());
+
+        // Cutting a ring keeps its pod together.
+        links.remove(link("1", 1, "2", 2));
+        links.remove(link("2", 2, "1", 1));
+        previous = assertSameClusters(topology(devices, links, previous), topology(devices, links, null));
+        assertEquals("incorrect cluster count", 10, previous.clusterCount());
+
+        // Linking two pods merges them.
+        links.add(link("5", 3, "9", 3));
+        links.add(link("9", 3, "5", 3));
+        previous = assertSameClusters(topology(devices, links, previous), topology(devices, links, null));
+        assertEquals("incorrect cluster count", 9, previous.clusterCount());
+
+        // Removing a device along with its links keeps its pod together.
+        devices.remove(device("13"));
+        links.removeIf(l -> l.src().deviceId().equals(did("13")) || l.dst().deviceId().equals(did("13")));
+        previous = assertSameClusters(topology(devices, links, previous), topology(devices, links, null));
+        assertEquals("incorrect cluster count", 9, previous.clusterCount());
+        assertEquals("incorrect device count", 39, previous.deviceCount());
+    }
+
+    private DefaultTopology topology(Set<Device> devices, Set<Link> links, DefaultTopology previous) {
+        long now = System.nanoTime();
+        return new DefaultTopology(PID, new DefaultGraphDescription(now, System.currentTimeMillis(),
+                                                                    devices, links), null, previous);
+    }
+
+    // Asserts that both topologies group devices and links into the same
+    // clusters and returns the first one.
+    private DefaultTopology assertSameClusters(DefaultTopology incremental, DefaultTopology full) {
+        assertEquals("incorrect cluster count", full.clusterCount(), incremental.clusterCount());
+        for (TopologyCluster cluster : full.getClusters()) {
+            Set<DeviceId> devs = full.getClusterDevices(cluster);
+            TopologyCluster other = incremental.getCluster(devs.iterator().next());
+            assertEquals("incorrect cluster devices", devs, incremental.getClusterDevices(other));
+            assertEquals("incorrect cluster links", full.getClusterLinks(cluster),
+                         incremental.getClusterLinks(other));
+            assertEquals("incorrect broadcast set size", full.broadcastSetSize(cluster.id()),
+                         incremental.broadcastSetSize(other.id()));
+        }
+        return incremental;
+    }
+
     // Short-hand for creating a link.
     public static Link link(String src, int sp, String dst, int dp) {
         return new DefaultLink(PID, new ConnectPoint(did(src), portNumber(sp)),
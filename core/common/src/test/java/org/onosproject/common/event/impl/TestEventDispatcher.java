@@ -20,6 +20,8 @@ import org.onosproject.event.Event;
 import org.onosproject.event.EventDeliveryService;
 import org.onosproject.event.EventSink;
 
+import java.util.Set;
+
 import static com.google.common.base.Preconditions.checkState;
 
 /**
@@ -45,4 +47,13 @@ public class TestEventDispatcher extends DefaultEventSinkRegistry
     public long getDispatchTimeLimit() {
         return 0;
     }
+
+    @Override
+    public void setDispatchLanes(boolean partitioned, Set<Set<String>> groups) {
+    }
+
+    @Override
+    public boolean isDispatchPartitioned() {
+        return false;
+    }
 }
@@ -15,6 +15,8 @@
  */
 package org.onosproject.core.impl;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -24,6 +26,7 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.util.SharedExecutors;
+import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.ApplicationIdStore;
@@ -86,6 +89,17 @@ public class CoreManager implements CoreService {
             label = "Maximum number of millis an event sink has to process an event")
     private int maxEventTimeLimit = DEFAULT_EVENT_TIME;
 
+    private static final boolean DEFAULT_PARTITIONED_DISPATCH = false;
+    @Property(name = "partitionedEventDispatch", boolValue = DEFAULT_PARTITIONED_DISPATCH,
+            label = "Dispatch each event class through its own queue and thread")
+    private boolean partitionedEventDispatch = DEFAULT_PARTITIONED_DISPATCH;
+
+    private static final String DEFAULT_LANE_GROUPS = "";
+    @Property(name = "eventDispatchLaneGroups", value = DEFAULT_LANE_GROUPS,
+            label = "Semicolon-separated groups of comma-separated event class " +
+                    "names which share a dispatch lane; e.g. DeviceEvent,LinkEvent;HostEvent")
+    private String eventDispatchLaneGroups = DEFAULT_LANE_GROUPS;
+
     @Activate
     public void activate() {
         registerApplication(CORE_APP_NAME);
@@ -170,8 +184,37 @@ public class CoreManager implements CoreService {
             log.warn("maxEventTimeLimit must be greater than 1");
         }
 
-        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}",
-                 sharedThreadPoolSize, maxEventTimeLimit);
+        String partitioned = Tools.get(properties, "partitionedEventDispatch");
+        if (!isNullOrEmpty(partitioned)) {
+            partitionedEventDispatch = Boolean.parseBoolean(partitioned.trim());
+        }
+
+        Object laneGroups = properties.get("eventDispatchLaneGroups");
+        if (laneGroups != null) {
+            eventDispatchLaneGroups = laneGroups.toString().trim();
+        }
+        eventDeliveryService.setDispatchLanes(partitionedEventDispatch,
+                                              parseLaneGroups(eventDispatchLaneGroups));
+
+        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}, " +
+                         "partitionedEventDispatch={}, eventDispatchLaneGroups={}",
+                 sharedThreadPoolSize, maxEventTimeLimit,
+                 partitionedEventDispatch, eventDispatchLaneGroups);
+    }
+
+    /**
+     * Parses the lane groups specification into sets of event class names.
+     *
+     * @param spec semicolon-separated groups of comma-separated names
+     * @return set of groups
+     */
+    private static Set<Set<String>> parseLaneGroups(String spec) {
+        ImmutableSet.Builder<Set<String>> groups = ImmutableSet.builder();
+        for (String group : Splitter.on(';').trimResults().omitEmptyStrings().split(spec)) {
+            groups.add(ImmutableSet.copyOf(Splitter.on(',').trimResults()
+                                                   .omitEmptyStrings().split(group)));
+        }
+        return groups.build();
     }
 
 
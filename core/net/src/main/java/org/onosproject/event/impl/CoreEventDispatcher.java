@@ -15,31 +15,68 @@
  */
 package org.onosproject.event.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
 import org.onosproject.event.Event;
 import org.onosproject.event.EventDeliveryService;
 import org.onosproject.event.EventSink;
+import org.onosproject.event.ListenerRegistry;
 import org.slf4j.Logger;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * By default all events are funneled through a single queue and dispatch
+ * thread. Optionally, dispatching can be partitioned into lanes, where each
+ * event class, or a configured group of event classes, has its own bounded
+ * queue and dispatch thread, so that a slow sink cannot stall the delivery
+ * of unrelated events. Events of the same class always travel through the
+ * same lane and are therefore delivered in the order in which they were posted.
+ * </p>
+ * <p>
+ * When the lanes are reconfigured, the new lanes only start dispatching once
+ * the old ones have dispatched all the events posted to them. While a
+ * partitioned lane is full, posters other than the lane itself are held back
+ * for up to the dispatch time limit, after which the event is queued anyway;
+ * events are never dropped.
+ * </p>
  */
 @Component(immediate = true)
 @Service
@@ -52,35 +89,51 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
 
-    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    // Number of pending events in each of the partitioned lanes past which
+    // posters are held back.
+    private static final int LANE_CAPACITY = 100_000;
 
-    private final ExecutorService executor =
-            newSingleThreadExecutor(groupedThreads("onos/event", "dispatch-%d"));
+    // Longest time new lanes wait for the old ones to drain.
+    private static final long DRAIN_TIMEOUT_MS = 60_000; // ms
+
+    private static final String DEFAULT_LANE = "default";
+    private static final String METRICS_COMPONENT = "EventDispatcher";
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
 
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
 
-    private DispatchLoop dispatchLoop;
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
+    private int laneCapacity = LANE_CAPACITY;
+
+    private volatile boolean partitioned = false;
+    private volatile Map<String, String> laneGroups = ImmutableMap.of();
+
+    // Lanes indexed by their name and by the event classes they carry
+    private final Map<String, DispatchLane> lanes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, DispatchLane> classLanes = new ConcurrentHashMap<>();
+
+    // Retired lanes that new lanes wait for before dispatching
+    private volatile List<DispatchLane> drainingLanes = ImmutableList.of();
 
     // Means to detect long-running sinks
     private TimerTask watchdog;
-    private EventSink lastSink;
-    private long lastStart = 0;
-    private Future<?> dispatchFuture;
 
     @Override
     public void post(Event event) {
-        if (!events.add(event)) {
-            log.error("Unable to post event {}", event);
+        DispatchLane lane = laneFor(event.getClass());
+        while (!lane.post(event)) {
+            // Lanes were reconfigured underneath us; use the new one
+            lane = laneFor(event.getClass());
         }
     }
 
     @Activate
     public void activate() {
-        dispatchLoop = new DispatchLoop();
-        dispatchFuture = executor.submit(dispatchLoop);
+        getSinks().forEach(this::enableListenerMetrics);
         watchdog = new Watchdog();
         SharedExecutors.getTimer().schedule(watchdog, WATCHDOG_MS, WATCHDOG_MS);
         log.info("Started");
@@ -88,12 +141,17 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     @Deactivate
     public void deactivate() {
-        dispatchLoop.stop();
         watchdog.cancel();
-        post(KILL_PILL);
+        retireLanes();
         log.info("Stopped");
     }
 
+    @Override
+    public <E extends Event> void addSink(Class<E> eventClass, EventSink<E> sink) {
+        super.addSink(eventClass, sink);
+        enableListenerMetrics(eventClass);
+    }
+
     @Override
     public void setDispatchTimeLimit(long millis) {
         checkArgument(millis >= WATCHDOG_MS,
@@ -106,69 +164,373 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
-    // Auxiliary event dispatching loop that feeds off the events queue.
-    private class DispatchLoop implements Runnable {
-        private volatile boolean stopped;
+    @Override
+    public synchronized void setDispatchLanes(boolean partitioned,
+                                              Set<Set<String>> groups) {
+        Map<String, String> groupMap = new LinkedHashMap<>();
+        if (partitioned && groups != null) {
+            groups.stream().filter(g -> !g.isEmpty()).forEach(group -> {
+                String laneName = String.join("+", group);
+                group.forEach(className -> {
+                    String previous = groupMap.putIfAbsent(className, laneName);
+                    if (previous != null) {
+                        log.warn("Event class {} is in lane groups {} and {}; using {}",
+                                 className, previous, laneName, previous);
+                    }
+                });
+            });
+        }
+        Map<String, String> newGroups = ImmutableMap.copyOf(groupMap);
 
-        @Override
-        public void run() {
-            stopped = false;
-            log.info("Dispatch loop initiated");
-            while (!stopped) {
+        if (partitioned != this.partitioned || !newGroups.equals(laneGroups)) {
+            this.partitioned = partitioned;
+            this.laneGroups = newGroups;
+            // Let the existing lanes drain; new events go to fresh lanes,
+            // which start dispatching once the old ones are done.
+            retireLanes();
+            log.info("Event dispatch {}; lane groups {}",
+                     partitioned ? "partitioned" : "not partitioned", newGroups);
+        }
+    }
+
+    @Override
+    public boolean isDispatchPartitioned() {
+        return partitioned;
+    }
+
+    /**
+     * Returns the names of the currently active dispatch lanes.
+     *
+     * @return set of lane names
+     */
+    Set<String> getLanes() {
+        return ImmutableSet.copyOf(lanes.keySet());
+    }
+
+    /**
+     * Sets the number of pending events in each partitioned lane past which
+     * posters are held back; applies to lanes created afterwards.
+     *
+     * @param capacity lane capacity
+     */
+    void setLaneCapacity(int capacity) {
+        checkArgument(capacity > 0, "Capacity must be positive");
+        laneCapacity = capacity;
+    }
+
+    // Returns the lane through which events of the given class are dispatched.
+    private DispatchLane laneFor(Class<?> eventClass) {
+        DispatchLane lane = classLanes.get(eventClass);
+        if (lane == null) {
+            synchronized (this) {
+                String name = laneName(eventClass);
+                lane = lanes.computeIfAbsent(name, DispatchLane::new);
+                classLanes.put(eventClass, lane);
+            }
+        }
+        return lane;
+    }
+
+    // Derives the name of the lane for the given event class.
+    private String laneName(Class<?> eventClass) {
+        if (!partitioned || eventClass == KILL_PILL.getClass()) {
+            return DEFAULT_LANE;
+        }
+        String name = eventClass.getSimpleName();
+        String group = laneGroups.get(name);
+        if (group == null) {
+            group = laneGroups.get(eventClass.getName());
+        }
+        return group != null ? group : name;
+    }
+
+    // Stops all current lanes, after they finish dispatching pending events.
+    private synchronized void retireLanes() {
+        classLanes.clear();
+        ImmutableList.Builder<DispatchLane> draining = ImmutableList.builder();
+        drainingLanes.stream().filter(lane -> !lane.executor.isTerminated()).forEach(draining::add);
+        lanes.values().forEach(lane -> {
+            lane.retire();
+            draining.add(lane);
+        });
+        lanes.clear();
+        drainingLanes = draining.build();
+    }
+
+    // Enables per-listener metrics for sinks that are listener registries.
+    private void enableListenerMetrics(Class<? extends Event> eventClass) {
+        EventSink<? extends Event> sink = getSink(eventClass);
+        if (metricsService != null && sink instanceof ListenerRegistry) {
+            MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature f = c.registerFeature(eventClass.getSimpleName());
+            ((ListenerRegistry) sink).enableListenerMetrics(metricsService, c, f);
+        }
+    }
+
+    // Queue of events dispatched to sinks by a dedicated thread.
+    private final class DispatchLane {
+        private final String name;
+        private final BlockingQueue<TimedEvent> events = new LinkedBlockingQueue<>();
+        private final ExecutorService executor;
+        private final List<DispatchLane> predecessors;
+
+        // Pending events past which posters are held back; 0 for no limit
+        private final int capacity;
+        private final Object roomMonitor = new Object();
+        private final AtomicInteger heldPosters = new AtomicInteger();
+
+        // Posting takes the read lock, retiring the write lock, so that no
+        // event is queued behind the kill-pill
+        private final ReadWriteLock postLock = new ReentrantReadWriteLock();
+
+        private DispatchLoop dispatchLoop;
+        private Future<?> dispatchFuture;
+        private volatile Thread dispatchThread;
+        private boolean retired = false;
+
+        // Metrics for this lane; all null if metrics are not available
+        private MetricsFeature feature;
+        private Timer dispatchLatency;
+        private Timer processTime;
+
+        // Means to detect long-running sinks
+        private volatile EventSink lastSink;
+        private volatile long lastStart = 0;
+
+        private DispatchLane(String name) {
+            this.name = name;
+            this.capacity = name.equals(DEFAULT_LANE) ? 0 : laneCapacity;
+            this.predecessors = drainingLanes;
+            this.executor = newSingleThreadExecutor(
+                    groupedThreads("onos/event", name.equals(DEFAULT_LANE) ?
+                            "dispatch-%d" : "dispatch-" + name + "-%d"));
+            registerMetrics();
+            start();
+        }
+
+        // Queues the event unless the lane is retired. A poster held back
+        // waits without the post lock, so that it does not delay retirement.
+        private boolean post(Event event) {
+            boolean heldBack = false;
+            while (true) {
+                postLock.readLock().lock();
                 try {
-                    // Fetch the next event and if it is the kill-pill, bail
-                    Event event = events.take();
-                    if (event == KILL_PILL) {
-                        break;
+                    if (retired) {
+                        return false;
                     }
-                    process(event);
-                } catch (InterruptedException e) {
-                    log.warn("Dispatch loop interrupted");
-                } catch (Exception e) {
-                    log.warn("Error encountered while dispatching event:", e);
+                    if (heldBack || capacity == 0 || events.size() < capacity ||
+                            Thread.currentThread() == dispatchThread) {
+                        events.add(new TimedEvent(event));
+                        return true;
+                    }
+                } finally {
+                    postLock.readLock().unlock();
                 }
+                awaitRoom();
+                heldBack = true;
+            }
+        }
+
+        // Holds the poster back until the lane has room, or for at most the
+        // dispatch time limit.
+        private void awaitRoom() {
+            long deadline = System.currentTimeMillis() + maxProcessMillis;
+            heldPosters.incrementAndGet();
+            try {
+                synchronized (roomMonitor) {
+                    long wait = deadline - System.currentTimeMillis();
+                    while (events.size() >= capacity && wait > 0) {
+                        roomMonitor.wait(wait);
+                        wait = deadline - System.currentTimeMillis();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                heldPosters.decrementAndGet();
+            }
+            if (events.size() >= capacity) {
+                log.warn("Lane {} is full; queueing event beyond its capacity", name);
+            }
+        }
+
+        // Wakes up posters held back once the lane has room.
+        private void signalRoom() {
+            if (heldPosters.get() > 0 && events.size() < capacity) {
+                synchronized (roomMonitor) {
+                    roomMonitor.notifyAll();
+                }
+            }
+        }
+
+        // Waits for the lanes retired before this one to finish dispatching.
+        private void awaitPredecessors() throws InterruptedException {
+            for (DispatchLane lane : predecessors) {
+                if (!lane.executor.awaitTermination(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    log.warn("Lane {} did not drain in time; lane {} starts dispatching",
+                             lane.name, name);
+                }
+            }
+        }
+
+        private synchronized void start() {
+            dispatchLoop = new DispatchLoop(this);
+            dispatchFuture = executor.submit(dispatchLoop);
+        }
+
+        // Cancels the current dispatch loop and submits a new one, unless the
+        // lane already dispatched all its events.
+        private synchronized void restart() {
+            if (executor.isShutdown()) {
+                return;
+            }
+            dispatchLoop.stop();
+            dispatchFuture.cancel(true);
+            start();
+        }
+
+        // Stops the lane once all events posted so far have been dispatched;
+        // the dispatch loop shuts the executor down when it reaches the
+        // kill-pill, so that a stalled loop can still be restarted meanwhile.
+        private void retire() {
+            postLock.writeLock().lock();
+            try {
+                retired = true;
+                events.add(new TimedEvent(KILL_PILL));
+            } finally {
+                postLock.writeLock().unlock();
+            }
+            unregisterMetrics();
+        }
+
+        // Shuts the executor down after the kill-pill.
+        private synchronized void shutdown() {
+            executor.shutdown();
+        }
+
+        private void registerMetrics() {
+            if (metricsService == null) {
+                return;
+            }
+            MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+            feature = c.registerFeature(name);
+            dispatchLatency = metricsService.createTimer(c, feature, "dispatchLatency");
+            processTime = metricsService.createTimer(c, feature, "processTime");
+            metricsService.removeMetric(c, feature, "queueDepth");
+            metricsService.registerMetric(c, feature, "queueDepth",
+                                          (Gauge<Integer>) events::size);
+        }
+
+        private void unregisterMetrics() {
+            if (metricsService != null && feature != null) {
+                MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+                metricsService.removeMetric(c, feature, "queueDepth");
             }
-            log.info("Dispatch loop terminated");
         }
 
         // Locate the sink for the event class and use it to process the event
         @SuppressWarnings("unchecked")
-        private void process(Event event) {
+        private void process(TimedEvent timedEvent) {
+            Event event = timedEvent.event;
             EventSink sink = getSink(event.getClass());
             if (sink != null) {
+                if (dispatchLatency != null) {
+                    dispatchLatency.update(System.nanoTime() - timedEvent.postNanos,
+                                           TimeUnit.NANOSECONDS);
+                }
+                Timer.Context timer = startTimer(processTime);
                 lastSink = sink;
                 lastStart = System.currentTimeMillis();
-                sink.process(event);
-                lastStart = 0;
+                try {
+                    sink.process(event);
+                } finally {
+                    lastStart = 0;
+                    stopTimer(timer);
+                }
             } else {
                 log.warn("No sink registered for event class {}",
                          event.getClass().getName());
             }
         }
+    }
+
+    // Event tagged with the time at which it was posted.
+    private static final class TimedEvent {
+        private final Event event;
+        private final long postNanos = System.nanoTime();
+
+        private TimedEvent(Event event) {
+            this.event = event;
+        }
+    }
+
+    // Auxiliary event dispatching loop that feeds off a lane's events queue.
+    private class DispatchLoop implements Runnable {
+        private final DispatchLane lane;
+        private volatile boolean stopped;
+
+        DispatchLoop(DispatchLane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void run() {
+            stopped = false;
+            lane.dispatchThread = Thread.currentThread();
+            try {
+                lane.awaitPredecessors();
+            } catch (InterruptedException e) {
+                log.warn("Dispatch loop interrupted");
+                return;
+            }
+            log.info("Dispatch loop initiated for lane {}", lane.name);
+            while (!stopped) {
+                try {
+                    // Fetch the next event and if it is the kill-pill, bail
+                    TimedEvent event = lane.events.take();
+                    lane.signalRoom();
+                    if (event.event == KILL_PILL) {
+                        lane.shutdown();
+                        break;
+                    }
+                    lane.process(event);
+                } catch (InterruptedException e) {
+                    log.warn("Dispatch loop interrupted");
+                } catch (Exception e) {
+                    log.warn("Error encountered while dispatching event:", e);
+                }
+            }
+            log.info("Dispatch loop terminated for lane {}", lane.name);
+        }
 
         void stop() {
             stopped = true;
         }
     }
 
-    // Monitors event sinks to make sure none take too long to execute.
+    // Monitors event sinks to make sure none take too long to execute,
+    // including those of retired lanes still draining.
     private class Watchdog extends TimerTask {
         @Override
         public void run() {
-            long delta = System.currentTimeMillis() - lastStart;
-            if (lastStart > 0 && delta > maxProcessMillis) {
-                lastStart = 0;
-                log.warn("Event sink {} exceeded execution time limit: {} ms; spawning new dispatch loop",
-                          lastSink.getClass().getName(), delta);
+            lanes.values().forEach(this::check);
+            drainingLanes.forEach(this::check);
+        }
+
+        private void check(DispatchLane lane) {
+            long start = lane.lastStart;
+            long delta = System.currentTimeMillis() - start;
+            if (start > 0 && delta > maxProcessMillis) {
+                lane.lastStart = 0;
+                log.warn("Event sink {} exceeded execution time limit: {} ms; " +
+                                 "spawning new dispatch loop for lane {}",
+                         lane.lastSink.getClass().getName(), delta, lane.name);
 
                 // Notify the sink that it has exceeded its time limit.
-                lastSink.onProcessLimit();
+                lane.lastSink.onProcessLimit();
 
                 // Cancel the old dispatch loop and submit a new one.
-                dispatchLoop.stop();
-                dispatchLoop = new DispatchLoop();
-                dispatchFuture.cancel(true);
-                dispatchFuture = executor.submit(dispatchLoop);
+                lane.restart();
             }
         }
     }
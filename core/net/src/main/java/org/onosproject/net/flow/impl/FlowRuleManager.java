@@ -336,24 +336,15 @@ public class FlowRuleManager
         }
 
 
-        private void flowAdded(FlowEntry flowEntry) {
-            checkNotNull(flowEntry, FLOW_RULE_NULL);
-            checkValidity();
-
-            if (checkRuleLiveness(flowEntry, store.getFlowEntry(flowEntry))) {
-
-                FlowRuleEvent event = store.addOrUpdateFlowRule(flowEntry);
-                if (event == null) {
-                    log.debug("No flow store event generated.");
-                } else {
-                    log.trace("Flow {} {}", flowEntry, event.type());
-                    post(event);
-                }
-            } else {
-                log.debug("Removing flow rules....");
-                removeFlowRules(flowEntry);
+        private void flowsAdded(DeviceId deviceId, List<FlowEntry> flowEntries) {
+            if (flowEntries.isEmpty()) {
+                return;
             }
-
+            checkValidity();
+            store.addOrUpdateFlowRules(deviceId, flowEntries).forEach(event -> {
+                log.trace("Flow {} {}", event.subject(), event.type());
+                post(event);
+            });
         }
 
         private boolean checkRuleLiveness(FlowEntry swRule, FlowEntry storedRule) {
@@ -402,6 +393,7 @@ public class FlowRuleManager
                                              boolean useMissingFlow) {
             Map<FlowEntry, FlowEntry> storedRules = Maps.newHashMap();
             store.getFlowEntries(deviceId).forEach(f -> storedRules.put(f, f));
+            List<FlowEntry> liveRules = Lists.newArrayList();
 
             for (FlowEntry rule : flowEntries) {
                 try {
@@ -409,7 +401,12 @@ public class FlowRuleManager
                     if (storedRule != null) {
                         if (storedRule.exactMatch(rule)) {
                             // we both have the rule, let's update some info then.
-                            flowAdded(rule);
+                            if (checkRuleLiveness(rule, storedRule)) {
+                                liveRules.add(rule);
+                            } else {
+                                log.debug("Removing flow rules....");
+                                removeFlowRules(rule);
+                            }
                         } else {
                             // the two rules are not an exact match - remove the
                             // switch's rule and install our rule
@@ -428,6 +425,13 @@ public class FlowRuleManager
                 }
             }
 
+            // apply the statistics of all live rules in one store update
+            try {
+                flowsAdded(deviceId, liveRules);
+            } catch (Exception e) {
+                log.debug("Can't update added rules {}", e.getMessage());
+            }
+
             // DO NOT reinstall
             if (useMissingFlow) {
                 for (FlowEntry rule : storedRules.keySet()) {
@@ -25,40 +25,58 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
- * An accumulator for building batches of intent operations. Only one batch should
- * be in process per instance at a time.
+ * An accumulator for building batches of intent operations. A bounded number
+ * of batches may be in process per instance at a time. While none is, batches
+ * are flushed after a short idle period to keep latency low; while some are,
+ * operations accumulate into larger batches until a slot frees up.
  */
 public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     private static final int DEFAULT_MAX_EVENTS = 1000;
     private static final int DEFAULT_MAX_IDLE_MS = 10;
     private static final int DEFAULT_MAX_BATCH_MS = 50;
+    private static final int MIN_IDLE_MS = 1;
 
     // FIXME: Replace with a system-wide timer instance;
     // TODO: Convert to use HashedWheelTimer or produce a variant of that; then decide which we want to adopt
     private static final Timer TIMER = new Timer("onos-intent-op-batching");
 
     private final IntentBatchDelegate delegate;
+    private final int maxInFlight;
 
-    private volatile boolean ready;
+    private final AtomicInteger inFlight = new AtomicInteger();
 
     /**
-     * Creates an intent operation accumulator.
+     * Creates an intent operation accumulator that allows only one batch in
+     * process at a time.
      *
      * @param delegate the intent batch delegate
      */
     protected IntentAccumulator(IntentBatchDelegate delegate) {
+        this(delegate, 1);
+    }
+
+    /**
+     * Creates an intent operation accumulator.
+     *
+     * @param delegate    the intent batch delegate
+     * @param maxInFlight maximum number of batches in process at a time
+     */
+    protected IntentAccumulator(IntentBatchDelegate delegate, int maxInFlight) {
         super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
+        checkArgument(maxInFlight > 0, "Maximum batches in flight must be positive");
         this.delegate = delegate;
-        // Assume that the delegate is ready for work at the start
-        ready = true; //TODO validate the assumption that delegate is ready
+        this.maxInFlight = maxInFlight;
     }
 
     @Override
     public void processItems(List<IntentData> items) {
-        ready = false;
+        inFlight.incrementAndGet();
         delegate.execute(reduce(items));
     }
 
@@ -73,10 +91,18 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     @Override
     public boolean isReady() {
-        return ready;
+        return inFlight.get() < maxInFlight;
+    }
+
+    @Override
+    public int maxIdleMillis() {
+        return inFlight.get() == 0 ? MIN_IDLE_MS : super.maxIdleMillis();
     }
 
+    /**
+     * Indicates that the delegate has finished processing one of the batches.
+     */
     public void ready() {
-        ready = true;
+        inFlight.updateAndGet(n -> n > 0 ? n - 1 : 0);
     }
 }
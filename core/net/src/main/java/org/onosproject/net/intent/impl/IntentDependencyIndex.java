@@ -0,0 +1,329 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import org.onosproject.net.intent.Key;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Concurrent reverse index from network resources to the keys of the
+ * intents that depend on them.
+ * <p>
+ * Intent keys are interned to small integer identifiers and each resource
+ * keeps the identifiers of its dependents in an open-addressing set of
+ * primitive integers guarded by its own lock, so that updates of different
+ * resources never contend and a resource with many dependents costs about
+ * eight bytes per dependent. Updates of the resources of a given key are
+ * serialized with one another; the identifier of a key is recycled once it
+ * no longer depends on any resource.
+ * </p>
+ */
+final class IntentDependencyIndex {
+
+    private static final int INITIAL_KEYS = 1024;
+
+    private final ConcurrentMap<Key, Interned> interned = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, IdSet> dependents = new ConcurrentHashMap<>();
+
+    // identifier allocation; guarded by this index
+    private volatile Key[] keys = new Key[INITIAL_KEYS];
+    private int nextId;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+
+    /**
+     * Records that the intent with the given key depends on the resources.
+     *
+     * @param key       intent key
+     * @param resources resources the intent depends on
+     */
+    void add(Key key, Collection<?> resources) {
+        checkNotNull(key);
+        if (resources.isEmpty()) {
+            return;
+        }
+        interned.compute(key, (k, entry) -> {
+            Interned e = entry != null ? entry : new Interned(allocate(k));
+            for (Object resource : resources) {
+                if (addDependent(resource, e.id)) {
+                    e.refs++;
+                }
+            }
+            if (e.refs == 0) {
+                recycle(e.id);
+                return null;
+            }
+            return e;
+        });
+    }
+
+    /**
+     * Records that the intent with the given key no longer depends on the
+     * resources.
+     *
+     * @param key       intent key
+     * @param resources resources the intent no longer depends on
+     */
+    void remove(Key key, Collection<?> resources) {
+        checkNotNull(key);
+        if (resources.isEmpty()) {
+            return;
+        }
+        interned.computeIfPresent(key, (k, e) -> {
+            for (Object resource : resources) {
+                if (removeDependent(resource, e.id)) {
+                    e.refs--;
+                }
+            }
+            if (e.refs == 0) {
+                recycle(e.id);
+                return null;
+            }
+            return e;
+        });
+    }
+
+    /**
+     * Indicates whether the intent with the given key depends on any
+     * resource.
+     *
+     * @param key intent key
+     * @return true if tracked
+     */
+    boolean isTracked(Key key) {
+        return interned.containsKey(key);
+    }
+
+    /**
+     * Returns the number of tracked intent keys.
+     *
+     * @return tracked key count
+     */
+    int keyCount() {
+        return interned.size();
+    }
+
+    /**
+     * Adds the identifiers of the dependents of the resource to the given
+     * set; the set must not be shared with other threads.
+     *
+     * @param resource network resource
+     * @param ids      set of identifiers to add to
+     */
+    void collectDependents(Object resource, IdSet ids) {
+        IdSet set = dependents.get(resource);
+        if (set != null) {
+            int[] snapshot;
+            synchronized (set) {
+                snapshot = set.toArray();
+            }
+            for (int id : snapshot) {
+                ids.add(id);
+            }
+        }
+    }
+
+    /**
+     * Resolves an identifier collected from the index to the intent key.
+     * An identifier whose key stopped being tracked in the meantime yields
+     * null or, if already recycled, another tracked key; a superfluous
+     * recompilation is harmless.
+     *
+     * @param id key identifier
+     * @return intent key; null if none
+     */
+    Key key(int id) {
+        Key[] table = keys;
+        return id < table.length ? table[id] : null;
+    }
+
+    // Adds the identifier to the dependents of the resource.
+    private boolean addDependent(Object resource, int id) {
+        while (true) {
+            IdSet set = dependents.computeIfAbsent(resource, r -> new IdSet());
+            synchronized (set) {
+                // Sets emptied and unmapped concurrently must not be revived.
+                if (!set.retired) {
+                    return set.add(id);
+                }
+            }
+        }
+    }
+
+    // Removes the identifier from the dependents of the resource.
+    private boolean removeDependent(Object resource, int id) {
+        IdSet set = dependents.get(resource);
+        if (set == null) {
+            return false;
+        }
+        synchronized (set) {
+            boolean removed = set.remove(id);
+            if (set.isEmpty() && !set.retired) {
+                set.retired = true;
+                dependents.remove(resource, set);
+            }
+            return removed;
+        }
+    }
+
+    private synchronized int allocate(Key key) {
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        Key[] table = keys;
+        if (id >= table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[id] = key;
+        keys = table;
+        return id;
+    }
+
+    private synchronized void recycle(int id) {
+        keys[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    // Interned key identifier and the number of resources the key depends on.
+    private static final class Interned {
+        private final int id;
+        private int refs;
+
+        private Interned(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Open-addressing hash set of non-negative integers with linear probing.
+     * Not thread-safe.
+     */
+    static final class IdSet {
+
+        private static final int FREE = -1;
+
+        private int[] slots = newSlots(8);
+        private int size;
+        private boolean retired;
+
+        private static int[] newSlots(int capacity) {
+            int[] slots = new int[capacity];
+            Arrays.fill(slots, FREE);
+            return slots;
+        }
+
+        private static int slot(int id, int mask) {
+            int h = id * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        /**
+         * Adds the identifier to the set.
+         *
+         * @param id non-negative identifier
+         * @return true if not already present
+         */
+        boolean add(int id) {
+            int mask = slots.length - 1;
+            int i = slot(id, mask);
+            while (slots[i] != FREE) {
+                if (slots[i] == id) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = id;
+            if (++size > slots.length * 3 / 4) {
+                rehash(slots.length * 2);
+            }
+            return true;
+        }
+
+        /**
+         * Removes the identifier from the set.
+         *
+         * @param id identifier
+         * @return true if it was present
+         */
+        boolean remove(int id) {
+            int mask = slots.length - 1;
+            int i = slot(id, mask);
+            while (slots[i] != id) {
+                if (slots[i] == FREE) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            // Shift back the entries of the probe sequence past the hole.
+            int hole = i;
+            for (int j = (i + 1) & mask; slots[j] != FREE; j = (j + 1) & mask) {
+                int home = slot(slots[j], mask);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    slots[hole] = slots[j];
+                    hole = j;
+                }
+            }
+            slots[hole] = FREE;
+            size--;
+            if (size < slots.length / 8 && slots.length > 8) {
+                rehash(slots.length / 2);
+            }
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the identifiers in the set.
+         *
+         * @return array of identifiers
+         */
+        int[] toArray() {
+            int[] ids = new int[size];
+            int n = 0;
+            for (int id : slots) {
+                if (id != FREE) {
+                    ids[n++] = id;
+                }
+            }
+            return ids;
+        }
+
+        private void rehash(int capacity) {
+            int[] old = slots;
+            slots = newSlots(capacity);
+            size = 0;
+            for (int id : old) {
+                if (id != FREE) {
+                    add(id);
+                }
+            }
+        }
+    }
+}
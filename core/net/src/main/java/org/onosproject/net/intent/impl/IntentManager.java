@@ -15,6 +15,7 @@
  */
 package org.onosproject.net.intent.impl;
 
+import com.codahale.metrics.Histogram;
 import com.google.common.collect.ImmutableList;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -22,6 +23,9 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.event.AbstractListenerManager;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
@@ -29,6 +33,7 @@ import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleOperations;
 import org.onosproject.net.flow.FlowRuleOperationsContext;
 import org.onosproject.net.flow.FlowRuleService;
+import org.onosproject.net.intent.BulkIntentListener;
 import org.onosproject.net.intent.FlowRuleIntent;
 import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentBatchDelegate;
@@ -47,11 +52,16 @@ import org.onosproject.net.intent.impl.phase.IntentProcessPhase;
 import org.onosproject.net.intent.impl.phase.IntentWorker;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -59,7 +69,7 @@ import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.concurrent.Executors.newFixedThreadPool;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.intent.IntentState.*;
 import static org.onosproject.net.intent.constraint.PartialFailureConstraint.intentAllowsPartialFailure;
@@ -84,6 +94,7 @@ public class IntentManager
     public static final String INTENT_ID_NULL = "Intent key cannot be null";
 
     private static final int NUM_THREADS = 12;
+    private static final int MAX_IN_FLIGHT_BATCHES = 4;
 
     private static final EnumSet<IntentState> RECOMPILE
             = EnumSet.of(INSTALL_REQ, FAILED, WITHDRAW_REQ);
@@ -102,6 +113,9 @@ public class IntentManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected FlowRuleService flowRuleService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private ExecutorService batchExecutor;
     private ExecutorService workerExecutor;
 
@@ -112,15 +126,27 @@ public class IntentManager
     private final IntentBatchDelegate batchDelegate = new InternalBatchDelegate();
     private IdGenerator idGenerator;
 
-    private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate);
+    private final IntentAccumulator accumulator =
+            new IntentAccumulator(batchDelegate, MAX_IN_FLIGHT_BATCHES);
+
+    // Keys of intents in batches being processed, and the latest operations
+    // on those keys deferred until their batch completes; guarded by inFlightKeys.
+    private final Set<Key> inFlightKeys = new HashSet<>();
+    private final Map<Key, IntentData> deferredData = new HashMap<>();
+
+    // Latency of intent processing phases, in microseconds; null if not tracked
+    private Histogram compilingLatency;
+    private Histogram installingLatency;
+    private Histogram withdrawingLatency;
 
     @Activate
     public void activate() {
         store.setDelegate(delegate);
         trackerService.setDelegate(topoDelegate);
         eventDispatcher.addSink(IntentEvent.class, listenerRegistry);
-        batchExecutor = newSingleThreadExecutor(groupedThreads("onos/intent", "batch"));
+        batchExecutor = newFixedThreadPool(MAX_IN_FLIGHT_BATCHES, groupedThreads("onos/intent", "batch-%d"));
         workerExecutor = newFixedThreadPool(NUM_THREADS, groupedThreads("onos/intent", "worker-%d"));
+        registerMetrics();
         idGenerator = coreService.getIdGenerator("intent-ids");
         Intent.bindIdGenerator(idGenerator);
         log.info("Started");
@@ -133,10 +159,42 @@ public class IntentManager
         eventDispatcher.removeSink(IntentEvent.class);
         batchExecutor.shutdown();
         workerExecutor.shutdown();
+        removeMetrics();
         Intent.unbindIdGenerator(idGenerator);
         log.info("Stopped");
     }
 
+    // Registers the phase latency histograms, if metrics are available.
+    private void registerMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent("IntentManager");
+            MetricsFeature feature = component.registerFeature("phases");
+            compilingLatency = metricsService.createHistogram(component, feature, "compiling");
+            installingLatency = metricsService.createHistogram(component, feature, "installing");
+            withdrawingLatency = metricsService.createHistogram(component, feature, "withdrawing");
+        }
+    }
+
+    private void removeMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent("IntentManager");
+            MetricsFeature feature = component.registerFeature("phases");
+            metricsService.removeMetric(component, feature, "compiling");
+            metricsService.removeMetric(component, feature, "installing");
+            metricsService.removeMetric(component, feature, "withdrawing");
+        }
+        compilingLatency = null;
+        installingLatency = null;
+        withdrawingLatency = null;
+    }
+
+    // Records the time elapsed since the given start in the given histogram.
+    private static void recordLatency(Histogram histogram, long startNanos) {
+        if (histogram != null) {
+            histogram.update(NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+    }
+
     @Override
     public void submit(Intent intent) {
         checkPermission(INTENT_WRITE);
@@ -153,6 +211,35 @@ public class IntentManager
         store.addPending(data);
     }
 
+    @Override
+    public CompletableFuture<Map<Key, IntentState>> submitAll(Collection<Intent> intents) {
+        checkPermission(INTENT_WRITE);
+        checkNotNull(intents, INTENT_NULL);
+        return addPending(intents, BulkIntentListener.forSubmit(intents), IntentState.INSTALL_REQ);
+    }
+
+    @Override
+    public CompletableFuture<Map<Key, IntentState>> withdrawAll(Collection<Intent> intents) {
+        checkPermission(INTENT_WRITE);
+        checkNotNull(intents, INTENT_NULL);
+        return addPending(intents, BulkIntentListener.forWithdraw(intents), IntentState.WITHDRAW_REQ);
+    }
+
+    // Writes requests for the given intents to the store in one batch and
+    // tracks them until they complete.
+    private CompletableFuture<Map<Key, IntentState>> addPending(Collection<Intent> intents,
+                                                               BulkIntentListener listener,
+                                                               IntentState request) {
+        List<IntentData> data = intents.stream()
+                .map(intent -> new IntentData(checkNotNull(intent, INTENT_NULL), request, null))
+                .collect(Collectors.toList());
+        addListener(listener);
+        listener.future().whenComplete((results, error) -> removeListener(listener));
+        store.batchAddPending(data);
+        listener.startTimeout(BulkIntentListener.DEFAULT_TIMEOUT_MS);
+        return listener.future();
+    }
+
     @Override
     public void purge(Intent intent) {
         checkPermission(INTENT_WRITE);
@@ -296,9 +383,11 @@ public class IntentManager
     private class IntentBatchProcess implements Runnable {
 
         protected final Collection<IntentData> data;
+        private final boolean accumulated;
 
-        IntentBatchProcess(Collection<IntentData> data) {
+        IntentBatchProcess(Collection<IntentData> data, boolean accumulated) {
             this.data = checkNotNull(data);
+            this.accumulated = accumulated;
         }
 
         @Override
@@ -322,7 +411,10 @@ public class IntentManager
                 //FIXME
 //            batchService.removeIntentOperations(data);
             }
-            accumulator.ready();
+            if (accumulated) {
+                accumulator.ready();
+            }
+            release(data);
         }
 
         private List<Future<FinalIntentProcessPhase>> createIntentUpdates() {
@@ -351,21 +443,68 @@ public class IntentManager
         }
     }
 
+    // Claims the keys of the given operations for a new batch; operations
+    // on keys claimed by batches still in flight are deferred until those
+    // batches complete, so that operations on one intent never overlap.
+    private List<IntentData> claim(Collection<IntentData> operations) {
+        List<IntentData> claimed = new ArrayList<>(operations.size());
+        synchronized (inFlightKeys) {
+            for (IntentData data : operations) {
+                if (inFlightKeys.add(data.key())) {
+                    claimed.add(data);
+                } else {
+                    deferredData.put(data.key(), data);
+                }
+            }
+        }
+        return claimed;
+    }
+
+    // Releases the keys of a completed batch and starts a batch of the
+    // operations deferred on them, if any.
+    private void release(Collection<IntentData> operations) {
+        List<IntentData> deferred = new ArrayList<>();
+        synchronized (inFlightKeys) {
+            for (IntentData data : operations) {
+                IntentData next = deferredData.remove(data.key());
+                if (next != null) {
+                    deferred.add(next);
+                } else {
+                    inFlightKeys.remove(data.key());
+                }
+            }
+        }
+        if (!deferred.isEmpty()) {
+            batchExecutor.execute(new IntentBatchProcess(deferred, false));
+        }
+    }
+
     private class InternalBatchDelegate implements IntentBatchDelegate {
         @Override
         public void execute(Collection<IntentData> operations) {
             log.debug("Execute {} operation(s).", operations.size());
             log.trace("Execute operations: {}", operations);
 
-            // batchExecutor is single-threaded, so only one batch is in flight at a time
-            batchExecutor.execute(new IntentBatchProcess(operations));
+            // Up to MAX_IN_FLIGHT_BATCHES batches overlap, each compiling
+            // its intents in parallel on the worker pool.
+            List<IntentData> claimed = claim(operations);
+            if (claimed.isEmpty()) {
+                accumulator.ready();
+            } else {
+                batchExecutor.execute(new IntentBatchProcess(claimed, true));
+            }
         }
     }
 
     private class InternalIntentProcessor implements IntentProcessor {
         @Override
         public List<Intent> compile(Intent intent, List<Intent> previousInstallables) {
-            return compilerRegistry.compile(intent, previousInstallables);
+            long start = System.nanoTime();
+            try {
+                return compilerRegistry.compile(intent, previousInstallables);
+            } finally {
+                recordLatency(compilingLatency, start);
+            }
         }
 
         @Override
@@ -424,6 +563,9 @@ public class IntentManager
     private void apply(Optional<IntentData> toUninstall, Optional<IntentData> toInstall) {
         // need to consider if FlowRuleIntent is only one as installable intent or not
 
+        long start = System.nanoTime();
+        Histogram latency = toInstall.isPresent() ? installingLatency : withdrawingLatency;
+
         FlowRuleOperations.Builder builder = FlowRuleOperations.builder();
         applyIntentData(toUninstall, builder, Direction.REMOVE);
         applyIntentData(toInstall, builder, Direction.ADD);
@@ -431,6 +573,7 @@ public class IntentManager
         FlowRuleOperations operations = builder.build(new FlowRuleOperationsContext() {
             @Override
             public void onSuccess(FlowRuleOperations ops) {
+                recordLatency(latency, start);
                 if (toInstall.isPresent()) {
                     IntentData installData = toInstall.get();
                     log.debug("Completed installing: {}", installData.key());
@@ -454,6 +597,7 @@ public class IntentManager
 
             @Override
             public void onError(FlowRuleOperations ops) {
+                recordLatency(latency, start);
                 // if toInstall was cause of error, then recompile (manage/increment counter, when exceeded -> CORRUPT)
                 if (toInstall.isPresent()) {
                     IntentData installData = toInstall.get();
@@ -15,10 +15,9 @@
  */
 package org.onosproject.net.intent.impl;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSet;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
-import com.google.common.collect.SetMultimap;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -26,14 +25,19 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.event.Event;
+import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.ElementId;
 import org.onosproject.net.HostId;
 import org.onosproject.net.Link;
 import org.onosproject.net.LinkKey;
 import org.onosproject.net.NetworkResource;
+import org.onosproject.net.Port;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
@@ -47,6 +51,7 @@ import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.PartitionEvent;
 import org.onosproject.net.intent.PartitionEventListener;
 import org.onosproject.net.intent.PartitionService;
+import org.onosproject.net.intent.impl.IntentDependencyIndex.IdSet;
 import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.resource.link.LinkResourceEvent;
 import org.onosproject.net.resource.link.LinkResourceListener;
@@ -56,11 +61,10 @@ import org.onosproject.net.topology.TopologyListener;
 import org.onosproject.net.topology.TopologyService;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -69,7 +73,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Multimaps.synchronizedSetMultimap;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onlab.util.Tools.isNullOrEmpty;
@@ -90,12 +93,11 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     private final Logger log = getLogger(getClass());
 
-    private final SetMultimap<LinkKey, Key> intentsByLink =
-            //TODO this could be slow as a point of synchronization
-            synchronizedSetMultimap(HashMultimap.<LinkKey, Key>create());
+    // Maximum number of intents passed to the delegate per compile trigger
+    private static final int TRIGGER_BATCH_SIZE = 1000;
 
-    private final SetMultimap<ElementId, Key> intentsByDevice =
-            synchronizedSetMultimap(HashMultimap.<ElementId, Key>create());
+    // Intents by the links, ports, devices and hosts they depend on
+    private final IntentDependencyIndex dependencies = new IntentDependencyIndex();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected TopologyService topologyService;
@@ -116,6 +118,9 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected PartitionService partitionService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private ExecutorService executorService =
             newSingleThreadExecutor(groupedThreads("onos/intent", "objectivetracker"));
     private ScheduledExecutorService executor = Executors
@@ -131,8 +136,12 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     protected final AtomicBoolean updateScheduled = new AtomicBoolean(false);
 
+    private Histogram affectedIntents;
+    private Timer triggerTimer;
+
     @Activate
     public void activate() {
+        registerMetrics();
         topologyService.addListener(listener);
         resourceManager.addListener(linkResourceListener);
         deviceService.addListener(deviceListener);
@@ -148,9 +157,29 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         deviceService.removeListener(deviceListener);
         hostService.removeListener(hostListener);
         partitionService.removeListener(partitionListener);
+        removeMetrics();
         log.info("Stopped");
     }
 
+    // Registers the re-route trigger metrics, if metrics are available.
+    private void registerMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent("ObjectiveTracker");
+            MetricsFeature feature = component.registerFeature("reroute");
+            affectedIntents = metricsService.createHistogram(component, feature, "intents");
+            triggerTimer = metricsService.createTimer(component, feature, "trigger");
+        }
+    }
+
+    private void removeMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent("ObjectiveTracker");
+            MetricsFeature feature = component.registerFeature("reroute");
+            metricsService.removeMetric(component, feature, "intents");
+            metricsService.removeMetric(component, feature, "trigger");
+        }
+    }
+
     protected void bindIntentService(IntentService service) {
         if (intentService == null) {
             intentService = service;
@@ -180,25 +209,55 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     @Override
     public void addTrackedResources(Key intentKey,
                                     Collection<NetworkResource> resources) {
-        for (NetworkResource resource : resources) {
-            if (resource instanceof Link) {
-                intentsByLink.put(linkKey((Link) resource), intentKey);
-            } else if (resource instanceof ElementId) {
-                intentsByDevice.put((ElementId) resource, intentKey);
-            }
-        }
+        dependencies.add(intentKey, dependencies(resources));
     }
 
     @Override
     public void removeTrackedResources(Key intentKey,
                                        Collection<NetworkResource> resources) {
+        dependencies.remove(intentKey, dependencies(resources));
+    }
+
+    // Returns the entries of the dependency index for the given resources;
+    // links stand for themselves and for both of their end-point ports.
+    private static List<Object> dependencies(Collection<NetworkResource> resources) {
+        List<Object> entries = new ArrayList<>(resources.size() * 3);
         for (NetworkResource resource : resources) {
             if (resource instanceof Link) {
-                intentsByLink.remove(linkKey((Link) resource), intentKey);
+                Link link = (Link) resource;
+                entries.add(linkKey(link));
+                entries.add(link.src());
+                entries.add(link.dst());
             } else if (resource instanceof ElementId) {
-                intentsByDevice.remove(resource, intentKey);
+                entries.add(resource);
             }
         }
+        return entries;
+    }
+
+    // Triggers the recompilation of the given intents in batches; only the
+    // last batch requests the compilation of all failed intents.
+    private void triggerCompile(IdSet ids, boolean compileAllFailed) {
+        final Timer.Context context = triggerTimer != null ? triggerTimer.time() : null;
+        if (affectedIntents != null) {
+            affectedIntents.update(ids.size());
+        }
+        List<Key> batch = new ArrayList<>(Math.min(ids.size(), TRIGGER_BATCH_SIZE));
+        for (int id : ids.toArray()) {
+            Key key = dependencies.key(id);
+            if (key == null) {
+                continue;
+            }
+            batch.add(key);
+            if (batch.size() == TRIGGER_BATCH_SIZE) {
+                delegate.triggerCompile(batch, false);
+                batch = new ArrayList<>(TRIGGER_BATCH_SIZE);
+            }
+        }
+        delegate.triggerCompile(batch, compileAllFailed);
+        if (context != null) {
+            context.stop();
+        }
     }
 
     @Override
@@ -217,7 +276,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         if (log.isTraceEnabled()) {
             log.trace("intent {}, old: {}, new: {}, installableCount: {}, resourceCount: {}",
                       key,
-                      intentsByDevice.values().contains(key),
+                      dependencies.isTracked(key),
                       isLocal && isInstalled,
                       installables.size(),
                       intent.resources().size() +
@@ -273,7 +332,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                 delegate.triggerCompile(Collections.emptySet(), true);
 
             } else {
-                Set<Key> intentsToRecompile = new HashSet<>();
+                IdSet intentsToRecompile = new IdSet();
                 boolean dontRecompileAllFailedIntents = true;
 
                 // Scan through the list of reasons and keep accruing all
@@ -282,19 +341,17 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                     if (reason instanceof LinkEvent) {
                         LinkEvent linkEvent = (LinkEvent) reason;
                         final LinkKey linkKey = linkKey(linkEvent.subject());
-                        synchronized (intentsByLink) {
-                            Set<Key> intentKeys = intentsByLink.get(linkKey);
-                            log.debug("recompile triggered by LinkEvent {} ({}) for {}",
-                                    linkKey, linkEvent.type(), intentKeys);
-                            intentsToRecompile.addAll(intentKeys);
-                        }
+                        int count = intentsToRecompile.size();
+                        dependencies.collectDependents(linkKey, intentsToRecompile);
+                        log.debug("recompile triggered by LinkEvent {} ({}) for up to {} intents",
+                                  linkKey, linkEvent.type(), intentsToRecompile.size() - count);
                         dontRecompileAllFailedIntents = dontRecompileAllFailedIntents &&
                                 (linkEvent.type() == LINK_REMOVED ||
                                 (linkEvent.type() == LINK_UPDATED &&
                                 linkEvent.subject().isDurable()));
                     }
                 }
-                delegate.triggerCompile(intentsToRecompile, !dontRecompileAllFailedIntents);
+                triggerCompile(intentsToRecompile, !dontRecompileAllFailedIntents);
             }
         }
     }
@@ -355,14 +412,14 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     }
 
     /*
-     * Re-dispatcher of device and host events.
+     * Re-dispatcher of device, port and host events.
      */
     private class DeviceAvailabilityHandler implements Runnable {
 
-        private final ElementId id;
+        private final Object id;
         private final boolean available;
 
-        DeviceAvailabilityHandler(ElementId id, boolean available) {
+        DeviceAvailabilityHandler(Object id, boolean available) {
             this.id = checkNotNull(id);
             this.available = available;
         }
@@ -376,11 +433,9 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
             // TODO should we recompile on available==true?
 
-            final ImmutableSet<Key> snapshot;
-            synchronized (intentsByDevice) {
-                snapshot = ImmutableSet.copyOf(intentsByDevice.get(id));
-            }
-            delegate.triggerCompile(snapshot, available);
+            IdSet intents = new IdSet();
+            dependencies.collectDependents(id, intents);
+            triggerCompile(intents, available);
         }
     }
 
@@ -402,12 +457,19 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                         type == DeviceEvent.Type.DEVICE_UPDATED);
                 executorService.execute(new DeviceAvailabilityHandler(id, available));
                 break;
-            case PORT_ADDED:
             case PORT_REMOVED:
             case PORT_UPDATED:
+                // Re-route intents off ports that went away or down; ports
+                // coming up are accounted for by the resulting link events.
+                Port port = event.port();
+                if (port != null && (type == DeviceEvent.Type.PORT_REMOVED || !port.isEnabled())) {
+                    ConnectPoint cp = new ConnectPoint(event.subject().id(), port.number());
+                    executorService.execute(new DeviceAvailabilityHandler(cp, false));
+                }
+                break;
+            case PORT_ADDED:
             case PORT_STATS_UPDATED:
             default:
-                // Don't handle port events for now
                 break;
             }
         }
@@ -15,6 +15,7 @@
  */
 package org.onosproject.net.packet.impl;
 
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.apache.felix.scr.annotations.Activate;
@@ -23,12 +24,16 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.Device;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.TrafficSelector;
@@ -59,6 +64,10 @@ import org.slf4j.Logger;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.util.Tools.groupedThreads;
@@ -98,8 +107,22 @@ public class PacketManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     private FlowObjectiveService objectiveService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private ExecutorService eventHandlingExecutor;
 
+    // Executors of asynchronous packet processors, sharded by ingress point;
+    // packets beyond the queue size are dropped rather than queued without bound
+    private static final int PROCESSOR_SHARDS = 8;
+    private static final int PROCESSOR_QUEUE_SIZE = 1024;
+    private static final long DROP_LOG_INTERVAL = 1000;
+    private static final String METRICS_COMPONENT = "PacketManager";
+    private static final String METRICS_FEATURE = "processors";
+    private static final String DROPPED_GAUGE = "droppedPackets";
+    private ExecutorService[] processorExecutors;
+    private final AtomicLong droppedPackets = new AtomicLong();
+
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
@@ -110,6 +133,15 @@ public class PacketManager
     public void activate() {
         eventHandlingExecutor = Executors.newSingleThreadExecutor(
                 groupedThreads("onos/net/packet", "event-handler"));
+        processorExecutors = new ExecutorService[PROCESSOR_SHARDS];
+        for (int i = 0; i < PROCESSOR_SHARDS; i++) {
+            processorExecutors[i] = new ThreadPoolExecutor(
+                    1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(PROCESSOR_QUEUE_SIZE),
+                    groupedThreads("onos/net/packet", "processor-" + i),
+                    this::dropPacket);
+        }
+        registerMetrics();
         appId = coreService.getAppId(CoreService.CORE_APP_NAME);
         store.setDelegate(delegate);
         deviceService.addListener(deviceListener);
@@ -122,14 +154,57 @@ public class PacketManager
         store.unsetDelegate(delegate);
         deviceService.removeListener(deviceListener);
         eventHandlingExecutor.shutdown();
+        for (ExecutorService executor : processorExecutors) {
+            executor.shutdown();
+        }
+        unregisterMetrics();
         log.info("Stopped");
     }
 
+    private void registerMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature f = c.registerFeature(METRICS_FEATURE);
+        metricsService.removeMetric(c, f, DROPPED_GAUGE);
+        metricsService.registerMetric(c, f, DROPPED_GAUGE, (Gauge<Long>) droppedPackets::get);
+    }
+
+    private void unregisterMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature f = c.registerFeature(METRICS_FEATURE);
+        metricsService.removeMetric(c, f, DROPPED_GAUGE);
+    }
+
+    // Drops a packet the asynchronous processors have no room for; the
+    // dropped packets are counted by the droppedPackets gauge.
+    private void dropPacket(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            log.debug("Packet processing is shut down");
+            return;
+        }
+        long dropped = droppedPackets.incrementAndGet();
+        if (dropped % DROP_LOG_INTERVAL == 1) {
+            log.warn("Asynchronous packet processors are falling behind; {} packets dropped so far", dropped);
+        }
+    }
+
     @Override
     public void addProcessor(PacketProcessor processor, int priority) {
+        addProcessor(processor, priority, DefaultTrafficSelector.emptySelector(), false);
+    }
+
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority,
+                             TrafficSelector selector, boolean async) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, "Processor cannot be null");
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
+        checkNotNull(selector, "Selector cannot be null");
+        ProcessorEntry entry = new ProcessorEntry(processor, priority, selector, async);
 
         // Insert the new processor according to its priority.
         int i = 0;
@@ -310,14 +385,39 @@ public class PacketManager
 
         @Override
         public void processPacket(PacketContext context) {
-            // TODO filter packets sent to processors based on registrations
+            List<ProcessorEntry> asyncEntries = null;
             for (ProcessorEntry entry : processors) {
-                long start = System.nanoTime();
-                entry.processor().process(context);
-                entry.addNanos(System.nanoTime() - start);
+                if (!entry.accepts(context)) {
+                    continue;
+                }
+                if (entry.isAsync()) {
+                    if (asyncEntries == null) {
+                        asyncEntries = Lists.newArrayList();
+                    }
+                    asyncEntries.add(entry);
+                } else {
+                    entry.process(context);
+                }
+            }
+            if (asyncEntries != null) {
+                processAsync(context, asyncEntries);
             }
         }
 
+        // Packets from the same ingress point go to the same executor, so
+        // each asynchronous processor sees them in the order received. Each
+        // processor gets its own read-only view of the context.
+        private void processAsync(PacketContext context, List<ProcessorEntry> entries) {
+            int shard = (context.inPacket().receivedFrom().hashCode() & Integer.MAX_VALUE) % PROCESSOR_SHARDS;
+            processorExecutors[shard].execute(() -> entries.forEach(entry -> {
+                try {
+                    entry.process(new ReadOnlyPacketContext(context));
+                } catch (Exception e) {
+                    log.warn("Packet processor {} failed", entry.processor(), e);
+                }
+            }));
+        }
+
     }
 
     /**
@@ -372,12 +472,17 @@ public class PacketManager
     private class ProcessorEntry implements PacketProcessorEntry {
         private final PacketProcessor processor;
         private final int priority;
-        private long invocations = 0;
-        private long nanos = 0;
+        private final TrafficSelector selector;
+        private final boolean async;
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
 
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        public ProcessorEntry(PacketProcessor processor, int priority,
+                              TrafficSelector selector, boolean async) {
             this.processor = processor;
             this.priority = priority;
+            this.selector = selector;
+            this.async = async;
         }
 
         @Override
@@ -390,24 +495,45 @@ public class PacketManager
             return priority;
         }
 
+        @Override
+        public TrafficSelector selector() {
+            return selector;
+        }
+
+        @Override
+        public boolean isAsync() {
+            return async;
+        }
+
         @Override
         public long invocations() {
-            return invocations;
+            return invocations.get();
         }
 
         @Override
         public long totalNanos() {
-            return nanos;
+            return nanos.get();
         }
 
         @Override
         public long averageNanos() {
-            return invocations > 0 ? nanos / invocations : 0;
+            long count = invocations.get();
+            return count > 0 ? nanos.get() / count : 0;
+        }
+
+        boolean accepts(PacketContext context) {
+            return selector.criteria().isEmpty() ||
+                    PacketSelectors.matches(selector, context.inPacket());
         }
 
-        void addNanos(long nanos) {
-            this.nanos += nanos;
-            this.invocations++;
+        void process(PacketContext context) {
+            long start = System.nanoTime();
+            try {
+                processor.process(context);
+            } finally {
+                nanos.addAndGet(System.nanoTime() - start);
+                invocations.incrementAndGet();
+            }
         }
     }
 }
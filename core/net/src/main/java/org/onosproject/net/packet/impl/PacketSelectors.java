@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.ICMP;
+import org.onlab.packet.IPacket;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.TCP;
+import org.onlab.packet.UDP;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthCriterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.IcmpTypeCriterion;
+import org.onosproject.net.flow.criteria.PortCriterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.net.flow.criteria.UdpPortCriterion;
+import org.onosproject.net.flow.criteria.VlanIdCriterion;
+import org.onosproject.net.packet.InboundPacket;
+
+/**
+ * Evaluates traffic selectors against inbound packets.
+ */
+final class PacketSelectors {
+
+    // prohibit instantiation
+    private PacketSelectors() {
+    }
+
+    /**
+     * Returns whether the given packet matches every criterion of the
+     * selector. A criterion on a header the packet does not carry, such as
+     * a TCP port of an ARP frame, fails the match. Criteria of types not
+     * evaluated here are considered matched, so that a selector never hides
+     * a packet its processor might be interested in.
+     *
+     * @param selector traffic selector
+     * @param packet   inbound packet
+     * @return true if the packet matches
+     */
+    static boolean matches(TrafficSelector selector, InboundPacket packet) {
+        for (Criterion criterion : selector.criteria()) {
+            if (!matches(criterion, packet)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(Criterion criterion, InboundPacket packet) {
+        if (criterion.type() == Criterion.Type.IN_PORT) {
+            return ((PortCriterion) criterion).port().equals(packet.receivedFrom().port());
+        }
+        Ethernet eth = packet.parsed();
+        if (eth == null) {
+            return false;
+        }
+        IPacket ip = eth.getPayload();
+        switch (criterion.type()) {
+            case ETH_TYPE:
+                return ((EthTypeCriterion) criterion).ethType().toShort() == eth.getEtherType();
+            case ETH_SRC:
+                return ((EthCriterion) criterion).mac().equals(eth.getSourceMAC());
+            case ETH_DST:
+                return ((EthCriterion) criterion).mac().equals(eth.getDestinationMAC());
+            case VLAN_VID:
+                return ((VlanIdCriterion) criterion).vlanId().toShort() == eth.getVlanID();
+            case IP_PROTO:
+                return ip instanceof IPv4 &&
+                        ((IPProtocolCriterion) criterion).protocol() == (((IPv4) ip).getProtocol() & 0xff);
+            case IPV4_SRC:
+                return ip instanceof IPv4 && ((IPCriterion) criterion).ip()
+                        .contains(Ip4Address.valueOf(((IPv4) ip).getSourceAddress()));
+            case IPV4_DST:
+                return ip instanceof IPv4 && ((IPCriterion) criterion).ip()
+                        .contains(Ip4Address.valueOf(((IPv4) ip).getDestinationAddress()));
+            case TCP_SRC:
+                return transport(ip) instanceof TCP &&
+                        ((TcpPortCriterion) criterion).tcpPort().toInt() == ((TCP) transport(ip)).getSourcePort();
+            case TCP_DST:
+                return transport(ip) instanceof TCP &&
+                        ((TcpPortCriterion) criterion).tcpPort().toInt() == ((TCP) transport(ip)).getDestinationPort();
+            case UDP_SRC:
+                return transport(ip) instanceof UDP &&
+                        ((UdpPortCriterion) criterion).udpPort().toInt() == ((UDP) transport(ip)).getSourcePort();
+            case UDP_DST:
+                return transport(ip) instanceof UDP &&
+                        ((UdpPortCriterion) criterion).udpPort().toInt() == ((UDP) transport(ip)).getDestinationPort();
+            case ICMPV4_TYPE:
+                return transport(ip) instanceof ICMP &&
+                        ((IcmpTypeCriterion) criterion).icmpType() == (((ICMP) transport(ip)).getIcmpType() & 0xff);
+            default:
+                return true;
+        }
+    }
+
+    private static IPacket transport(IPacket ip) {
+        return ip instanceof IPv4 ? ip.getPayload() : null;
+    }
+}
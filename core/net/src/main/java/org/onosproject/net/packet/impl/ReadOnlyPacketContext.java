@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.InboundPacket;
+import org.onosproject.net.packet.OutboundPacket;
+import org.onosproject.net.packet.PacketContext;
+
+/**
+ * Read-only view of a packet context, handed to asynchronous packet
+ * processors. They run after the synchronous processors have handled the
+ * packet, so they may observe the packet but not send or block it; each
+ * view has its own read-only buffer of the unparsed packet.
+ */
+final class ReadOnlyPacketContext implements PacketContext {
+
+    private static final String READ_ONLY =
+            "Asynchronous packet processors cannot handle the packet; use PacketService.emit";
+
+    private final PacketContext context;
+    private final InboundPacket inPacket;
+
+    /**
+     * Creates a read-only view of the given packet context.
+     *
+     * @param context packet context
+     */
+    ReadOnlyPacketContext(PacketContext context) {
+        this.context = context;
+        InboundPacket in = context.inPacket();
+        this.inPacket = new DefaultInboundPacket(in.receivedFrom(), in.parsed(),
+                                                 in.unparsed() != null ?
+                                                         in.unparsed().asReadOnlyBuffer() : null);
+    }
+
+    @Override
+    public long time() {
+        return context.time();
+    }
+
+    @Override
+    public InboundPacket inPacket() {
+        return inPacket;
+    }
+
+    @Override
+    public OutboundPacket outPacket() {
+        return context.outPacket();
+    }
+
+    @Override
+    public TrafficTreatment.Builder treatmentBuilder() {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public void send() {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public boolean block() {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public boolean isHandled() {
+        return context.isHandled();
+    }
+}
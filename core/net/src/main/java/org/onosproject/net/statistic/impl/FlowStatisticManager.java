@@ -19,20 +19,27 @@ package org.onosproject.net.statistic.impl;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.util.RollupTimeSeries;
+import org.onlab.util.RollupTimeSeries.Resolution;
 import org.onosproject.cli.Comparators;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Port;
 import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.DefaultTypedFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.flow.FlowRuleListener;
@@ -58,6 +65,7 @@ import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_REMOVED;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.onosproject.security.AppPermission.Type.*;
@@ -80,19 +88,64 @@ public class FlowStatisticManager implements FlowStatisticService {
     protected DeviceService deviceService;
 
     private final InternalFlowRuleStatsListener frListener = new InternalFlowRuleStatsListener();
+    private final DeviceListener deviceListener = new InternalDeviceListener();
+
+    // last counters seen of each flow, and the flow counter history of each device
+    private final Map<FlowId, FlowCounters> lastCounters = Maps.newConcurrentMap();
+    private final Map<DeviceId, RollupTimeSeries> history = Maps.newConcurrentMap();
 
     @Activate
     public void activate() {
         flowRuleService.addListener(frListener);
+        deviceService.addListener(deviceListener);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
         flowRuleService.removeListener(frListener);
+        deviceService.removeListener(deviceListener);
         log.info("Stopped");
     }
 
+    @Override
+    public long[] history(DeviceId deviceId, MetricType metricType,
+                          Resolution resolution, long fromMillis, long toMillis) {
+        checkPermission(STATISTIC_READ);
+
+        RollupTimeSeries series = history.get(deviceId);
+        return series == null ? new long[0]
+                : series.values(metricType.ordinal(), resolution, fromMillis, toMillis);
+    }
+
+    // Records the counter increases of a flow since its counters were last
+    // collected, over the time between the two collections.
+    private void recordHistory(FlowEntry entry) {
+        FlowCounters current = new FlowCounters(entry);
+        FlowCounters last = lastCounters.get(entry.id());
+        if (last != null && current.timeMillis <= last.timeMillis) {
+            // counters not collected again since
+            return;
+        }
+        lastCounters.put(entry.id(), current);
+        if (last == null) {
+            return;
+        }
+        long bytes = current.bytes - last.bytes;
+        long packets = current.packets - last.packets;
+        // counters go back when a flow is reinstalled
+        if (bytes >= 0 && packets >= 0) {
+            history.computeIfAbsent(entry.deviceId(), k -> new RollupTimeSeries(MetricType.values().length))
+                    .record(last.timeMillis, current.timeMillis, bytes, packets);
+        }
+    }
+
+    // Cleans the flow counters and history of the specified device
+    private void pruneDeviceData(DeviceId deviceId) {
+        lastCounters.values().removeIf(counters -> deviceId.equals(counters.deviceId));
+        history.remove(deviceId);
+    }
+
     @Override
     public Map<ConnectPoint, SummaryFlowEntryWithLoad> loadSummary(Device device) {
         checkPermission(STATISTIC_READ);
@@ -614,10 +667,12 @@ public class FlowStatisticManager implements FlowStatisticService {
                 case RULE_ADDED:
                     if (rule instanceof FlowEntry) {
                         flowStatisticStore.addFlowStatistic((FlowEntry) rule);
+                        recordHistory((FlowEntry) rule);
                     }
                     break;
                 case RULE_UPDATED:
                     flowStatisticStore.updateFlowStatistic((FlowEntry) rule);
+                    recordHistory((FlowEntry) rule);
                     break;
                 case RULE_ADD_REQUESTED:
                     break;
@@ -625,10 +680,39 @@ public class FlowStatisticManager implements FlowStatisticService {
                     break;
                 case RULE_REMOVED:
                     flowStatisticStore.removeFlowStatistic(rule);
+                    if (rule instanceof FlowEntry) {
+                        recordHistory((FlowEntry) rule);
+                    }
+                    lastCounters.remove(rule.id());
                     break;
                 default:
                     log.warn("Unknown flow rule event {}", event);
             }
         }
     }
+
+    // Prunes the history of removed devices.
+    private class InternalDeviceListener implements DeviceListener {
+        @Override
+        public void event(DeviceEvent event) {
+            if (event.type() == DEVICE_REMOVED) {
+                pruneDeviceData(event.subject().id());
+            }
+        }
+    }
+
+    // Counters of a flow as collected from its device at a point in time.
+    private static final class FlowCounters {
+        private final DeviceId deviceId;
+        private final long bytes;
+        private final long packets;
+        private final long timeMillis;
+
+        private FlowCounters(FlowEntry entry) {
+            this.deviceId = entry.deviceId();
+            this.bytes = entry.bytes();
+            this.packets = entry.packets();
+            this.timeMillis = entry.lastSeen();
+        }
+    }
 }
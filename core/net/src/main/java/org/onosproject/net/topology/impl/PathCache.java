@@ -0,0 +1,274 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.topology.impl;
+
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import org.onlab.graph.DijkstraGraphSearch;
+import org.onlab.graph.GraphPathSearch;
+import org.onosproject.net.DefaultPath;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.Path;
+import org.onosproject.net.topology.LinkWeight;
+import org.onosproject.net.topology.Topology;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+import org.onosproject.net.topology.TopologyVertex;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+import static org.onosproject.core.CoreService.CORE_PROVIDER_ID;
+
+/**
+ * Bounded cache of the shortest paths between infrastructure devices.
+ * <p>
+ * Only paths of the current topology are cached, and only for hop count or
+ * for link weights that declare themselves cacheable. Entries are keyed by
+ * source, destination and the identity of the link weight function, and
+ * evicted least recently used first. A topology change drops all entries,
+ * except that when the new topology only lacks some links of the previous
+ * one, hop count entries whose paths avoid the missing links remain
+ * shortest and are carried over.
+ * </p>
+ */
+final class PathCache {
+
+    private static final DijkstraGraphSearch<TopologyVertex, TopologyEdge> DIJKSTRA =
+            new DijkstraGraphSearch<>();
+
+    private final Cache<Key, Set<Path>> cache;
+    private final Timer searchTimer;
+
+    // Topology whose paths are cached
+    private volatile Topology current;
+
+    /**
+     * Creates a path cache.
+     *
+     * @param maxEntries  maximum number of source/destination entries
+     * @param searchTimer timer of path searches on cache misses; null if not
+     *                    tracked
+     */
+    PathCache(int maxEntries, Timer searchTimer) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        this.searchTimer = searchTimer;
+    }
+
+    /**
+     * Returns the paths between two devices, searching for them on a miss.
+     * Paths of a superseded topology or for a link weight that is not
+     * cacheable are searched for every time.
+     *
+     * @param topology topology to search
+     * @param src      source device
+     * @param dst      destination device
+     * @param weight   link weight function; null for hop count
+     * @param search   search for the paths on a cache miss
+     * @return set of shortest paths
+     */
+    Set<Path> getPaths(Topology topology, DeviceId src, DeviceId dst,
+                       LinkWeight weight, Supplier<Set<Path>> search) {
+        if (topology != current || (weight != null && !weight.isCacheable())) {
+            return search(search);
+        }
+        Key key = new Key(topology, src, dst, weight);
+        Set<Path> paths = cache.getIfPresent(key);
+        if (paths == null) {
+            paths = search(search);
+            put(key, paths);
+        }
+        return paths;
+    }
+
+    // Runs a path search, timing it.
+    private Set<Path> search(Supplier<Set<Path>> search) {
+        final Timer.Context context = searchTimer != null ? searchTimer.time() : null;
+        try {
+            return search.get();
+        } finally {
+            if (context != null) {
+                context.stop();
+            }
+        }
+    }
+
+    // Caches the paths unless their topology was superseded meanwhile, so
+    // that no entry keeps a superseded topology alive.
+    private void put(Key key, Set<Path> paths) {
+        cache.put(key, paths);
+        if (key.topology != current) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Accounts for a topology superseding another one.
+     *
+     * @param previous      superseded topology; null if none
+     * @param previousGraph graph of the superseded topology; null if none
+     * @param topology      new topology
+     * @param graph         graph of the new topology
+     */
+    void topologyChanged(Topology previous, TopologyGraph previousGraph,
+                         Topology topology, TopologyGraph graph) {
+        current = topology;
+        Set<Link> removed = previousGraph != null ? removedLinks(previousGraph, graph) : null;
+        if (removed != null) {
+            Map<Key, Set<Path>> carried = new HashMap<>();
+            cache.asMap().forEach((key, paths) -> {
+                if (key.topology == previous && key.weight == null && !crossesAny(paths, removed)) {
+                    carried.put(key.with(topology), paths);
+                }
+            });
+            cache.putAll(carried);
+        }
+        cache.asMap().keySet().removeIf(key -> key.topology != topology);
+    }
+
+    /**
+     * Searches for the hop count paths between all pairs of devices of the
+     * given topology, one single-source search per device.
+     *
+     * @param topology topology to search
+     * @param graph    graph of the topology
+     * @param stale    indicates whether the topology has been superseded, in
+     *                 which case the search is abandoned
+     */
+    void precompute(Topology topology, TopologyGraph graph, BooleanSupplier stale) {
+        for (TopologyVertex src : graph.getVertexes()) {
+            if (stale.getAsBoolean()) {
+                return;
+            }
+            GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
+                    DIJKSTRA.search(graph, src, null, null, ALL_PATHS);
+            Map<DeviceId, Set<Path>> paths = result.paths().stream()
+                    .collect(Collectors.groupingBy(p -> p.dst().deviceId(),
+                                                   Collectors.mapping(this::networkPath,
+                                                                      Collectors.toSet())));
+            paths.forEach((dst, set) -> put(new Key(topology, src.deviceId(), dst, null),
+                                            ImmutableSet.copyOf(set)));
+        }
+    }
+
+    /**
+     * Returns the hit and miss statistics of the cache.
+     *
+     * @return cache statistics
+     */
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return entry count
+     */
+    long size() {
+        return cache.size();
+    }
+
+    // Converts graph path to a network path with the same cost.
+    private Path networkPath(org.onlab.graph.Path<TopologyVertex, TopologyEdge> path) {
+        List<Link> links = path.edges().stream().map(TopologyEdge::link).collect(Collectors.toList());
+        return new DefaultPath(CORE_PROVIDER_ID, links, path.cost());
+    }
+
+    // Returns the links of the previous graph missing from the new one, or
+    // null if the new graph has links that are new or otherwise changed, as
+    // those may yield shorter paths.
+    private static Set<Link> removedLinks(TopologyGraph previousGraph, TopologyGraph graph) {
+        Map<Link, Link> previousLinks = new HashMap<>();
+        previousGraph.getEdges().forEach(e -> previousLinks.put(e.link(), e.link()));
+        for (TopologyEdge edge : graph.getEdges()) {
+            Link link = edge.link();
+            Link previousLink = previousLinks.remove(link);
+            if (previousLink == null || previousLink.state() != link.state() ||
+                    !Objects.equals(previousLink.annotations(), link.annotations())) {
+                return null;
+            }
+        }
+        return new HashSet<>(previousLinks.keySet());
+    }
+
+    private static boolean crossesAny(Set<Path> paths, Set<Link> links) {
+        if (links.isEmpty()) {
+            return false;
+        }
+        for (Path path : paths) {
+            for (Link link : path.links()) {
+                if (links.contains(link)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Cache key; topology and link weight are compared by identity.
+    private static final class Key {
+        private final Topology topology;
+        private final DeviceId src;
+        private final DeviceId dst;
+        private final LinkWeight weight;
+
+        private Key(Topology topology, DeviceId src, DeviceId dst, LinkWeight weight) {
+            this.topology = topology;
+            this.src = src;
+            this.dst = dst;
+            this.weight = weight;
+        }
+
+        private Key with(Topology topology) {
+            return new Key(topology, src, dst, weight);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * System.identityHashCode(topology) + src.hashCode()) +
+                    dst.hashCode()) + System.identityHashCode(weight);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return topology == other.topology && weight == other.weight &&
+                        src.equals(other.src) && dst.equals(other.dst);
+            }
+            return false;
+        }
+    }
+}
@@ -15,12 +15,20 @@
  */
 package org.onosproject.net.topology.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.net.DisjointPath;
 import org.onosproject.net.provider.AbstractListenerProviderRegistry;
 import org.onosproject.event.Event;
@@ -43,13 +51,20 @@ import org.onosproject.net.topology.TopologyProviderService;
 import org.onosproject.net.topology.TopologyService;
 import org.onosproject.net.topology.TopologyStore;
 import org.onosproject.net.topology.TopologyStoreDelegate;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import java.util.Dictionary;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.onosproject.security.AppPermission.Type.*;
@@ -72,6 +87,15 @@ public class TopologyManager
     public static final String CONNECTION_POINT_NULL = "Connection point cannot be null";
     public static final String LINK_WEIGHT_NULL = "Link weight cannot be null";
 
+    private static final int DEFAULT_PATH_CACHE_SIZE = 100_000;
+    private static final int DEFAULT_ALL_PATHS_MAX_DEVICES = 0;
+
+    private static final String METRICS_COMPONENT = "TopologyManager";
+    private static final String METRICS_FEATURE = "paths";
+    private static final String PATH_SEARCH_TIMER = "pathSearch";
+    private static final String HIT_RATE_GAUGE = "pathCacheHitRate";
+    private static final String SIZE_GAUGE = "pathCacheSize";
+
     private final Logger log = getLogger(getClass());
 
     private TopologyStoreDelegate delegate = new InternalStoreDelegate();
@@ -79,8 +103,33 @@ public class TopologyManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected TopologyStore store;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
+    @Property(name = "pathCacheSize", intValue = DEFAULT_PATH_CACHE_SIZE,
+            label = "Maximum number of cached source/destination path sets")
+    private int pathCacheSize = DEFAULT_PATH_CACHE_SIZE;
+
+    @Property(name = "allPathsMaxDevices", intValue = DEFAULT_ALL_PATHS_MAX_DEVICES,
+            label = "Precompute the paths between all device pairs of topologies " +
+                    "with at most this many devices; 0 to disable")
+    private int allPathsMaxDevices = DEFAULT_ALL_PATHS_MAX_DEVICES;
+
+    private volatile PathCache pathCache;
+    private volatile Topology pathTopology;
+    private Timer pathSearchTimer;
+    private ExecutorService pathExecutor;
+
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        registerMetrics();
+        pathCache = new PathCache(pathCacheSize, pathSearchTimer);
+        pathExecutor = newSingleThreadExecutor(groupedThreads("onos/topo", "paths"));
+        modified(context);
         store.setDelegate(delegate);
         eventDispatcher.addSink(TopologyEvent.class, listenerRegistry);
         log.info("Started");
@@ -88,11 +137,94 @@ public class TopologyManager
 
     @Deactivate
     public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
         store.unsetDelegate(delegate);
         eventDispatcher.removeSink(TopologyEvent.class);
+        pathExecutor.shutdownNow();
+        unregisterMetrics();
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+
+        Dictionary<?, ?> properties = context.getProperties();
+        int newPathCacheSize, newAllPathsMaxDevices;
+        try {
+            String s = get(properties, "pathCacheSize");
+            newPathCacheSize = isNullOrEmpty(s) ? pathCacheSize : Integer.parseInt(s.trim());
+
+            s = get(properties, "allPathsMaxDevices");
+            newAllPathsMaxDevices = isNullOrEmpty(s) ? allPathsMaxDevices : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newPathCacheSize = DEFAULT_PATH_CACHE_SIZE;
+            newAllPathsMaxDevices = DEFAULT_ALL_PATHS_MAX_DEVICES;
+        }
+
+        if (newPathCacheSize != pathCacheSize) {
+            pathCacheSize = newPathCacheSize;
+            resetPathCache();
+        }
+        allPathsMaxDevices = newAllPathsMaxDevices;
+        log.info("Configured with pathCacheSize = {}; allPathsMaxDevices = {}",
+                 pathCacheSize, allPathsMaxDevices);
+    }
+
+    private void registerMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature f = c.registerFeature(METRICS_FEATURE);
+        pathSearchTimer = metricsService.createTimer(c, f, PATH_SEARCH_TIMER);
+        metricsService.removeMetric(c, f, HIT_RATE_GAUGE);
+        metricsService.registerMetric(c, f, HIT_RATE_GAUGE,
+                                      (Gauge<Double>) () -> pathCache.stats().hitRate());
+        metricsService.removeMetric(c, f, SIZE_GAUGE);
+        metricsService.registerMetric(c, f, SIZE_GAUGE, (Gauge<Long>) () -> pathCache.size());
+    }
+
+    private void unregisterMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature f = c.registerFeature(METRICS_FEATURE);
+        metricsService.removeMetric(c, f, PATH_SEARCH_TIMER);
+        metricsService.removeMetric(c, f, HIT_RATE_GAUGE);
+        metricsService.removeMetric(c, f, SIZE_GAUGE);
+    }
+
+    // Replaces the path cache with an empty one of the configured size.
+    private synchronized void resetPathCache() {
+        pathCache = new PathCache(pathCacheSize, pathSearchTimer);
+        pathTopology = null;
+        Topology topology = store.currentTopology();
+        if (topology != null) {
+            updatePathCache(topology);
+        }
+    }
+
+    // Carries the cached paths over to the new topology and, for small
+    // enough topologies, precomputes the paths between all device pairs.
+    private synchronized void updatePathCache(Topology topology) {
+        Topology previous = pathTopology;
+        if (previous == topology) {
+            return;
+        }
+        pathTopology = topology;
+        PathCache cache = pathCache;
+        cache.topologyChanged(previous, previous != null ? store.getGraph(previous) : null,
+                              topology, store.getGraph(topology));
+        if (topology.deviceCount() <= allPathsMaxDevices) {
+            pathExecutor.execute(() -> cache.precompute(topology, store.getGraph(topology),
+                                                        () -> pathTopology != topology));
+        }
+    }
+
     @Override
     public Topology currentTopology() {
         checkPermission(TOPOLOGY_READ);
@@ -150,7 +282,8 @@ public class TopologyManager
         checkNotNull(topology, TOPOLOGY_NULL);
         checkNotNull(src, DEVICE_ID_NULL);
         checkNotNull(dst, DEVICE_ID_NULL);
-        return store.getPaths(topology, src, dst);
+        return pathCache.getPaths(topology, src, dst, null,
+                                  () -> store.getPaths(topology, src, dst));
     }
 
     @Override
@@ -161,7 +294,8 @@ public class TopologyManager
         checkNotNull(src, DEVICE_ID_NULL);
         checkNotNull(dst, DEVICE_ID_NULL);
         checkNotNull(weight, "Link weight cannot be null");
-        return store.getPaths(topology, src, dst, weight);
+        return pathCache.getPaths(topology, src, dst, weight,
+                                  () -> store.getPaths(topology, src, dst, weight));
     }
 
     @Override
@@ -241,6 +375,7 @@ public class TopologyManager
                                                        topoDescription, reasons);
             if (event != null) {
                 log.info("Topology {} changed", event.subject());
+                updatePathCache(event.subject());
                 post(event);
             }
         }
@@ -250,6 +385,7 @@ public class TopologyManager
     private class InternalStoreDelegate implements TopologyStoreDelegate {
         @Override
         public void notify(TopologyEvent event) {
+            updatePathCache(event.subject());
             post(event);
         }
     }
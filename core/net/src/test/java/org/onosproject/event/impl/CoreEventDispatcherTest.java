@@ -15,9 +15,11 @@
  */
 package org.onosproject.event.impl;
 
+import com.google.common.collect.ImmutableSet;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.EventSink;
 
@@ -27,6 +29,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test of the even dispatcher mechanism.
@@ -39,6 +43,7 @@ public class CoreEventDispatcherTest {
 
     @Before
     public void setUp() {
+        dispatcher.metricsService = new MetricsManager();
         dispatcher.activate();
         dispatcher.addSink(Prickle.class, prickleSink);
         dispatcher.addSink(Goo.class, gooSink);
@@ -76,6 +81,142 @@ public class CoreEventDispatcherTest {
         validate(prickleSink);
     }
 
+    @Test
+    public void postPartitioned() throws Exception {
+        dispatcher.setDispatchLanes(true, ImmutableSet.of());
+        assertTrue("should be partitioned", dispatcher.isDispatchPartitioned());
+
+        prickleSink.latch = new CountDownLatch(2);
+        gooSink.latch = new CountDownLatch(1);
+        dispatcher.post(new Prickle("yo"));
+        dispatcher.post(new Goo("boom"));
+        dispatcher.post(new Prickle("dude"));
+        prickleSink.latch.await(100, TimeUnit.MILLISECONDS);
+        gooSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "yo", "dude");
+        validate(gooSink, "boom");
+        assertEquals("incorrect lanes", ImmutableSet.of("Prickle", "Goo"),
+                     dispatcher.getLanes());
+        assertTrue("missing lane metrics",
+                   dispatcher.metricsService.getTimers((n, m) -> n.contains("Prickle"))
+                           .containsKey("EventDispatcher.Prickle.dispatchLatency"));
+    }
+
+    @Test
+    public void postPartitionedGroups() throws Exception {
+        dispatcher.setDispatchLanes(true, ImmutableSet.of(ImmutableSet.of("Prickle", "Goo")));
+
+        prickleSink.latch = new CountDownLatch(1);
+        gooSink.latch = new CountDownLatch(1);
+        dispatcher.post(new Goo("boom"));
+        dispatcher.post(new Prickle("yo"));
+        prickleSink.latch.await(100, TimeUnit.MILLISECONDS);
+        gooSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "yo");
+        validate(gooSink, "boom");
+        assertEquals("incorrect lanes", ImmutableSet.of("Prickle+Goo"),
+                     dispatcher.getLanes());
+
+        dispatcher.setDispatchLanes(false, null);
+        assertFalse("should not be partitioned", dispatcher.isDispatchPartitioned());
+        prickleSink.latch = new CountDownLatch(1);
+        dispatcher.post(new Prickle("dude"));
+        prickleSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "yo", "dude");
+        assertEquals("incorrect lanes", ImmutableSet.of("default"),
+                     dispatcher.getLanes());
+    }
+
+    @Test
+    public void repartitionDrainsOldLanes() throws Exception {
+        prickleSink.gate = new CountDownLatch(1);
+        prickleSink.latch = new CountDownLatch(2);
+        dispatcher.post(new Prickle("yo"));
+        dispatcher.setDispatchLanes(true, ImmutableSet.of());
+        dispatcher.post(new Prickle("dude"));
+
+        // the new lane must wait for the old one to dispatch its events
+        assertFalse("event dispatched ahead of older events",
+                    prickleSink.latch.await(100, TimeUnit.MILLISECONDS));
+        prickleSink.gate.countDown();
+        assertTrue("events not dispatched", prickleSink.latch.await(1, TimeUnit.SECONDS));
+        validate(prickleSink, "yo", "dude");
+    }
+
+    @Test
+    public void fullLaneHoldsPostersBack() throws Exception {
+        dispatcher.setLaneCapacity(1);
+        dispatcher.setDispatchLanes(true, ImmutableSet.of());
+        prickleSink.gate = new CountDownLatch(1);
+        prickleSink.latch = new CountDownLatch(3);
+        dispatcher.post(new Prickle("a"));
+        dispatcher.post(new Prickle("b"));
+
+        Thread poster = new Thread(() -> dispatcher.post(new Prickle("c")));
+        poster.start();
+        poster.join(100);
+        assertTrue("poster should be held back", poster.isAlive());
+
+        prickleSink.gate.countDown();
+        poster.join(1000);
+        assertFalse("poster should be released", poster.isAlive());
+        assertTrue("events not dispatched", prickleSink.latch.await(1, TimeUnit.SECONDS));
+        validate(prickleSink, "a", "b", "c");
+    }
+
+    @Test
+    public void duplicateGroupMember() throws Exception {
+        dispatcher.setDispatchLanes(true, ImmutableSet.of(ImmutableSet.of("Prickle", "Goo"),
+                                                          ImmutableSet.of("Prickle")));
+        prickleSink.latch = new CountDownLatch(1);
+        dispatcher.post(new Prickle("yo"));
+        prickleSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "yo");
+        assertEquals("first group should win", ImmutableSet.of("Prickle+Goo"),
+                     dispatcher.getLanes());
+    }
+
+    @Test
+    public void heldBackPosterDoesNotBlockRetirement() throws Exception {
+        dispatcher.setLaneCapacity(1);
+        dispatcher.setDispatchLanes(true, ImmutableSet.of());
+        prickleSink.gate = new CountDownLatch(1);
+        prickleSink.latch = new CountDownLatch(3);
+        dispatcher.post(new Prickle("a"));
+        dispatcher.post(new Prickle("b"));
+
+        Thread poster = new Thread(() -> dispatcher.post(new Prickle("c")));
+        poster.start();
+        poster.join(100);
+        assertTrue("poster should be held back", poster.isAlive());
+
+        Thread retirer = new Thread(() -> dispatcher.setDispatchLanes(false, null));
+        retirer.start();
+        retirer.join(1000);
+        assertFalse("retirement should not wait for held back posters", retirer.isAlive());
+
+        prickleSink.gate.countDown();
+        poster.join(1000);
+        assertTrue("events not dispatched", prickleSink.latch.await(1, TimeUnit.SECONDS));
+        validate(prickleSink, "a", "b", "c");
+    }
+
+    @Test
+    public void watchdogRestartsDrainingLanes() throws Exception {
+        dispatcher.setDispatchTimeLimit(250);
+        prickleSink.gate = new CountDownLatch(1);
+        prickleSink.latch = new CountDownLatch(3);
+        dispatcher.post(new Prickle("a"));
+        dispatcher.post(new Prickle("b"));
+        dispatcher.setDispatchLanes(true, ImmutableSet.of());
+        dispatcher.post(new Prickle("c"));
+
+        // the stalled sink of the retired lane is cut off by the watchdog,
+        // so the new lane does not wait for the drain timeout
+        assertTrue("events not dispatched", prickleSink.latch.await(3, TimeUnit.SECONDS));
+        validate(prickleSink, "a", "b", "c");
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -107,8 +248,16 @@ public class CoreEventDispatcherTest {
     private static class Sink {
         final List<String> subjects = new ArrayList<>();
         CountDownLatch latch;
+        CountDownLatch gate;
 
         protected void process(String subject) {
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
             subjects.add(subject);
             latch.countDown();
         }
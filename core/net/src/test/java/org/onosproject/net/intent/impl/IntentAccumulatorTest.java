@@ -36,6 +36,7 @@ import com.google.common.collect.ImmutableList;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 
 /**
  * Unit tests for the intent accumulator.
@@ -156,5 +157,27 @@ public class IntentAccumulatorTest {
         accumulator.processItems(intentDataItems);
     }
 
-
+    /**
+     * Tests that the accumulator admits a bounded number of batches in
+     * flight and shortens its idle period only while none is.
+     */
+    @Test
+    public void checkInFlightBatches() {
+        IntentAccumulator accumulator = new IntentAccumulator(operations -> { }, 2);
+        List<IntentData> items = ImmutableList.of(
+                new IntentData(intent1, IntentState.INSTALL_REQ, new MockTimestamp(1)));
+        int idleMillis = accumulator.maxIdleMillis();
+
+        accumulator.processItems(items);
+        assertThat(accumulator.isReady(), is(true));
+        assertThat(accumulator.maxIdleMillis() > idleMillis, is(true));
+
+        accumulator.processItems(items);
+        assertThat(accumulator.isReady(), is(false));
+
+        accumulator.ready();
+        assertThat(accumulator.isReady(), is(true));
+        accumulator.ready();
+        assertThat(accumulator.maxIdleMillis(), is(idleMillis));
+    }
 }
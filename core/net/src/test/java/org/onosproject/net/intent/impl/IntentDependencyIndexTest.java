@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.impl.IntentDependencyIndex.IdSet;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+
+/**
+ * Tests of the intent dependency index.
+ */
+public class IntentDependencyIndexTest {
+
+    private final IntentDependencyIndex index = new IntentDependencyIndex();
+
+    private Set<Key> dependents(Object resource) {
+        IdSet ids = new IdSet();
+        index.collectDependents(resource, ids);
+        Set<Key> keys = new HashSet<>();
+        for (int id : ids.toArray()) {
+            keys.add(index.key(id));
+        }
+        return keys;
+    }
+
+    @Test
+    public void addAndRemove() {
+        Key k1 = Key.of(1, APP_ID);
+        Key k2 = Key.of(2, APP_ID);
+        index.add(k1, ImmutableList.of("a", "b"));
+        index.add(k2, ImmutableList.of("b"));
+        index.add(k2, ImmutableList.of("b"));
+
+        assertEquals(2, index.keyCount());
+        assertEquals(ImmutableList.of(k1), ImmutableList.copyOf(dependents("a")));
+        assertEquals(2, dependents("b").size());
+        assertTrue(dependents("c").isEmpty());
+
+        index.remove(k2, ImmutableList.of("b"));
+        assertFalse(index.isTracked(k2));
+        assertEquals(1, dependents("b").size());
+
+        index.remove(k1, ImmutableList.of("a", "b"));
+        assertEquals(0, index.keyCount());
+        assertTrue(dependents("b").isEmpty());
+    }
+
+    @Test
+    public void recycledIds() {
+        Key k1 = Key.of(1, APP_ID);
+        Key k2 = Key.of(2, APP_ID);
+        index.add(k1, ImmutableList.of("a"));
+        index.remove(k1, ImmutableList.of("a"));
+        index.add(k2, ImmutableList.of("b"));
+
+        assertTrue(dependents("a").isEmpty());
+        assertEquals(ImmutableList.of(k2), ImmutableList.copyOf(dependents("b")));
+    }
+
+    @Test
+    public void idSet() {
+        Random random = new Random(1);
+        IdSet set = new IdSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            int id = random.nextInt(1000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(id), set.add(id));
+            } else {
+                assertEquals(expected.remove(id), set.remove(id));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        Set<Integer> actual = new HashSet<>();
+        for (int id : set.toArray()) {
+            actual.add(id);
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.onosproject.net.intent.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -29,9 +30,11 @@ import org.onlab.junit.TestUtils;
 import org.onlab.junit.TestUtils.TestUtilsException;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.Event;
+import org.onosproject.net.DefaultPort;
 import org.onosproject.net.Device;
 import org.onosproject.net.Link;
 import org.onosproject.net.NetworkResource;
+import org.onosproject.net.Port;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.intent.Intent;
@@ -55,6 +58,7 @@ import static org.hamcrest.Matchers.is;
 import static org.onosproject.net.NetTestTools.APP_ID;
 import static org.onosproject.net.NetTestTools.device;
 import static org.onosproject.net.NetTestTools.link;
+import static org.onosproject.net.PortNumber.portNumber;
 
 /**
  * Tests for the objective tracker.
@@ -322,5 +326,72 @@ public class ObjectiveTrackerTest {
         assertThat(delegate.compileAllFailedFromEvent, is(true));
     }
 
+    /**
+     * Tests an event for a port going down that is an end-point of a link
+     * used by an intent.
+     *
+     * @throws InterruptedException if the latch wait fails.
+     */
+    @Test
+    public void testEventPortDownMatch() throws Exception {
+        final Link link = link("src", 1, "dst", 2);
+        final Device device = device("dst");
+        final Port port = new DefaultPort(device, portNumber(2), false);
 
+        final Key key = Key.of(0x333L, APP_ID);
+        Collection<NetworkResource> resources = ImmutableSet.of(link);
+        tracker.addTrackedResources(key, resources);
+
+        deviceListener.event(new DeviceEvent(DeviceEvent.Type.PORT_UPDATED, device, port));
+        assertThat(
+                delegate.latch.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                is(true));
+
+        assertThat(delegate.intentIdsFromEvent, hasSize(1));
+        assertThat(delegate.compileAllFailedFromEvent, is(false));
+        assertThat(delegate.intentIdsFromEvent.get(0).toString(),
+                equalTo("0x333"));
+    }
+
+    /**
+     * Tests that a link down affecting many intents triggers their
+     * recompilation in batches, only the last of which asks for all failed
+     * intents to be compiled.
+     *
+     * @throws InterruptedException if the latch wait fails.
+     */
+    @Test
+    public void testEventLinkDownBatches() throws Exception {
+        final Link link = link("src", 1, "dst", 2);
+        final int intentCount = 2500;
+        for (int i = 0; i < intentCount; i++) {
+            tracker.addTrackedResources(Key.of(i, APP_ID), ImmutableSet.of(link));
+        }
+
+        final List<Key> keys = new ArrayList<>();
+        final List<Boolean> compileAllFailed = new ArrayList<>();
+        final CountDownLatch allKeysSeen = new CountDownLatch(1);
+        tracker.unsetDelegate(delegate);
+        delegate = new TestTopologyChangeDelegate() {
+            @Override
+            public void triggerCompile(Iterable<Key> intentKeys, boolean compileAll) {
+                intentKeys.forEach(keys::add);
+                compileAllFailed.add(compileAll);
+                if (keys.size() == intentCount) {
+                    allKeysSeen.countDown();
+                }
+            }
+        };
+        tracker.setDelegate(delegate);
+
+        reasons.add(new LinkEvent(LinkEvent.Type.LINK_UPDATED, link));
+        listener.event(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_CHANGED,
+                                         topology, reasons));
+        assertThat(allKeysSeen.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+
+        assertThat(new HashSet<>(keys), hasSize(intentCount));
+        assertThat(compileAllFailed, hasSize(3));
+        assertThat(compileAllFailed.get(0), is(false));
+        assertThat(compileAllFailed.get(2), is(true));
+    }
 }
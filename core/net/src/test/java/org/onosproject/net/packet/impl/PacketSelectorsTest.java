@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import org.junit.Test;
+import org.onlab.packet.ARP;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TCP;
+import org.onlab.packet.TpPort;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.InboundPacket;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the evaluation of traffic selectors against inbound packets.
+ */
+public class PacketSelectorsTest {
+
+    private static final ConnectPoint CP =
+            new ConnectPoint(DeviceId.deviceId("of:1"), PortNumber.portNumber(3));
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+
+    private InboundPacket tcpPacket() {
+        TCP tcp = new TCP();
+        tcp.setSourcePort(5000);
+        tcp.setDestinationPort(80);
+        IPv4 ip = new IPv4();
+        ip.setProtocol(IPv4.PROTOCOL_TCP);
+        ip.setSourceAddress(Ip4Address.valueOf("10.0.0.1").toInt());
+        ip.setDestinationAddress(Ip4Address.valueOf("10.0.1.1").toInt());
+        ip.setPayload(tcp);
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_IPV4);
+        eth.setSourceMACAddress(SRC_MAC);
+        eth.setDestinationMACAddress(MacAddress.BROADCAST);
+        eth.setPayload(ip);
+        return new DefaultInboundPacket(CP, eth, ByteBuffer.wrap(eth.serialize()));
+    }
+
+    @Test
+    public void matching() {
+        InboundPacket packet = tcpPacket();
+        assertTrue("empty selector should match",
+                   PacketSelectors.matches(DefaultTrafficSelector.emptySelector(), packet));
+        assertTrue("selector should match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder()
+                        .matchInPort(PortNumber.portNumber(3))
+                        .matchEthType(Ethernet.TYPE_IPV4)
+                        .matchEthSrc(SRC_MAC)
+                        .matchIPProtocol(IPv4.PROTOCOL_TCP)
+                        .matchIPDst(IpPrefix.valueOf("10.0.1.0/24"))
+                        .matchTcpDst(TpPort.tpPort(80))
+                        .build(), packet));
+    }
+
+    @Test
+    public void mismatching() {
+        InboundPacket packet = tcpPacket();
+        assertFalse("in port should not match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchInPort(PortNumber.portNumber(4)).build(), packet));
+        assertFalse("eth type should not match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_ARP).build(), packet));
+        assertFalse("ip source should not match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4)
+                        .matchIPSrc(IpPrefix.valueOf("10.0.1.0/24")).build(), packet));
+        assertFalse("tcp port should not match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4)
+                        .matchIPProtocol(IPv4.PROTOCOL_TCP)
+                        .matchTcpDst(TpPort.tpPort(443)).build(), packet));
+        assertFalse("udp port should not match a tcp segment", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchUdpDst(TpPort.tpPort(80)).build(), packet));
+    }
+
+    @Test
+    public void nonIpFrame() {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_ARP);
+        eth.setSourceMACAddress(SRC_MAC);
+        eth.setDestinationMACAddress(MacAddress.BROADCAST);
+        eth.setPayload(new ARP()
+                               .setHardwareType(ARP.HW_TYPE_ETHERNET)
+                               .setProtocolType(ARP.PROTO_TYPE_IP)
+                               .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                               .setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH)
+                               .setOpCode(ARP.OP_REQUEST)
+                               .setSenderHardwareAddress(SRC_MAC.toBytes())
+                               .setSenderProtocolAddress(Ip4Address.valueOf("10.0.0.1").toOctets())
+                               .setTargetHardwareAddress(MacAddress.ZERO.toBytes())
+                               .setTargetProtocolAddress(Ip4Address.valueOf("10.0.0.2").toOctets()));
+        InboundPacket packet = new DefaultInboundPacket(CP, eth, ByteBuffer.wrap(eth.serialize()));
+        assertTrue("mac source should match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchEthSrc(SRC_MAC).build(), packet));
+        assertFalse("ip protocol should not match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchIPProtocol(IPv4.PROTOCOL_TCP).build(), packet));
+        assertFalse("ip destination should not match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchIPDst(IpPrefix.valueOf("0.0.0.0/0")).build(), packet));
+        assertFalse("tcp port should not match", PacketSelectors.matches(
+                DefaultTrafficSelector.builder().matchTcpDst(TpPort.tpPort(80)).build(), packet));
+    }
+}
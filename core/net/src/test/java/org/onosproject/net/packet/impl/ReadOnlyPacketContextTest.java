@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
+import org.onosproject.net.packet.PacketContext;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the read-only packet context given to asynchronous processors.
+ */
+public class ReadOnlyPacketContextTest {
+
+    private static final ConnectPoint CP =
+            new ConnectPoint(DeviceId.deviceId("of:1"), PortNumber.portNumber(3));
+
+    private final Ethernet eth = new Ethernet();
+    private final PacketContext context =
+            new DefaultPacketContext(42, new DefaultInboundPacket(CP, eth, ByteBuffer.wrap(new byte[64])),
+                                     null, false) {
+                @Override
+                public void send() {
+                }
+            };
+
+    @Test
+    public void observes() {
+        context.block();
+        PacketContext view = new ReadOnlyPacketContext(context);
+        assertEquals("wrong time", 42, view.time());
+        assertSame("wrong packet", eth, view.inPacket().parsed());
+        assertEquals("wrong ingress", CP, view.inPacket().receivedFrom());
+        assertTrue("should be handled", view.isHandled());
+    }
+
+    @Test
+    public void ownBuffer() {
+        PacketContext view = new ReadOnlyPacketContext(context);
+        ByteBuffer buffer = view.inPacket().unparsed();
+        assertTrue("buffer should be read-only", buffer.isReadOnly());
+        buffer.getLong();
+        assertEquals("position should not be shared", 0,
+                     new ReadOnlyPacketContext(context).inPacket().unparsed().position());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cannotSend() {
+        new ReadOnlyPacketContext(context).send();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cannotBlock() {
+        new ReadOnlyPacketContext(context).block();
+    }
+}
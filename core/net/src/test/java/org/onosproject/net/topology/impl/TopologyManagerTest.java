@@ -18,6 +18,7 @@ package org.onosproject.net.topology.impl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.event.Event;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.net.ConnectPoint;
@@ -31,6 +32,7 @@ import org.onosproject.net.topology.GraphDescription;
 import org.onosproject.net.topology.LinkWeight;
 import org.onosproject.net.topology.Topology;
 import org.onosproject.net.topology.TopologyCluster;
+import org.onosproject.net.topology.TopologyEdge;
 import org.onosproject.net.topology.TopologyEvent;
 import org.onosproject.net.topology.TopologyGraph;
 import org.onosproject.net.topology.TopologyListener;
@@ -73,8 +75,9 @@ public class TopologyManagerTest {
         registry = mgr;
 
         mgr.store = new SimpleTopologyStore();
+        mgr.cfgService = new ComponentConfigAdapter();
         injectEventDispatcher(mgr, new TestEventDispatcher());
-        mgr.activate();
+        mgr.activate(null);
 
         service.addListener(listener);
 
@@ -106,14 +109,17 @@ public class TopologyManagerTest {
     }
 
     private void submitTopologyGraph() {
+        submitTopologyGraph(of(link("a", 1, "b", 1), link("b", 1, "a", 1),
+                               link("b", 2, "c", 1), link("c", 1, "b", 2),
+                               link("c", 2, "d", 1), link("d", 1, "c", 2),
+                               link("d", 2, "a", 2), link("a", 2, "d", 2),
+                               link("e", 1, "f", 1), link("f", 1, "e", 1)));
+    }
+
+    private void submitTopologyGraph(Set<Link> links) {
         Set<Device> devices = of(device("a"), device("b"),
                                  device("c"), device("d"),
                                  device("e"), device("f"));
-        Set<Link> links = of(link("a", 1, "b", 1), link("b", 1, "a", 1),
-                             link("b", 2, "c", 1), link("c", 1, "b", 2),
-                             link("c", 2, "d", 1), link("d", 1, "c", 2),
-                             link("d", 2, "a", 2), link("a", 2, "d", 2),
-                             link("e", 1, "f", 1), link("f", 1, "e", 1));
         GraphDescription data = new DefaultGraphDescription(4321L, System.currentTimeMillis(), devices, links);
         providerService.topologyChanged(data, null);
     }
@@ -183,6 +189,72 @@ public class TopologyManagerTest {
         assertEquals("wrong path cost", 6.6, path.cost(), 0.01);
     }
 
+    @Test
+    public void cachedPath() {
+        submitTopologyGraph();
+        Topology topology = service.currentTopology();
+        Set<Path> paths = service.getPaths(topology, did("a"), did("c"));
+        assertSame("paths should be cached", paths, service.getPaths(topology, did("a"), did("c")));
+
+        // Paths avoiding removed links carry over to the new topology.
+        submitTopologyGraph(of(link("a", 1, "b", 1), link("b", 1, "a", 1),
+                               link("b", 2, "c", 1), link("c", 1, "b", 2),
+                               link("c", 2, "d", 1), link("d", 1, "c", 2),
+                               link("d", 2, "a", 2), link("a", 2, "d", 2)));
+        topology = service.currentTopology();
+        assertSame("paths should be carried over", paths,
+                   service.getPaths(topology, did("a"), did("c")));
+
+        // Paths crossing removed links are searched for again.
+        submitTopologyGraph(of(link("a", 1, "b", 1), link("b", 1, "a", 1),
+                               link("b", 2, "c", 1), link("c", 1, "b", 2)));
+        topology = service.currentTopology();
+        assertEquals("wrong path count", 1, service.getPaths(topology, did("a"), did("c")).size());
+    }
+
+    @Test
+    public void cachedWeightedPath() {
+        submitTopologyGraph();
+        Topology topology = service.currentTopology();
+        LinkWeight weight = edge -> 3.3;
+        Set<Path> paths = service.getPaths(topology, did("a"), did("c"), weight);
+        assertNotSame("paths should not be cached", paths,
+                      service.getPaths(topology, did("a"), did("c"), weight));
+
+        LinkWeight cacheable = new LinkWeight() {
+            @Override
+            public double weight(TopologyEdge edge) {
+                return 3.3;
+            }
+
+            @Override
+            public boolean isCacheable() {
+                return true;
+            }
+        };
+        paths = service.getPaths(topology, did("a"), did("c"), cacheable);
+        assertSame("paths should be cached", paths,
+                   service.getPaths(topology, did("a"), did("c"), cacheable));
+
+        // Weighted paths are not carried over to a new topology.
+        submitTopologyGraph(of(link("a", 1, "b", 1), link("b", 1, "a", 1),
+                               link("b", 2, "c", 1), link("c", 1, "b", 2),
+                               link("c", 2, "d", 1), link("d", 1, "c", 2),
+                               link("d", 2, "a", 2), link("a", 2, "d", 2)));
+        assertNotSame("paths should be searched again", paths,
+                      service.getPaths(service.currentTopology(), did("a"), did("c"), cacheable));
+    }
+
+    @Test
+    public void supersededTopologyNotCached() {
+        submitTopologyGraph();
+        Topology superseded = service.currentTopology();
+        submitTopologyGraph();
+        Set<Path> paths = service.getPaths(superseded, did("a"), did("c"));
+        assertNotSame("paths of superseded topology should not be cached", paths,
+                      service.getPaths(superseded, did("a"), did("c")));
+    }
+
     protected void validateEvents(Enum... types) {
         int i = 0;
         assertEquals("wrong events received", types.length, listener.events.size());
@@ -35,10 +35,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Objects;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -143,6 +146,41 @@ public class ClusterCommunicationManager
         }
     }
 
+    @Override
+    public <M> CompletableFuture<Void> unicastDirect(M message,
+                                                     MessageSubject subject,
+                                                     BiConsumer<M, OutputStream> encoder,
+                                                     NodeId toNodeId) {
+        try {
+            Endpoint nodeEp = endpoint(toNodeId);
+            Consumer<OutputStream> payloadWriter = stream -> encoder.accept(message, stream);
+            return messagingService.sendAsync(nodeEp, subject.value(), payloadWriter);
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
+    @Override
+    public <M, R> CompletableFuture<R> sendAndReceiveDirect(M message,
+                                                            MessageSubject subject,
+                                                            BiConsumer<M, OutputStream> encoder,
+                                                            Function<byte[], R> decoder,
+                                                            NodeId toNodeId) {
+        try {
+            Endpoint nodeEp = endpoint(toNodeId);
+            Consumer<OutputStream> payloadWriter = stream -> encoder.accept(message, stream);
+            return messagingService.sendAndReceive(nodeEp, subject.value(), payloadWriter).thenApply(decoder);
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
+    private Endpoint endpoint(NodeId nodeId) {
+        ControllerNode node = clusterService.getNode(nodeId);
+        checkArgument(node != null, "Unknown nodeId: %s", nodeId);
+        return new Endpoint(node.ip(), node.tcpPort());
+    }
+
     private CompletableFuture<Void> doUnicast(MessageSubject subject, byte[] payload, NodeId toNodeId) {
         ControllerNode node = clusterService.getNode(toNodeId);
         checkArgument(node != null, "Unknown nodeId: %s", toNodeId);
@@ -210,6 +248,25 @@ public class ClusterCommunicationManager
                 executor);
     }
 
+    @Override
+    public <M> void addDirectSubscriber(MessageSubject subject,
+            Function<ByteBuffer, M> decoder,
+            Consumer<M> handler,
+            Executor executor) {
+        Consumer<ByteBuffer> bufferHandler = buffer -> handler.accept(decoder.apply(buffer));
+        messagingService.registerBufferHandler(subject.value(), bufferHandler, executor);
+    }
+
+    @Override
+    public <M, R> void addDirectSubscriber(MessageSubject subject,
+            Function<ByteBuffer, M> decoder,
+            Function<M, R> handler,
+            Function<R, byte[]> encoder,
+            Executor executor) {
+        Function<ByteBuffer, byte[]> bufferHandler = buffer -> encoder.apply(handler.apply(decoder.apply(buffer)));
+        messagingService.registerBufferHandler(subject.value(), bufferHandler, executor);
+    }
+
     private class InternalClusterMessageHandler implements Function<byte[], byte[]> {
         private ClusterMessageHandler handler;
 
@@ -15,35 +15,52 @@
  */
 package org.onosproject.store.consistent.impl;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.onosproject.core.ApplicationId;
+import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.Versioned;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 
 /**
  * Extension of DefaultAsyncConsistentMap that provides a weaker read consistency
  * guarantee in return for better read performance.
+ * <p>
+ * Gets are served from a bounded near cache of versioned entries, filled by reads
+ * and kept up to date by the results of local updates and by the map events of
+ * updates made anywhere in the cluster. Entries only ever move to newer versions,
+ * so a read racing with an update never caches a superseded value. Clearing the
+ * map from another instance is not reflected until the cleared entries are
+ * updated or evicted.
+ * </p>
  *
  * @param <K> key type
  * @param <V> value type
  */
 public class AsyncCachingConsistentMap<K, V> extends DefaultAsyncConsistentMap<K, V> {
 
-    private final LoadingCache<K, CompletableFuture<Versioned<V>>> cache =
-            CacheBuilder.newBuilder()
-                        .maximumSize(10000) // TODO: make configurable
-                        .build(new CacheLoader<K, CompletableFuture<Versioned<V>>>() {
-                            @Override
-                            public CompletableFuture<Versioned<V>> load(K key)
-                                    throws Exception {
-                                return AsyncCachingConsistentMap.super.get(key);
-                            }
-                        });
+    static final int DEFAULT_CACHE_SIZE = 10000;
+
+    private static final String PRIMITIVE_NAME = "consistentMapCache";
+    private static final String HITS = "hits";
+    private static final String MISSES = "misses";
+    private static final String STALE = "stale";
+    private static final String EVICTIONS = "evictions";
+
+    private static final String ERROR_NULL_KEY = "Key cannot be null";
+
+    private final Cache<K, Cached<V>> cache;
+    private final Map<K, CompletableFuture<Versioned<V>>> loading = Maps.newConcurrentMap();
+    private final MeteringAgent monitor;
 
     public AsyncCachingConsistentMap(String name,
             ApplicationId applicationId,
@@ -52,20 +69,159 @@ public class AsyncCachingConsistentMap<K, V> extends DefaultAsyncConsistentMap<K
             boolean readOnly,
             boolean purgeOnUninstall,
             boolean meteringEnabled) {
+        this(name, applicationId, database, serializer, readOnly, purgeOnUninstall,
+             meteringEnabled, DEFAULT_CACHE_SIZE);
+    }
+
+    public AsyncCachingConsistentMap(String name,
+            ApplicationId applicationId,
+            Database database,
+            Serializer serializer,
+            boolean readOnly,
+            boolean purgeOnUninstall,
+            boolean meteringEnabled,
+            int cacheSize) {
         super(name, applicationId, database, serializer, readOnly, purgeOnUninstall, meteringEnabled);
-        addListener(event -> cache.invalidate(event.key()));
+        this.monitor = new MeteringAgent(PRIMITIVE_NAME, name, meteringEnabled);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .removalListener(notification -> {
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        monitor.count(EVICTIONS);
+                    }
+                })
+                .build();
+        addListener(this::eventReceived);
     }
 
     @Override
     public CompletableFuture<Versioned<V>> get(K key) {
-        CompletableFuture<Versioned<V>> cachedValue = cache.getIfPresent(key);
-        if (cachedValue != null) {
-            if (cachedValue.isCompletedExceptionally()) {
-                cache.invalidate(key);
+        checkNotNull(key, ERROR_NULL_KEY);
+        Cached<V> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            monitor.count(HITS);
+            return completedFuture(cached.value);
+        }
+        monitor.count(MISSES);
+        return load(key);
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> getAtLeast(K key, long minVersion) {
+        checkNotNull(key, ERROR_NULL_KEY);
+        Cached<V> cached = cache.getIfPresent(key);
+        if (cached != null && cached.version >= minVersion) {
+            monitor.count(HITS);
+            return completedFuture(cached.value);
+        }
+        monitor.count(cached != null ? STALE : MISSES);
+        return getLinearizable(key);
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> getLinearizable(K key) {
+        checkNotNull(key, ERROR_NULL_KEY);
+        return super.get(key).thenApply(value -> {
+            loaded(key, value);
+            return value;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> clear() {
+        return super.clear().whenComplete((r, e) -> cache.invalidateAll());
+    }
+
+    @Override
+    protected void updated(K key, UpdateResult<K, V> result) {
+        if (!result.updated()) {
+            return;
+        }
+        if (result.newValue() != null) {
+            refresh(key, Cached.present(result.newValue()));
+        } else if (result.oldValue() != null) {
+            refresh(key, Cached.removed(result.oldValue()));
+        }
+    }
+
+    // Reads an entry through, sharing the read with concurrent misses.
+    private CompletableFuture<Versioned<V>> load(K key) {
+        CompletableFuture<Versioned<V>> future = new CompletableFuture<>();
+        CompletableFuture<Versioned<V>> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        super.get(key).whenComplete((value, error) -> {
+            // Cache before unregistering the read, so that no event is missed.
+            if (error == null) {
+                loaded(key, value);
+            }
+            loading.remove(key, future);
+            if (error == null) {
+                future.complete(value);
             } else {
-                return cachedValue;
+                future.completeExceptionally(error);
             }
+        });
+        return future;
+    }
+
+    // Caches a value read from the database, unless a newer one is known.
+    private void loaded(K key, Versioned<V> value) {
+        if (value != null) {
+            refresh(key, Cached.present(value));
+        } else {
+            // The absence of a value has no version; it only stands until
+            // an update or a removal of the entry is known.
+            cache.asMap().putIfAbsent(key, Cached.absent());
+        }
+    }
+
+    // Applies events to the cached entries and to the entries being read.
+    private void eventReceived(MapEvent<K, V> event) {
+        K key = event.key();
+        if (cache.getIfPresent(key) == null && !loading.containsKey(key)) {
+            return;
+        }
+        refresh(key, event.type() == MapEvent.Type.REMOVE ?
+                Cached.removed(event.value()) : Cached.present(event.value()));
+    }
+
+    private void refresh(K key, Cached<V> update) {
+        cache.asMap().merge(key, update, (cached, newer) -> newer.supersedes(cached) ? newer : cached);
+    }
+
+    // Cached entry; removals are newer than the value they removed.
+    private static final class Cached<V> {
+
+        private static final Cached<?> ABSENT = new Cached<>(null, -1, false);
+
+        private final Versioned<V> value;
+        private final long version;
+        private final boolean removed;
+
+        private Cached(Versioned<V> value, long version, boolean removed) {
+            this.value = value;
+            this.version = version;
+            this.removed = removed;
+        }
+
+        private static <V> Cached<V> present(Versioned<V> value) {
+            return new Cached<>(value, value.version(), false);
+        }
+
+        private static <V> Cached<V> removed(Versioned<V> removedValue) {
+            return new Cached<>(null, removedValue.version(), true);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Cached<V> absent() {
+            return (Cached<V>) ABSENT;
+        }
+
+        private boolean supersedes(Cached<V> other) {
+            return version > other.version ||
+                    (version == other.version && removed && !other.removed);
         }
-        return cache.getUnchecked(key);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Partitioner that places keys on a consistent hash ring of database partitions.
+ * <p>
+ * Each partition owns a number of virtual nodes on the ring, placed by the md5 hash
+ * of the partition name, and a key belongs to the partition owning the first virtual
+ * node at or after the hash of the key. Adding a partition only moves the keys that
+ * the new partition takes over, about 1/n of them, instead of nearly all keys as
+ * with modulo hashing, and the virtual nodes spread the keys of every map evenly
+ * over the partitions.
+ * </p>
+ */
+public class ConsistentHashPartitioner extends DatabasePartitioner {
+
+    static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final NavigableMap<Integer, Database> ring = new TreeMap<>();
+
+    public ConsistentHashPartitioner(List<Database> partitions) {
+        this(partitions, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashPartitioner(List<Database> partitions, int virtualNodes) {
+        super(partitions);
+        checkArgument(virtualNodes > 0, "virtualNodes must be positive");
+        for (Database partition : this.partitions) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // Partition names are unique; on a hash collision the smaller name wins.
+                ring.merge(ringHash(partition.name() + "#" + i), partition,
+                           (p1, p2) -> p1.name().compareTo(p2.name()) <= 0 ? p1 : p2);
+            }
+        }
+    }
+
+    @Override
+    public Database getPartition(String mapName, String key) {
+        Map.Entry<Integer, Database> entry = ring.ceilingEntry(ringHash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static int ringHash(String key) {
+        return Hashing.md5().newHasher().putBytes(key.getBytes(Charsets.UTF_8)).hash().asInt();
+    }
+}
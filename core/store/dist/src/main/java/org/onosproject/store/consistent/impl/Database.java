@@ -103,4 +103,16 @@ public interface Database extends DatabaseProxy<String, byte[]>, Resource<Databa
    * @param consumer consumer to unregister
    */
   void unregisterConsumer(Consumer<StateMachineUpdate> consumer);
+
+  /**
+   * Returns the number of read operations submitted to the database by this instance.
+   * @return number of reads
+   */
+  long readCount();
+
+  /**
+   * Returns the number of write operations submitted to the database by this instance.
+   * @return number of writes
+   */
+  long writeCount();
 }
\ No newline at end of file
@@ -49,6 +49,8 @@ import org.apache.felix.scr.annotations.Service;
 import org.onosproject.app.ApplicationEvent;
 import org.onosproject.app.ApplicationListener;
 import org.onosproject.app.ApplicationService;
+import org.onosproject.cluster.ClusterEvent;
+import org.onosproject.cluster.ClusterEventListener;
 import org.onosproject.cluster.ClusterMetadataService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
@@ -73,14 +75,17 @@ import org.onosproject.store.service.TransactionContextBuilder;
 import org.slf4j.Logger;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import static org.slf4j.LoggerFactory.getLogger;
@@ -110,6 +115,10 @@ public class DatabaseManager implements StorageService, StorageAdminService {
     private final IdGenerator transactionIdGenerator = () -> RandomUtils.nextLong();
 
     private ApplicationListener appListener = new InternalApplicationListener();
+    private ClusterEventListener clusterListener = new InternalClusterListener();
+
+    private Set<NodeId> databaseMembers;
+    private final AtomicBoolean rebalanced = new AtomicBoolean(false);
 
     private final Multimap<String, DefaultAsyncConsistentMap> maps =
             Multimaps.synchronizedMultimap(ArrayListMultimap.create());
@@ -214,6 +223,13 @@ public class DatabaseManager implements StorageService, StorageAdminService {
 
         Futures.getUnchecked(status);
 
+        databaseMembers = partitionMap.values()
+            .stream()
+            .flatMap(Set::stream)
+            .collect(Collectors.toSet());
+        clusterService.addListener(clusterListener);
+        rebalanceIfLeader();
+
         transactionManager = new TransactionManager(partitionedDatabase, consistentMapBuilder());
         partitionedDatabase.setTransactionManager(transactionManager);
 
@@ -222,6 +238,7 @@ public class DatabaseManager implements StorageService, StorageAdminService {
 
     @Deactivate
     public void deactivate() {
+        clusterService.removeListener(clusterListener);
         CompletableFuture.allOf(inMemoryDatabase.close(), partitionedDatabase.close())
             .thenCompose(v -> coordinator.close())
             .whenComplete((result, error) -> {
@@ -305,7 +322,9 @@ public class DatabaseManager implements StorageService, StorageAdminService {
                                   .sorted()
                                   .collect(Collectors.toList()),
                           database.cluster().leader() != null ?
-                                  database.cluster().leader().uri() : null);
+                                  database.cluster().leader().uri() : null,
+                          database.readCount(),
+                          database.writeCount());
     }
 
 
@@ -418,6 +437,43 @@ public class DatabaseManager implements StorageService, StorageAdminService {
         }
     }
 
+    /**
+     * Moves the entries placed by an earlier partition layout to their
+     * partitions, once, if this node is the lowest active database member.
+     * The store is usable meanwhile; an entry not yet moved is missed by the
+     * new layout until it is. Upgrading from the key hash partitioner to the
+     * consistent hash ring moves nearly every entry, so that first rebalance
+     * runs for a while after the cluster is up.
+     */
+    private void rebalanceIfLeader() {
+        Optional<NodeId> leader = databaseMembers.stream()
+                .filter(nodeId -> clusterService.getState(nodeId) == ControllerNode.State.ACTIVE)
+                .min(Comparator.comparing(NodeId::toString));
+        if (!leader.isPresent() || !leader.get().equals(localNodeId) || !rebalanced.compareAndSet(false, true)) {
+            return;
+        }
+        partitionedDatabase.rebalance()
+            .whenComplete((relocated, error) -> {
+                if (error != null) {
+                    log.warn("Failed to rebalance database partitions.", error);
+                    rebalanced.set(false);
+                } else if (relocated > 0) {
+                    log.info("Relocated {} entries to their partitions.", relocated);
+                }
+            });
+    }
+
+    private class InternalClusterListener implements ClusterEventListener {
+        @Override
+        public void event(ClusterEvent event) {
+            if (event.type() == ClusterEvent.Type.INSTANCE_DEACTIVATED ||
+                    event.type() == ClusterEvent.Type.INSTANCE_REMOVED ||
+                    event.type() == ClusterEvent.Type.INSTANCE_ACTIVATED) {
+                rebalanceIfLeader();
+            }
+        }
+    }
+
     private class InternalApplicationListener implements ApplicationListener {
         @Override
         public void event(ApplicationEvent event) {
@@ -20,6 +20,7 @@ import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -99,6 +100,15 @@ public interface DatabaseProxy<K, V> {
     CompletableFuture<Result<UpdateResult<K, V>>> mapUpdate(
             String mapName, K key, Match<V> valueMatch, Match<Long> versionMatch, V value);
 
+    /**
+     * Applies a batch of map updates as a single operation.
+     * Updates are applied in order, each as if by {@link #mapUpdate}.
+     *
+     * @param updates updates to apply
+     * @return A completable future to be completed with the result of each update, in order
+     */
+    CompletableFuture<List<Result<UpdateResult<K, V>>>> mapBatchUpdate(List<MapUpdate<K, V>> updates);
+
     /**
      * Clears the map.
      *
@@ -77,6 +77,7 @@ public class DatabaseSerializer extends SerializerConfig {
             .register(Transaction.State.class)
             .register(org.onosproject.store.consistent.impl.CommitResponse.class)
             .register(Match.class)
+            .register(MapUpdate.class)
             .register(NodeId.class)
             .build();
 
@@ -24,6 +24,7 @@ import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -66,6 +67,9 @@ public interface DatabaseState<K, V> {
   @Command
   Result<UpdateResult<K, V>> mapUpdate(String mapName, K key, Match<V> valueMatch, Match<Long> versionMatch, V value);
 
+  @Command
+  List<Result<UpdateResult<K, V>>> mapBatchUpdate(List<MapUpdate<K, V>> updates);
+
   @Command
   Result<Void> mapClear(String mapName);
 
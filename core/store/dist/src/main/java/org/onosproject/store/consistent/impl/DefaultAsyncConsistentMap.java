@@ -33,6 +33,7 @@ import org.onosproject.store.service.Versioned;
 import org.slf4j.Logger;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -46,6 +47,7 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onosproject.store.consistent.impl.StateMachineUpdate.Target.MAP_BATCH_UPDATE;
 import static org.onosproject.store.consistent.impl.StateMachineUpdate.Target.MAP_UPDATE;
 import static org.onosproject.store.consistent.impl.StateMachineUpdate.Target.TX_COMMIT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -127,13 +129,10 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                 try {
                     if (update.target() == MAP_UPDATE) {
                         Result<UpdateResult<String, byte[]>> result = update.output();
-                        if (result.success() && result.value().mapName().equals(name)) {
-                            MapEvent<K, V> mapEvent = result.value()
-                                                            .<K, V>map(this::dK,
-                                                                       v -> serializer.decode(Tools.copyOf(v)))
-                                                            .toMapEvent();
-                            notifyListeners(mapEvent);
-                        }
+                        updateReceived(result);
+                    } else if (update.target() == MAP_BATCH_UPDATE) {
+                        List<Result<UpdateResult<String, byte[]>>> results = update.output();
+                        results.forEach(this::updateReceived);
                     } else if (update.target() == TX_COMMIT) {
                         CommitResponse response = update.output();
                         if (response.success()) {
@@ -156,6 +155,15 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
         this.monitor = new MeteringAgent(PRIMITIVE_NAME, name, meteringEnabled);
     }
 
+    private void updateReceived(Result<UpdateResult<String, byte[]>> result) {
+        if (result.success() && result.value().mapName().equals(name)) {
+            MapEvent<K, V> mapEvent = result.value()
+                                            .<K, V>map(this::dK, v -> serializer.decode(Tools.copyOf(v)))
+                                            .toMapEvent();
+            notifyListeners(mapEvent);
+        }
+    }
+
     /**
      * Returns this map name.
      * @return map name
@@ -420,7 +428,20 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                 oldVersionMatch,
                 value == null ? null : serializer.encode(value))
                 .thenApply(this::unwrapResult)
-                .thenApply(r -> r.<K, V>map(this::dK, serializer::decode));
+                .thenApply(r -> r.<K, V>map(this::dK, serializer::decode))
+                .thenApply(r -> {
+                    updated(key, r);
+                    return r;
+                });
+    }
+
+    /**
+     * Notifies that an update issued through this map instance completed.
+     *
+     * @param key    key of the updated entry
+     * @param result result of the update
+     */
+    protected void updated(K key, UpdateResult<K, V> result) {
     }
 
     private <T> T unwrapResult(Result<T> result) {
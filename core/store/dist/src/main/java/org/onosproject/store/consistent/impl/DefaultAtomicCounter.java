@@ -39,7 +39,11 @@ public class DefaultAtomicCounter implements AtomicCounter {
     public DefaultAtomicCounter(String name,
                                 Database database,
                                 boolean meteringEnabled) {
-        asyncCounter = new DefaultAsyncAtomicCounter(name, database, meteringEnabled);
+        this(new DefaultAsyncAtomicCounter(name, database, meteringEnabled));
+    }
+
+    public DefaultAtomicCounter(AsyncAtomicCounter asyncCounter) {
+        this.asyncCounter = asyncCounter;
     }
 
     @Override
@@ -32,6 +32,7 @@ public class DefaultAtomicCounterBuilder implements AtomicCounterBuilder {
     private final Database partitionedDatabase;
     private final Database inMemoryDatabase;
     private boolean metering = true;
+    private int rangeSize = 0;
 
     public DefaultAtomicCounterBuilder(Database inMemoryDatabase, Database partitionedDatabase) {
         this.inMemoryDatabase = inMemoryDatabase;
@@ -51,18 +52,24 @@ public class DefaultAtomicCounterBuilder implements AtomicCounterBuilder {
         return this;
     }
 
+    @Override
+    public AtomicCounterBuilder withRangeReservation(int rangeSize) {
+        checkArgument(rangeSize > 1, "rangeSize must be greater than 1");
+        this.rangeSize = rangeSize;
+        return this;
+    }
+
     @Override
     public AtomicCounter build() {
-        validateInputs();
-        Database database = partitionsEnabled ? partitionedDatabase : inMemoryDatabase;
-        return new DefaultAtomicCounter(name, database, metering);
+        return new DefaultAtomicCounter(buildAsyncCounter());
     }
 
     @Override
     public AsyncAtomicCounter buildAsyncCounter() {
         validateInputs();
         Database database = partitionsEnabled ? partitionedDatabase : inMemoryDatabase;
-        return new DefaultAsyncAtomicCounter(name, database, metering);
+        AsyncAtomicCounter counter = new DefaultAsyncAtomicCounter(name, database, metering);
+        return rangeSize > 0 ? new RangeReservingAsyncAtomicCounter(name, counter, rangeSize, metering) : counter;
     }
 
     @Override
@@ -80,6 +80,16 @@ public class DefaultConsistentMap<K, V> implements ConsistentMap<K, V> {
         return complete(asyncMap.get(key));
     }
 
+    @Override
+    public Versioned<V> getAtLeast(K key, long minVersion) {
+        return complete(asyncMap.getAtLeast(key, minVersion));
+    }
+
+    @Override
+    public Versioned<V> getLinearizable(K key) {
+        return complete(asyncMap.getLinearizable(key));
+    }
+
     @Override
     public Versioned<V> computeIfAbsent(K key,
             Function<? super K, ? extends V> mappingFunction) {
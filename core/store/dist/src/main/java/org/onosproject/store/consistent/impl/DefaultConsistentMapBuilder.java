@@ -40,6 +40,7 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
     private boolean readOnly = false;
     private boolean metering = true;
     private boolean relaxedReadConsistency = false;
+    private int nearCacheSize = AsyncCachingConsistentMap.DEFAULT_CACHE_SIZE;
     private final DatabaseManager manager;
 
     public DefaultConsistentMapBuilder(DatabaseManager manager) {
@@ -97,6 +98,14 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
         return this;
     }
 
+    @Override
+    public ConsistentMapBuilder<K, V> withNearCache(int maxEntries) {
+        checkArgument(maxEntries > 0);
+        relaxedReadConsistency = true;
+        nearCacheSize = maxEntries;
+        return this;
+    }
+
     private void validateInputs() {
         checkState(name != null, "name must be specified");
         checkState(serializer != null, "serializer must be specified");
@@ -126,7 +135,8 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
                         serializer,
                         readOnly,
                         purgeOnUninstall,
-                        metering));
+                        metering,
+                        nearCacheSize));
         } else {
             return manager.registerMap(
                     new DefaultAsyncConsistentMap<>(name,
@@ -27,9 +27,11 @@ import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -41,6 +43,8 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
     private DatabaseProxy<String, byte[]> proxy;
     private final Set<Consumer<StateMachineUpdate>> consumers = Sets.newCopyOnWriteArraySet();
     private final TriConsumer<String, Object, Object> watcher = new InternalStateMachineWatcher();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     public DefaultDatabase(ResourceManager context) {
@@ -74,130 +78,147 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
         return supplier.get();
     }
 
+    private <T> CompletableFuture<T> read(Supplier<CompletableFuture<T>> supplier) {
+        reads.increment();
+        return checkOpen(supplier);
+    }
+
+    private <T> CompletableFuture<T> write(Supplier<CompletableFuture<T>> supplier) {
+        writes.increment();
+        return checkOpen(supplier);
+    }
+
     @Override
     public CompletableFuture<Set<String>> maps() {
-        return checkOpen(() -> proxy.maps());
+        return read(() -> proxy.maps());
     }
 
     @Override
     public CompletableFuture<Map<String, Long>> counters() {
-        return checkOpen(() -> proxy.counters());
+        return read(() -> proxy.counters());
     }
 
     @Override
     public CompletableFuture<Integer> mapSize(String mapName) {
-        return checkOpen(() -> proxy.mapSize(mapName));
+        return read(() -> proxy.mapSize(mapName));
     }
 
     @Override
     public CompletableFuture<Boolean> mapIsEmpty(String mapName) {
-        return checkOpen(() -> proxy.mapIsEmpty(mapName));
+        return read(() -> proxy.mapIsEmpty(mapName));
     }
 
     @Override
     public CompletableFuture<Boolean> mapContainsKey(String mapName, String key) {
-        return checkOpen(() -> proxy.mapContainsKey(mapName, key));
+        return read(() -> proxy.mapContainsKey(mapName, key));
     }
 
     @Override
     public CompletableFuture<Boolean> mapContainsValue(String mapName, byte[] value) {
-        return checkOpen(() -> proxy.mapContainsValue(mapName, value));
+        return read(() -> proxy.mapContainsValue(mapName, value));
     }
 
     @Override
     public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, String key) {
-        return checkOpen(() -> proxy.mapGet(mapName, key));
+        return read(() -> proxy.mapGet(mapName, key));
     }
 
     @Override
     public CompletableFuture<Result<UpdateResult<String, byte[]>>> mapUpdate(
             String mapName, String key, Match<byte[]> valueMatch, Match<Long> versionMatch, byte[] value) {
-        return checkOpen(() -> proxy.mapUpdate(mapName, key, valueMatch, versionMatch, value));
+        return write(() -> proxy.mapUpdate(mapName, key, valueMatch, versionMatch, value));
+    }
+
+    @Override
+    public CompletableFuture<List<Result<UpdateResult<String, byte[]>>>> mapBatchUpdate(
+            List<MapUpdate<String, byte[]>> updates) {
+        writes.add(updates.size());
+        return checkOpen(() -> proxy.mapBatchUpdate(updates));
     }
 
     @Override
     public CompletableFuture<Result<Void>> mapClear(String mapName) {
-        return checkOpen(() -> proxy.mapClear(mapName));
+        return write(() -> proxy.mapClear(mapName));
     }
 
     @Override
     public CompletableFuture<Set<String>> mapKeySet(String mapName) {
-        return checkOpen(() -> proxy.mapKeySet(mapName));
+        return read(() -> proxy.mapKeySet(mapName));
     }
 
     @Override
     public CompletableFuture<Collection<Versioned<byte[]>>> mapValues(String mapName) {
-        return checkOpen(() -> proxy.mapValues(mapName));
+        return read(() -> proxy.mapValues(mapName));
     }
 
     @Override
     public CompletableFuture<Set<Map.Entry<String, Versioned<byte[]>>>> mapEntrySet(String mapName) {
-        return checkOpen(() -> proxy.mapEntrySet(mapName));
+        return read(() -> proxy.mapEntrySet(mapName));
     }
 
     @Override
     public CompletableFuture<Long> counterGet(String counterName) {
-        return checkOpen(() -> proxy.counterGet(counterName));
+        return read(() -> proxy.counterGet(counterName));
     }
 
     @Override
     public CompletableFuture<Long> counterAddAndGet(String counterName, long delta) {
-        return checkOpen(() -> proxy.counterAddAndGet(counterName, delta));
+        return write(() -> proxy.counterAddAndGet(counterName, delta));
     }
 
     @Override
     public CompletableFuture<Long> counterGetAndAdd(String counterName, long delta) {
-        return checkOpen(() -> proxy.counterGetAndAdd(counterName, delta));
+        return write(() -> proxy.counterGetAndAdd(counterName, delta));
     }
 
     @Override
     public CompletableFuture<Void> counterSet(String counterName, long value) {
-        return checkOpen(() -> proxy.counterSet(counterName, value));
+        return write(() -> proxy.counterSet(counterName, value));
     }
 
     @Override
     public CompletableFuture<Boolean> counterCompareAndSet(String counterName, long expectedValue, long update) {
-        return checkOpen(() -> proxy.counterCompareAndSet(counterName, expectedValue, update));
+        return write(() -> proxy.counterCompareAndSet(counterName, expectedValue, update));
     }
 
     @Override
     public CompletableFuture<Long> queueSize(String queueName) {
-        return checkOpen(() -> proxy.queueSize(queueName));
+        return read(() -> proxy.queueSize(queueName));
     }
 
     @Override
     public CompletableFuture<Void> queuePush(String queueName, byte[] entry) {
-        return checkOpen(() -> proxy.queuePush(queueName, entry));
+        return write(() -> proxy.queuePush(queueName, entry));
     }
 
     @Override
     public CompletableFuture<byte[]> queuePop(String queueName) {
-        return checkOpen(() -> proxy.queuePop(queueName));
+        return write(() -> proxy.queuePop(queueName));
     }
 
     @Override
     public CompletableFuture<byte[]> queuePeek(String queueName) {
-        return checkOpen(() -> proxy.queuePeek(queueName));
+        return read(() -> proxy.queuePeek(queueName));
     }
 
     @Override
     public CompletableFuture<CommitResponse> prepareAndCommit(Transaction transaction) {
-        return checkOpen(() -> proxy.prepareAndCommit(transaction));
+        return write(() -> proxy.prepareAndCommit(transaction));
     }
 
     @Override
     public CompletableFuture<Boolean> prepare(Transaction transaction) {
-        return checkOpen(() -> proxy.prepare(transaction));
+        return write(() -> proxy.prepare(transaction));
     }
 
     @Override
     public CompletableFuture<CommitResponse> commit(Transaction transaction) {
-        return checkOpen(() -> proxy.commit(transaction));
+        return write(() -> proxy.commit(transaction));
     }
 
     @Override
     public CompletableFuture<Boolean> rollback(Transaction transaction) {
-        return checkOpen(() -> proxy.rollback(transaction));
+        return write(() -> proxy.rollback(transaction));
     }
 
     @Override
@@ -231,6 +252,16 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
         return false;
     }
 
+    @Override
+    public long readCount() {
+        return reads.sum();
+    }
+
+    @Override
+    public long writeCount() {
+        return writes.sum();
+    }
+
     @Override
     public void registerConsumer(Consumer<StateMachineUpdate> consumer) {
         consumers.add(consumer);
@@ -30,6 +30,7 @@ import org.onosproject.store.service.Versioned;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
@@ -155,6 +156,17 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
         }
     }
 
+    @Override
+    public List<Result<UpdateResult<String, byte[]>>> mapBatchUpdate(List<MapUpdate<String, byte[]>> updates) {
+        List<Result<UpdateResult<String, byte[]>>> results = Lists.newArrayListWithCapacity(updates.size());
+        updates.forEach(update -> results.add(mapUpdate(update.mapName(),
+                                                        update.key(),
+                                                        update.valueMatch(),
+                                                        update.versionMatch(),
+                                                        update.value())));
+        return results;
+    }
+
     @Override
     public Result<Void> mapClear(String mapName) {
         if (areTransactionsInProgress(mapName)) {
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Conditional update of a map entry, as applied by a batch update.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class MapUpdate<K, V> {
+
+    private final String mapName;
+    private final K key;
+    private final Match<V> valueMatch;
+    private final Match<Long> versionMatch;
+    private final V value;
+
+    /**
+     * Creates a new map update.
+     *
+     * @param mapName map name
+     * @param key key to update
+     * @param valueMatch match for the current value
+     * @param versionMatch match for the current version
+     * @param value new value; null to remove the entry
+     */
+    public MapUpdate(String mapName, K key, Match<V> valueMatch, Match<Long> versionMatch, V value) {
+        this.mapName = mapName;
+        this.key = key;
+        this.valueMatch = valueMatch;
+        this.versionMatch = versionMatch;
+        this.value = value;
+    }
+
+    /**
+     * Returns the name of the map to update.
+     * @return map name
+     */
+    public String mapName() {
+        return mapName;
+    }
+
+    /**
+     * Returns the key to update.
+     * @return key
+     */
+    public K key() {
+        return key;
+    }
+
+    /**
+     * Returns the match the current value must satisfy.
+     * @return value match
+     */
+    public Match<V> valueMatch() {
+        return valueMatch;
+    }
+
+    /**
+     * Returns the match the current version must satisfy.
+     * @return version match
+     */
+    public Match<Long> versionMatch() {
+        return versionMatch;
+    }
+
+    /**
+     * Returns the new value.
+     * @return new value; null if the entry is to be removed
+     */
+    public V value() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("mapName", mapName)
+                .add("key", key)
+                .add("valueMatch", valueMatch)
+                .add("versionMatch", versionMatch)
+                .add("value", value)
+                .toString();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import com.google.common.collect.Lists;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Groups the map updates submitted to one database partition into batch commands.
+ * <p>
+ * Up to a fixed number of commands are kept in flight. Updates submitted while
+ * that many are outstanding are queued, and sent together as one batch command
+ * when the next command completes. Under light load every update is sent on its
+ * own and without delay; under load the number of state machine commands, and so
+ * of log entries and commits, shrinks by up to the maximum batch size.
+ * Updates are sent in the order they were submitted.
+ * </p>
+ */
+final class MapUpdateBatcher {
+
+    static final int DEFAULT_MAX_BATCH_SIZE = 128;
+    static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private final Database partition;
+    private final int maxBatchSize;
+    private final int maxInFlight;
+
+    private final Queue<PendingUpdate> queue = new ArrayDeque<>();
+    private int inFlight;
+
+    /**
+     * Creates a new batcher for the given partition.
+     *
+     * @param partition database partition
+     * @param maxBatchSize maximum number of updates per command
+     * @param maxInFlight maximum number of outstanding commands
+     */
+    MapUpdateBatcher(Database partition, int maxBatchSize, int maxInFlight) {
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+        checkArgument(maxInFlight > 0, "maxInFlight must be positive");
+        this.partition = partition;
+        this.maxBatchSize = maxBatchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Submits an update for the partition.
+     *
+     * @param update map update
+     * @return future to be completed with the result of the update
+     */
+    CompletableFuture<Result<UpdateResult<String, byte[]>>> submit(MapUpdate<String, byte[]> update) {
+        PendingUpdate pending = new PendingUpdate(update);
+        synchronized (this) {
+            queue.add(pending);
+        }
+        dispatch();
+        return pending.future;
+    }
+
+    /**
+     * Returns the number of updates waiting for a command slot.
+     *
+     * @return number of queued updates
+     */
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    private void dispatch() {
+        List<PendingUpdate> batch;
+        while ((batch = nextBatch()) != null) {
+            send(batch);
+        }
+    }
+
+    private synchronized List<PendingUpdate> nextBatch() {
+        if (queue.isEmpty() || inFlight >= maxInFlight) {
+            return null;
+        }
+        inFlight++;
+        List<PendingUpdate> batch = Lists.newArrayListWithCapacity(Math.min(queue.size(), maxBatchSize));
+        while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+            batch.add(queue.poll());
+        }
+        return batch;
+    }
+
+    private void send(List<PendingUpdate> batch) {
+        CompletableFuture<List<Result<UpdateResult<String, byte[]>>>> results;
+        try {
+            if (batch.size() == 1) {
+                MapUpdate<String, byte[]> update = batch.get(0).update;
+                results = partition.mapUpdate(update.mapName(),
+                                              update.key(),
+                                              update.valueMatch(),
+                                              update.versionMatch(),
+                                              update.value())
+                        .thenApply(Collections::singletonList);
+            } else {
+                List<MapUpdate<String, byte[]>> updates = Lists.newArrayListWithCapacity(batch.size());
+                batch.forEach(pending -> updates.add(pending.update));
+                results = partition.mapBatchUpdate(updates);
+            }
+        } catch (RuntimeException e) {
+            results = new CompletableFuture<>();
+            results.completeExceptionally(e);
+        }
+        results.whenComplete((r, e) -> {
+            synchronized (this) {
+                inFlight--;
+            }
+            complete(batch, r, e);
+            dispatch();
+        });
+    }
+
+    private void complete(List<PendingUpdate> batch,
+                          List<Result<UpdateResult<String, byte[]>>> results,
+                          Throwable error) {
+        if (error == null && results.size() != batch.size()) {
+            error = new IllegalStateException("Expected " + batch.size() +
+                                                      " update results but received " + results.size());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (error == null) {
+                batch.get(i).future.complete(results.get(i));
+            } else {
+                batch.get(i).future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private static final class PendingUpdate {
+        private final MapUpdate<String, byte[]> update;
+        private final CompletableFuture<Result<UpdateResult<String, byte[]>>> future = new CompletableFuture<>();
+
+        private PendingUpdate(MapUpdate<String, byte[]> update) {
+            this.update = update;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.onosproject.store.consistent.impl;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.Maps;
 import org.onlab.metrics.MetricsComponent;
@@ -40,6 +41,8 @@ public class MeteringAgent {
     private MetricsFeature metricsFeature;
     private final Map<String, Timer> perObjOpTimers = Maps.newConcurrentMap();
     private final Map<String, Timer> perOpTimers = Maps.newConcurrentMap();
+    private final Map<String, Counter> perObjCounters = Maps.newConcurrentMap();
+    private final Map<String, Meter> perObjMeters = Maps.newConcurrentMap();
     private Timer perPrimitiveTimer;
     private Timer perObjTimer;
     private MetricsFeature wildcard;
@@ -89,6 +92,33 @@ public class MeteringAgent {
         return new Context(currTimer.time(), op);
     }
 
+    /**
+     * Counts an occurrence of a given event, such as a cache hit.
+     *
+     * @param event Specific event being counted
+     */
+    public void count(String event) {
+        if (!activated) {
+            return;
+        }
+        perObjCounters.computeIfAbsent(event, counter ->
+                metricsService.createCounter(metricsComponent, metricsFeature, event)).inc();
+    }
+
+    /**
+     * Marks occurrences of a given event, such as allocations, to measure their rate.
+     *
+     * @param event Specific event being measured
+     * @param n number of occurrences
+     */
+    public void mark(String event, long n) {
+        if (!activated) {
+            return;
+        }
+        perObjMeters.computeIfAbsent(event, meter ->
+                metricsService.createMeter(metricsComponent, metricsFeature, event)).mark(n);
+    }
+
     /**
      * Timer.Context with a specific operation.
      */
@@ -26,8 +26,11 @@ import net.kuujo.copycat.resource.ResourceState;
 import org.onosproject.store.service.DatabaseUpdate;
 import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
+import org.slf4j.Logger;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -40,15 +43,18 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkState;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * A database that partitions the keys across one or more database partitions.
  */
 public class PartitionedDatabase implements Database {
 
+    private final Logger log = getLogger(getClass());
     private final String name;
     private final Partitioner<String> partitioner;
     private final List<Database> partitions;
+    private final Map<Database, MapUpdateBatcher> batchers;
     private final AtomicBoolean isOpen = new AtomicBoolean(false);
     private static final String DB_NOT_OPEN = "Partitioned Database is not open";
     private TransactionManager transactionManager;
@@ -61,7 +67,10 @@ public class PartitionedDatabase implements Database {
                 .stream()
                 .sorted((db1, db2) -> db1.name().compareTo(db2.name()))
                 .collect(Collectors.toList());
-        this.partitioner = new SimpleKeyHashPartitioner(this.partitions);
+        this.partitioner = new ConsistentHashPartitioner(this.partitions);
+        this.batchers = Maps.newHashMap();
+        this.partitions.forEach(p -> batchers.put(p, new MapUpdateBatcher(p,
+                MapUpdateBatcher.DEFAULT_MAX_BATCH_SIZE, MapUpdateBatcher.DEFAULT_MAX_IN_FLIGHT)));
     }
 
     /**
@@ -100,7 +109,8 @@ public class PartitionedDatabase implements Database {
                 .stream()
                 .map(db -> db.counters()
                         .thenApply(m -> {
-                            counters.putAll(m);
+                            // Counters relocated by rebalance() leave a smaller value behind
+                            m.forEach((k, v) -> counters.merge(k, v, Math::max));
                             return null;
                         }))
                 .toArray(CompletableFuture[]::new))
@@ -152,8 +162,40 @@ public class PartitionedDatabase implements Database {
     public CompletableFuture<Result<UpdateResult<String, byte[]>>> mapUpdate(
             String mapName, String key, Match<byte[]> valueMatch,
             Match<Long> versionMatch, byte[] value) {
-        return partitioner.getPartition(mapName, key).mapUpdate(mapName, key, valueMatch, versionMatch, value);
+        // Concurrent updates to a partition are grouped into batch commands
+        return batchers.get(partitioner.getPartition(mapName, key))
+                .submit(new MapUpdate<>(mapName, key, valueMatch, versionMatch, value));
+    }
 
+    @Override
+    public CompletableFuture<List<Result<UpdateResult<String, byte[]>>>> mapBatchUpdate(
+            List<MapUpdate<String, byte[]>> updates) {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        Map<Database, List<Integer>> perPartitionIndexes = Maps.newHashMap();
+        for (int i = 0; i < updates.size(); i++) {
+            MapUpdate<String, byte[]> update = updates.get(i);
+            Database partition = partitioner.getPartition(update.mapName(), update.key());
+            perPartitionIndexes.computeIfAbsent(partition, k -> Lists.newArrayList()).add(i);
+        }
+        List<Result<UpdateResult<String, byte[]>>> results =
+                Lists.newArrayList(Collections.nCopies(updates.size(), null));
+        return CompletableFuture.allOf(perPartitionIndexes.entrySet()
+                    .stream()
+                    .map(entry -> {
+                        List<Integer> indexes = entry.getValue();
+                        List<MapUpdate<String, byte[]>> partitionUpdates = Lists.newArrayList();
+                        indexes.forEach(i -> partitionUpdates.add(updates.get(i)));
+                        return entry.getKey().mapBatchUpdate(partitionUpdates)
+                                .thenAccept(partitionResults -> {
+                                    synchronized (results) {
+                                        for (int i = 0; i < indexes.size(); i++) {
+                                            results.set(indexes.get(i), partitionResults.get(i));
+                                        }
+                                    }
+                                });
+                    })
+                    .toArray(CompletableFuture[]::new))
+                .thenApply(v -> results);
     }
 
     @Override
@@ -368,6 +410,100 @@ public class PartitionedDatabase implements Database {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Moves the map entries and counters that are not held by the partition the
+     * partitioner assigns them to, as left behind by a change of the partition layout.
+     * <p>
+     * Map entries are copied only if absent from their new partition, and are removed
+     * from their old partition only if unchanged and held with the same value by the
+     * new one, so that updates made through the new layout always win and an entry
+     * whose copies differ is never lost. Counters are raised in their new partition to at least their
+     * old value, so that they never move backwards, and then reset in the old one.
+     * </p>
+     *
+     * @return future to be completed with the number of relocated entries and counters
+     */
+    public CompletableFuture<Integer> rebalance() {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        AtomicInteger relocated = new AtomicInteger(0);
+        return CompletableFuture.allOf(partitions
+                    .stream()
+                    .map(p -> rebalanceMaps(p, relocated).thenCompose(v -> rebalanceCounters(p, relocated)))
+                    .toArray(CompletableFuture[]::new))
+                .thenApply(v -> relocated.get());
+    }
+
+    private CompletableFuture<Void> rebalanceMaps(Database source, AtomicInteger relocated) {
+        return source.maps().thenCompose(mapNames -> CompletableFuture.allOf(mapNames
+                .stream()
+                .map(mapName -> source.mapKeySet(mapName).thenCompose(keys -> CompletableFuture.allOf(keys
+                        .stream()
+                        .filter(key -> !partitioner.getPartition(mapName, key).equals(source))
+                        .map(key -> relocateEntry(source, mapName, key, relocated))
+                        .toArray(CompletableFuture[]::new))))
+                .toArray(CompletableFuture[]::new)));
+    }
+
+    private CompletableFuture<Void> relocateEntry(Database source, String mapName, String key,
+                                                  AtomicInteger relocated) {
+        Database target = partitioner.getPartition(mapName, key);
+        return source.mapGet(mapName, key).thenCompose(value -> {
+            if (value == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return batchers.get(target)
+                    .submit(new MapUpdate<>(mapName, key, Match.ifNull(), Match.any(), value.value()))
+                    .thenCompose(copied -> {
+                        if (!copied.success()) {
+                            // Locked by a transaction; left for the next rebalance
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        Versioned<byte[]> existing = copied.value().oldValue();
+                        if (!copied.value().updated() && (existing == null
+                                || !Arrays.equals(existing.value(), value.value()))) {
+                            // Written through the new layout; the old copy is kept for inspection
+                            log.warn("Entry {} of map {} differs from its relocated copy; left in place",
+                                     key, mapName);
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        return batchers.get(source)
+                                .submit(new MapUpdate<>(mapName, key, Match.any(),
+                                                        Match.ifValue(value.version()), null))
+                                .thenAccept(removed -> {
+                                    if (removed.success() && removed.value().updated()) {
+                                        relocated.incrementAndGet();
+                                    }
+                                });
+                    });
+        });
+    }
+
+    private CompletableFuture<Void> rebalanceCounters(Database source, AtomicInteger relocated) {
+        return source.counters().thenCompose(counters -> CompletableFuture.allOf(counters.entrySet()
+                .stream()
+                .filter(e -> e.getValue() != 0)
+                .filter(e -> !partitioner.getPartition(e.getKey(), e.getKey()).equals(source))
+                .map(e -> raiseCounter(partitioner.getPartition(e.getKey(), e.getKey()), e.getKey(), e.getValue())
+                        .thenCompose(v -> source.counterCompareAndSet(e.getKey(), e.getValue(), 0))
+                        .thenAccept(reset -> {
+                            if (reset) {
+                                relocated.incrementAndGet();
+                            }
+                        }))
+                .toArray(CompletableFuture[]::new)));
+    }
+
+    private CompletableFuture<Void> raiseCounter(Database target, String counterName, long value) {
+        return target.counterGet(counterName).thenCompose(current -> {
+            if (current >= value) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return target.counterCompareAndSet(counterName, current, value)
+                    .thenCompose(set -> set ? CompletableFuture.completedFuture(null)
+                            : raiseCounter(target, counterName, value));
+        });
+    }
+
     private Map<Database, Transaction> createSubTransactions(
             Transaction transaction) {
         Map<Database, List<DatabaseUpdate>> perPartitionUpdates = Maps.newHashMap();
@@ -386,6 +522,16 @@ public class PartitionedDatabase implements Database {
         this.transactionManager = transactionManager;
     }
 
+    @Override
+    public long readCount() {
+        return partitions.stream().mapToLong(Database::readCount).sum();
+    }
+
+    @Override
+    public long writeCount() {
+        return partitions.stream().mapToLong(Database::writeCount).sum();
+    }
+
     @Override
     public void registerConsumer(Consumer<StateMachineUpdate> consumer) {
         partitions.forEach(p -> p.registerConsumer(consumer));
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import org.onosproject.store.service.AsyncAtomicCounter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Asynchronous atomic counter that reserves ranges of values from a shared counter
+ * and hands them out locally.
+ * <p>
+ * Increments by up to the range size are served lock-free from the reserved range,
+ * and the next range is reserved in the background once half of the current one is
+ * used, so that only one in every range size increments costs a consensus round trip.
+ * Values are unique across the cluster, but instances hand out values from different
+ * ranges at the same time, and the unused part of a range is skipped when it is
+ * abandoned. Reads and updates other than increments go to the shared counter; its
+ * value is the upper bound of all values reserved so far.
+ * </p>
+ */
+public class RangeReservingAsyncAtomicCounter implements AsyncAtomicCounter {
+
+    private static final String PRIMITIVE_NAME = "atomicCounterRange";
+    private static final String ALLOCATIONS = "allocations";
+    private static final String RESERVATIONS = "reservations";
+
+    private final AsyncAtomicCounter counter;
+    private final long rangeSize;
+    private final long lowWatermark;
+    private final MeteringAgent monitor;
+
+    // Range values are handed out from; null until one is reserved.
+    private volatile Range current;
+    private final AtomicReference<CompletableFuture<Range>> next = new AtomicReference<>();
+
+    /**
+     * Creates a new counter reserving its values from the given shared counter.
+     *
+     * @param name counter name
+     * @param counter shared counter
+     * @param rangeSize number of values reserved at a time
+     * @param meteringEnabled whether to report metrics
+     */
+    public RangeReservingAsyncAtomicCounter(String name,
+                                            AsyncAtomicCounter counter,
+                                            long rangeSize,
+                                            boolean meteringEnabled) {
+        checkArgument(rangeSize > 1, "rangeSize must be greater than 1");
+        this.counter = checkNotNull(counter);
+        this.rangeSize = rangeSize;
+        this.lowWatermark = rangeSize / 2;
+        this.monitor = new MeteringAgent(PRIMITIVE_NAME, name, meteringEnabled);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAndGet() {
+        return addAndGet(1L);
+    }
+
+    @Override
+    public CompletableFuture<Long> getAndIncrement() {
+        return getAndAdd(1L);
+    }
+
+    @Override
+    public CompletableFuture<Long> getAndAdd(long delta) {
+        if (delta <= 0 || delta > rangeSize) {
+            return counter.getAndAdd(delta);
+        }
+        return allocate(delta);
+    }
+
+    @Override
+    public CompletableFuture<Long> addAndGet(long delta) {
+        if (delta <= 0 || delta > rangeSize) {
+            return counter.addAndGet(delta);
+        }
+        return allocate(delta).thenApply(value -> value + delta);
+    }
+
+    @Override
+    public CompletableFuture<Long> get() {
+        return counter.get();
+    }
+
+    @Override
+    public CompletableFuture<Void> set(long value) {
+        return counter.set(value).whenComplete((r, e) -> invalidate());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> compareAndSet(long expectedValue, long updateValue) {
+        return counter.compareAndSet(expectedValue, updateValue).whenComplete((r, e) -> invalidate());
+    }
+
+    // Takes delta values from the current range; returns the value preceding them.
+    private CompletableFuture<Long> allocate(long delta) {
+        Range range = current;
+        if (range == null) {
+            return advance(null).thenCompose(v -> allocate(delta));
+        }
+        long value = range.next.getAndAdd(delta);
+        long remaining = range.end - value - delta;
+        if (remaining >= 0) {
+            monitor.mark(ALLOCATIONS, delta);
+            if (remaining < lowWatermark) {
+                reserveNext();
+            }
+            return completedFuture(value);
+        }
+        return advance(range).thenCompose(v -> allocate(delta));
+    }
+
+    // Replaces an exhausted or missing range with the next one, once that is reserved.
+    private CompletableFuture<Void> advance(Range exhausted) {
+        CompletableFuture<Range> reservation = reserveNext();
+        return reservation.thenAccept(range -> {
+            if (current == exhausted && next.compareAndSet(reservation, null)) {
+                current = range;
+            }
+        });
+    }
+
+    // Returns the reservation of the next range, starting it unless one is under way.
+    private CompletableFuture<Range> reserveNext() {
+        CompletableFuture<Range> reservation = next.get();
+        if (reservation != null) {
+            return reservation;
+        }
+        CompletableFuture<Range> created = new CompletableFuture<>();
+        if (!next.compareAndSet(null, created)) {
+            return reserveNext();
+        }
+        monitor.mark(RESERVATIONS, 1);
+        counter.getAndAdd(rangeSize).whenComplete((start, error) -> {
+            if (error != null) {
+                // Let the next allocation try again.
+                next.compareAndSet(created, null);
+                created.completeExceptionally(error);
+            } else {
+                created.complete(new Range(start, start + rangeSize));
+            }
+        });
+        return created;
+    }
+
+    // Abandons the reserved ranges after the shared counter was changed.
+    private void invalidate() {
+        current = null;
+        next.set(null);
+    }
+
+    // Range of values (start, end], handed out from the bottom up.
+    private static final class Range {
+        private final AtomicLong next;
+        private final long end;
+
+        private Range(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
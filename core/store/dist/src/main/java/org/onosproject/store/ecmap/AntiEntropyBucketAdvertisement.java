@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import com.google.common.base.MoreObjects;
+import org.onosproject.cluster.NodeId;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Anti-entropy advertisement message carrying a fixed-size summary of the
+ * eventually consistent map contents. Keys are spread across a number of
+ * buckets and each bucket is summarized by a single hash of the keys and
+ * value digests it holds, so the size of the advertisement does not depend
+ * on the number of entries in the map.
+ */
+public class AntiEntropyBucketAdvertisement {
+
+    private final NodeId sender;
+    private final long[] bucketHashes;
+
+    /**
+     * Creates a new bucketed anti entropy advertisement message.
+     *
+     * @param sender       the sender's node ID
+     * @param bucketHashes hashes of the buckets' contents
+     */
+    public AntiEntropyBucketAdvertisement(NodeId sender, long[] bucketHashes) {
+        this.sender = checkNotNull(sender);
+        this.bucketHashes = Arrays.copyOf(checkNotNull(bucketHashes), bucketHashes.length);
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the number of buckets summarized by this advertisement.
+     *
+     * @return number of buckets
+     */
+    public int bucketCount() {
+        return bucketHashes.length;
+    }
+
+    /**
+     * Returns the hash of the contents of the given bucket.
+     *
+     * @param bucket bucket index
+     * @return bucket hash
+     */
+    public long bucketHash(int bucket) {
+        return bucketHashes[bucket];
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("buckets", bucketHashes.length)
+                .toString();
+    }
+}
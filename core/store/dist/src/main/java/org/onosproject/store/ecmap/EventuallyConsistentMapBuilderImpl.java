@@ -51,6 +51,8 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
     private long antiEntropyPeriod = 5;
     private TimeUnit antiEntropyTimeUnit = TimeUnit.SECONDS;
     private boolean convergeFaster = false;
+    private boolean bucketedAntiEntropy = false;
+    private boolean compressed = false;
     private boolean persistent = false;
 
     /**
@@ -131,6 +133,18 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
         return this;
     }
 
+    @Override
+    public EventuallyConsistentMapBuilder<K, V> withBucketedAntiEntropy() {
+        bucketedAntiEntropy = true;
+        return this;
+    }
+
+    @Override
+    public EventuallyConsistentMapBuilder<K, V> withCompression() {
+        compressed = true;
+        return this;
+    }
+
     @Override
     public EventuallyConsistentMapBuilder<K, V> withPersistence() {
         persistent = true;
@@ -156,6 +170,8 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
                                                  antiEntropyPeriod,
                                                  antiEntropyTimeUnit,
                                                  convergeFaster,
+                                                 bucketedAntiEntropy,
+                                                 compressed,
                                                  persistent);
     }
 }
@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.tuple.Pair;
 import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.KryoNamespace;
@@ -41,6 +42,12 @@ import org.onosproject.store.service.WallClockTimestamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -54,9 +61,15 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -86,6 +99,7 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private final MessageSubject updateMessageSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
+    private final MessageSubject bucketAdvertisementSubject;
 
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
             = Sets.newCopyOnWriteArraySet();
@@ -118,6 +132,24 @@ public class EventuallyConsistentMapImpl<K, V>
     private final boolean persistent;
     private final PersistentStore<K, V> persistentStore;
 
+    // Update batches larger than this many bytes are sent compressed, if
+    // the map compresses updates at all
+    private static final int COMPRESSION_THRESHOLD = 2048;
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte COMPRESSED = 1;
+    // Largest update batch accepted from a peer once decompressed
+    private static final int MAX_UPDATE_BATCH_SIZE = 100 * 1000 * 1000;
+    private final boolean compressed;
+
+    // Bucketed anti-entropy state; keys are spread across buckets by the
+    // hash of their serialized form and each bucket keeps a hash of its
+    // entries, which is maintained incrementally as entries change, and
+    // the set of its keys, so that the key hashes are not derived again.
+    private static final int BUCKETS = 1024;
+    private final boolean bucketedAntiEntropy;
+    private final AtomicLongArray bucketHashes;
+    private final List<Set<K>> bucketKeys;
+
     /**
      * Creates a new eventually consistent map shared amongst multiple instances.
      * <p>
@@ -143,8 +175,12 @@ public class EventuallyConsistentMapImpl<K, V>
      * @param antiEntropyPeriod     period that the anti-entropy task should run
      * @param antiEntropyTimeUnit   time unit for anti-entropy period
      * @param convergeFaster        make anti-entropy try to converge faster
+     * @param bucketedAntiEntropy   make anti-entropy advertise bucket hashes
+     *                              instead of per-key digests
+     * @param compressed            compress large update batches sent to peers
      * @param persistent            persist data to disk
      */
+    // CHECKSTYLE IGNORE ParameterNumber FOR NEXT 1 LINES
     EventuallyConsistentMapImpl(String mapName,
                                 ClusterService clusterService,
                                 ClusterCommunicationService clusterCommunicator,
@@ -158,6 +194,8 @@ public class EventuallyConsistentMapImpl<K, V>
                                 long antiEntropyPeriod,
                                 TimeUnit antiEntropyTimeUnit,
                                 boolean convergeFaster,
+                                boolean bucketedAntiEntropy,
+                                boolean compressed,
                                 boolean persistent) {
         this.mapName = mapName;
         items = Maps.newConcurrentMap();
@@ -170,6 +208,19 @@ public class EventuallyConsistentMapImpl<K, V>
 
         this.serializer = createSerializer(serializerBuilder);
 
+        this.compressed = compressed;
+        this.bucketedAntiEntropy = bucketedAntiEntropy;
+        if (bucketedAntiEntropy) {
+            this.bucketHashes = new AtomicLongArray(BUCKETS);
+            this.bucketKeys = Lists.newArrayListWithCapacity(BUCKETS);
+            for (int i = 0; i < BUCKETS; i++) {
+                bucketKeys.add(Sets.newConcurrentHashSet());
+            }
+        } else {
+            this.bucketHashes = null;
+            this.bucketKeys = null;
+        }
+
         this.timestampProvider = timestampProvider;
 
         if (peerUpdateFunction != null) {
@@ -202,13 +253,17 @@ public class EventuallyConsistentMapImpl<K, V>
 
         if (this.persistent) {
             String dataDirectory = System.getProperty("karaf.data", "./data");
-            String filename = dataDirectory + "/" + "mapdb-ecm-" + mapName;
+            File directory = new File(dataDirectory, "ecm-log-" + mapName);
 
             ExecutorService dbExecutor =
                     newFixedThreadPool(1, groupedThreads("onos/ecm", mapName + "-dbwriter"));
 
-            persistentStore = new MapDbPersistentStore<>(filename, dbExecutor, serializer);
+            persistentStore = new LogPersistentStore<>(directory, dbExecutor, serializer,
+                                                       LogPersistentStore.DEFAULT_SEGMENT_SIZE);
             persistentStore.readInto(items);
+            if (bucketedAntiEntropy) {
+                items.forEach((key, value) -> updateBucketHash(key, null, value));
+            }
         } else {
             this.persistentStore = null;
         }
@@ -226,10 +281,10 @@ public class EventuallyConsistentMapImpl<K, V>
                                                     antiEntropyTimeUnit);
 
         updateMessageSubject = new MessageSubject("ecm-" + mapName + "-update");
-        clusterCommunicator.addSubscriber(updateMessageSubject,
-                                          serializer::decode,
-                                          this::processUpdates,
-                                          this.executor);
+        clusterCommunicator.addDirectSubscriber(updateMessageSubject,
+                                                this::decodeUpdates,
+                                                this::processUpdates,
+                                                this.executor);
 
         antiEntropyAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy");
         clusterCommunicator.addSubscriber(antiEntropyAdvertisementSubject,
@@ -237,6 +292,14 @@ public class EventuallyConsistentMapImpl<K, V>
                                           this::handleAntiEntropyAdvertisement,
                                           this.backgroundExecutor);
 
+        bucketAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-buckets");
+        if (bucketedAntiEntropy) {
+            clusterCommunicator.addSubscriber(bucketAdvertisementSubject,
+                                              serializer::decode,
+                                              this::handleBucketAdvertisement,
+                                              this.backgroundExecutor);
+        }
+
         this.tombstonesDisabled = tombstonesDisabled;
         this.lightweightAntiEntropy = !convergeFaster;
     }
@@ -255,6 +318,8 @@ public class EventuallyConsistentMapImpl<K, V>
                         .register(UpdateEntry.class)
                         .register(MapValue.class)
                         .register(MapValue.Digest.class)
+                        .register(long[].class)
+                        .register(AntiEntropyBucketAdvertisement.class)
                         .build();
             }
         };
@@ -374,6 +439,9 @@ public class EventuallyConsistentMapImpl<K, V>
             }
         });
         if (updated.get()) {
+            if (bucketedAntiEntropy) {
+                updateBucketHash(key, previousValue.get(), tombstone.orElse(null));
+            }
             if (persistent) {
                 if (tombstone.isPresent()) {
                     persistentStore.update(key, tombstone.get());
@@ -405,6 +473,9 @@ public class EventuallyConsistentMapImpl<K, V>
             }
         });
         if (updated.get()) {
+            if (bucketedAntiEntropy) {
+                updateBucketHash(key, previousValue.get(), computedValue);
+            }
             notifyPeers(new UpdateEntry<>(key, computedValue), peerUpdateFunction.apply(key, computedValue.get()));
             EventuallyConsistentMapEvent.Type updateType = computedValue.isTombstone() ? REMOVE : PUT;
             V value = computedValue.isTombstone()
@@ -466,13 +537,18 @@ public class EventuallyConsistentMapImpl<K, V>
         checkState(newValue.isAlive());
         counter.incrementCount();
         AtomicBoolean updated = new AtomicBoolean(false);
+        AtomicReference<MapValue<V>> previousValue = new AtomicReference<>();
         items.compute(key, (k, existing) -> {
             if (existing == null || newValue.isNewerThan(existing)) {
                 updated.set(true);
+                previousValue.set(existing);
                 return newValue;
             }
             return existing;
         });
+        if (updated.get() && bucketedAntiEntropy) {
+            updateBucketHash(key, previousValue.get(), newValue);
+        }
         if (updated.get() && persistent) {
             persistentStore.update(key, newValue);
         }
@@ -503,8 +579,15 @@ public class EventuallyConsistentMapImpl<K, V>
 
         listeners.clear();
 
+        if (persistent) {
+            persistentStore.close();
+        }
+
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+        if (bucketedAntiEntropy) {
+            clusterCommunicator.removeSubscriber(bucketAdvertisementSubject);
+        }
     }
 
     private void notifyListeners(EventuallyConsistentMapEvent<K, V> event) {
@@ -534,7 +617,11 @@ public class EventuallyConsistentMapImpl<K, V>
             if (underHighLoad() || destroyed) {
                 return;
             }
-            pickRandomActivePeer().ifPresent(this::sendAdvertisementToPeer);
+            if (bucketedAntiEntropy) {
+                pickRandomActivePeer().ifPresent(this::sendBucketAdvertisementToPeer);
+            } else {
+                pickRandomActivePeer().ifPresent(this::sendAdvertisementToPeer);
+            }
         } catch (Exception e) {
             // Catch all exceptions to avoid scheduled task being suppressed.
             log.error("Exception thrown while sending advertisement", e);
@@ -569,6 +656,128 @@ public class EventuallyConsistentMapImpl<K, V>
                 ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
     }
 
+    private void sendAdvertisementToPeer(NodeId peer, Set<Integer> buckets) {
+        clusterCommunicator.unicast(createAdvertisement(buckets),
+                antiEntropyAdvertisementSubject,
+                serializer::encode,
+                peer)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.debug("Failed to send anti-entropy advertisement to {}", peer, error);
+                    }
+                });
+    }
+
+    // Creates an advertisement covering only the entries in the given buckets.
+    private AntiEntropyAdvertisement<K> createAdvertisement(Set<Integer> buckets) {
+        Map<K, MapValue.Digest> digest = Maps.newHashMap();
+        forEachInBuckets(buckets, (key, value) -> digest.put(key, value.digest()));
+        return new AntiEntropyAdvertisement<>(localNodeId, digest, buckets);
+    }
+
+    private void sendBucketAdvertisementToPeer(NodeId peer) {
+        clusterCommunicator.unicast(createBucketAdvertisement(),
+                bucketAdvertisementSubject,
+                serializer::encode,
+                peer)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.debug("Failed to send anti-entropy bucket advertisement to {}", peer, error);
+                    }
+                });
+    }
+
+    private AntiEntropyBucketAdvertisement createBucketAdvertisement() {
+        long[] hashes = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            hashes[i] = bucketHashes.get(i);
+        }
+        return new AntiEntropyBucketAdvertisement(localNodeId, hashes);
+    }
+
+    /**
+     * Processes a bucketed anti-entropy ad from a peer by sending back a
+     * digest of the local entries in all buckets whose hash differs.
+     */
+    private void handleBucketAdvertisement(AntiEntropyBucketAdvertisement ad) {
+        if (destroyed || underHighLoad()) {
+            return;
+        }
+        try {
+            if (ad.bucketCount() != BUCKETS) {
+                log.warn("Ignoring anti-entropy bucket advertisement from {} with {} buckets",
+                         ad.sender(), ad.bucketCount());
+                return;
+            }
+            Set<Integer> buckets = Sets.newHashSet();
+            for (int i = 0; i < BUCKETS; i++) {
+                if (bucketHashes.get(i) != ad.bucketHash(i)) {
+                    buckets.add(i);
+                }
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Received anti-entropy bucket advertisement from {} for {} with {} stale buckets",
+                        ad.sender(), mapName, buckets.size());
+            }
+            if (!buckets.isEmpty()) {
+                sendAdvertisementToPeer(ad.sender(), buckets);
+            }
+        } catch (Exception e) {
+            log.warn("Error handling anti-entropy bucket advertisement", e);
+        }
+    }
+
+    // Returns the bucket for the given key hash.
+    private static int bucket(int keyHash) {
+        return Math.floorMod(keyHash, BUCKETS);
+    }
+
+    // Returns a hash of the key which is consistent across all instances;
+    // it is derived once per update, anti-entropy uses the bucket key index.
+    private int keyHash(K key) {
+        return Hashing.murmur3_32().hashBytes(serializer.encode(key)).asInt();
+    }
+
+    // Replaces the contribution of the old value of an entry to the hash of
+    // its bucket with the contribution of the new value.
+    private void updateBucketHash(K key, MapValue<V> oldValue, MapValue<V> newValue) {
+        int keyHash = keyHash(key);
+        int bucket = bucket(keyHash);
+        if (oldValue == null) {
+            // entries are never removed, only replaced by tombstones
+            bucketKeys.get(bucket).add(key);
+        }
+        long delta = entryHash(keyHash, oldValue) ^ entryHash(keyHash, newValue);
+        bucketHashes.accumulateAndGet(bucket, delta, (a, b) -> a ^ b);
+    }
+
+    // Applies the action to the local entries in the given buckets, or to
+    // all local entries if no buckets are given.
+    private void forEachInBuckets(Set<Integer> buckets, BiConsumer<K, MapValue<V>> action) {
+        if (buckets.isEmpty() || bucketKeys == null) {
+            items.forEach(action);
+            return;
+        }
+        buckets.stream()
+                .filter(bucket -> bucket >= 0 && bucket < BUCKETS)
+                .forEach(bucket -> bucketKeys.get(bucket).forEach(key -> {
+                    MapValue<V> value = items.get(key);
+                    if (value != null) {
+                        action.accept(key, value);
+                    }
+                }));
+    }
+
+    private static long entryHash(int keyHash, MapValue<?> value) {
+        if (value == null) {
+            return 0;
+        }
+        return Hashing.murmur3_128().newHasher()
+                .putInt(keyHash)
+                .putInt(value.digest().hashCode())
+                .hash().asLong();
+    }
+
     private void handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
         if (destroyed || underHighLoad()) {
             return;
@@ -585,7 +794,11 @@ public class EventuallyConsistentMapImpl<K, V>
                 // TODO: Missing keys is not the way local copy can be behind.
                 if (Sets.difference(ad.digest().keySet(), items.keySet()).size() > 0) {
                     // TODO: Send ad for missing keys and for entries that are stale
-                    sendAdvertisementToPeer(ad.sender());
+                    if (ad.buckets().isEmpty()) {
+                        sendAdvertisementToPeer(ad.sender());
+                    } else {
+                        sendAdvertisementToPeer(ad.sender(), ad.buckets());
+                    }
                 }
             }
         } catch (Exception e) {
@@ -603,7 +816,7 @@ public class EventuallyConsistentMapImpl<K, V>
             AntiEntropyAdvertisement<K> ad) {
         final List<EventuallyConsistentMapEvent<K, V>> externalEvents = Lists.newLinkedList();
         final NodeId sender = ad.sender();
-        items.forEach((key, localValue) -> {
+        forEachInBuckets(ad.buckets(), (key, localValue) -> {
             MapValue.Digest remoteValueDigest = ad.digest().get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
                 // local value is more recent, push to sender
@@ -642,6 +855,64 @@ public class EventuallyConsistentMapImpl<K, V>
         });
     }
 
+    // Encodes a batch of updates into the outbound stream; if the map
+    // compresses updates, the batch is prefixed by its format and large
+    // batches are compressed.
+    private void encodeUpdates(List<UpdateEntry<K, V>> updates, OutputStream stream) {
+        if (!compressed) {
+            serializer.encode(updates, stream);
+            return;
+        }
+        byte[] bytes = serializer.encode(updates);
+        try {
+            if (bytes.length < COMPRESSION_THRESHOLD) {
+                stream.write(UNCOMPRESSED);
+                stream.write(bytes);
+                return;
+            }
+            DataOutputStream header = new DataOutputStream(stream);
+            header.writeByte(COMPRESSED);
+            header.writeInt(bytes.length);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                DeflaterOutputStream deflating = new DeflaterOutputStream(stream, deflater);
+                deflating.write(bytes);
+                deflating.finish();
+            } finally {
+                deflater.end();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Decodes a batch of updates encoded by encodeUpdates.
+    private Collection<UpdateEntry<K, V>> decodeUpdates(ByteBuffer buffer) {
+        if (!compressed || buffer.get() == UNCOMPRESSED) {
+            return serializer.decode(buffer);
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > MAX_UPDATE_BATCH_SIZE) {
+            throw new IllegalArgumentException("Malformed update batch of " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        byte[] compressedBytes = new byte[buffer.remaining()];
+        buffer.get(compressedBytes);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressedBytes);
+            int inflated = inflater.inflate(bytes);
+            if (inflated != length || !inflater.finished() || inflater.getRemaining() > 0) {
+                throw new IllegalArgumentException("Malformed update batch");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Malformed update batch", e);
+        } finally {
+            inflater.end();
+        }
+        return serializer.decode(bytes);
+    }
+
     // TODO pull this into the class if this gets pulled out...
     private static final int DEFAULT_MAX_EVENTS = 1000;
     private static final int DEFAULT_MAX_IDLE_MS = 10;
@@ -663,10 +934,10 @@ public class EventuallyConsistentMapImpl<K, V>
             items.forEach(item -> map.compute(item.key(), (key, existing) ->
                     item.isNewerThan(existing) ? item : existing));
             communicationExecutor.submit(() -> {
-                clusterCommunicator.unicast(ImmutableList.copyOf(map.values()),
-                                            updateMessageSubject,
-                                            serializer::encode,
-                                            peer)
+                clusterCommunicator.unicastDirect(ImmutableList.copyOf(map.values()),
+                                                  updateMessageSubject,
+                                                  EventuallyConsistentMapImpl.this::encodeUpdates,
+                                                  peer)
                                    .whenComplete((result, error) -> {
                                        if (error != null) {
                                            log.debug("Failed to send to {}", peer, error);
@@ -0,0 +1,536 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import org.onosproject.store.Timestamp;
+import org.onosproject.store.serializers.KryoSerializer;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Persistent store backed by an append-only log of memory-mapped segment
+ * files.
+ * <p>
+ * Updates are encoded by the calling thread and queued; a single writer
+ * task appends all queued updates to the tail segment and forces it to
+ * disk once per batch, so that concurrent updates share a commit. An
+ * in-memory index locates the live record of each key. Once less than
+ * half of the logged bytes are live, the oldest segment is compacted by
+ * appending its live records to the tail and deleting it.
+ * </p>
+ * <p>
+ * Whenever a segment is sealed or compacted, the locations of all live
+ * records, the used length of each segment and the position of the log
+ * tail are written to a snapshot file, so that recovery reads the live
+ * records directly and only scans the log past the snapshot tail.
+ * </p>
+ */
+class LogPersistentStore<K, V> implements PersistentStore<K, V> {
+
+    private final Logger log = getLogger(getClass());
+
+    static final int DEFAULT_SEGMENT_SIZE = 32 * 1024 * 1024;
+
+    // Compaction starts once live records make up less than this share of the log
+    private static final double MIN_LIVE_SHARE = 0.5;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT = "snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x4543534f;
+
+    // Record: body length, CRC32 of the body, then the body made of the
+    // record type, the key length, the key and, for updates, the value.
+    private static final int HEADER_LENGTH = 8;
+    private static final byte UPDATE = 1;
+    private static final byte REMOVE = 2;
+
+    private final File directory;
+    private final ExecutorService executor;
+    private final KryoSerializer serializer;
+    private final int segmentSize;
+
+    private final Queue<Record> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // accessed by the writer task only, once recovered
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<ByteBuffer, Location> index = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private Segment tail;
+    private boolean sealed;
+
+    /**
+     * Creates a log based persistent store, recovering the contents of the
+     * given directory.
+     *
+     * @param directory   directory of the log files
+     * @param executor    single-threaded executor for tasks that write to
+     *                    the disk
+     * @param serializer  serializer for keys and values
+     * @param segmentSize size of log segment files in bytes
+     */
+    LogPersistentStore(File directory, ExecutorService executor,
+                       KryoSerializer serializer, int segmentSize) {
+        this.directory = checkNotNull(directory);
+        this.executor = checkNotNull(executor);
+        this.serializer = checkNotNull(serializer);
+        this.segmentSize = segmentSize;
+
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(directory.toPath());
+            recover();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open log " + directory, e);
+        }
+        log.info("Recovered {} entries from {} segments of {} in {} ms", index.size(),
+                 segments.size(), directory, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void readInto(Map<K, MapValue<V>> items) {
+        // the index belongs to the writer task, so it is read by that task
+        try {
+            executor.submit(() -> readIndexInto(items)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading log " + directory, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to read log " + directory, e.getCause());
+        }
+    }
+
+    private void readIndexInto(Map<K, MapValue<V>> items) {
+        index.forEach((key, location) -> {
+            ByteBuffer record = location.segment.record(location.offset);
+            int keyLength = record.getInt(HEADER_LENGTH + 1);
+            MapValue<V> value = serializer.decode(slice(record, HEADER_LENGTH + 5 + keyLength,
+                                                        record.limit()));
+            location.timestamp = value.timestamp();
+            items.put(serializer.decode(key.duplicate()), value);
+        });
+    }
+
+    @Override
+    public void update(K key, MapValue<V> value) {
+        enqueue(new Record(UPDATE, serializer.encode(key), serializer.encode(value),
+                           value.timestamp()));
+    }
+
+    @Override
+    public void remove(K key) {
+        enqueue(new Record(REMOVE, serializer.encode(key), null, null));
+    }
+
+    @Override
+    public void close() {
+        executor.execute(() -> {
+            flush();
+            segments.values().forEach(Segment::force);
+            segments.values().forEach(Segment::unmap);
+        });
+        executor.shutdown();
+    }
+
+    private void enqueue(Record record) {
+        pending.add(record);
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.execute(this::flush);
+        }
+    }
+
+    // Appends all queued records and commits them with a single force.
+    private void flush() {
+        flushScheduled.set(false);
+        Set<Segment> dirty = new HashSet<>();
+        try {
+            Record record;
+            while ((record = pending.poll()) != null) {
+                Location previous = index.get(ByteBuffer.wrap(record.key));
+                if (record.type == UPDATE && previous != null && previous.timestamp != null &&
+                        !record.timestamp.isNewerThan(previous.timestamp)) {
+                    continue;
+                }
+                if (record.type == REMOVE && previous == null) {
+                    continue;
+                }
+                dirty.add(append(record.type, record.key, record.value, record.timestamp));
+            }
+            dirty.forEach(Segment::force);
+            compact();
+            if (sealed) {
+                sealed = false;
+                writeSnapshot();
+            }
+        } catch (IOException e) {
+            log.error("Unable to write to log {}", directory, e);
+        }
+    }
+
+    // Appends a record to the tail segment and indexes it.
+    private Segment append(byte type, byte[] key, byte[] value, Timestamp timestamp)
+            throws IOException {
+        int length = 5 + key.length + (value != null ? value.length : 0);
+        if (!tail.fits(HEADER_LENGTH + length)) {
+            tail.force();
+            tail = openSegment(tail.id + 1, Math.max(segmentSize, HEADER_LENGTH + length));
+            sealed = true;
+        }
+        ByteBuffer buffer = tail.buffer;
+        int offset = tail.position;
+        buffer.position(offset + HEADER_LENGTH);
+        buffer.put(type).putInt(key.length).put(key);
+        if (value != null) {
+            buffer.put(value);
+        }
+        crc.reset();
+        crc.update(slice(buffer, offset + HEADER_LENGTH, offset + HEADER_LENGTH + length));
+        buffer.putInt(offset, length);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        tail.position = offset + HEADER_LENGTH + length;
+
+        apply(type, key, tail, offset, HEADER_LENGTH + length, timestamp);
+        return tail;
+    }
+
+    // Updates the index and the live byte counts for a logged record.
+    private void apply(byte type, byte[] key, Segment segment, int offset, int length,
+                       Timestamp timestamp) {
+        Location previous;
+        if (type == UPDATE) {
+            previous = index.put(ByteBuffer.wrap(key),
+                                 new Location(segment, offset, length, timestamp));
+            segment.liveBytes += length;
+        } else {
+            previous = index.remove(ByteBuffer.wrap(key));
+        }
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.length;
+        }
+    }
+
+    // Compacts the oldest segments for as long as the log is mostly dead.
+    private void compact() throws IOException {
+        while (segments.size() > 2 && liveShare() < MIN_LIVE_SHARE) {
+            Segment oldest = segments.firstEntry().getValue();
+            int offset = 0;
+            ByteBuffer record;
+            while ((record = oldest.recordAt(offset)) != null) {
+                if (record.get(HEADER_LENGTH) == UPDATE) {
+                    byte[] key = key(record);
+                    Location location = index.get(ByteBuffer.wrap(key));
+                    if (location != null && location.segment == oldest && location.offset == offset) {
+                        byte[] value = new byte[record.limit() - HEADER_LENGTH - 5 - key.length];
+                        record.position(HEADER_LENGTH + 5 + key.length);
+                        record.get(value);
+                        append(UPDATE, key, value, location.timestamp);
+                    }
+                }
+                offset += record.limit();
+            }
+            if (oldest.liveBytes > 0) {
+                // a live record was not found; the segment must stay mapped
+                log.error("Unable to compact segment {} of log {}", oldest.id, directory);
+                return;
+            }
+            // Records left in the oldest segment are now all dead, removals
+            // included, as no older segment remains that they could shadow.
+            tail.force();
+            segments.remove(oldest.id);
+            writeSnapshot();
+            sealed = false;
+            oldest.unmap();
+            Files.deleteIfExists(oldest.file.toPath());
+        }
+    }
+
+    private double liveShare() {
+        long live = 0;
+        long used = 0;
+        for (Segment segment : segments.values()) {
+            live += segment.liveBytes;
+            used += segment.position;
+        }
+        return used == 0 ? 1.0 : (double) live / used;
+    }
+
+    // Recovers the index from the snapshot, if valid, and the log past it.
+    private void recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        for (File file : files != null ? files : new File[0]) {
+            String name = file.getName();
+            try {
+                long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(id, openSegment(id, 0));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring unexpected file {} in log {}", name, directory);
+            }
+        }
+        if (segments.isEmpty()) {
+            tail = openSegment(0, segmentSize);
+            return;
+        }
+
+        long scanFrom = segments.firstKey();
+        int scanOffset = 0;
+        long[] snapshotTail = readSnapshot();
+        if (snapshotTail != null) {
+            scanFrom = snapshotTail[0];
+            scanOffset = (int) snapshotTail[1];
+        } else {
+            index.clear();
+            for (Segment segment : segments.values()) {
+                segment.liveBytes = 0;
+            }
+        }
+
+        for (Segment segment : segments.tailMap(scanFrom, true).values()) {
+            int offset = segment.id == scanFrom ? scanOffset : 0;
+            ByteBuffer record;
+            while ((record = segment.recordAt(offset)) != null) {
+                apply(record.get(HEADER_LENGTH), key(record), segment, offset, record.limit(), null);
+                offset += record.limit();
+            }
+            // Anything past the last valid record is a torn write.
+            segment.position = offset;
+        }
+        tail = segments.lastEntry().getValue();
+    }
+
+    // Loads the live record locations of the snapshot into the index and
+    // returns the log position it was taken at; null if there is no valid
+    // snapshot.
+    private long[] readSnapshot() throws IOException {
+        File file = new File(directory, SNAPSHOT);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                return null;
+            }
+            long tailId = in.readLong();
+            int tailOffset = in.readInt();
+            if (!segments.containsKey(tailId)) {
+                return null;
+            }
+            // Segments before the tail are not scanned, so their used length
+            // comes from the snapshot; it counts in the live share of the log.
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                Segment segment = segments.get(in.readLong());
+                int position = in.readInt();
+                if (segment != null) {
+                    segment.position = position;
+                }
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Segment segment = segments.get(in.readLong());
+                int offset = in.readInt();
+                ByteBuffer record = segment != null ? segment.recordAt(offset) : null;
+                if (record == null || record.get(HEADER_LENGTH) != UPDATE) {
+                    log.warn("Snapshot of log {} is stale; scanning the whole log", directory);
+                    return null;
+                }
+                apply(UPDATE, key(record), segment, offset, record.limit(), null);
+            }
+            return new long[]{tailId, tailOffset};
+        } catch (IOException e) {
+            log.warn("Unable to read snapshot of log {}; scanning the whole log", directory, e);
+            return null;
+        }
+    }
+
+    // Writes the locations of all live records and the tail position.
+    private void writeSnapshot() throws IOException {
+        File temp = new File(directory, SNAPSHOT + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(tail.id);
+            out.writeInt(tail.position);
+            out.writeInt(segments.size());
+            for (Segment segment : segments.values()) {
+                out.writeLong(segment.id);
+                out.writeInt(segment.position);
+            }
+            out.writeInt(index.size());
+            for (Location location : index.values()) {
+                out.writeLong(location.segment.id);
+                out.writeInt(location.offset);
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temp.toPath(), new File(directory, SNAPSHOT).toPath(),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Segment openSegment(long id, int size) throws IOException {
+        File file = new File(directory, String.format("%016d%s", id, SEGMENT_SUFFIX));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            Segment segment = new Segment(id, file, buffer);
+            segments.put(id, segment);
+            return segment;
+        }
+    }
+
+    private ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(to).position(from);
+        return slice.slice();
+    }
+
+    private byte[] key(ByteBuffer record) {
+        byte[] key = new byte[record.getInt(HEADER_LENGTH + 1)];
+        record.position(HEADER_LENGTH + 5);
+        record.get(key);
+        return key;
+    }
+
+    // Memory-mapped log segment file.
+    private final class Segment {
+        private final long id;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long liveBytes;
+
+        private Segment(long id, File file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        private boolean fits(int length) {
+            return buffer.capacity() - position >= length;
+        }
+
+        private void force() {
+            buffer.force();
+        }
+
+        // Releases the mapping right away rather than once the buffer is
+        // garbage collected; the segment must not be accessed afterwards.
+        private void unmap() {
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.debug("Unable to unmap segment {} of log {}; left to the garbage collector",
+                          id, directory, e);
+            }
+        }
+
+        // Returns the record at the given offset; no bounds or CRC checks.
+        private ByteBuffer record(int offset) {
+            return slice(buffer, offset, offset + HEADER_LENGTH + buffer.getInt(offset));
+        }
+
+        // Returns the record at the given offset, or null if there is no
+        // complete and intact record there.
+        private ByteBuffer recordAt(int offset) {
+            if (offset < 0 || buffer.capacity() - offset < HEADER_LENGTH + 5) {
+                return null;
+            }
+            int length = buffer.getInt(offset);
+            if (length < 5 || length > buffer.capacity() - offset - HEADER_LENGTH) {
+                return null;
+            }
+            ByteBuffer record = slice(buffer, offset, offset + HEADER_LENGTH + length);
+            crc.reset();
+            crc.update(slice(record, HEADER_LENGTH, record.limit()));
+            if ((int) crc.getValue() != record.getInt(4)) {
+                return null;
+            }
+            byte type = record.get(HEADER_LENGTH);
+            int keyLength = record.getInt(HEADER_LENGTH + 1);
+            if ((type != UPDATE && type != REMOVE) || keyLength < 0 || keyLength > length - 5) {
+                return null;
+            }
+            return record;
+        }
+    }
+
+    // Location of the live record of a key.
+    private final class Location {
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+        private Timestamp timestamp;
+
+        private Location(Segment segment, int offset, int length, Timestamp timestamp) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+    }
+
+    // Encoded update or removal waiting to be logged.
+    private static final class Record {
+        private final byte type;
+        private final byte[] key;
+        private final byte[] value;
+        private final Timestamp timestamp;
+
+        private Record(byte type, byte[] key, byte[] value, Timestamp timestamp) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -44,4 +44,9 @@ interface PersistentStore<K, V> {
      * @param key the key to remove
      */
     void remove(K key);
+
+    /**
+     * Writes out pending updates and releases the resources of the store.
+     */
+    void close();
 }
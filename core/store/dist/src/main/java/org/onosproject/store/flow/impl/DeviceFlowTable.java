@@ -0,0 +1,434 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Flow table of a single device.
+ * <p>
+ * Entries are keyed by the primitive value of their flow id and spread over
+ * a fixed number of lock stripes. Each stripe is an open-addressing hash
+ * table guarded by its own monitor, so lookups and statistics updates for
+ * different flows of the same device rarely contend. Entries sharing a flow
+ * id are kept together in a small array.
+ * <p>
+ * Local additions, removals and updates also record the affected flow ids,
+ * so that backups can ship only the flows changed since the previous backup.
+ * Changes applied from a backup are not recorded.
+ */
+final class DeviceFlowTable {
+
+    private static final int STRIPES = 64;
+    private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Set<Long> changedFlowIds = Sets.newConcurrentHashSet();
+
+    DeviceFlowTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Returns the stored entry equal to the given rule.
+     *
+     * @param rule flow rule to look for
+     * @return stored entry or null if none
+     */
+    StoredFlowEntry get(FlowRule rule) {
+        long key = rule.id().value();
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key, rule);
+        }
+    }
+
+    /**
+     * Applies the given update to the stored entry equal to the given rule
+     * under the lock of its stripe, and records the change of its flow id.
+     * Stored entries must only be mutated this way, or backups miss the
+     * mutation.
+     *
+     * @param rule   flow rule to look for
+     * @param update update of the stored entry
+     * @param <R>    result type
+     * @return result of the update or null if no entry is stored
+     */
+    <R> R update(FlowRule rule, Function<? super StoredFlowEntry, R> update) {
+        long key = rule.id().value();
+        Stripe stripe = stripe(key);
+        R result;
+        synchronized (stripe) {
+            StoredFlowEntry entry = stripe.get(key, rule);
+            if (entry == null) {
+                return null;
+            }
+            result = update.apply(entry);
+        }
+        changedFlowIds.add(key);
+        return result;
+    }
+
+    /**
+     * Adds the given entry unless an equal entry is already stored.
+     *
+     * @param entry entry to add
+     * @return true if the entry was added
+     */
+    boolean add(StoredFlowEntry entry) {
+        long key = entry.id().value();
+        Stripe stripe = stripe(key);
+        boolean added;
+        synchronized (stripe) {
+            added = stripe.add(key, entry);
+        }
+        if (added) {
+            changedFlowIds.add(key);
+        }
+        return added;
+    }
+
+    /**
+     * Removes the stored entry equal to the given one.
+     *
+     * @param entry entry to remove
+     * @return true if an entry was removed
+     */
+    boolean remove(FlowEntry entry) {
+        long key = entry.id().value();
+        Stripe stripe = stripe(key);
+        boolean removed;
+        synchronized (stripe) {
+            removed = stripe.remove(key, entry);
+        }
+        if (removed) {
+            changedFlowIds.add(key);
+        }
+        return removed;
+    }
+
+    /**
+     * Applies the given action to every stored entry. Each stripe is
+     * traversed under its lock, so the action must not call back into
+     * this table.
+     *
+     * @param action action to apply
+     */
+    void forEach(Consumer<? super StoredFlowEntry> action) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of stored entries.
+     *
+     * @return number of entries
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns a copy of the table grouped by flow id, as used for backups.
+     *
+     * @return map of flow id to entries
+     */
+    Map<FlowId, Set<StoredFlowEntry>> snapshot() {
+        Map<FlowId, Set<StoredFlowEntry>> snapshot = Maps.newHashMap();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.buckets.length; i++) {
+                    StoredFlowEntry[] bucket = stripe.buckets[i];
+                    if (bucket != null) {
+                        snapshot.put(FlowId.valueOf(stripe.keys[i]), Sets.newHashSet(Arrays.asList(bucket)));
+                    }
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns a copy of the whole table and forgets the recorded changes,
+     * as they are all covered by the copy.
+     *
+     * @return map of flow id to entries
+     */
+    Map<FlowId, Set<StoredFlowEntry>> drainSnapshot() {
+        changedFlowIds.clear();
+        return snapshot();
+    }
+
+    /**
+     * Returns the current entries of every flow id changed since the last
+     * drain and forgets those changes. Flow ids whose entries were all
+     * removed map to an empty set.
+     *
+     * @return map of changed flow id to its current entries
+     */
+    Map<FlowId, Set<StoredFlowEntry>> drainChanges() {
+        Map<FlowId, Set<StoredFlowEntry>> changes = Maps.newHashMap();
+        Iterator<Long> it = changedFlowIds.iterator();
+        while (it.hasNext()) {
+            long key = it.next();
+            // forget the change before reading, so that a concurrent
+            // update is either read here or recorded again
+            it.remove();
+            Stripe stripe = stripe(key);
+            StoredFlowEntry[] bucket;
+            synchronized (stripe) {
+                bucket = stripe.bucket(key);
+            }
+            changes.put(FlowId.valueOf(key),
+                        bucket == null ? Sets.newHashSet() : Sets.newHashSet(Arrays.asList(bucket)));
+        }
+        return changes;
+    }
+
+    /**
+     * Replaces the content of the table with the given entries.
+     *
+     * @param table map of flow id to entries
+     */
+    void replaceAll(Map<FlowId, Set<StoredFlowEntry>> table) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        changedFlowIds.clear();
+        applyChanges(table);
+    }
+
+    /**
+     * Replaces the entries of each given flow id; an empty set removes the
+     * flow id from the table.
+     *
+     * @param changes map of flow id to its new entries
+     */
+    void applyChanges(Map<FlowId, Set<StoredFlowEntry>> changes) {
+        changes.forEach((flowId, entries) -> {
+            long key = flowId.value();
+            Stripe stripe = stripe(key);
+            StoredFlowEntry[] bucket = entries.toArray(new StoredFlowEntry[entries.size()]);
+            synchronized (stripe) {
+                stripe.replace(key, bucket);
+            }
+        });
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(int) (spread(key) >>> STRIPE_SHIFT)];
+    }
+
+    // Fibonacci hashing; the top bits select the stripe
+    private static long spread(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Open-addressing table with linear probing; callers hold its monitor.
+     */
+    private static final class Stripe {
+
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+        private StoredFlowEntry[][] buckets = new StoredFlowEntry[INITIAL_STRIPE_CAPACITY][];
+        private int size;
+        private int entries;
+
+        private int home(long key) {
+            long hash = spread(key);
+            return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+        }
+
+        // Returns the slot holding the key, or -(free slot + 1) if absent
+        private int indexOf(long key) {
+            int mask = keys.length - 1;
+            int i = home(key);
+            while (buckets[i] != null) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -(i + 1);
+        }
+
+        StoredFlowEntry[] bucket(long key) {
+            int i = indexOf(key);
+            return i < 0 ? null : buckets[i];
+        }
+
+        StoredFlowEntry get(long key, FlowRule rule) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return null;
+            }
+            for (StoredFlowEntry entry : buckets[i]) {
+                if (entry.equals(rule)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        boolean add(long key, StoredFlowEntry entry) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                StoredFlowEntry[] bucket = buckets[i];
+                for (StoredFlowEntry existing : bucket) {
+                    if (existing.equals(entry)) {
+                        return false;
+                    }
+                }
+                bucket = Arrays.copyOf(bucket, bucket.length + 1);
+                bucket[bucket.length - 1] = entry;
+                buckets[i] = bucket;
+                entries++;
+                return true;
+            }
+            insert(key, new StoredFlowEntry[] {entry});
+            return true;
+        }
+
+        void replace(long key, StoredFlowEntry[] bucket) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                entries -= buckets[i].length;
+                if (bucket.length == 0) {
+                    delete(i);
+                } else {
+                    buckets[i] = bucket;
+                    entries += bucket.length;
+                }
+            } else if (bucket.length > 0) {
+                insert(key, bucket);
+            }
+        }
+
+        // Inserts a key known to be absent
+        private void insert(long key, StoredFlowEntry[] bucket) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            int i = -indexOf(key) - 1;
+            keys[i] = key;
+            buckets[i] = bucket;
+            size++;
+            entries += bucket.length;
+        }
+
+        boolean remove(long key, FlowEntry entry) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return false;
+            }
+            StoredFlowEntry[] bucket = buckets[i];
+            for (int j = 0; j < bucket.length; j++) {
+                if (bucket[j].equals(entry)) {
+                    if (bucket.length == 1) {
+                        delete(i);
+                    } else {
+                        StoredFlowEntry[] smaller = new StoredFlowEntry[bucket.length - 1];
+                        System.arraycopy(bucket, 0, smaller, 0, j);
+                        System.arraycopy(bucket, j + 1, smaller, j, bucket.length - j - 1);
+                        buckets[i] = smaller;
+                    }
+                    entries--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void forEach(Consumer<? super StoredFlowEntry> action) {
+            for (StoredFlowEntry[] bucket : buckets) {
+                if (bucket != null) {
+                    for (StoredFlowEntry entry : bucket) {
+                        action.accept(entry);
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            keys = new long[INITIAL_STRIPE_CAPACITY];
+            buckets = new StoredFlowEntry[INITIAL_STRIPE_CAPACITY][];
+            size = 0;
+            entries = 0;
+        }
+
+        // Backward-shift deletion keeps probe sequences intact without tombstones
+        private void delete(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            int i = slot;
+            while (true) {
+                i = (i + 1) & mask;
+                if (buckets[i] == null) {
+                    break;
+                }
+                int home = home(keys[i]);
+                boolean reachable = hole <= i ? home > hole && home <= i : home > hole || home <= i;
+                if (!reachable) {
+                    keys[hole] = keys[i];
+                    buckets[hole] = buckets[i];
+                    hole = i;
+                }
+            }
+            buckets[hole] = null;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            StoredFlowEntry[][] oldBuckets = buckets;
+            keys = new long[oldKeys.length * 2];
+            buckets = new StoredFlowEntry[oldKeys.length * 2][];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldBuckets[i] != null) {
+                    int j = -indexOf(oldKeys[i]) - 1;
+                    keys[j] = oldKeys[i];
+                    buckets[j] = oldBuckets[i];
+                }
+            }
+        }
+    }
+}
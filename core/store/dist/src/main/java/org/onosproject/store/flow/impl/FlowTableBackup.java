@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.base.MoreObjects;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Backup of the flow table of a single device. A backup is either a
+ * complete snapshot of the table or the flows changed since the previous
+ * backup from the same origin; a delta only applies on top of the version
+ * it is based on.
+ */
+public final class FlowTableBackup {
+
+    private final NodeId origin;
+    private final long baseVersion;
+    private final long version;
+    private final boolean snapshot;
+    private final Map<FlowId, Set<StoredFlowEntry>> flows;
+
+    private FlowTableBackup(NodeId origin, long baseVersion, long version,
+                            boolean snapshot, Map<FlowId, Set<StoredFlowEntry>> flows) {
+        this.origin = checkNotNull(origin);
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.snapshot = snapshot;
+        this.flows = checkNotNull(flows);
+    }
+
+    /**
+     * Creates a backup holding the complete flow table.
+     *
+     * @param origin node sending the backup
+     * @param version version of this backup
+     * @param flows all flows of the device, by flow id
+     * @return flow table backup
+     */
+    public static FlowTableBackup snapshot(NodeId origin, long version,
+                                           Map<FlowId, Set<StoredFlowEntry>> flows) {
+        return new FlowTableBackup(origin, 0, version, true, flows);
+    }
+
+    /**
+     * Creates a backup holding the flows changed since a previous backup.
+     *
+     * @param origin node sending the backup
+     * @param baseVersion version of the backup the changes apply to
+     * @param version version of this backup
+     * @param flows current entries of changed flow ids; empty if removed
+     * @return flow table backup
+     */
+    public static FlowTableBackup delta(NodeId origin, long baseVersion, long version,
+                                        Map<FlowId, Set<StoredFlowEntry>> flows) {
+        return new FlowTableBackup(origin, baseVersion, version, false, flows);
+    }
+
+    /**
+     * Returns the node that sent this backup.
+     *
+     * @return origin node identifier
+     */
+    public NodeId origin() {
+        return origin;
+    }
+
+    /**
+     * Returns the version a delta applies to; meaningless for snapshots.
+     *
+     * @return base version
+     */
+    public long baseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Returns the version of the table once this backup is applied.
+     *
+     * @return version
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns whether this backup holds the complete table.
+     *
+     * @return true for a snapshot, false for a delta
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the backed up flows by flow id.
+     *
+     * @return flows
+     */
+    public Map<FlowId, Set<StoredFlowEntry>> flows() {
+        return flows;
+    }
+
+    /**
+     * Returns the number of flow entries carried by this backup.
+     *
+     * @return entry count
+     */
+    public int entryCount() {
+        return flows.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("origin", origin)
+                .add("baseVersion", baseVersion)
+                .add("version", version)
+                .add("snapshot", snapshot)
+                .add("flowIds", flows.size())
+                .toString();
+    }
+}
@@ -15,12 +15,14 @@
  */
 package org.onosproject.store.flow.impl;
 
+import com.codahale.metrics.Gauge;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.io.CountingOutputStream;
 import com.google.common.util.concurrent.Futures;
 
 import org.apache.felix.scr.annotations.Activate;
@@ -31,6 +33,9 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
@@ -45,7 +50,6 @@ import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowEntry.FlowEntryState;
-import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleBatchEntry;
 import org.onosproject.net.flow.FlowRuleBatchEntry.FlowRuleOperation;
@@ -79,6 +83,8 @@ import org.onosproject.store.service.WallClockTimestamp;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashSet;
@@ -91,6 +97,9 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -111,6 +120,8 @@ public class NewDistributedFlowRuleStore
 
     private final Logger log = getLogger(getClass());
 
+    private static final String METRICS_COMPONENT = "FlowRuleStore";
+
     private static final int MESSAGE_HANDLER_THREAD_POOL_SIZE = 8;
     private static final boolean DEFAULT_BACKUP_ENABLED = true;
     private static final int DEFAULT_BACKUP_PERIOD_MILLIS = 2000;
@@ -167,12 +178,16 @@ public class NewDistributedFlowRuleStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected StorageService storageService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     protected static final StoreSerializer SERIALIZER = new KryoSerializer() {
         @Override
         protected void setupKryoPool() {
             serializerPool = KryoNamespace.newBuilder()
                     .register(DistributedStoreSerializers.STORE_COMMON)
                     .nextId(DistributedStoreSerializers.STORE_CUSTOM_BEGIN)
+                    .register(FlowTableBackup.class)
                     .build();
         }
     };
@@ -226,6 +241,7 @@ public class NewDistributedFlowRuleStore
             backupTask.cancel(true);
         }
         configService.unregisterProperties(getClass(), false);
+        flowTable.unregisterBackupMetrics();
         unregisterMessageHandlers();
         deviceTableStats.removeListener(tableStatsListener);
         deviceTableStats.destroy();
@@ -318,7 +334,7 @@ public class NewDistributedFlowRuleStore
                 REMOVE_FLOW_ENTRY, SERIALIZER::decode, this::removeFlowRuleInternal, SERIALIZER::encode, executor);
         clusterCommunicator.addSubscriber(
                 REMOVE_FLOW_ENTRY, SERIALIZER::decode, this::removeFlowRuleInternal, SERIALIZER::encode, executor);
-        clusterCommunicator.addSubscriber(
+        clusterCommunicator.addDirectSubscriber(
                 FLOW_TABLE_BACKUP, SERIALIZER::decode, flowTable::onBackupReceipt, SERIALIZER::encode, executor);
     }
 
@@ -487,12 +503,10 @@ public class NewDistributedFlowRuleStore
 
                             return op;
                         case REMOVE:
-                            entry = flowTable.getFlowEntry(op.target());
-                            if (entry != null) {
-                                entry.setState(FlowEntryState.PENDING_REMOVE);
+                            return flowTable.update(op.target(), stored -> {
+                                stored.setState(FlowEntryState.PENDING_REMOVE);
                                 return op;
-                            }
-                            break;
+                            });
                         case MODIFY:
                             //TODO: figure this out at some point
                             break;
@@ -526,10 +540,27 @@ public class NewDistributedFlowRuleStore
         return null;
     }
 
+    @Override
+    public List<FlowRuleEvent> addOrUpdateFlowRules(DeviceId deviceId, Collection<FlowEntry> rules) {
+        NodeId master = mastershipService.getMasterFor(deviceId);
+        if (!Objects.equal(local, master)) {
+            log.warn("Tried to update {} FlowRules of {},"
+                             + " while the Node was not the master.", rules.size(), deviceId);
+            return Collections.emptyList();
+        }
+        List<FlowRuleEvent> events = Lists.newArrayList();
+        for (FlowEntry rule : rules) {
+            FlowRuleEvent event = addOrUpdateFlowRuleInternal(rule);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
     private FlowRuleEvent addOrUpdateFlowRuleInternal(FlowEntry rule) {
         // check if this new rule is an update to an existing entry
-        StoredFlowEntry stored = flowTable.getFlowEntry(rule);
-        if (stored != null) {
+        FlowRuleEvent event = flowTable.update(rule, stored -> {
             stored.setBytes(rule.bytes());
             stored.setLife(rule.life());
             stored.setPackets(rule.packets());
@@ -538,6 +569,9 @@ public class NewDistributedFlowRuleStore
                 return new FlowRuleEvent(Type.RULE_ADDED, rule);
             }
             return new FlowRuleEvent(Type.RULE_UPDATED, rule);
+        });
+        if (event != null) {
+            return event;
         }
 
         // TODO: Confirm if this behavior is correct. See SimpleFlowRuleStore
@@ -626,18 +660,39 @@ public class NewDistributedFlowRuleStore
 
     private class InternalFlowTable implements ReplicaInfoEventListener {
 
-        private final Map<DeviceId, Map<FlowId, Set<StoredFlowEntry>>>
-                flowEntries = Maps.newConcurrentMap();
+        private final Map<DeviceId, DeviceFlowTable> flowEntries = Maps.newConcurrentMap();
 
         private final Map<DeviceId, Long> lastBackupTimes = Maps.newConcurrentMap();
         private final Map<DeviceId, Long> lastUpdateTimes = Maps.newConcurrentMap();
         private final Map<DeviceId, NodeId> lastBackupNodes = Maps.newConcurrentMap();
 
+        // Versions of backups acknowledged by the backup node of each device
+        // this node masters; a device without one gets a full snapshot next.
+        private final AtomicLong backupVersion = new AtomicLong();
+        private final Map<DeviceId, Long> lastBackupVersions = Maps.newConcurrentMap();
+        // Time of the oldest change not yet acknowledged by the backup node
+        private final Map<DeviceId, Long> pendingBackupTimes = Maps.newConcurrentMap();
+        // Devices whose last backup awaits the reply of the backup node; the
+        // next backup of a device is only built once that reply is handled.
+        private final Set<DeviceId> inFlightBackups = Sets.newConcurrentHashSet();
+        private final Map<DeviceId, BackupStats> backupStats = Maps.newConcurrentMap();
+
+        // Origin and version of the last backup received for each device
+        private final Map<DeviceId, NodeId> receivedBackupOrigins = Maps.newConcurrentMap();
+        private final Map<DeviceId, Long> receivedBackupVersions = Maps.newConcurrentMap();
+
         @Override
         public void event(ReplicaInfoEvent event) {
             if (!backupEnabled) {
                 return;
             }
+            if (event.type() == ReplicaInfoEvent.Type.MASTER_CHANGED
+                    && !Objects.equal(local, mastershipService.getMasterFor(event.subject()))) {
+                // a later mastership starts over with a full snapshot
+                lastBackupVersions.remove(event.subject());
+                pendingBackupTimes.remove(event.subject());
+                return;
+            }
             if (event.type() == ReplicaInfoEvent.Type.BACKUPS_CHANGED) {
                 DeviceId deviceId = event.subject();
                 NodeId master = mastershipService.getMasterFor(deviceId);
@@ -679,85 +734,195 @@ public class NewDistributedFlowRuleStore
         }
 
         private void backupFlowEntries(NodeId nodeId, Set<DeviceId> deviceIds) {
-            if (deviceIds.isEmpty()) {
+            Set<DeviceId> readyIds = deviceIds.stream()
+                    .filter(inFlightBackups::add)
+                    .collect(Collectors.toSet());
+            if (readyIds.size() < deviceIds.size()) {
+                // retried on a later run, once the previous backup is settled
+                log.debug("Backup of devices {} is still in flight",
+                          Sets.difference(deviceIds, readyIds));
+            }
+            if (readyIds.isEmpty()) {
                 return;
             }
-            log.debug("Sending flowEntries for devices {} to {} as backup.", deviceIds, nodeId);
-            Map<DeviceId, Map<FlowId, Set<StoredFlowEntry>>> deviceFlowEntries =
-                    Maps.newConcurrentMap();
-            deviceIds.forEach(id -> deviceFlowEntries.put(id, ImmutableMap.copyOf(getFlowTable(id))));
-            clusterCommunicator.<Map<DeviceId, Map<FlowId, Set<StoredFlowEntry>>>, Set<DeviceId>>sendAndReceive(
-                                        deviceFlowEntries,
+            log.debug("Sending flowEntries for devices {} to {} as backup.", readyIds, nodeId);
+            Map<DeviceId, FlowTableBackup> backups = Maps.newHashMap();
+            Map<DeviceId, Long> pendingTimes = Maps.newHashMap();
+            readyIds.forEach(id -> {
+                backups.put(id, createBackup(id, nodeId));
+                Long pendingTime = pendingBackupTimes.remove(id);
+                if (pendingTime != null) {
+                    pendingTimes.put(id, pendingTime);
+                }
+            });
+            AtomicInteger encodedBytes = new AtomicInteger();
+            BiConsumer<Map<DeviceId, FlowTableBackup>, OutputStream> encoder = (message, stream) -> {
+                CountingOutputStream counting = new CountingOutputStream(stream);
+                SERIALIZER.encode(message, counting);
+                encodedBytes.set((int) counting.getCount());
+            };
+            clusterCommunicator.<Map<DeviceId, FlowTableBackup>, Set<DeviceId>>sendAndReceiveDirect(
+                                        backups,
                                         FLOW_TABLE_BACKUP,
-                                        SERIALIZER::encode,
+                                        encoder,
                                         SERIALIZER::decode,
                                         nodeId)
                                .whenComplete((backedupDevices, error) -> {
-                                   Set<DeviceId> devicesNotBackedup = error != null ?
-                                           deviceFlowEntries.keySet() :
-                                           Sets.difference(deviceFlowEntries.keySet(), backedupDevices);
-                                   if (devicesNotBackedup.size() > 0) {
-                                       log.warn("Failed to backup devices: {}. Reason: {}",
-                                               devicesNotBackedup, error.getMessage());
-                                   }
-                                   if (backedupDevices != null) {
-                                       backedupDevices.forEach(id -> {
-                                           lastBackupTimes.put(id, System.currentTimeMillis());
-                                           lastBackupNodes.put(id, nodeId);
-                                       });
+                                   try {
+                                       onBackupReply(nodeId, backups, pendingTimes, encodedBytes.get(),
+                                                     backedupDevices, error);
+                                   } finally {
+                                       inFlightBackups.removeAll(backups.keySet());
                                    }
                                });
         }
 
+        // Settles a backup with the reply of the backup node. A device left
+        // out of the reply, or a failed send, gets a full snapshot next, as
+        // the changes drained into the lost backup are gone.
+        private void onBackupReply(NodeId nodeId, Map<DeviceId, FlowTableBackup> backups,
+                                   Map<DeviceId, Long> pendingTimes, int encodedBytes,
+                                   Set<DeviceId> backedupDevices, Throwable error) {
+            Set<DeviceId> devicesNotBackedup = error != null ?
+                    backups.keySet() :
+                    Sets.difference(backups.keySet(), backedupDevices);
+            if (devicesNotBackedup.size() > 0) {
+                if (error != null) {
+                    log.warn("Failed to backup devices: {}. Reason: {}",
+                             devicesNotBackedup, error.getMessage());
+                } else {
+                    log.debug("Backup of devices {} was out of sequence on {}",
+                              devicesNotBackedup, nodeId);
+                }
+                devicesNotBackedup.forEach(id -> {
+                    lastBackupVersions.remove(id);
+                    lastBackupTimes.remove(id);
+                    Long pendingTime = pendingTimes.get(id);
+                    if (pendingTime != null) {
+                        pendingBackupTimes.merge(id, pendingTime, Math::min);
+                    }
+                });
+            }
+            if (backedupDevices != null) {
+                int bytesPerDevice = encodedBytes / backups.size();
+                backedupDevices.stream().filter(backups::containsKey).forEach(id -> {
+                    lastBackupTimes.put(id, System.currentTimeMillis());
+                    lastBackupNodes.put(id, nodeId);
+                    lastBackupVersions.put(id, backups.get(id).version());
+                    updateBackupStats(id, backups.get(id), bytesPerDevice);
+                });
+            }
+        }
+
+        private FlowTableBackup createBackup(DeviceId deviceId, NodeId nodeId) {
+            DeviceFlowTable table = getFlowTable(deviceId);
+            Long baseVersion = lastBackupVersions.get(deviceId);
+            long version = backupVersion.incrementAndGet();
+            if (baseVersion == null || !Objects.equal(lastBackupNodes.get(deviceId), nodeId)) {
+                return FlowTableBackup.snapshot(local, version, table.drainSnapshot());
+            }
+            return FlowTableBackup.delta(local, baseVersion, version, table.drainChanges());
+        }
+
+        private void updateBackupStats(DeviceId deviceId, FlowTableBackup backup, int bytes) {
+            BackupStats stats = backupStats.computeIfAbsent(deviceId, this::createBackupStats);
+            int entries = backup.entryCount();
+            if (backup.isSnapshot()) {
+                if (entries > 0) {
+                    stats.bytesPerEntry = (double) bytes / entries;
+                }
+            } else {
+                long snapshotBytes = (long) (stats.bytesPerEntry * getFlowTable(deviceId).size());
+                stats.bytesSaved.addAndGet(Math.max(0, snapshotBytes - bytes));
+            }
+        }
+
+        private BackupStats createBackupStats(DeviceId deviceId) {
+            BackupStats stats = new BackupStats();
+            if (metricsService != null) {
+                MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature f = c.registerFeature(deviceId.toString());
+                metricsService.removeMetric(c, f, "backupBytesSaved");
+                metricsService.registerMetric(c, f, "backupBytesSaved",
+                                              (Gauge<Long>) stats.bytesSaved::get);
+                metricsService.removeMetric(c, f, "backupLagMillis");
+                metricsService.registerMetric(c, f, "backupLagMillis",
+                                              (Gauge<Long>) () -> backupLag(deviceId));
+            }
+            return stats;
+        }
+
+        private void unregisterBackupMetrics() {
+            if (metricsService == null) {
+                return;
+            }
+            MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+            backupStats.keySet().forEach(deviceId -> {
+                MetricsFeature f = c.registerFeature(deviceId.toString());
+                metricsService.removeMetric(c, f, "backupBytesSaved");
+                metricsService.removeMetric(c, f, "backupLagMillis");
+            });
+        }
+
         /**
-         * Returns the flow table for specified device.
+         * Returns how long the oldest change to the flows of the given device
+         * has been waiting to be acknowledged by its backup node.
          *
          * @param deviceId identifier of the device
-         * @return Map representing Flow Table of given device.
+         * @return replication lag in milliseconds; 0 if up to date
          */
-        private Map<FlowId, Set<StoredFlowEntry>> getFlowTable(DeviceId deviceId) {
-            return flowEntries.computeIfAbsent(deviceId, id -> Maps.newConcurrentMap());
+        private long backupLag(DeviceId deviceId) {
+            Long pendingTime = pendingBackupTimes.get(deviceId);
+            return pendingTime == null ? 0 : System.currentTimeMillis() - pendingTime;
         }
 
-        private Set<StoredFlowEntry> getFlowEntriesInternal(DeviceId deviceId, FlowId flowId) {
-            return getFlowTable(deviceId).computeIfAbsent(flowId, id -> Sets.newCopyOnWriteArraySet());
+        /**
+         * Returns the flow table for specified device.
+         *
+         * @param deviceId identifier of the device
+         * @return Flow Table of given device.
+         */
+        private DeviceFlowTable getFlowTable(DeviceId deviceId) {
+            return flowEntries.computeIfAbsent(deviceId, id -> new DeviceFlowTable());
         }
 
-        private StoredFlowEntry getFlowEntryInternal(FlowRule rule) {
-            Set<StoredFlowEntry> flowEntries = getFlowEntriesInternal(rule.deviceId(), rule.id());
-            return flowEntries.stream()
-                              .filter(entry -> Objects.equal(entry, rule))
-                              .findAny()
-                              .orElse(null);
+        public StoredFlowEntry getFlowEntry(FlowRule rule) {
+            return getFlowTable(rule.deviceId()).get(rule);
         }
 
-        private Set<FlowEntry> getFlowEntriesInternal(DeviceId deviceId) {
+        public Set<FlowEntry> getFlowEntries(DeviceId deviceId) {
             Set<FlowEntry> result = Sets.newHashSet();
-            getFlowTable(deviceId).values().forEach(result::addAll);
+            getFlowTable(deviceId).forEach(result::add);
             return result;
         }
 
-        public StoredFlowEntry getFlowEntry(FlowRule rule) {
-            return getFlowEntryInternal(rule);
-        }
-
-        public Set<FlowEntry> getFlowEntries(DeviceId deviceId) {
-            return getFlowEntriesInternal(deviceId);
+        public void add(FlowEntry rule) {
+            getFlowTable(rule.deviceId()).add((StoredFlowEntry) rule);
+            updated(rule.deviceId());
         }
 
-        public void add(FlowEntry rule) {
-            getFlowEntriesInternal(rule.deviceId(), rule.id()).add((StoredFlowEntry) rule);
-            lastUpdateTimes.put(rule.deviceId(), System.currentTimeMillis());
+        public <R> R update(FlowRule rule, Function<? super StoredFlowEntry, R> update) {
+            R result = getFlowTable(rule.deviceId()).update(rule, update);
+            if (result != null) {
+                updated(rule.deviceId());
+            }
+            return result;
         }
 
         public boolean remove(DeviceId deviceId, FlowEntry rule) {
             try {
-                return getFlowEntriesInternal(deviceId, rule.id()).remove(rule);
+                return getFlowTable(deviceId).remove(rule);
             } finally {
-                lastUpdateTimes.put(deviceId, System.currentTimeMillis());
+                updated(deviceId);
             }
         }
 
+        private void updated(DeviceId deviceId) {
+            long now = System.currentTimeMillis();
+            lastUpdateTimes.put(deviceId, now);
+            pendingBackupTimes.putIfAbsent(deviceId, now);
+        }
+
         private NodeId getBackupNode(DeviceId deviceId) {
             List<NodeId> deviceStandbys = replicaInfoManager.getReplicaInfoFor(deviceId).backups();
             // pick the standby which is most likely to become next master
@@ -799,17 +964,16 @@ public class NewDistributedFlowRuleStore
             }
         }
 
-        private Set<DeviceId> onBackupReceipt(Map<DeviceId, Map<FlowId, Set<StoredFlowEntry>>> flowTables) {
-            log.debug("Received flowEntries for {} to backup", flowTables.keySet());
+        private Set<DeviceId> onBackupReceipt(Map<DeviceId, FlowTableBackup> backups) {
+            log.debug("Received flowEntries for {} to backup", backups.keySet());
             Set<DeviceId> backedupDevices = Sets.newHashSet();
             try {
-                flowTables.forEach((deviceId, deviceFlowTable) -> {
+                backups.forEach((deviceId, backup) -> {
                     // Only process those devices are that not managed by the local node.
                     if (!Objects.equal(local, mastershipService.getMasterFor(deviceId))) {
-                        Map<FlowId, Set<StoredFlowEntry>> backupFlowTable = getFlowTable(deviceId);
-                        backupFlowTable.clear();
-                        backupFlowTable.putAll(deviceFlowTable);
-                        backedupDevices.add(deviceId);
+                        if (applyBackup(deviceId, backup)) {
+                            backedupDevices.add(deviceId);
+                        }
                     }
                 });
             } catch (Exception e) {
@@ -817,6 +981,39 @@ public class NewDistributedFlowRuleStore
             }
             return backedupDevices;
         }
+
+        // Applies a backup unless it was overtaken by a later backup from the
+        // same origin or does not follow the last one applied; backups of a
+        // device may be handled by several threads at once.
+        private boolean applyBackup(DeviceId deviceId, FlowTableBackup backup) {
+            DeviceFlowTable table = getFlowTable(deviceId);
+            synchronized (table) {
+                boolean sameOrigin = Objects.equal(receivedBackupOrigins.get(deviceId), backup.origin());
+                Long receivedVersion = receivedBackupVersions.get(deviceId);
+                if (sameOrigin && receivedVersion != null && backup.version() <= receivedVersion) {
+                    log.debug("Backup {} of {} is older than version {}", backup, deviceId, receivedVersion);
+                    return false;
+                }
+                if (backup.isSnapshot()) {
+                    table.replaceAll(backup.flows());
+                } else if (sameOrigin && Objects.equal(receivedVersion, backup.baseVersion())) {
+                    table.applyChanges(backup.flows());
+                } else {
+                    // missed a backup; leaving the device out asks for a snapshot
+                    log.debug("Backup {} of {} does not follow version {}", backup, deviceId, receivedVersion);
+                    return false;
+                }
+                receivedBackupOrigins.put(deviceId, backup.origin());
+                receivedBackupVersions.put(deviceId, backup.version());
+                return true;
+            }
+        }
+    }
+
+    // Backup effectiveness figures of a device mastered by this node
+    private static final class BackupStats {
+        private final AtomicLong bytesSaved = new AtomicLong();
+        private volatile double bytesPerEntry;
     }
 
     @Override
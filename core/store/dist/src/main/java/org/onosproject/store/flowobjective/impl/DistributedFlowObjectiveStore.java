@@ -48,6 +48,9 @@ public class DistributedFlowObjectiveStore
 
     private final Logger log = getLogger(getClass());
 
+    // Next ids are reserved in ranges, so that most allocations stay local
+    private static final int NEXT_ID_RANGE_SIZE = 100;
+
     private ConsistentMap<Integer, byte[]> nextGroups;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -68,6 +71,7 @@ public class DistributedFlowObjectiveStore
 
         nextIds = storageService.atomicCounterBuilder()
                 .withName("next-objective-counter")
+                .withRangeReservation(NEXT_ID_RANGE_SIZE)
                 .build();
 
         log.info("Started");
@@ -47,7 +47,9 @@ import org.onosproject.store.service.StorageService;
 import org.slf4j.Logger;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -259,6 +261,21 @@ public class GossipIntentStore
         pendingMap.put(data.key(), new IntentData(data));
     }
 
+    @Override
+    public void batchAddPending(Collection<IntentData> intents) {
+        Map<Key, IntentData> pending = new HashMap<>();
+        NodeId origin = clusterService.getLocalNode().id();
+        for (IntentData data : intents) {
+            checkNotNull(data);
+            if (data.version() == null) {
+                data.setVersion(new WallClockTimestamp());
+            }
+            data.setOrigin(origin);
+            pending.put(data.key(), new IntentData(data));
+        }
+        pendingMap.putAll(pending);
+    }
+
     @Override
     public boolean isMaster(Key intentKey) {
         return partitionService.isMine(intentKey);
@@ -60,6 +60,8 @@ public class ConsistentResourceStore implements ResourceStore {
 
     private static final String CONSUMER_MAP = "onos-resource-consumers";
     private static final String CHILD_MAP = "onos-resource-children";
+    // Reads of resources are served from a near cache of this many entries per map
+    private static final int NEAR_CACHE_SIZE = 100000;
     private static final Serializer SERIALIZER = Serializer.using(
             Arrays.asList(KryoNamespaces.BASIC, KryoNamespaces.API));
 
@@ -74,10 +76,12 @@ public class ConsistentResourceStore implements ResourceStore {
         consumerMap = service.<ResourcePath, ResourceConsumer>consistentMapBuilder()
                 .withName(CONSUMER_MAP)
                 .withSerializer(SERIALIZER)
+                .withNearCache(NEAR_CACHE_SIZE)
                 .build();
         childMap = service.<ResourcePath, List<ResourcePath>>consistentMapBuilder()
                 .withName(CHILD_MAP)
                 .withSerializer(SERIALIZER)
+                .withNearCache(NEAR_CACHE_SIZE)
                 .build();
     }
 
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.HexString;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.Versioned;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the near cache of consistent maps.
+ */
+public class AsyncCachingConsistentMapTest {
+
+    private static final String NAME = "map";
+    private static final Serializer SERIALIZER = Serializer.using(KryoNamespaces.BASIC);
+
+    private Database database;
+    private AsyncCachingConsistentMap<String, String> map;
+
+    @Before
+    public void setUp() {
+        database = createMock(Database.class);
+        database.registerConsumer(anyObject());
+        expectLastCall();
+        replay(database);
+        map = new AsyncCachingConsistentMap<>(NAME, null, database, SERIALIZER,
+                                              false, false, false, 2);
+        verify(database);
+    }
+
+    private static Versioned<byte[]> raw(String value, long version) {
+        return new Versioned<>(SERIALIZER.encode(value), version);
+    }
+
+    private void expectGet(Versioned<byte[]> value) {
+        reset(database);
+        expect(database.mapGet(eq(NAME), anyString())).andReturn(completedFuture(value)).once();
+        replay(database);
+    }
+
+    private void expectNoAccess() {
+        reset(database);
+        replay(database);
+    }
+
+    private void event(MapEvent.Type type, String value, long version) {
+        map.notifyListeners(new MapEvent<>(NAME, type, "k", new Versioned<>(value, version)));
+    }
+
+    @Test
+    public void readThrough() {
+        expectGet(raw("a", 1));
+        assertEquals("a", map.get("k").join().value());
+        verify(database);
+
+        expectNoAccess();
+        assertEquals("a", map.get("k").join().value());
+        assertEquals(1, map.getAtLeast("k", 1).join().version());
+        verify(database);
+    }
+
+    @Test
+    public void eventUpdates() {
+        expectGet(raw("a", 1));
+        map.get("k").join();
+
+        expectNoAccess();
+        event(MapEvent.Type.UPDATE, "b", 3);
+        assertEquals("b", map.get("k").join().value());
+
+        // Events and reads older than the cached entry are ignored.
+        event(MapEvent.Type.UPDATE, "old", 2);
+        assertEquals("b", map.get("k").join().value());
+
+        event(MapEvent.Type.REMOVE, "b", 3);
+        assertNull(map.get("k").join());
+        verify(database);
+    }
+
+    @Test
+    public void versionedRead() {
+        expectGet(raw("a", 1));
+        map.get("k").join();
+
+        expectGet(raw("c", 5));
+        assertEquals("c", map.getAtLeast("k", 4).join().value());
+        verify(database);
+
+        expectNoAccess();
+        assertEquals(5, map.get("k").join().version());
+        verify(database);
+    }
+
+    @Test
+    public void linearizableRead() {
+        expectGet(raw("a", 1));
+        map.get("k").join();
+
+        expectGet(raw("b", 2));
+        assertEquals("b", map.getLinearizable("k").join().value());
+        verify(database);
+    }
+
+    @Test
+    public void localUpdate() {
+        expectGet(raw("a", 1));
+        map.get("k").join();
+
+        reset(database);
+        UpdateResult<String, byte[]> result =
+                new UpdateResult<>(true, NAME, HexString.toHexString(SERIALIZER.encode("k")),
+                                  raw("a", 1), raw("b", 2));
+        expect(database.mapUpdate(eq(NAME), anyString(), anyObject(), anyObject(), anyObject()))
+                .andReturn(completedFuture(Result.ok(result)));
+        replay(database);
+        map.put("k", "b").join();
+        verify(database);
+
+        expectNoAccess();
+        assertEquals("b", map.get("k").join().value());
+        verify(database);
+    }
+
+    @Test
+    public void absentEntries() {
+        expectGet(null);
+        assertNull(map.get("k").join());
+
+        expectNoAccess();
+        assertNull(map.get("k").join());
+        event(MapEvent.Type.INSERT, "a", 1);
+        assertEquals("a", map.get("k").join().value());
+        verify(database);
+    }
+}
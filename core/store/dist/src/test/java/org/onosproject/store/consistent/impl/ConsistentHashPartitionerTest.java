@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the consistent hash partitioner.
+ */
+public class ConsistentHashPartitionerTest {
+
+    private static final int KEYS = 10000;
+
+    private static Database partition(String name) {
+        Database database = createMock(Database.class);
+        expect(database.name()).andReturn(name).anyTimes();
+        replay(database);
+        return database;
+    }
+
+    private static List<Database> partitions(int count) {
+        List<Database> partitions = Lists.newArrayList();
+        for (int i = 1; i <= count; i++) {
+            partitions.add(partition("p" + i));
+        }
+        return partitions;
+    }
+
+    @Test
+    public void balanced() {
+        List<Database> partitions = partitions(8);
+        ConsistentHashPartitioner partitioner = new ConsistentHashPartitioner(partitions);
+        Map<Database, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(partitioner.getPartition("map", "key" + i), 1, Integer::sum);
+        }
+        assertEquals(8, counts.size());
+        counts.values().forEach(count -> assertTrue("unbalanced: " + counts.values(),
+                                                    count > KEYS / 8 / 2 && count < KEYS / 8 * 2));
+    }
+
+    @Test
+    public void addedPartitionMovesFewKeys() {
+        List<Database> partitions = partitions(4);
+        ConsistentHashPartitioner before = new ConsistentHashPartitioner(partitions);
+        Database added = partition("p5");
+        partitions.add(added);
+        ConsistentHashPartitioner after = new ConsistentHashPartitioner(partitions);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            Database from = before.getPartition("map", "key" + i);
+            Database to = after.getPartition("map", "key" + i);
+            if (from != to) {
+                // Keys only ever move to the new partition
+                assertSame(added, to);
+                moved++;
+            }
+        }
+        assertTrue("moved " + moved, moved > 0 && moved < KEYS * 2 / 5);
+    }
+
+    @Test
+    public void independentOfOrder() {
+        List<Database> partitions = partitions(3);
+        ConsistentHashPartitioner partitioner = new ConsistentHashPartitioner(partitions);
+        ConsistentHashPartitioner reversed = new ConsistentHashPartitioner(Lists.reverse(partitions));
+        for (int i = 0; i < 100; i++) {
+            assertSame(partitioner.getPartition("map", "key" + i), reversed.getPartition("map", "key" + i));
+        }
+    }
+}
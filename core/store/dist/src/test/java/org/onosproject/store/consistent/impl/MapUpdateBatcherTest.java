@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.store.service.Versioned;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the batching of map updates to a database partition.
+ */
+public class MapUpdateBatcherTest {
+
+    private static final String NAME = "map";
+    private static final byte[] VALUE = new byte[] {1};
+
+    private Database partition;
+    private MapUpdateBatcher batcher;
+
+    @Before
+    public void setUp() {
+        partition = createMock(Database.class);
+        batcher = new MapUpdateBatcher(partition, 2, 1);
+    }
+
+    private static MapUpdate<String, byte[]> update(String key) {
+        return new MapUpdate<>(NAME, key, Match.any(), Match.any(), VALUE);
+    }
+
+    private static Result<UpdateResult<String, byte[]>> result(String key) {
+        return Result.ok(new UpdateResult<>(true, NAME, key, null, new Versioned<>(VALUE, 1)));
+    }
+
+    private CompletableFuture<Result<UpdateResult<String, byte[]>>> expectUpdate(String key) {
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> future = new CompletableFuture<>();
+        reset(partition);
+        expect(partition.mapUpdate(eq(NAME), eq(key), anyObject(), anyObject(), anyObject()))
+                .andReturn(future).once();
+        replay(partition);
+        return future;
+    }
+
+    @Test
+    public void batchesWhileInFlight() {
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> first = expectUpdate("a");
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> a = batcher.submit(update("a"));
+        verify(partition);
+
+        // Updates queue up behind the outstanding command.
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> b = batcher.submit(update("b"));
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> c = batcher.submit(update("c"));
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> d = batcher.submit(update("d"));
+        assertEquals(3, batcher.queued());
+
+        CompletableFuture<List<Result<UpdateResult<String, byte[]>>>> second = new CompletableFuture<>();
+        Capture<List<MapUpdate<String, byte[]>>> batch = new Capture<>();
+        reset(partition);
+        expect(partition.mapBatchUpdate(capture(batch))).andReturn(second).once();
+        replay(partition);
+        Result<UpdateResult<String, byte[]>> resultA = result("a");
+        first.complete(resultA);
+        assertSame(resultA, a.join());
+        verify(partition);
+        assertEquals(2, batch.getValue().size());
+        assertEquals("b", batch.getValue().get(0).key());
+        assertEquals("c", batch.getValue().get(1).key());
+        assertFalse(b.isDone());
+
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> third = expectUpdate("d");
+        second.complete(ImmutableList.of(result("b"), result("c")));
+        assertEquals("b", b.join().value().key());
+        assertEquals("c", c.join().value().key());
+        verify(partition);
+
+        third.complete(result("d"));
+        assertEquals("d", d.join().value().key());
+        assertEquals(0, batcher.queued());
+    }
+
+    @Test
+    public void failedBatch() {
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> first = expectUpdate("a");
+        batcher.submit(update("a"));
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> b = batcher.submit(update("b"));
+        CompletableFuture<Result<UpdateResult<String, byte[]>>> c = batcher.submit(update("c"));
+
+        CompletableFuture<List<Result<UpdateResult<String, byte[]>>>> second = new CompletableFuture<>();
+        reset(partition);
+        expect(partition.mapBatchUpdate(anyObject())).andReturn(second).once();
+        replay(partition);
+        first.complete(result("a"));
+        second.completeExceptionally(new IllegalStateException("Database closed"));
+
+        assertTrue(b.isCompletedExceptionally());
+        assertTrue(c.isCompletedExceptionally());
+        verify(partition);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import org.junit.Test;
+import org.onosproject.store.service.AsyncAtomicCounter;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the range reserving atomic counter.
+ */
+public class RangeReservingAsyncAtomicCounterTest {
+
+    private static final int RANGE_SIZE = 100;
+
+    /**
+     * Shared counter that counts its round trips and can be made to fail.
+     */
+    private static class TestCounter implements AsyncAtomicCounter {
+        private final AtomicLong value = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean failing;
+
+        private <T> CompletableFuture<T> call(T result) {
+            calls.incrementAndGet();
+            CompletableFuture<T> future = new CompletableFuture<>();
+            if (failing) {
+                future.completeExceptionally(new IllegalStateException("unavailable"));
+            } else {
+                future.complete(result);
+            }
+            return future;
+        }
+
+        @Override
+        public CompletableFuture<Long> incrementAndGet() {
+            return addAndGet(1);
+        }
+
+        @Override
+        public CompletableFuture<Long> getAndIncrement() {
+            return getAndAdd(1);
+        }
+
+        @Override
+        public CompletableFuture<Long> getAndAdd(long delta) {
+            return failing ? call(null) : call(value.getAndAdd(delta));
+        }
+
+        @Override
+        public CompletableFuture<Long> addAndGet(long delta) {
+            return failing ? call(null) : call(value.addAndGet(delta));
+        }
+
+        @Override
+        public CompletableFuture<Long> get() {
+            return call(value.get());
+        }
+
+        @Override
+        public CompletableFuture<Void> set(long newValue) {
+            value.set(newValue);
+            return call(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> compareAndSet(long expectedValue, long updateValue) {
+            return call(value.compareAndSet(expectedValue, updateValue));
+        }
+    }
+
+    private final TestCounter shared = new TestCounter();
+    private final RangeReservingAsyncAtomicCounter counter =
+            new RangeReservingAsyncAtomicCounter("test", shared, RANGE_SIZE, false);
+
+    @Test
+    public void sequentialIncrements() {
+        for (long i = 1; i <= 1000; i++) {
+            assertEquals(i, (long) counter.incrementAndGet().join());
+        }
+        // One reservation per range, plus the one made ahead of time
+        assertEquals(1000 / RANGE_SIZE + 1, shared.calls.get());
+        assertEquals(1100, (long) counter.get().join());
+    }
+
+    @Test
+    public void concurrentIncrements() throws InterruptedException {
+        int threads = 8;
+        int increments = 10000;
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < increments; i++) {
+                    assertTrue(values.add(counter.incrementAndGet().join()));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(threads * increments, values.size());
+        assertTrue(shared.calls.get() <= threads * increments / RANGE_SIZE + threads + 1);
+    }
+
+    @Test
+    public void largeDeltas() {
+        // Uses up the first range, which reserves the second one
+        assertEquals(0, (long) counter.getAndAdd(RANGE_SIZE).join());
+        // Larger deltas go to the shared counter, past the reserved ranges
+        assertEquals(2 * RANGE_SIZE + 1000, (long) counter.addAndGet(1000).join());
+        assertEquals(RANGE_SIZE + 1, (long) counter.incrementAndGet().join());
+    }
+
+    @Test
+    public void failedReservation() {
+        shared.failing = true;
+        assertTrue(counter.incrementAndGet().isCompletedExceptionally());
+        shared.failing = false;
+        assertEquals(1, (long) counter.incrementAndGet().join());
+    }
+
+    @Test
+    public void setAbandonsRanges() {
+        assertEquals(1, (long) counter.incrementAndGet().join());
+        counter.set(5000).join();
+        assertEquals(5001, (long) counter.incrementAndGet().join());
+    }
+}
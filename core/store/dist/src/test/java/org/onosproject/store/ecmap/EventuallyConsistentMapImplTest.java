@@ -15,6 +15,10 @@
  */
 package org.onosproject.store.ecmap;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -27,14 +31,18 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.junit.NullScheduledExecutor;
 import org.onlab.packet.IpAddress;
 import org.onlab.util.KryoNamespace;
 import org.onosproject.cluster.ClusterService;
@@ -50,13 +58,19 @@ import org.onosproject.store.impl.LogicalTimestamp;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.serializers.KryoSerializer;
 import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.EventuallyConsistentMapBuilder;
 import org.onosproject.store.service.EventuallyConsistentMapEvent;
 import org.onosproject.store.service.EventuallyConsistentMapListener;
 import org.onosproject.store.service.WallClockTimestamp;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -73,6 +87,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.onlab.junit.TestTools.assertAfter;
 
 /**
  * Unit tests for EventuallyConsistentMapImpl.
@@ -90,6 +105,8 @@ public class EventuallyConsistentMapImplTest {
             = new MessageSubject("ecm-" + MAP_NAME + "-update");
     private static final MessageSubject ANTI_ENTROPY_MESSAGE_SUBJECT
             = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy");
+    private static final MessageSubject BUCKET_ADVERTISEMENT_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy-buckets");
 
     private static final String KEY1 = "one";
     private static final String KEY2 = "two";
@@ -101,6 +118,7 @@ public class EventuallyConsistentMapImplTest {
 
     private Consumer<Collection<UpdateEntry<String, String>>> updateHandler;
     private Consumer<AntiEntropyAdvertisement<String>> antiEntropyHandler;
+    private Consumer<AntiEntropyBucketAdvertisement> bucketAdvertisementHandler;
 
     /*
      * Serialization is a bit tricky here. We need to serialize in the tests
@@ -142,7 +160,10 @@ public class EventuallyConsistentMapImplTest {
         // handlers so we can induce events coming in from a peer.
         clusterCommunicator.<String>addSubscriber(anyObject(MessageSubject.class),
                 anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(2);
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        clusterCommunicator.<String>addDirectSubscriber(anyObject(MessageSubject.class),
+                anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
 
         replay(clusterCommunicator);
 
@@ -669,6 +690,147 @@ public class EventuallyConsistentMapImplTest {
         }
     }
 
+    @Test
+    public void testBucketedAntiEntropy() throws Exception {
+        ClusterCommunicationService communicator = createMock(ClusterCommunicationService.class);
+        communicator.<String>addSubscriber(anyObject(MessageSubject.class),
+                anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(2);
+        communicator.<String>addDirectSubscriber(anyObject(MessageSubject.class),
+                anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        replay(communicator);
+
+        EventuallyConsistentMap<String, String> bucketedMap =
+                new EventuallyConsistentMapBuilderImpl<String, String>(
+                        clusterService, communicator)
+                        .withName(MAP_NAME)
+                        .withSerializer(KryoNamespace.newBuilder()
+                                                .register(KryoNamespaces.API)
+                                                .register(TestTimestamp.class))
+                        .withTimestampProvider((k, v) -> clockService.getTimestamp(k, v))
+                        .withCommunicationExecutor(MoreExecutors.newDirectExecutorService())
+                        .withBucketedAntiEntropy()
+                        .build();
+        verify(communicator);
+        assertTrue("bucket advertisement handler not registered",
+                   bucketAdvertisementHandler != null);
+
+        reset(communicator);
+        communicator.removeSubscriber(UPDATE_MESSAGE_SUBJECT);
+        communicator.removeSubscriber(ANTI_ENTROPY_MESSAGE_SUBJECT);
+        communicator.removeSubscriber(BUCKET_ADVERTISEMENT_SUBJECT);
+        replay(communicator);
+
+        bucketedMap.put(KEY1, VALUE1);
+        assertEquals(VALUE1, bucketedMap.get(KEY1));
+        bucketedMap.remove(KEY1);
+        assertNull(bucketedMap.get(KEY1));
+
+        bucketedMap.destroy();
+        verify(communicator);
+    }
+
+    @Test
+    public void testBucketedAntiEntropySync() throws Exception {
+        Replica replicaA = new Replica("a");
+        Replica replicaB = new Replica("b");
+        replicaA.communicator.peer = replicaB.communicator;
+        replicaB.communicator.peer = replicaA.communicator;
+
+        // both replicas hold the same entries, then each misses an update
+        List<UpdateEntry<String, String>> common = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            common.add(new UpdateEntry<>("key" + i, new MapValue<>(VALUE1, new LogicalTimestamp(i))));
+        }
+        replicaA.communicator.updateHandler.accept(common);
+        replicaB.communicator.updateHandler.accept(common);
+        replicaA.communicator.updateHandler.accept(ImmutableList.of(
+                new UpdateEntry<>(KEY1, new MapValue<>(VALUE1, new LogicalTimestamp(100)))));
+        replicaB.communicator.updateHandler.accept(ImmutableList.of(
+                new UpdateEntry<>(KEY2, new MapValue<>(VALUE2, new LogicalTimestamp(101)))));
+
+        // anti-entropy is skipped while a replica is under load from the
+        // writes above, so rounds are repeated until the entries are synced
+        Set<Integer> stale = ImmutableSet.of(bucket(KEY1), bucket(KEY2));
+        Set<String> staleKeys = ImmutableSet.copyOf(
+                Sets.filter(replicaB.map.keySet(), key -> stale.contains(bucket(key))));
+        assertAfter(10000, () -> {
+            replicaA.antiEntropy.run();
+            assertEquals(VALUE1, replicaB.map.get(KEY1));
+        });
+        // b answers the bucket hashes of a with a digest of the differing buckets only
+        AntiEntropyAdvertisement<String> ad = replicaA.communicator.advertisements.get(0);
+        assertEquals("only differing buckets should be advertised", stale, ad.buckets());
+        assertEquals("digest should cover the differing buckets only",
+                     staleKeys, ad.digest().keySet());
+
+        // the bucket of KEY1 now agrees, so the next round covers KEY2 alone
+        assertAfter(10000, () -> {
+            replicaB.antiEntropy.run();
+            assertEquals(VALUE2, replicaA.map.get(KEY2));
+        });
+        ad = replicaB.communicator.advertisements.get(0);
+        assertEquals("synced bucket should not be advertised", ImmutableSet.of(bucket(KEY2)), ad.buckets());
+
+        assertEquals("only the missed entry should be sent to b",
+                     ImmutableSet.of(KEY1), ImmutableSet.copyOf(replicaB.communicator.updatedKeys));
+        assertEquals("only the missed entry should be sent to a",
+                     ImmutableSet.of(KEY2), ImmutableSet.copyOf(replicaA.communicator.updatedKeys));
+
+        replicaA.map.destroy();
+        replicaB.map.destroy();
+    }
+
+    @Test
+    public void testCompressedUpdates() throws Exception {
+        Replica replicaA = new Replica("a", true);
+        Replica replicaB = new Replica("b", true);
+        replicaA.communicator.peer = replicaB.communicator;
+        replicaB.communicator.peer = replicaA.communicator;
+
+        String large = Strings.repeat(VALUE1, 4096);
+        replicaA.map.put(KEY1, large);
+        replicaA.map.put(KEY2, VALUE2);
+        assertAfter(10000, () -> {
+            assertEquals(large, replicaB.map.get(KEY1));
+            assertEquals(VALUE2, replicaB.map.get(KEY2));
+        });
+
+        // a batch claiming to inflate beyond the limit is rejected up front
+        ByteBuffer oversized = ByteBuffer.allocate(5).put((byte) 1).putInt(Integer.MAX_VALUE);
+        oversized.flip();
+        assertMalformed(replicaB, oversized);
+
+        // and so is one whose compressed content is longer than announced
+        byte[] content = large.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        DeflaterOutputStream deflating = new DeflaterOutputStream(compressed);
+        deflating.write(content);
+        deflating.finish();
+        ByteBuffer truncated = ByteBuffer.allocate(5 + compressed.size())
+                .put((byte) 1).putInt(content.length - 1).put(compressed.toByteArray());
+        truncated.flip();
+        assertMalformed(replicaB, truncated);
+
+        replicaA.map.destroy();
+        replicaB.map.destroy();
+    }
+
+    private static void assertMalformed(Replica replica, ByteBuffer batch) {
+        try {
+            replica.communicator.updateSubscriber.accept(batch);
+            fail("malformed update batch should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    // Returns the anti-entropy bucket of a key, as the map computes it.
+    private static int bucket(String key) {
+        return Math.floorMod(Hashing.murmur3_32().hashBytes(SERIALIZER.encode(key)).asInt(), 1024);
+    }
+
     private UpdateEntry<String, String> generatePutMessage(String key, String value, Timestamp timestamp) {
         return new UpdateEntry<>(key, new MapValue<>(value, timestamp));
     }
@@ -757,6 +919,13 @@ public class EventuallyConsistentMapImplTest {
                     anyObject(NodeId.class)))
                 .andReturn(CompletableFuture.completedFuture(null))
                 .anyTimes();
+        expect(clusterCommunicator.<T>unicastDirect(
+                    anyObject(),
+                    anyObject(MessageSubject.class),
+                    anyObject(BiConsumer.class),
+                    anyObject(NodeId.class)))
+                .andReturn(CompletableFuture.completedFuture(null))
+                .anyTimes();
         replay(clusterCommunicator);
     }
 
@@ -788,19 +957,135 @@ public class EventuallyConsistentMapImplTest {
             extends ClusterCommunicationServiceAdapter {
 
         @Override
-        public <M> void addSubscriber(MessageSubject subject,
-                Function<byte[], M> decoder, Consumer<M> handler,
+        public <M> void addDirectSubscriber(MessageSubject subject,
+                Function<ByteBuffer, M> decoder, Consumer<M> handler,
                 Executor executor) {
             if (subject.equals(UPDATE_MESSAGE_SUBJECT)) {
                 updateHandler = (Consumer<Collection<UpdateEntry<String, String>>>) handler;
-            } else if (subject.equals(ANTI_ENTROPY_MESSAGE_SUBJECT)) {
+            } else {
+                throw new RuntimeException("Unexpected message subject " + subject.toString());
+            }
+        }
+
+        @Override
+        public <M> void addSubscriber(MessageSubject subject,
+                Function<byte[], M> decoder, Consumer<M> handler,
+                Executor executor) {
+            if (subject.equals(ANTI_ENTROPY_MESSAGE_SUBJECT)) {
                 antiEntropyHandler = (Consumer<AntiEntropyAdvertisement<String>>) handler;
+            } else if (subject.equals(BUCKET_ADVERTISEMENT_SUBJECT)) {
+                bucketAdvertisementHandler = (Consumer<AntiEntropyBucketAdvertisement>) handler;
             } else {
                 throw new RuntimeException("Unexpected message subject " + subject.toString());
             }
         }
     }
 
+    /**
+     * Bucketed map replica exchanging messages with a single peer replica
+     * through a {@link ReplicaCommunicationService}, whose anti-entropy task
+     * is run on demand.
+     */
+    private final class Replica {
+        private final ReplicaCommunicationService communicator = new ReplicaCommunicationService();
+        private final EventuallyConsistentMap<String, String> map;
+        private Runnable antiEntropy;
+
+        private Replica(String id) {
+            this(id, false);
+        }
+
+        private Replica(String id, boolean compressed) {
+            ControllerNode local = new DefaultControllerNode(new NodeId(id), IpAddress.valueOf(1));
+            ControllerNode peer = new DefaultControllerNode(new NodeId(id + "-peer"), IpAddress.valueOf(2));
+            ClusterService cluster = createMock(ClusterService.class);
+            expect(cluster.getLocalNode()).andReturn(local).anyTimes();
+            expect(cluster.getNodes()).andReturn(ImmutableSet.of(local, peer)).anyTimes();
+            expect(cluster.getState(anyObject(NodeId.class))).andReturn(ControllerNode.State.ACTIVE).anyTimes();
+            replay(cluster);
+
+            EventuallyConsistentMapBuilder<String, String> builder =
+                    new EventuallyConsistentMapBuilderImpl<String, String>(cluster, communicator)
+                    .withName(MAP_NAME)
+                    .withSerializer(KryoNamespace.newBuilder()
+                                            .register(KryoNamespaces.API)
+                                            .register(TestTimestamp.class))
+                    .withTimestampProvider((k, v) -> clockService.getTimestamp(k, v))
+                    .withEventExecutor(MoreExecutors.newDirectExecutorService())
+                    .withCommunicationExecutor(MoreExecutors.newDirectExecutorService())
+                    .withBackgroundExecutor(new NullScheduledExecutor() {
+                        @Override
+                        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay,
+                                                                      long period, TimeUnit unit) {
+                            antiEntropy = command;
+                            return null;
+                        }
+                    })
+                    .withBucketedAntiEntropy();
+            if (compressed) {
+                builder.withCompression();
+            }
+            map = builder.build();
+        }
+    }
+
+    /**
+     * ClusterCommunicationService implementation that hands messages to the
+     * peer replica encoded, as they would go over the wire, and records the
+     * anti-entropy advertisements and the updated keys it receives.
+     */
+    private static final class ReplicaCommunicationService
+            extends ClusterCommunicationServiceAdapter {
+        private ReplicaCommunicationService peer;
+        private final Map<MessageSubject, Consumer<byte[]>> subscribers = Maps.newConcurrentMap();
+        private Consumer<ByteBuffer> updateSubscriber;
+        private Consumer<Collection<UpdateEntry<String, String>>> updateHandler;
+        private final List<AntiEntropyAdvertisement<String>> advertisements = Lists.newCopyOnWriteArrayList();
+        private final List<String> updatedKeys = Lists.newCopyOnWriteArrayList();
+
+        @Override
+        public <M> void addSubscriber(MessageSubject subject,
+                Function<byte[], M> decoder, Consumer<M> handler,
+                Executor executor) {
+            subscribers.put(subject, bytes -> {
+                M message = decoder.apply(bytes);
+                if (message instanceof AntiEntropyAdvertisement) {
+                    advertisements.add((AntiEntropyAdvertisement<String>) message);
+                }
+                handler.accept(message);
+            });
+        }
+
+        @Override
+        public <M> void addDirectSubscriber(MessageSubject subject,
+                Function<ByteBuffer, M> decoder, Consumer<M> handler,
+                Executor executor) {
+            updateHandler = (Consumer<Collection<UpdateEntry<String, String>>>) handler;
+            updateSubscriber = buffer -> {
+                Collection<UpdateEntry<String, String>> updates =
+                        (Collection<UpdateEntry<String, String>>) decoder.apply(buffer);
+                updates.forEach(update -> updatedKeys.add(update.key()));
+                updateHandler.accept(updates);
+            };
+        }
+
+        @Override
+        public <M> CompletableFuture<Void> unicast(M message, MessageSubject subject,
+                Function<M, byte[]> encoder, NodeId toNodeId) {
+            peer.subscribers.get(subject).accept(encoder.apply(message));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public <M> CompletableFuture<Void> unicastDirect(M message, MessageSubject subject,
+                BiConsumer<M, OutputStream> encoder, NodeId toNodeId) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            encoder.accept(message, stream);
+            peer.updateSubscriber.accept(ByteBuffer.wrap(stream.toByteArray()));
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     /**
      * ClockService implementation that gives out timestamps based on a
      * sequential counter. This clock service enables more control over the
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.store.impl.LogicalTimestamp;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.serializers.KryoSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for the log based persistent store.
+ */
+public class LogPersistentStoreTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private final KryoSerializer serializer = new KryoSerializer() {
+        @Override
+        protected void setupKryoPool() {
+            serializerPool = KryoNamespace.newBuilder()
+                    .register(KryoNamespaces.BASIC)
+                    .nextId(KryoNamespaces.BEGIN_USER_CUSTOM_ID)
+                    .register(LogicalTimestamp.class)
+                    .register(MapValue.class)
+                    .build();
+        }
+    };
+
+    private File directory;
+    private ExecutorService executor;
+    private LogPersistentStore<String, String> store;
+
+    @Before
+    public void setUp() {
+        directory = Files.createTempDir();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (store != null) {
+            close();
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private Map<String, MapValue<String>> open() {
+        executor = Executors.newSingleThreadExecutor();
+        store = new LogPersistentStore<>(directory, executor, serializer, SEGMENT_SIZE);
+        Map<String, MapValue<String>> items = new HashMap<>();
+        store.readInto(items);
+        return items;
+    }
+
+    private void close() throws InterruptedException {
+        store.close();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        store = null;
+    }
+
+    private static MapValue<String> value(String value, long timestamp) {
+        return new MapValue<>(value, new LogicalTimestamp(timestamp));
+    }
+
+    @Test
+    public void testRecovery() throws InterruptedException {
+        assertTrue(open().isEmpty());
+        store.update("a", value("1", 1));
+        store.update("b", value("2", 2));
+        store.update("c", value("3", 3));
+        store.update("a", value("4", 4));
+        store.remove("b");
+        close();
+
+        Map<String, MapValue<String>> items = open();
+        assertEquals(2, items.size());
+        assertEquals("4", items.get("a").get());
+        assertNull(items.get("b"));
+        assertEquals("3", items.get("c").get());
+    }
+
+    @Test
+    public void testStaleUpdate() throws InterruptedException {
+        open();
+        store.update("a", value("new", 10));
+        store.update("a", value("old", 5));
+        close();
+
+        assertEquals("new", open().get("a").get());
+        store.update("a", value("older", 1));
+        close();
+
+        assertEquals("new", open().get("a").get());
+    }
+
+    @Test
+    public void testCompaction() throws InterruptedException {
+        open();
+        long timestamp = 0;
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 100; i++) {
+                store.update("key" + i, value("value" + round, ++timestamp));
+            }
+        }
+        close();
+
+        // Every round but the last is dead and should have been compacted.
+        int segments = directory.list((dir, name) -> name.endsWith(".log")).length;
+        assertTrue(segments < 10);
+
+        Map<String, MapValue<String>> items = open();
+        assertEquals(100, items.size());
+        items.values().forEach(v -> assertEquals("value19", v.get()));
+    }
+
+    @Test
+    public void testCompactionAfterRecovery() throws InterruptedException {
+        open();
+        for (int i = 0; i < 500; i++) {
+            store.update("key" + i, value("value" + i, i + 1));
+        }
+        close();
+        int segments = directory.list((dir, name) -> name.endsWith(".log")).length;
+
+        // Segments recovered from the snapshot must count in the live share,
+        // or the oldest ones, now dead, would never be compacted.
+        open();
+        for (int i = 0; i < 300; i++) {
+            store.remove("key" + i);
+        }
+        close();
+        assertTrue(directory.list((dir, name) -> name.endsWith(".log")).length < segments);
+
+        Map<String, MapValue<String>> items = open();
+        assertEquals(200, items.size());
+        assertEquals("value442", items.get("key442").get());
+    }
+
+    @Test
+    public void testRecoveryWithoutSnapshot() throws InterruptedException {
+        open();
+        for (int i = 0; i < 500; i++) {
+            store.update("key" + i, value("value" + i, i + 1));
+        }
+        close();
+
+        new File(directory, "snapshot").delete();
+        Map<String, MapValue<String>> items = open();
+        assertEquals(500, items.size());
+        assertEquals("value42", items.get("key42").get());
+    }
+
+    @Test
+    public void testTornWrite() throws InterruptedException, IOException {
+        open();
+        store.update("a", value("1", 1));
+        store.update("b", value("2", 2));
+        close();
+
+        // Corrupt the body of the last record, as left by an interrupted write.
+        File segment = directory.listFiles((dir, name) -> name.endsWith(".log"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            int offset = 0;
+            int length = 0;
+            for (int i = 0; i < 2; i++) {
+                offset += length;
+                file.seek(offset);
+                length = 8 + file.readInt();
+            }
+            file.seek(offset + 12);
+            file.writeByte(0xff);
+        }
+
+        Map<String, MapValue<String>> items = open();
+        assertEquals(1, items.size());
+        assertEquals("1", items.get("a").get());
+
+        store.update("c", value("3", 3));
+        close();
+        items = open();
+        assertEquals(2, items.size());
+        assertEquals("3", items.get("c").get());
+    }
+
+    @Test
+    public void testSegmentsUnmapped() throws InterruptedException, IOException {
+        File maps = new File("/proc/self/maps");
+        assumeTrue(maps.exists());
+        open();
+        long timestamp = 0;
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 100; i++) {
+                store.update("key" + i, value("value" + round, ++timestamp));
+            }
+        }
+        close();
+
+        // Neither compacted segments nor those left at close stay mapped.
+        String path = directory.getCanonicalPath();
+        assertFalse(Files.readLines(maps, StandardCharsets.UTF_8).stream()
+                            .anyMatch(line -> line.contains(path)));
+    }
+
+    @Test
+    public void testReadWhileWriting() throws Exception {
+        open();
+        for (int i = 0; i < 1000; i++) {
+            store.update("key" + i, value("value" + i, i + 1));
+        }
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        Future<?> writes = writer.submit(() -> {
+            for (int i = 1000; i < 5000; i++) {
+                store.update("key" + i, value("value" + i, i + 1));
+            }
+        });
+        try {
+            for (int round = 0; round < 20; round++) {
+                Map<String, MapValue<String>> items = new HashMap<>();
+                store.readInto(items);
+                assertTrue(items.size() >= 1000);
+                items.forEach((key, value) -> assertEquals(key.replace("key", "value"), value.get()));
+            }
+            writes.get(5, TimeUnit.SECONDS);
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+}
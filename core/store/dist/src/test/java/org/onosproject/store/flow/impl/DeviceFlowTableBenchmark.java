@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+
+/**
+ * Auxiliary test fixture to measure the statistics update throughput of
+ * the per-device flow tables.
+ * <p>
+ * Arguments: device count, flows per device, worker threads, passes.
+ */
+public final class DeviceFlowTableBenchmark {
+
+    private DeviceFlowTableBenchmark() {
+    }
+
+    /**
+     * Main entry point to launch the benchmark.
+     *
+     * @param args command-line arguments
+     * @throws Exception if a worker fails
+     */
+    public static void main(String[] args) throws Exception {
+        int devices = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int flows = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int passes = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        DeviceFlowTable[] tables = new DeviceFlowTable[devices];
+        List<List<FlowRule>> replies = new ArrayList<>(devices);
+        for (int d = 0; d < devices; d++) {
+            DeviceId deviceId = DeviceId.deviceId("of:" + Integer.toHexString(d + 1));
+            tables[d] = new DeviceFlowTable();
+            List<FlowRule> reply = new ArrayList<>(flows);
+            for (int f = 0; f < flows; f++) {
+                FlowRule rule = DeviceFlowTableTest.rule(deviceId, ((long) d << 32) | f, f, 10);
+                tables[d].add(new DefaultFlowEntry(rule));
+                reply.add(rule);
+            }
+            replies.add(reply);
+        }
+        out.println(String.format("Loaded %d flows across %d devices", devices * flows, devices));
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        for (int pass = 0; pass < passes; pass++) {
+            List<Future<?>> futures = new ArrayList<>(devices);
+            long start = nanoTime();
+            for (int d = 0; d < devices; d++) {
+                DeviceFlowTable table = tables[d];
+                List<FlowRule> reply = replies.get(d);
+                long packets = pass;
+                // each device reply is applied by one worker, as a stats collector would
+                futures.add(executor.submit(() -> reply.forEach(rule -> {
+                    StoredFlowEntry stored = table.get(rule);
+                    stored.setPackets(packets);
+                    stored.setBytes(packets * 64);
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = nanoTime() - start;
+            out.println(String.format("Pass %d: %,.0f updates/s",
+                                      pass, devices * (double) flows / elapsed * 1_000_000_000));
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the striped per-device flow table.
+ */
+public class DeviceFlowTableTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+
+    static FlowRule rule(DeviceId deviceId, long cookie, int port, int priority) {
+        return DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .withCookie(cookie)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(PortNumber.portNumber(port)).build())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(priority)
+                .makePermanent()
+                .build();
+    }
+
+    private static StoredFlowEntry entry(long cookie, int port) {
+        return new DefaultFlowEntry(rule(DID, cookie, port, 10));
+    }
+
+    @Test
+    public void addGetRemove() {
+        DeviceFlowTable table = new DeviceFlowTable();
+        int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            assertTrue("entry should be added", table.add(entry(i, i)));
+        }
+        assertFalse("equal entry should not be added", table.add(entry(5, 5)));
+        assertEquals("incorrect size", count, table.size());
+
+        StoredFlowEntry stored = table.get(rule(DID, 42, 42, 10));
+        assertEquals("incorrect entry", FlowId.valueOf(42), stored.id());
+
+        // remove every other entry to exercise probe sequence repair
+        for (int i = 0; i < count; i += 2) {
+            assertTrue("entry should be removed", table.remove(entry(i, i)));
+        }
+        assertEquals("incorrect size", count / 2, table.size());
+        for (int i = 0; i < count; i++) {
+            StoredFlowEntry found = table.get(rule(DID, i, i, 10));
+            if (i % 2 == 0) {
+                assertNull("entry should be gone", found);
+            } else {
+                assertEquals("entry should remain", FlowId.valueOf(i), found.id());
+            }
+        }
+        assertFalse("absent entry should not be removed", table.remove(entry(0, 0)));
+    }
+
+    @Test
+    public void sharedFlowId() {
+        DeviceFlowTable table = new DeviceFlowTable();
+        StoredFlowEntry first = entry(7, 1);
+        StoredFlowEntry second = entry(7, 2);
+        table.add(first);
+        table.add(second);
+        assertEquals("incorrect size", 2, table.size());
+        assertSame("incorrect entry", second, table.get(rule(DID, 7, 2, 10)));
+        assertNull("different priority should not match", table.get(rule(DID, 7, 2, 11)));
+
+        table.remove(first);
+        assertNull("entry should be gone", table.get(rule(DID, 7, 1, 10)));
+        assertSame("entry should remain", second, table.get(rule(DID, 7, 2, 10)));
+    }
+
+    @Test
+    public void snapshotAndReplace() {
+        DeviceFlowTable table = new DeviceFlowTable();
+        table.add(entry(1, 1));
+        table.add(entry(1, 2));
+        table.add(entry(2, 3));
+
+        Map<FlowId, Set<StoredFlowEntry>> snapshot = table.snapshot();
+        assertEquals("incorrect flow id count", 2, snapshot.size());
+        assertEquals("incorrect entry count", 2, snapshot.get(FlowId.valueOf(1)).size());
+
+        DeviceFlowTable backup = new DeviceFlowTable();
+        backup.add(entry(9, 9));
+        backup.replaceAll(snapshot);
+        assertEquals("incorrect size", 3, backup.size());
+        assertNull("stale entry should be gone", backup.get(rule(DID, 9, 9, 10)));
+
+        AtomicInteger visited = new AtomicInteger();
+        backup.forEach(e -> visited.incrementAndGet());
+        assertEquals("incorrect traversal", 3, visited.get());
+    }
+
+    @Test
+    public void changesSinceDrain() {
+        DeviceFlowTable table = new DeviceFlowTable();
+        table.add(entry(1, 1));
+        table.add(entry(2, 2));
+        assertEquals("snapshot should cover all flows", 2, table.drainSnapshot().size());
+        assertTrue("snapshot should drain changes", table.drainChanges().isEmpty());
+
+        table.add(entry(3, 3));
+        table.remove(entry(1, 1));
+        Map<FlowId, Set<StoredFlowEntry>> changes = table.drainChanges();
+        assertEquals("incorrect change count", 2, changes.size());
+        assertEquals("added flow should be carried", 1, changes.get(FlowId.valueOf(3)).size());
+        assertTrue("removed flow should be empty", changes.get(FlowId.valueOf(1)).isEmpty());
+        assertTrue("changes should be drained", table.drainChanges().isEmpty());
+
+        DeviceFlowTable backup = new DeviceFlowTable();
+        backup.add(entry(1, 1));
+        backup.add(entry(2, 2));
+        backup.applyChanges(changes);
+        assertEquals("incorrect size", 2, backup.size());
+        assertNull("removed entry should be gone", backup.get(rule(DID, 1, 1, 10)));
+        assertEquals("added entry should exist", FlowId.valueOf(3), backup.get(rule(DID, 3, 3, 10)).id());
+    }
+
+    @Test
+    public void updatesReachBackups() {
+        DeviceFlowTable table = new DeviceFlowTable();
+        table.add(entry(1, 1));
+        DeviceFlowTable backup = new DeviceFlowTable();
+        backup.replaceAll(table.drainSnapshot());
+        // the backup holds its own copies, as it would after deserialization
+        backup.applyChanges(ImmutableMap.of(FlowId.valueOf(1), ImmutableSet.of(entry(1, 1))));
+
+        FlowRule rule = rule(DID, 1, 1, 10);
+        assertEquals("update should return its result", FlowEntryState.ADDED,
+                     table.update(rule, stored -> {
+                         stored.setState(FlowEntryState.ADDED);
+                         return stored.state();
+                     }));
+        assertNull("absent entry should not be updated",
+                   table.update(rule(DID, 2, 2, 10), stored -> stored));
+        Map<FlowId, Set<StoredFlowEntry>> changes = table.drainChanges();
+        assertEquals("update should be recorded", 1, changes.size());
+
+        assertEquals("backup should be pending", FlowEntryState.PENDING_ADD, backup.get(rule).state());
+        backup.applyChanges(changes);
+        assertEquals("backup should see the update", FlowEntryState.ADDED, backup.get(rule).state());
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestUtils.callMethod;
+import static org.onlab.junit.TestUtils.getField;
+import static org.onlab.junit.TestUtils.setField;
+import static org.onosproject.store.flow.impl.DeviceFlowTableTest.rule;
+
+/**
+ * Unit tests for the flow table backups of the flow rule store.
+ */
+public class NewDistributedFlowRuleStoreTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+    private static final NodeId MASTER = new NodeId("master");
+    private static final NodeId BACKUP = new NodeId("backup");
+
+    private final BackupCommunicator communicator = new BackupCommunicator();
+    private NewDistributedFlowRuleStore master;
+    private NewDistributedFlowRuleStore backup;
+
+    @Before
+    public void setUp() throws Exception {
+        master = store(MASTER);
+        backup = store(BACKUP);
+    }
+
+    private NewDistributedFlowRuleStore store(NodeId local) throws Exception {
+        NewDistributedFlowRuleStore store = new NewDistributedFlowRuleStore();
+        setField(store, "local", local);
+        store.clusterCommunicator = communicator;
+        store.mastershipService = new MastershipServiceAdapter() {
+            @Override
+            public NodeId getMasterFor(DeviceId deviceId) {
+                return MASTER;
+            }
+        };
+        return store;
+    }
+
+    @Test
+    public void oneBackupInFlightPerDevice() throws Exception {
+        add(1);
+        sendBackup();
+        assertEquals("backup should be sent", 1, communicator.sent.size());
+        FlowTableBackup first = communicator.backup(0);
+        assertTrue("first backup should be a snapshot", first.isSnapshot());
+
+        add(2);
+        sendBackup();
+        assertEquals("no backup should be built before the reply", 1, communicator.sent.size());
+
+        communicator.replies.get(0).complete(ImmutableSet.of(DID));
+        sendBackup();
+        assertEquals("backup should be sent after the reply", 2, communicator.sent.size());
+        FlowTableBackup second = communicator.backup(1);
+        assertFalse("acknowledged backup should be followed by a delta", second.isSnapshot());
+        assertEquals("delta should follow the acknowledged version", first.version(), second.baseVersion());
+    }
+
+    @Test
+    public void reorderedAckAndNack() throws Exception {
+        add(1);
+        sendBackup();
+        FlowTableBackup snapshot = communicator.backup(0);
+        communicator.replies.get(0).complete(receive(snapshot));
+
+        add(2);
+        sendBackup();
+        FlowTableBackup delta = communicator.backup(1);
+        add(3);
+        sendBackup();
+        assertEquals("no delta should be built on an unacknowledged base", 2, communicator.sent.size());
+
+        // the delta overtakes a late copy of the snapshot on the backup node
+        Set<DeviceId> ack = receive(delta);
+        Set<DeviceId> nack = receive(snapshot);
+        assertEquals("delta should be acknowledged", ImmutableSet.of(DID), ack);
+        assertTrue("stale snapshot should be refused", nack.isEmpty());
+        assertEquals("stale snapshot should not be applied", 2, flowCount(backup));
+
+        communicator.replies.get(1).complete(ack);
+        sendBackup();
+        FlowTableBackup next = communicator.backup(2);
+        assertEquals("next delta should follow the acknowledged delta", delta.version(), next.baseVersion());
+        assertEquals("next delta should be acknowledged", ImmutableSet.of(DID), receive(next));
+        assertEquals("backup node should hold all flows", 3, flowCount(backup));
+    }
+
+    @Test
+    public void nackFallsBackToSnapshot() throws Exception {
+        add(1);
+        sendBackup();
+        communicator.replies.get(0).complete(receive(communicator.backup(0)));
+
+        // the delta is lost on its way, so a later delta is out of sequence
+        add(2);
+        sendBackup();
+        communicator.replies.get(1).complete(ImmutableSet.of(DID));
+        add(3);
+        sendBackup();
+        FlowTableBackup delta = communicator.backup(2);
+        Set<DeviceId> nack = receive(delta);
+        assertTrue("out of sequence delta should be refused", nack.isEmpty());
+        communicator.replies.get(2).complete(nack);
+
+        sendBackup();
+        FlowTableBackup snapshot = communicator.backup(3);
+        assertTrue("refused delta should be followed by a snapshot", snapshot.isSnapshot());
+        assertEquals("snapshot should be acknowledged", ImmutableSet.of(DID), receive(snapshot));
+        assertEquals("backup node should hold all flows", 3, flowCount(backup));
+    }
+
+    private void add(long cookie) throws Exception {
+        FlowEntry entry = new DefaultFlowEntry(rule(DID, cookie, (int) cookie, 10));
+        callMethod(getField(master, "flowTable"), "add", FlowEntry.class, entry);
+    }
+
+    private void sendBackup() throws Exception {
+        callMethod(getField(master, "flowTable"), "backupFlowEntries",
+                   new Class<?>[]{NodeId.class, Set.class}, BACKUP, ImmutableSet.of(DID));
+    }
+
+    private Set<DeviceId> receive(FlowTableBackup backupMessage) throws Exception {
+        return callMethod(getField(backup, "flowTable"), "onBackupReceipt",
+                          Map.class, ImmutableMap.of(DID, backupMessage));
+    }
+
+    private int flowCount(NewDistributedFlowRuleStore store) throws Exception {
+        Set<FlowEntry> entries = callMethod(getField(store, "flowTable"), "getFlowEntries",
+                                            DeviceId.class, DID);
+        return entries.size();
+    }
+
+    /**
+     * Cluster communicator that records the backups sent and leaves their
+     * replies to the test.
+     */
+    private static final class BackupCommunicator extends ClusterCommunicationServiceAdapter {
+        private final List<Map<DeviceId, FlowTableBackup>> sent = Lists.newArrayList();
+        private final List<CompletableFuture<Set<DeviceId>>> replies = Lists.newArrayList();
+
+        private FlowTableBackup backup(int index) {
+            return sent.get(index).get(DID);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <M, R> CompletableFuture<R> sendAndReceiveDirect(M message, MessageSubject subject,
+                                                                BiConsumer<M, OutputStream> encoder,
+                                                                Function<byte[], R> decoder, NodeId toNodeId) {
+            sent.add((Map<DeviceId, FlowTableBackup>) message);
+            CompletableFuture<Set<DeviceId>> reply = new CompletableFuture<>();
+            replies.add(reply);
+            return (CompletableFuture<R>) reply;
+        }
+    }
+}
@@ -311,8 +311,10 @@ public final class KryoNamespaces {
                     DefaultPacketRequest.class,
                     PacketPriority.class,
                     FlowEntry.FlowEntryState.class,
-                    FlowId.class,
-                    DefaultTrafficSelector.class,
+                    FlowId.class
+            )
+            .register(new DefaultTrafficSelectorSerializer(), DefaultTrafficSelector.class)
+            .register(
                     PortCriterion.class,
                     MetadataCriterion.class,
                     EthCriterion.class,
@@ -345,8 +347,10 @@ public final class KryoNamespaces {
                     OduSignalIdCriterion.class,
                     OduSignalTypeCriterion.class,
                     Criterion.class,
-                    Criterion.Type.class,
-                    DefaultTrafficTreatment.class,
+                    Criterion.Type.class
+            )
+            .register(new DefaultTrafficTreatmentSerializer(), DefaultTrafficTreatment.class)
+            .register(
                     Instructions.DropInstruction.class,
                     Instructions.NoActionInstruction.class,
                     Instructions.OutputInstruction.class,
@@ -483,6 +487,7 @@ public final class KryoNamespaces {
                     org.onlab.packet.MplsLabel.class,
                     org.onlab.packet.MPLS.class
             )
+            .register(Instructions.MetadataInstruction.class)
 
             .build();
 
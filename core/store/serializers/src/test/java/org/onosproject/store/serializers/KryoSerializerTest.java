@@ -59,6 +59,8 @@ import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleBatchEntry;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.intent.IntentId;
 import org.onosproject.net.newresource.ResourcePath;
 import org.onosproject.net.provider.ProviderId;
@@ -185,6 +187,36 @@ public class KryoSerializerTest {
         testSerializedEquals(new DefaultLink(PID, CP1, CP2, Link.Type.DIRECT, A1));
     }
 
+    @Test
+    public void testDefaultTrafficSelector() {
+        TrafficSelector selector = DefaultTrafficSelector.builder()
+                .matchInPort(P1)
+                .matchEthDst(MacAddress.BROADCAST)
+                .build();
+        testSerializedEquals(selector);
+        assertSame(selector, serializer.decode(serializer.encode(selector)));
+    }
+
+    @Test
+    public void testDefaultTrafficTreatment() {
+        TrafficTreatment treatment = DefaultTrafficTreatment.builder()
+                .setOutput(P1)
+                .deferred()
+                .setVlanId(VLAN1)
+                .writeMetadata(1L, 0xffL)
+                .build();
+        testSerializedEquals(treatment);
+        assertSame(treatment, serializer.decode(serializer.encode(treatment)));
+        testSerializedEquals(DefaultTrafficTreatment.emptyTreatment());
+
+        TrafficTreatment clearing = DefaultTrafficTreatment.builder(treatment)
+                .wipeDeferred()
+                .build();
+        TrafficTreatment copy = serializer.decode(serializer.encode(clearing));
+        assertTrue(copy.clearedDeferred());
+        assertEquals(clearing.deferred(), copy.deferred());
+    }
+
     @Test
     public void testDefaultPort() {
         testSerializedEquals(new DefaultPort(DEV1, P1, true));
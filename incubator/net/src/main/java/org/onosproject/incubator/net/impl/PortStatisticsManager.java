@@ -16,6 +16,8 @@
 package org.onosproject.incubator.net.impl;
 
 import com.google.common.collect.Maps;
+import org.onlab.util.RollupTimeSeries;
+import org.onlab.util.RollupTimeSeries.Resolution;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -31,6 +33,7 @@ import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.device.PortStatistics;
 import org.onosproject.net.statistic.DefaultLoad;
 import org.onosproject.net.statistic.Load;
+import org.onosproject.net.statistic.PortStatisticHistoryService;
 import org.slf4j.Logger;
 
 import java.util.Map;
@@ -45,7 +48,7 @@ import static org.slf4j.LoggerFactory.getLogger;
  */
 @Component(immediate = true)
 @Service
-public class PortStatisticsManager implements PortStatisticsService {
+public class PortStatisticsManager implements PortStatisticsService, PortStatisticHistoryService {
 
     private final Logger log = getLogger(getClass());
 
@@ -60,6 +63,7 @@ public class PortStatisticsManager implements PortStatisticsService {
 
     private Map<ConnectPoint, DataPoint> current = Maps.newConcurrentMap();
     private Map<ConnectPoint, DataPoint> previous = Maps.newConcurrentMap();
+    private Map<ConnectPoint, RollupTimeSeries> history = Maps.newConcurrentMap();
 
     @Activate
     public void activate() {
@@ -98,6 +102,14 @@ public class PortStatisticsManager implements PortStatisticsService {
         return null;
     }
 
+    @Override
+    public long[] history(ConnectPoint connectPoint, MetricType metricType,
+                          Resolution resolution, long fromMillis, long toMillis) {
+        RollupTimeSeries series = history.get(connectPoint);
+        return series == null ? new long[0]
+                : series.values(metricType.ordinal(), resolution, fromMillis, toMillis);
+    }
+
     // Monitors port stats update messages.
     private class InternalDeviceListener implements DeviceListener {
         @Override
@@ -134,16 +146,35 @@ public class PortStatisticsManager implements PortStatisticsService {
         // If we have a current data point, demote it to previous
         if (c != null) {
             previous.put(cp, c);
+            recordHistory(cp, c, stats);
+        }
+    }
+
+    // Records the counter increases since the previous data point; skipped
+    // when the counters were reset
+    private void recordHistory(ConnectPoint cp, DataPoint p, PortStatistics stats) {
+        long[] deltas = new long[MetricType.values().length];
+        deltas[MetricType.BYTES_SENT.ordinal()] = stats.bytesSent() - p.stats.bytesSent();
+        deltas[MetricType.BYTES_RECEIVED.ordinal()] = stats.bytesReceived() - p.stats.bytesReceived();
+        deltas[MetricType.PACKETS_SENT.ordinal()] = stats.packetsSent() - p.stats.packetsSent();
+        deltas[MetricType.PACKETS_RECEIVED.ordinal()] = stats.packetsReceived() - p.stats.packetsReceived();
+        for (long delta : deltas) {
+            if (delta < 0) {
+                return;
+            }
         }
+        history.computeIfAbsent(cp, k -> new RollupTimeSeries(deltas.length))
+                .record(p.time, System.currentTimeMillis(), deltas);
     }
 
     // Cleans all port loads for the specified device
     private void pruneDeviceData(DeviceId deviceId) {
         pruneMap(current, deviceId);
         pruneMap(previous, deviceId);
+        pruneMap(history, deviceId);
     }
 
-    private void pruneMap(Map<ConnectPoint, DataPoint> map, DeviceId deviceId) {
+    private void pruneMap(Map<ConnectPoint, ?> map, DeviceId deviceId) {
         map.keySet().stream().filter(cp -> deviceId.equals(cp.deviceId()))
                 .collect(Collectors.toSet()).forEach(map::remove);
     }
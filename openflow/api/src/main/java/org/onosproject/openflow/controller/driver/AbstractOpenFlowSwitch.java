@@ -16,7 +16,6 @@
 
 package org.onosproject.openflow.controller.driver;
 
-import org.jboss.netty.channel.Channel;
 import org.onlab.packet.IpAddress;
 import org.onosproject.net.Device;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
@@ -57,7 +56,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
 
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
-    private Channel channel;
+    private OpenFlowChannel channel;
     protected String channelId;
 
     private boolean connected;
@@ -145,7 +144,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     }
 
     @Override
-    public final void setChannel(Channel channel) {
+    public final void setChannel(OpenFlowChannel channel) {
         this.channel = channel;
         final SocketAddress address = channel.getRemoteAddress();
         if (address instanceof InetSocketAddress) {
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.driver;
+
+import org.projectfloodlight.openflow.protocol.OFMessage;
+
+import java.net.SocketAddress;
+import java.util.List;
+
+/**
+ * Connection to a switch, independent of the underlying network transport.
+ */
+public interface OpenFlowChannel {
+
+    /**
+     * Returns the address of the switch end of the connection.
+     *
+     * @return remote socket address
+     */
+    SocketAddress getRemoteAddress();
+
+    /**
+     * Returns whether the connection is established.
+     *
+     * @return true if connected
+     */
+    boolean isConnected();
+
+    /**
+     * Writes the given messages to the switch. The messages are sent in
+     * order, though the transport may coalesce them with other pending
+     * writes before flushing.
+     *
+     * @param msgs messages to send
+     */
+    void write(List<OFMessage> msgs);
+
+    /**
+     * Disconnects from the switch.
+     */
+    void disconnect();
+
+    /**
+     * Closes the connection to the switch.
+     */
+    void close();
+}
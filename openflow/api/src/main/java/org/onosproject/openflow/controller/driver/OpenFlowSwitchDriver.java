@@ -15,7 +15,6 @@
  */
 package org.onosproject.openflow.controller.driver;
 
-import org.jboss.netty.channel.Channel;
 import org.onosproject.net.driver.HandlerBehaviour;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowSwitch;
@@ -159,10 +158,10 @@ public interface OpenFlowSwitchDriver extends OpenFlowSwitch, HandlerBehaviour {
     void setTableFull(boolean full);
 
     /**
-     * Sets the associated Netty channel for this switch.
-     * @param channel the Netty channel
+     * Sets the associated channel for this switch.
+     * @param channel the switch channel
      */
-    void setChannel(Channel channel);
+    void setChannel(OpenFlowChannel channel);
 
     /**
      * Sets whether the switch is connected.
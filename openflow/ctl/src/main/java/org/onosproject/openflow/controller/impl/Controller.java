@@ -18,6 +18,15 @@ package org.onosproject.openflow.controller.impl;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.group.ChannelGroup;
@@ -48,6 +57,7 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
 import java.net.InetSocketAddress;
 import java.security.KeyStore;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.List;
@@ -75,6 +85,9 @@ public class Controller {
     private static final boolean TLS_DISABLED = false;
     private static final short MIN_KS_LENGTH = 6;
 
+    static final String NETTY3_TRANSPORT = "netty3";
+    static final String NETTY4_TRANSPORT = "netty4";
+
     protected HashMap<String, String> controllerNodeIPsCache;
 
     private ChannelGroup cg;
@@ -82,6 +95,8 @@ public class Controller {
     // Configuration options
     protected List<Integer> openFlowPorts = ImmutableList.of(6633, 6653);
     protected int workerThreads = 16;
+    protected boolean useNetty4 = false;
+    protected int bossThreads = 1;
 
     // Start time of the controller
     protected long systemStartTime;
@@ -90,6 +105,12 @@ public class Controller {
 
     private NioServerSocketChannelFactory execFactory;
 
+    // Netty 4 transport
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Class<? extends ServerChannel> serverChannelClass;
+    private List<io.netty.channel.Channel> serverChannels;
+
     protected String ksLocation;
     protected String tsLocation;
     protected char[] ksPwd;
@@ -98,6 +119,8 @@ public class Controller {
 
     // Perf. related configuration
     protected static final int SEND_BUFFER_SIZE = 4 * 1024 * 1024;
+    protected static final int WRITE_BUFFER_HIGH_WATER_MARK = 1024 * 1024;
+    protected static final int WRITE_BUFFER_LOW_WATER_MARK = 512 * 1024;
     private DriverService driverService;
     private boolean enableOFTLS = TLS_DISABLED;
 
@@ -139,6 +162,10 @@ public class Controller {
      * Tell controller that we're ready to accept switches loop.
      */
     public void run() {
+        if (useNetty4) {
+            runNetty4();
+            return;
+        }
 
         try {
             final ServerBootstrap bootstrap = createServerBootStrap();
@@ -164,6 +191,58 @@ public class Controller {
 
     }
 
+    /**
+     * Accepts switch connections using the Netty 4 transport, with native
+     * epoll where available and pooled buffers.
+     */
+    private void runNetty4() {
+        initEventLoopGroups();
+        io.netty.bootstrap.ServerBootstrap bootstrap = new io.netty.bootstrap.ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(serverChannelClass)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_SNDBUF, SEND_BUFFER_SIZE)
+                .childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, WRITE_BUFFER_HIGH_WATER_MARK)
+                .childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, WRITE_BUFFER_LOW_WATER_MARK)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childHandler(new OFChannelInitializer(this, serverSSLEngine));
+        serverChannels = new ArrayList<>();
+        try {
+            for (int port : openFlowPorts) {
+                InetSocketAddress sa = new InetSocketAddress(port);
+                serverChannels.add(bootstrap.bind(sa).sync().channel());
+                log.info("Listening for switch connections on {}", sa);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void initEventLoopGroups() {
+        // try Epoll first and if that does work, use nio; the native
+        // transport is only available on Linux
+        try {
+            Epoll.ensureAvailability();
+            bossGroup = new EpollEventLoopGroup(bossThreads, groupedThreads("onos/of", "boss-%d"));
+            workerGroup = new EpollEventLoopGroup(workerThreads, groupedThreads("onos/of", "worker-%d"));
+            serverChannelClass = EpollServerSocketChannel.class;
+            log.info("Using native epoll transport for OpenFlow");
+            return;
+        } catch (Throwable e) {
+            log.debug("Failed to initialize native (epoll) transport; using java NIO", e);
+            if (bossGroup != null) {
+                bossGroup.shutdownGracefully();
+            }
+        }
+        bossGroup = new NioEventLoopGroup(bossThreads, groupedThreads("onos/of", "boss-%d"));
+        workerGroup = new NioEventLoopGroup(workerThreads, groupedThreads("onos/of", "worker-%d"));
+        serverChannelClass = NioServerSocketChannel.class;
+    }
+
     private ServerBootstrap createServerBootStrap() {
 
         if (workerThreads == 0) {
@@ -193,6 +272,18 @@ public class Controller {
             this.workerThreads = Integer.parseInt(threads);
         }
         log.debug("Number of worker threads set to {}", this.workerThreads);
+
+        String transport = get(properties, "transport");
+        if (!Strings.isNullOrEmpty(transport)) {
+            this.useNetty4 = NETTY4_TRANSPORT.equalsIgnoreCase(transport.trim());
+        }
+        log.debug("OpenFlow transport set to {}", useNetty4 ? NETTY4_TRANSPORT : NETTY3_TRANSPORT);
+
+        String boss = get(properties, "bossThreads");
+        if (!Strings.isNullOrEmpty(boss)) {
+            this.bossThreads = Integer.parseInt(boss);
+        }
+        log.debug("Number of boss threads set to {}", this.bossThreads);
     }
 
     /**
@@ -334,6 +425,13 @@ public class Controller {
 
     public void stop() {
         log.info("Stopping OpenFlow IO");
+        if (serverChannels != null) {
+            serverChannels.forEach(io.netty.channel.Channel::close);
+            serverChannels = null;
+            bossGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+            return;
+        }
         cg.close();
         execFactory.shutdown();
     }
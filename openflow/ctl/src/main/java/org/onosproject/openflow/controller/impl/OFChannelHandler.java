@@ -18,6 +18,7 @@
 package org.onosproject.openflow.controller.impl;
 
 import java.io.IOException;
+import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -33,6 +34,7 @@ import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.handler.timeout.IdleStateAwareChannelHandler;
 import org.jboss.netty.handler.timeout.IdleStateEvent;
 import org.jboss.netty.handler.timeout.ReadTimeoutException;
+import org.onosproject.openflow.controller.driver.OpenFlowChannel;
 import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
 import org.onosproject.openflow.controller.driver.SwitchStateException;
 import org.projectfloodlight.openflow.exceptions.OFParseError;
@@ -87,7 +89,7 @@ class OFChannelHandler extends IdleStateAwareChannelHandler {
     private final Controller controller;
     private OpenFlowSwitchDriver sw;
     private long thisdpid; // channelHandler cached value of connected switch id
-    private Channel channel;
+    private OpenFlowChannel channel;
     // State needs to be volatile because the HandshakeTimeoutHandler
     // needs to check if the handshake is complete
     private volatile ChannelState state;
@@ -1043,7 +1045,65 @@ class OFChannelHandler extends IdleStateAwareChannelHandler {
     @Override
     public void channelConnected(ChannelHandlerContext ctx,
             ChannelStateEvent e) throws Exception {
-        channel = e.getChannel();
+        connected(new Netty3Channel(e.getChannel()));
+    }
+
+    @Override
+    public void channelDisconnected(ChannelHandlerContext ctx,
+            ChannelStateEvent e) throws Exception {
+        disconnected();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e)
+            throws Exception {
+        handleException(new Netty3Channel(ctx.getChannel()), e.getCause());
+    }
+
+    @Override
+    public String toString() {
+        return getSwitchInfoString();
+    }
+
+    @Override
+    public void channelIdle(ChannelHandlerContext ctx, IdleStateEvent e)
+            throws Exception {
+        idle();
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e)
+            throws Exception {
+        if (e.getMessage() instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<OFMessage> msglist = (List<OFMessage>) e.getMessage();
+
+
+            for (OFMessage ofm : msglist) {
+                handleMessage(ofm);
+            }
+        } else {
+            handleMessage((OFMessage) e.getMessage());
+        }
+    }
+
+
+
+    //*************************
+    //  Transport event handling
+    //*************************
+
+    // The methods below carry the transport independent part of the channel
+    // events, so that the state machine can also be driven by transports
+    // other than the Netty 3 pipeline this handler is part of.
+
+    /**
+     * Handles a newly established switch connection.
+     *
+     * @param ch connection to the switch
+     */
+    void connected(OpenFlowChannel ch) {
+        channel = ch;
         log.info("New switch connection from {}",
                 channel.getRemoteAddress());
         /*
@@ -1055,9 +1115,10 @@ class OFChannelHandler extends IdleStateAwareChannelHandler {
         setState(ChannelState.WAIT_HELLO);
     }
 
-    @Override
-    public void channelDisconnected(ChannelHandlerContext ctx,
-            ChannelStateEvent e) throws Exception {
+    /**
+     * Handles the loss of the switch connection.
+     */
+    void disconnected() {
         log.info("Switch disconnected callback for sw:{}. Cleaning up ...",
                 getSwitchInfoString());
         if (thisdpid != 0) {
@@ -1085,87 +1146,83 @@ class OFChannelHandler extends IdleStateAwareChannelHandler {
         }
     }
 
-    @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e)
-            throws Exception {
-        if (e.getCause() instanceof ReadTimeoutException) {
+    /**
+     * Handles an error raised while processing the switch connection.
+     *
+     * @param ch connection the error was raised on
+     * @param cause cause of the error
+     */
+    void handleException(OpenFlowChannel ch, Throwable cause) {
+        if (cause instanceof ReadTimeoutException ||
+                cause instanceof io.netty.handler.timeout.ReadTimeoutException) {
             // switch timeout
             log.error("Disconnecting switch {} due to read timeout",
                     getSwitchInfoString());
-            ctx.getChannel().close();
-        } else if (e.getCause() instanceof HandshakeTimeoutException) {
+            ch.close();
+        } else if (cause instanceof HandshakeTimeoutException) {
             log.error("Disconnecting switch {}: failed to complete handshake",
                     getSwitchInfoString());
-            ctx.getChannel().close();
-        } else if (e.getCause() instanceof ClosedChannelException) {
+            ch.close();
+        } else if (cause instanceof ClosedChannelException) {
             log.debug("Channel for sw {} already closed", getSwitchInfoString());
-        } else if (e.getCause() instanceof IOException) {
-            if (!e.getCause().getMessage().equals(RESET_BY_PEER) &&
-                    !e.getCause().getMessage().equals(BROKEN_PIPE)) {
+        } else if (cause instanceof IOException) {
+            if (!RESET_BY_PEER.equals(cause.getMessage()) &&
+                    !BROKEN_PIPE.equals(cause.getMessage())) {
                 log.error("Disconnecting switch {} due to IO Error: {}",
-                          getSwitchInfoString(), e.getCause().getMessage());
+                          getSwitchInfoString(), cause.getMessage());
                 if (log.isDebugEnabled()) {
                     // still print stack trace if debug is enabled
-                    log.debug("StackTrace for previous Exception: ", e.getCause());
+                    log.debug("StackTrace for previous Exception: ", cause);
                 }
             }
-            ctx.getChannel().close();
-        } else if (e.getCause() instanceof SwitchStateException) {
+            ch.close();
+        } else if (cause instanceof SwitchStateException) {
             log.error("Disconnecting switch {} due to switch state error: {}",
-                    getSwitchInfoString(), e.getCause().getMessage());
+                    getSwitchInfoString(), cause.getMessage());
             if (log.isDebugEnabled()) {
                 // still print stack trace if debug is enabled
-                log.debug("StackTrace for previous Exception: ", e.getCause());
+                log.debug("StackTrace for previous Exception: ", cause);
             }
-            ctx.getChannel().close();
-        } else if (e.getCause() instanceof OFParseError) {
+            ch.close();
+        } else if (cause instanceof OFParseError) {
             log.error("Disconnecting switch "
                     + getSwitchInfoString() +
                     " due to message parse failure",
-                    e.getCause());
-            ctx.getChannel().close();
-        } else if (e.getCause() instanceof RejectedExecutionException) {
+                    cause);
+            ch.close();
+        } else if (cause instanceof RejectedExecutionException) {
             log.warn("Could not process message: queue full");
         } else {
             log.error("Error while processing message from switch "
                     + getSwitchInfoString()
-                    + "state " + this.state, e.getCause());
-            ctx.getChannel().close();
+                    + "state " + this.state, cause);
+            ch.close();
         }
     }
 
-    @Override
-    public String toString() {
-        return getSwitchInfoString();
-    }
-
-    @Override
-    public void channelIdle(ChannelHandlerContext ctx, IdleStateEvent e)
-            throws Exception {
+    /**
+     * Probes the switch with an echo request after a period of inactivity.
+     */
+    void idle() {
         OFFactory factory = (ofVersion == OFVersion.OF_13) ? factory13 : factory10;
         OFMessage m = factory.buildEchoRequest().build();
         log.debug("Sending Echo Request on idle channel: {}",
-                e.getChannel().getPipeline().getLast().toString());
-        e.getChannel().write(Collections.singletonList(m));
+                getSwitchInfoString());
+        channel.write(Collections.singletonList(m));
         // XXX S some problems here -- echo request has no transaction id, and
         // echo reply is not correlated to the echo request.
     }
 
-    @Override
-    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e)
-            throws Exception {
-        if (e.getMessage() instanceof List) {
-            @SuppressWarnings("unchecked")
-            List<OFMessage> msglist = (List<OFMessage>) e.getMessage();
-
-
-            for (OFMessage ofm : msglist) {
-                // Do the actual packet processing
-                state.processOFMessage(this, ofm);
-            }
-        } else {
-            state.processOFMessage(this, (OFMessage) e.getMessage());
-        }
+    /**
+     * Processes a message received from the switch.
+     *
+     * @param m message received
+     * @throws IOException if unable to send message back to the switch
+     * @throws SwitchStateException if the switch is not bound to the channel
+     */
+    void handleMessage(OFMessage m) throws IOException, SwitchStateException {
+        // Do the actual packet processing
+        state.processOFMessage(this, m);
     }
 
 
@@ -1318,4 +1375,41 @@ class OFChannelHandler extends IdleStateAwareChannelHandler {
         return state;
     }
 
+    /**
+     * Switch connection backed by a Netty 3 channel.
+     */
+    private static final class Netty3Channel implements OpenFlowChannel {
+
+        private final Channel channel;
+
+        private Netty3Channel(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return channel.getRemoteAddress();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return channel.isConnected();
+        }
+
+        @Override
+        public void write(List<OFMessage> msgs) {
+            channel.write(msgs);
+        }
+
+        @Override
+        public void disconnect() {
+            channel.disconnect();
+        }
+
+        @Override
+        public void close() {
+            channel.close();
+        }
+    }
+
 }
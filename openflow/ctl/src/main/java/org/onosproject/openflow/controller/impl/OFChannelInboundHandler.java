@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.onosproject.openflow.controller.driver.OpenFlowChannel;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Netty 4 channel handler feeding the events of a switch connection into
+ * the {@link OFChannelHandler} state machine.
+ * <p>
+ * Writes are coalesced: messages written from any thread are handed to the
+ * channel event loop, which flushes once after the writes queued so far
+ * rather than once per write, so bursts of flow mods leave in few
+ * system calls.
+ */
+class OFChannelInboundHandler extends ChannelInboundHandlerAdapter
+        implements OpenFlowChannel {
+
+    private final OFChannelHandler handler;
+    private final long handshakeTimeoutSeconds;
+
+    private volatile Channel channel;
+    private ScheduledFuture<?> handshakeTimeout;
+
+    // only accessed from the channel event loop
+    private boolean flushPending;
+    private final Runnable flushTask = () -> {
+        flushPending = false;
+        channel.flush();
+    };
+
+    /**
+     * Creates a handler driving the given state machine.
+     *
+     * @param handler switch channel state machine
+     * @param handshakeTimeoutSeconds time allowed to complete the handshake
+     */
+    OFChannelInboundHandler(OFChannelHandler handler, long handshakeTimeoutSeconds) {
+        this.handler = handler;
+        this.handshakeTimeoutSeconds = handshakeTimeoutSeconds;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        channel = ctx.channel();
+        if (handshakeTimeoutSeconds > 0) {
+            handshakeTimeout = ctx.executor().schedule(() -> {
+                if (channel.isOpen() && !handler.isHandshakeComplete()) {
+                    handler.handleException(this, HandshakeTimeoutHandler.EXCEPTION);
+                }
+            }, handshakeTimeoutSeconds, TimeUnit.SECONDS);
+        }
+        handler.connected(this);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (handshakeTimeout != null) {
+            handshakeTimeout.cancel(false);
+            handshakeTimeout = null;
+        }
+        handler.disconnected();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        handler.handleMessage((OFMessage) msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            handler.idle();
+        } else {
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        handler.handleException(this, cause);
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+        Channel ch = channel;
+        return ch == null ? null : ch.remoteAddress();
+    }
+
+    @Override
+    public boolean isConnected() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+
+    @Override
+    public void write(List<OFMessage> msgs) {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            writeAndScheduleFlush(msgs);
+        } else {
+            loop.execute(() -> writeAndScheduleFlush(msgs));
+        }
+    }
+
+    // Runs on the event loop; the flush task is queued behind the writes
+    // already submitted, and any write arriving after it runs queues another.
+    private void writeAndScheduleFlush(List<OFMessage> msgs) {
+        channel.write(msgs, channel.voidPromise());
+        if (!flushPending) {
+            flushPending = true;
+            channel.eventLoop().execute(flushTask);
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        channel.disconnect();
+    }
+
+    @Override
+    public void close() {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return handler.toString();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLEngine;
+
+/**
+ * Creates the Netty 4 pipeline for a server-side openflow channel; the
+ * counterpart of {@link OpenflowPipelineFactory} for the Netty 4 transport.
+ */
+public class OFChannelInitializer extends ChannelInitializer<SocketChannel> {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Controller controller;
+    private final SSLEngine sslEngine;
+
+    public OFChannelInitializer(Controller controller, SSLEngine sslEngine) {
+        this.controller = controller;
+        this.sslEngine = sslEngine;
+    }
+
+    @Override
+    protected void initChannel(SocketChannel ch) throws Exception {
+        OFChannelHandler handler = new OFChannelHandler(controller);
+
+        ChannelPipeline pipeline = ch.pipeline();
+        if (sslEngine != null) {
+            log.info("OpenFlow SSL enabled.");
+            pipeline.addLast("ssl", new SslHandler(sslEngine));
+        } else {
+            log.info("OpenFlow SSL disabled");
+        }
+        pipeline.addLast("ofmessagedecoder", new OFFrameDecoder());
+        pipeline.addLast("ofmessageencoder", new OFFrameEncoder());
+        pipeline.addLast("idle", new IdleStateHandler(20, 25, 0));
+        pipeline.addLast("timeout", new ReadTimeoutHandler(30));
+        pipeline.addLast("handler", new OFChannelInboundHandler(handler, 60));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFMessageReader;
+
+import java.util.List;
+
+/**
+ * Decodes openflow messages from the Netty 4 transport.
+ * <p>
+ * The openflowj readers operate on Netty 3 buffers, so the readable bytes
+ * are viewed through a wrapping buffer without copying. Every complete
+ * message in the view is decoded in one pass; a partial trailing message
+ * is left for the next read.
+ */
+public class OFFrameDecoder extends ByteToMessageDecoder {
+
+    private static final OFMessageReader<OFMessage> READER = OFFactories.getGenericReader();
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in,
+                          List<Object> out) throws Exception {
+        ChannelBuffer view = ChannelBuffers.wrappedBuffer(in.nioBuffer());
+        try {
+            OFMessage message = READER.readFrom(view);
+            while (message != null) {
+                out.add(message);
+                message = READER.readFrom(view);
+            }
+        } finally {
+            in.skipBytes(view.readerIndex());
+        }
+    }
+}
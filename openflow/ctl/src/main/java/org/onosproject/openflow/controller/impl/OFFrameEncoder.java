@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+
+import java.util.List;
+
+/**
+ * Encodes lists of openflow messages for the Netty 4 transport.
+ * <p>
+ * The openflowj writers operate on Netty 3 buffers, so the messages are
+ * written to a dynamic Netty 3 buffer kept by the encoder and then copied
+ * to the pooled output buffer in one go.
+ */
+public class OFFrameEncoder extends MessageToByteEncoder<List<OFMessage>> {
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    // buffers grown past this size are not kept for the next batch
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(INITIAL_BUFFER_SIZE);
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, List<OFMessage> msgs,
+                          ByteBuf out) throws Exception {
+        buffer.clear();
+        for (OFMessage ofm : msgs) {
+            if (ofm != null) {
+                ofm.writeTo(buffer);
+            }
+        }
+        out.writeBytes(buffer.toByteBuffer());
+        if (buffer.capacity() > MAX_RETAINED_SIZE) {
+            buffer = ChannelBuffers.dynamicBuffer(INITIAL_BUFFER_SIZE);
+        }
+    }
+}
@@ -85,6 +85,8 @@ import static org.onlab.util.Tools.groupedThreads;
 public class OpenFlowControllerImpl implements OpenFlowController {
     private static final String DEFAULT_OFPORT = "6633,6653";
     private static final int DEFAULT_WORKER_THREADS = 16;
+    private static final String DEFAULT_TRANSPORT = Controller.NETTY3_TRANSPORT;
+    private static final int DEFAULT_BOSS_THREADS = 1;
 
     private static final Logger log =
             LoggerFactory.getLogger(OpenFlowControllerImpl.class);
@@ -107,6 +109,14 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             label = "Number of controller worker threads; default is 16")
     private int workerThreads = DEFAULT_WORKER_THREADS;
 
+    @Property(name = "transport", value = DEFAULT_TRANSPORT,
+            label = "Network transport for switch connections, netty3 or netty4; default is netty3")
+    private String transport = DEFAULT_TRANSPORT;
+
+    @Property(name = "bossThreads", intValue = DEFAULT_BOSS_THREADS,
+            label = "Number of event loops accepting connections with the netty4 transport; default is 1")
+    private int bossThreads = DEFAULT_BOSS_THREADS;
+
     private final ExecutorService executorMsgs =
         Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d"));
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the Netty 4 openflow message codec.
+ */
+public class OFFrameCodecTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+
+    private ByteBuf encode(List<OFMessage> msgs) {
+        EmbeddedChannel channel = new EmbeddedChannel(new OFFrameEncoder());
+        channel.writeOutbound(msgs);
+        ByteBuf buf = (ByteBuf) channel.readOutbound();
+        channel.finish();
+        return buf;
+    }
+
+    @Test
+    public void roundTrip() {
+        OFMessage echo = FACTORY.buildEchoRequest().setXid(1).build();
+        OFMessage barrier = FACTORY.buildBarrierRequest().setXid(2).build();
+        // large enough to outgrow the initial writable region of the encoder
+        OFMessage large = FACTORY.buildEchoRequest().setXid(3).setData(new byte[4000]).build();
+        ByteBuf buf = encode(ImmutableList.of(echo, barrier, large));
+
+        EmbeddedChannel channel = new EmbeddedChannel(new OFFrameDecoder());
+        channel.writeInbound(buf);
+        assertEquals("incorrect message", echo, channel.readInbound());
+        assertEquals("incorrect message", barrier, channel.readInbound());
+        assertEquals("incorrect message", large, channel.readInbound());
+        assertNull("unexpected message", channel.readInbound());
+        channel.finish();
+    }
+
+    @Test
+    public void partialFrames() {
+        OFMessage echo = FACTORY.buildEchoRequest().setXid(7).setData(new byte[100]).build();
+        ByteBuf buf = encode(ImmutableList.of(echo));
+
+        EmbeddedChannel channel = new EmbeddedChannel(new OFFrameDecoder());
+        channel.writeInbound(buf.readSlice(3).retain());
+        assertNull("header is incomplete", channel.readInbound());
+        channel.writeInbound(buf.readSlice(50).retain());
+        assertNull("body is incomplete", channel.readInbound());
+        channel.writeInbound(buf);
+        assertEquals("incorrect message", echo, channel.readInbound());
+        channel.finish();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.onlab.util.SharedExecutors;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.slf4j.Logger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Write pipeline for the flow rule batches of a single switch.
+ * <p>
+ * All flow mods of a batch are handed to the switch as one message list,
+ * so the channel encodes them into a single buffer. Barriers are shared
+ * between batches: while a barrier is outstanding, batches written after
+ * it are held back from completion and covered by one barrier sent when
+ * the outstanding one is answered.
+ * <p>
+ * A barrier that goes unanswered for the barrier timeout is sent again,
+ * covering its own batches and those held back by it, a few times at most;
+ * the batches of a barrier given up on are failed by the provider once they
+ * time out.
+ * </p>
+ */
+class FlowModPipeline {
+
+    private final Logger log = getLogger(getClass());
+
+    private static final int MAX_BARRIER_ATTEMPTS = 3;
+
+    private final OpenFlowSwitch sw;
+    private final long barrierTimeoutMillis;
+    private final Meter flowModMeter;
+    private final Timer barrierTimer;
+
+    // batches written but not yet covered by a barrier
+    private List<PendingBatch> unbarriered = Lists.newArrayList();
+    // outstanding barriers by transaction id
+    private final Map<Long, Barrier> barriers = Maps.newHashMap();
+
+    /**
+     * Creates a pipeline for the given switch.
+     *
+     * @param sw                 switch to write to
+     * @param barrierTimeoutSecs time after which an unanswered barrier is
+     *                           sent again
+     * @param flowModMeter       meter of flow mods written; null if not tracked
+     * @param barrierTimer       timer of batch write to barrier reply; null
+     *                           if not tracked
+     */
+    FlowModPipeline(OpenFlowSwitch sw, int barrierTimeoutSecs,
+                    Meter flowModMeter, Timer barrierTimer) {
+        this.sw = sw;
+        this.barrierTimeoutMillis = TimeUnit.SECONDS.toMillis(barrierTimeoutSecs);
+        this.flowModMeter = flowModMeter;
+        this.barrierTimer = barrierTimer;
+    }
+
+    /**
+     * Writes the messages of a batch to the switch and sends a barrier
+     * covering it unless an outstanding barrier defers it to the next one.
+     *
+     * @param batchId  identifier of the batch
+     * @param messages flow mods and other messages of the batch
+     */
+    synchronized void write(long batchId, List<OFMessage> messages) {
+        long now = System.nanoTime();
+        if (!messages.isEmpty()) {
+            sw.sendMsg(messages);
+            if (flowModMeter != null) {
+                flowModMeter.mark(messages.size());
+            }
+        }
+        unbarriered.add(new PendingBatch(batchId, now));
+        if (barriers.isEmpty()) {
+            sendBarrier(unbarriered, 1);
+        }
+    }
+
+    /**
+     * Accounts for a barrier reply and sends the next barrier if batches
+     * have been written since the answered one was sent.
+     *
+     * @param xid transaction id of the barrier reply
+     * @return identifiers of the batches completed by the barrier; empty if
+     * the barrier is not known to this pipeline
+     */
+    synchronized List<Long> barrierReplied(long xid) {
+        Barrier barrier = barriers.remove(xid);
+        if (barrier == null) {
+            return Collections.emptyList();
+        }
+        barrier.timeout.cancel();
+        long now = System.nanoTime();
+        if (barrierTimer != null) {
+            barrier.batches.forEach(b -> barrierTimer.update(now - b.writtenNanos, TimeUnit.NANOSECONDS));
+        }
+        if (barriers.isEmpty() && !unbarriered.isEmpty()) {
+            sendBarrier(unbarriered, 1);
+        }
+        return barrier.batches.stream().map(b -> b.id).collect(Collectors.toList());
+    }
+
+    /**
+     * Sends again a barrier that went unanswered, covering the batches
+     * written since as well, or gives up on it after a few attempts.
+     *
+     * @param xid transaction id of the barrier
+     */
+    synchronized void barrierTimedOut(long xid) {
+        Barrier barrier = barriers.remove(xid);
+        if (barrier == null) {
+            return;
+        }
+        if (barrier.attempt < MAX_BARRIER_ATTEMPTS) {
+            log.debug("Barrier {} to {} went unanswered; sending it again", xid, sw.getStringId());
+            List<PendingBatch> batches = Lists.newArrayList(barrier.batches);
+            batches.addAll(unbarriered);
+            sendBarrier(batches, barrier.attempt + 1);
+        } else {
+            log.warn("Barrier {} to {} went unanswered {} times; giving up on {} batches",
+                     xid, sw.getStringId(), barrier.attempt, barrier.batches.size());
+            if (barriers.isEmpty() && !unbarriered.isEmpty()) {
+                sendBarrier(unbarriered, 1);
+            }
+        }
+    }
+
+    /**
+     * Stops waiting for outstanding barriers; their batches are failed by
+     * the provider once they time out.
+     */
+    synchronized void close() {
+        barriers.values().forEach(barrier -> barrier.timeout.cancel());
+        barriers.clear();
+        unbarriered.clear();
+    }
+
+    // The barrier takes the id of the last batch it covers as transaction
+    // id; batch ids are unique, so it cannot collide with another barrier.
+    private void sendBarrier(List<PendingBatch> batches, int attempt) {
+        unbarriered = Lists.newArrayList();
+        long xid = batches.get(batches.size() - 1).id;
+        TimerTask timeout = new TimerTask() {
+            @Override
+            public void run() {
+                barrierTimedOut(xid);
+            }
+        };
+        barriers.put(xid, new Barrier(batches, attempt, timeout));
+        sw.sendMsg(sw.factory().buildBarrierRequest().setXid(xid).build());
+        SharedExecutors.getTimer().schedule(timeout, barrierTimeoutMillis);
+    }
+
+    private static final class PendingBatch {
+        private final long id;
+        private final long writtenNanos;
+
+        private PendingBatch(long id, long writtenNanos) {
+            this.id = id;
+            this.writtenNanos = writtenNanos;
+        }
+    }
+
+    private static final class Barrier {
+        private final List<PendingBatch> batches;
+        private final int attempt;
+        private final TimerTask timeout;
+
+        private Barrier(List<PendingBatch> batches, int attempt, TimerTask timeout) {
+            this.batches = batches;
+            this.attempt = attempt;
+            this.timeout = timeout;
+        }
+    }
+}
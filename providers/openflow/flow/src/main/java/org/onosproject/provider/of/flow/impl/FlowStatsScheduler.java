@@ -0,0 +1,469 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.codahale.metrics.Meter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleProviderService;
+import org.onosproject.openflow.controller.Dpid;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.onosproject.openflow.controller.RoleState;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFStatsReplyFlags;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.OFPort;
+import org.projectfloodlight.openflow.types.TableId;
+import org.projectfloodlight.openflow.types.U64;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Schedules the flow statistics requests of all switches.
+ * <p>
+ * A single thread polls every switch this instance is master of. Polls are
+ * spread over the poll interval with a random jitter, so switches are not
+ * polled in lockstep. Optionally, each switch draws on its own control
+ * channel bandwidth budget, so a switch with a large flow table only defers
+ * its own polls: a poll of an overdrawn switch waits until the budget
+ * recovers. Without a budget every switch is polled once per interval.
+ * </p>
+ * <p>
+ * With adaptive sampling, switches speaking OpenFlow 1.1 or later get a full
+ * poll only every few intervals. In between, only the flows changed since the
+ * last poll and the flows close to their timeout are requested by cookie, and
+ * the replies are merged into the store once per tick. A sampled flow the
+ * switch does not know triggers a full poll on the next tick, so missing
+ * flows are detected without waiting for the next scheduled full poll.
+ * </p>
+ */
+class FlowStatsScheduler {
+
+    private final Logger log = getLogger(getClass());
+
+    private static final long TICK_MILLIS = 250;
+    // intervals between full polls with adaptive sampling
+    private static final int FULL_POLL_INTERVALS = 6;
+    // changed flows above which a full poll is cheaper than polling them one by one
+    private static final int MAX_FLOW_REQUESTS = 64;
+    // estimated encoded size of a flow stats request and of a reply entry
+    private static final int REQUEST_BYTES = 56;
+    private static final int ENTRY_BYTES = 96;
+    private static final double JITTER = 0.1;
+    private static final long NO_XID = -1;
+
+    private final FlowRuleProviderService providerService;
+    private final ScheduledExecutorService executor =
+            newSingleThreadScheduledExecutor(groupedThreads("onos/of", "flow-stats-scheduler"));
+    private final Map<Dpid, DeviceStats> devices = Maps.newConcurrentMap();
+
+    private volatile long pollIntervalNanos;
+    private volatile boolean adaptive;
+    private volatile long bandwidth;
+
+    /**
+     * Creates a scheduler pushing the collected statistics to the given
+     * provider service.
+     *
+     * @param providerService  flow rule provider service
+     * @param pollIntervalSecs poll interval in seconds
+     * @param adaptive         whether to sample changed and expiring flows
+     *                         between full polls
+     * @param bandwidth        control channel bytes per second spent on
+     *                         flow statistics of each switch; 0 for no limit
+     */
+    FlowStatsScheduler(FlowRuleProviderService providerService,
+                       int pollIntervalSecs, boolean adaptive, long bandwidth) {
+        this.providerService = providerService;
+        configure(pollIntervalSecs, adaptive, bandwidth);
+    }
+
+    /**
+     * Starts polling.
+     */
+    void start() {
+        executor.scheduleWithFixedDelay(() -> tick(System.nanoTime()),
+                                        TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling.
+     */
+    void stop() {
+        executor.shutdownNow();
+        devices.clear();
+    }
+
+    /**
+     * Changes the polling parameters; switches are rescheduled within one
+     * new poll interval.
+     *
+     * @param pollIntervalSecs poll interval in seconds
+     * @param adaptive         whether to sample changed and expiring flows
+     * @param bandwidth        control channel bytes per second of each
+     *                         switch; 0 for no limit
+     */
+    void configure(int pollIntervalSecs, boolean adaptive, long bandwidth) {
+        this.pollIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1, pollIntervalSecs));
+        this.adaptive = adaptive;
+        this.bandwidth = Math.max(0, bandwidth);
+        long now = System.nanoTime();
+        devices.values().forEach(device -> device.schedule(now, jitter(pollIntervalNanos)));
+    }
+
+    /**
+     * Starts polling the given switch.
+     *
+     * @param sw          switch to poll
+     * @param polledMeter meter of flow entries polled; null if not tracked
+     * @param bytesMeter  meter of estimated control channel bytes; null if
+     *                    not tracked
+     */
+    void addSwitch(OpenFlowSwitch sw, Meter polledMeter, Meter bytesMeter) {
+        DeviceStats device = new DeviceStats(sw, polledMeter, bytesMeter);
+        // first poll soon, spread over one tick per switch
+        device.schedule(System.nanoTime(), jitter(TimeUnit.SECONDS.toNanos(1)));
+        devices.put(new Dpid(sw.getId()), device);
+    }
+
+    /**
+     * Stops polling the given switch.
+     *
+     * @param dpid switch identifier
+     */
+    void removeSwitch(Dpid dpid) {
+        devices.remove(dpid);
+    }
+
+    /**
+     * Notes that a flow rule was added to or modified on a switch.
+     *
+     * @param dpid switch identifier
+     * @param rule flow rule
+     */
+    void flowChanged(Dpid dpid, FlowRule rule) {
+        DeviceStats device = devices.get(dpid);
+        if (device != null) {
+            device.changed(rule);
+        }
+    }
+
+    /**
+     * Notes that a flow rule was removed from a switch.
+     *
+     * @param dpid switch identifier
+     * @param rule flow rule
+     */
+    void flowRemoved(Dpid dpid, FlowRule rule) {
+        DeviceStats device = devices.get(dpid);
+        if (device != null) {
+            device.removed(rule);
+        }
+    }
+
+    /**
+     * Accounts for a flow statistics reply. Full polls are pushed to the
+     * provider service once complete; other replies are merged into the store
+     * on the next tick.
+     *
+     * @param dpid    switch identifier
+     * @param reply   flow statistics reply
+     * @param entries flow entries of the reply
+     */
+    void statsReplied(Dpid dpid, OFFlowStatsReply reply, List<FlowEntry> entries) {
+        DeviceStats device = devices.get(dpid);
+        if (device == null) {
+            providerService.pushFlowMetrics(deviceId(dpid), entries);
+            return;
+        }
+        List<FlowEntry> fullPoll = device.replied(reply, entries);
+        if (fullPoll != null) {
+            providerService.pushFlowMetrics(deviceId(dpid), fullPoll);
+        }
+    }
+
+    /**
+     * Merges the sampled statistics into the store and polls the switches
+     * that are due and within their bandwidth budget.
+     *
+     * @param now current time in nanoseconds
+     */
+    void tick(long now) {
+        try {
+            boolean limited = bandwidth > 0;
+            int deferred = 0;
+            for (Map.Entry<Dpid, DeviceStats> entry : devices.entrySet()) {
+                DeviceStats device = entry.getValue();
+                device.flush(entry.getKey());
+                device.refill(now);
+                if (device.sw.getRole() != RoleState.MASTER || !device.isDue(now)) {
+                    continue;
+                }
+                if (!limited) {
+                    device.poll(now);
+                } else if (device.budget > 0) {
+                    device.budget -= device.poll(now);
+                } else {
+                    deferred++;
+                }
+            }
+            if (deferred > 0) {
+                log.debug("Flow stats budget exhausted, deferring {} switches", deferred);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to poll flow statistics", e);
+        }
+    }
+
+    private long jitter(long nanos) {
+        return (long) (nanos * ThreadLocalRandom.current().nextDouble());
+    }
+
+    private static DeviceId deviceId(Dpid dpid) {
+        return DeviceId.deviceId(Dpid.uri(dpid));
+    }
+
+    /**
+     * Polling state of a single switch.
+     */
+    private final class DeviceStats {
+        private final OpenFlowSwitch sw;
+        private final Meter polledMeter;
+        private final Meter bytesMeter;
+
+        // flows by cookie whose statistics have not been sampled since they changed
+        private final Map<Long, FlowRule> changed = Maps.newHashMap();
+        // next sampling deadline of the flows with a timeout, by cookie
+        private final Map<Long, Expiry> expiring = Maps.newHashMap();
+        private final PriorityQueue<Expiry> deadlines = new PriorityQueue<>();
+        // replies of sampled flows, merged into the store on the next tick
+        private List<FlowEntry> sampled = Lists.newArrayList();
+        // entries of the full poll under way
+        private final List<FlowEntry> fullPoll = Lists.newArrayList();
+        // transactions of the sampling requests not answered yet
+        private final Set<Long> sampleXids = Sets.newHashSet();
+
+        // bandwidth budget in bytes; only touched by the scheduler thread
+        private double budget;
+        private boolean refilled;
+        private long refillNanos;
+
+        private long fullPollXid = NO_XID;
+        private int flowCount;
+        private long dueNanos;
+        private long nextFullPollNanos;
+
+        private DeviceStats(OpenFlowSwitch sw, Meter polledMeter, Meter bytesMeter) {
+            this.sw = sw;
+            this.polledMeter = polledMeter;
+            this.bytesMeter = bytesMeter;
+        }
+
+        private synchronized void schedule(long now, long delay) {
+            dueNanos = now + delay;
+            nextFullPollNanos = dueNanos;
+        }
+
+        // Credits the bandwidth earned since the last refill, up to the bytes
+        // of one poll interval.
+        private void refill(long now) {
+            double rate = bandwidth;
+            double limit = rate * pollIntervalNanos / TimeUnit.SECONDS.toNanos(1);
+            if (!refilled) {
+                budget = limit;
+                refilled = true;
+            } else {
+                budget = Math.min(limit, budget + rate * (now - refillNanos) / TimeUnit.SECONDS.toNanos(1));
+            }
+            refillNanos = now;
+        }
+
+        private synchronized boolean isDue(long now) {
+            return now - dueNanos >= 0;
+        }
+
+        private synchronized void changed(FlowRule rule) {
+            long cookie = rule.id().value();
+            changed.put(cookie, rule);
+            if (rule.timeout() > 0) {
+                expire(new Expiry(System.nanoTime() + sampleDelay(rule), rule));
+            } else {
+                expiring.remove(cookie);
+            }
+        }
+
+        private synchronized void removed(FlowRule rule) {
+            changed.remove(rule.id().value());
+            expiring.remove(rule.id().value());
+        }
+
+        private void expire(Expiry expiry) {
+            expiring.put(expiry.rule.id().value(), expiry);
+            deadlines.add(expiry);
+        }
+
+        // Samples a flow when three quarters of its timeout have elapsed,
+        // so the idle timeout is decided on fresh counters.
+        private long sampleDelay(FlowRule rule) {
+            return TimeUnit.SECONDS.toNanos(rule.timeout()) * 3 / 4;
+        }
+
+        private synchronized List<FlowEntry> replied(OFFlowStatsReply reply, List<FlowEntry> entries) {
+            mark(entries.size(), entries.size() * ENTRY_BYTES);
+            if (reply.getXid() != fullPollXid) {
+                if (sampleXids.remove(reply.getXid()) && entries.isEmpty()) {
+                    // the switch lost a flow it should have; look for others right away
+                    log.debug("Sampled flow missing on {}, polling all flows", sw.getStringId());
+                    long now = System.nanoTime();
+                    dueNanos = now;
+                    nextFullPollNanos = now;
+                }
+                sampled.addAll(entries);
+                return null;
+            }
+            fullPoll.addAll(entries);
+            if (reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
+                return null;
+            }
+            fullPollXid = NO_XID;
+            flowCount = fullPoll.size();
+            List<FlowEntry> polled = Lists.newArrayList(fullPoll);
+            fullPoll.clear();
+            return polled;
+        }
+
+        private void flush(Dpid dpid) {
+            List<FlowEntry> entries;
+            synchronized (this) {
+                if (sampled.isEmpty()) {
+                    return;
+                }
+                entries = sampled;
+                sampled = Lists.newArrayList();
+            }
+            providerService.pushFlowMetricsWithoutFlowMissing(deviceId(dpid), entries);
+        }
+
+        // Polls the switch and returns the estimated bytes spent on it.
+        private synchronized long poll(long now) {
+            long interval = pollIntervalNanos;
+            double jitter = JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+            dueNanos = now + interval + (long) (interval * jitter);
+
+            boolean sampling = adaptive && sw.factory().getVersion() != OFVersion.OF_10;
+            List<FlowRule> flows = flowsToSample(now);
+            // replies of earlier samples are not waited for past one interval
+            sampleXids.clear();
+            if (!sampling || now - nextFullPollNanos >= 0
+                    || flows.size() > Math.max(MAX_FLOW_REQUESTS, flowCount / 4)) {
+                nextFullPollNanos = now + (sampling ? interval * FULL_POLL_INTERVALS : interval);
+                return pollAll();
+            }
+            List<OFMessage> requests = Lists.newArrayListWithCapacity(flows.size());
+            for (FlowRule flow : flows) {
+                OFFlowStatsRequest request = sw.factory().buildFlowStatsRequest()
+                        .setMatch(sw.factory().matchWildcardAll())
+                        .setTableId(TableId.of(flow.tableId()))
+                        .setOutPort(OFPort.NO_MASK)
+                        .setCookie(U64.of(flow.id().value()))
+                        .setCookieMask(U64.NO_MASK)
+                        .build();
+                sampleXids.add(request.getXid());
+                requests.add(request);
+            }
+            if (!requests.isEmpty()) {
+                sw.sendMsg(requests);
+            }
+            mark(0, flows.size() * REQUEST_BYTES);
+            return flows.size() * (REQUEST_BYTES + ENTRY_BYTES);
+        }
+
+        // Collects the changed flows and the flows past their sampling deadline.
+        private List<FlowRule> flowsToSample(long now) {
+            Map<Long, FlowRule> flows = Maps.newHashMap(changed);
+            changed.clear();
+            while (!deadlines.isEmpty() && now - deadlines.peek().deadlineNanos >= 0) {
+                Expiry expiry = deadlines.poll();
+                long cookie = expiry.rule.id().value();
+                // superseded deadlines are skipped, as are those of removed flows
+                if (expiring.get(cookie) == expiry) {
+                    flows.put(cookie, expiry.rule);
+                    // the idle timeout restarts with traffic; keep sampling while the flow lives
+                    expire(new Expiry(now + sampleDelay(expiry.rule), expiry.rule));
+                }
+            }
+            return Lists.newArrayList(flows.values());
+        }
+
+        private long pollAll() {
+            OFFlowStatsRequest request = sw.factory().buildFlowStatsRequest()
+                    .setMatch(sw.factory().matchWildcardAll())
+                    .setTableId(TableId.ALL)
+                    .setOutPort(OFPort.NO_MASK)
+                    .build();
+            if (fullPollXid != NO_XID) {
+                log.debug("Full flow stats poll {} of {} went unanswered", fullPollXid, sw.getStringId());
+                fullPoll.clear();
+            }
+            fullPollXid = request.getXid();
+            log.trace("Collecting stats for {}", sw.getStringId());
+            sw.sendMsg(request);
+            mark(0, REQUEST_BYTES);
+            return REQUEST_BYTES + (long) flowCount * ENTRY_BYTES;
+        }
+
+        private void mark(int entries, long bytes) {
+            if (polledMeter != null && entries > 0) {
+                polledMeter.mark(entries);
+            }
+            if (bytesMeter != null) {
+                bytesMeter.mark(bytes);
+            }
+        }
+    }
+
+    private static final class Expiry implements Comparable<Expiry> {
+        private final long deadlineNanos;
+        private final FlowRule rule;
+
+        private Expiry(long deadlineNanos, FlowRule rule) {
+            this.deadlineNanos = deadlineNanos;
+            this.rule = rule;
+        }
+
+        @Override
+        public int compareTo(Expiry other) {
+            return Long.compare(deadlineNanos - other.deadlineNanos, 0);
+        }
+    }
+}
@@ -15,10 +15,12 @@
  */
 package org.onosproject.provider.of.flow.impl;
 
+import com.codahale.metrics.Meter;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.felix.scr.annotations.Activate;
@@ -28,6 +30,9 @@ import org.apache.felix.scr.annotations.Modified;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
@@ -55,7 +60,6 @@ import org.onosproject.openflow.controller.RoleState;
 import org.onosproject.openflow.controller.ThirdPartyMessage;
 import org.osgi.service.component.ComponentContext;
 import org.projectfloodlight.openflow.protocol.OFBadRequestCode;
-import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
 import org.projectfloodlight.openflow.protocol.OFErrorMsg;
 import org.projectfloodlight.openflow.protocol.OFErrorType;
 import org.projectfloodlight.openflow.protocol.OFFlowMod;
@@ -109,6 +113,18 @@ public class OpenFlowRuleProvider extends AbstractProvider
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DriverService driverService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
+    private static final int BATCH_TIMEOUT_SECONDS = 10;
+    // leaves room for a few barrier attempts before the batches time out
+    private static final int BARRIER_TIMEOUT_SECONDS = 3;
+    private static final String METRICS_COMPONENT = "OpenFlowRuleProvider";
+    private static final String FLOW_MOD_METER = "flowMods";
+    private static final String BARRIER_TIMER = "timeToBarrier";
+    private static final String FLOW_STATS_POLLED_METER = "flowStatsPolled";
+    private static final String FLOW_STATS_BYTES_METER = "flowStatsBytes";
+
     private static final int DEFAULT_POLL_FREQUENCY = 5;
     @Property(name = "flowPollFrequency", intValue = DEFAULT_POLL_FREQUENCY,
             label = "Frequency (in seconds) for polling flow statistics")
@@ -119,18 +135,22 @@ public class OpenFlowRuleProvider extends AbstractProvider
             label = "Adaptive Flow Sampling is on or off")
     private boolean adaptiveFlowSampling = DEFAULT_ADAPTIVE_FLOW_SAMPLING;
 
+    private static final long DEFAULT_FLOW_STATS_BANDWIDTH = 0;
+    @Property(name = "flowStatsBandwidth", longValue = DEFAULT_FLOW_STATS_BANDWIDTH,
+            label = "Control channel bytes per second spent on flow statistics of each switch; 0 for no limit")
+    private long flowStatsBandwidth = DEFAULT_FLOW_STATS_BANDWIDTH;
+
     private FlowRuleProviderService providerService;
 
     private final InternalFlowProvider listener = new InternalFlowProvider();
 
     private Cache<Long, InternalCacheEntry> pendingBatches;
 
-    private final Timer timer = new Timer("onos-openflow-collector");
-    private final Map<Dpid, FlowStatsCollector> simpleCollectors = Maps.newHashMap();
+    // Flow mod write pipelines by switch
+    private final Map<Dpid, FlowModPipeline> pipelines = Maps.newConcurrentMap();
 
-    // NewAdaptiveFlowStatsCollector Set
-    private final Map<Dpid, NewAdaptiveFlowStatsCollector> afsCollectors = Maps.newHashMap();
-    private final Map<Dpid, FlowStatsCollector> collectors = Maps.newHashMap();
+    private final Timer timer = new Timer("onos-openflow-collector");
+    private FlowStatsScheduler flowStatsScheduler;
     private final Map<Dpid, TableStatisticsCollector> tableStatsCollectors = Maps.newHashMap();
 
     /**
@@ -149,16 +169,21 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
         pendingBatches = createBatchCache();
 
+        flowStatsScheduler = new FlowStatsScheduler(providerService, flowPollFrequency,
+                                                    adaptiveFlowSampling, flowStatsBandwidth);
+        flowStatsScheduler.start();
         createCollectors();
 
-        log.info("Started with flowPollFrequency = {}, adaptiveFlowSampling = {}",
-                flowPollFrequency, adaptiveFlowSampling);
+        log.info("Started with flowPollFrequency = {}, adaptiveFlowSampling = {}, flowStatsBandwidth = {}",
+                flowPollFrequency, adaptiveFlowSampling, flowStatsBandwidth);
     }
 
     @Deactivate
     public void deactivate(ComponentContext context) {
         cfgService.unregisterProperties(getClass(), false);
-        stopCollectors();
+        Sets.newHashSet(tableStatsCollectors.keySet()).forEach(this::removeCollector);
+        flowStatsScheduler.stop();
+        Sets.newHashSet(pipelines.keySet()).forEach(this::removePipeline);
         providerRegistry.unregister(this);
         providerService = null;
 
@@ -189,19 +214,31 @@ public class OpenFlowRuleProvider extends AbstractProvider
         newAdaptiveFlowSampling = isNullOrEmpty(s) ? adaptiveFlowSampling : Boolean.parseBoolean(s.trim());
 
         if (newAdaptiveFlowSampling != adaptiveFlowSampling) {
-            // stop previous collector
-            stopCollectors();
             adaptiveFlowSampling = newAdaptiveFlowSampling;
-            // create new collectors
-            createCollectors();
+            adjustRate();
         }
 
         log.info("Settings: adaptiveFlowSampling={}", adaptiveFlowSampling);
+
+        long newFlowStatsBandwidth;
+        try {
+            s = get(properties, "flowStatsBandwidth");
+            newFlowStatsBandwidth = isNullOrEmpty(s) ? flowStatsBandwidth : Long.parseLong(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newFlowStatsBandwidth = flowStatsBandwidth;
+        }
+
+        if (newFlowStatsBandwidth != flowStatsBandwidth) {
+            flowStatsBandwidth = newFlowStatsBandwidth;
+            adjustRate();
+        }
+
+        log.info("Settings: flowStatsBandwidth={}", flowStatsBandwidth);
     }
 
     private Cache<Long, InternalCacheEntry> createBatchCache() {
         return CacheBuilder.newBuilder()
-                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .expireAfterWrite(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS)
                 .removalListener((RemovalNotification<Long, InternalCacheEntry> notification) -> {
                     if (notification.getCause() == RemovalCause.EXPIRED) {
                         providerService.batchOperationCompleted(notification.getKey(),
@@ -215,42 +252,38 @@ public class OpenFlowRuleProvider extends AbstractProvider
     }
 
     private void createCollector(OpenFlowSwitch sw) {
-        if (adaptiveFlowSampling) {
-            // NewAdaptiveFlowStatsCollector Constructor
-            NewAdaptiveFlowStatsCollector fsc = new NewAdaptiveFlowStatsCollector(sw, flowPollFrequency);
-            fsc.start();
-            afsCollectors.put(new Dpid(sw.getId()), fsc);
-        } else {
-            FlowStatsCollector fsc = new FlowStatsCollector(timer, sw, flowPollFrequency);
-            fsc.start();
-            simpleCollectors.put(new Dpid(sw.getId()), fsc);
+        Dpid dpid = new Dpid(sw.getId());
+        Meter polledMeter = null;
+        Meter bytesMeter = null;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(dpid.toString());
+            polledMeter = metricsService.createMeter(component, feature, FLOW_STATS_POLLED_METER);
+            bytesMeter = metricsService.createMeter(component, feature, FLOW_STATS_BYTES_METER);
         }
+        flowStatsScheduler.addSwitch(sw, polledMeter, bytesMeter);
         TableStatisticsCollector tsc = new TableStatisticsCollector(timer, sw, flowPollFrequency);
         tsc.start();
-        tableStatsCollectors.put(new Dpid(sw.getId()), tsc);
+        tableStatsCollectors.put(dpid, tsc);
     }
 
-    private void stopCollectors() {
-        if (adaptiveFlowSampling) {
-            // NewAdaptiveFlowStatsCollector Destructor
-            afsCollectors.values().forEach(NewAdaptiveFlowStatsCollector::stop);
-            afsCollectors.clear();
-        } else {
-            simpleCollectors.values().forEach(FlowStatsCollector::stop);
-            simpleCollectors.clear();
+    private void removeCollector(Dpid dpid) {
+        flowStatsScheduler.removeSwitch(dpid);
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(dpid.toString());
+            metricsService.removeMetric(component, feature, FLOW_STATS_POLLED_METER);
+            metricsService.removeMetric(component, feature, FLOW_STATS_BYTES_METER);
+        }
+        TableStatisticsCollector tsc = tableStatsCollectors.remove(dpid);
+        if (tsc != null) {
+            tsc.stop();
         }
-        tableStatsCollectors.values().forEach(TableStatisticsCollector::stop);
-        tableStatsCollectors.clear();
     }
 
     private void adjustRate() {
         DefaultLoad.setPollInterval(flowPollFrequency);
-        if (adaptiveFlowSampling) {
-            // NewAdaptiveFlowStatsCollector calAndPollInterval
-            afsCollectors.values().forEach(fsc -> fsc.adjustCalAndPollInterval(flowPollFrequency));
-        } else {
-            simpleCollectors.values().forEach(fsc -> fsc.adjustPollInterval(flowPollFrequency));
-        }
+        flowStatsScheduler.configure(flowPollFrequency, adaptiveFlowSampling, flowStatsBandwidth);
         tableStatsCollectors.values().forEach(tsc -> tsc.adjustPollInterval(flowPollFrequency));
     }
 
@@ -273,14 +306,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
         sw.sendMsg(FlowModBuilder.builder(flowRule, sw.factory(),
                 Optional.empty(), Optional.of(driverService)).buildFlowAdd());
-
-        if (adaptiveFlowSampling) {
-            // Add TypedFlowEntry to deviceFlowEntries in NewAdaptiveFlowStatsCollector
-            NewAdaptiveFlowStatsCollector collector = afsCollectors.get(dpid);
-            if (collector != null) {
-                collector.addWithFlowRule(flowRule);
-            }
-        }
+        flowStatsScheduler.flowChanged(dpid, flowRule);
     }
 
     @Override
@@ -302,14 +328,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
         sw.sendMsg(FlowModBuilder.builder(flowRule, sw.factory(),
                                           Optional.empty(), Optional.of(driverService)).buildFlowDel());
-
-        if (adaptiveFlowSampling) {
-            // Remove TypedFlowEntry to deviceFlowEntries in NewAdaptiveFlowStatsCollector
-            NewAdaptiveFlowStatsCollector collector = afsCollectors.get(dpid);
-            if (collector != null) {
-                collector.removeFlows(flowRule);
-            }
-        }
+        flowStatsScheduler.flowRemoved(dpid, flowRule);
     }
 
     @Override
@@ -326,53 +345,65 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
         Dpid dpid = Dpid.dpid(batch.deviceId().uri());
         OpenFlowSwitch sw = controller.getSwitch(dpid);
+        List<OFMessage> messages = Lists.newArrayListWithCapacity(batch.size());
         OFFlowMod mod;
         for (FlowRuleBatchEntry fbe : batch.getOperations()) {
             // flow is the third party privacy flow
 
             FlowRuleExtPayLoad flowRuleExtPayLoad = fbe.target().payLoad();
             if (hasPayload(flowRuleExtPayLoad)) {
-                OFMessage msg = new ThirdPartyMessage(flowRuleExtPayLoad.payLoad());
-                sw.sendMsg(msg);
+                messages.add(new ThirdPartyMessage(flowRuleExtPayLoad.payLoad()));
                 continue;
             }
             FlowModBuilder builder =
                     FlowModBuilder.builder(fbe.target(), sw.factory(),
                             Optional.of(batch.id()), Optional.of(driverService));
-            NewAdaptiveFlowStatsCollector collector = afsCollectors.get(dpid);
             switch (fbe.operator()) {
                 case ADD:
                     mod = builder.buildFlowAdd();
-                    if (adaptiveFlowSampling && collector != null) {
-                        // Add TypedFlowEntry to deviceFlowEntries in NewAdaptiveFlowStatsCollector
-                        collector.addWithFlowRule(fbe.target());
-                    }
+                    flowStatsScheduler.flowChanged(dpid, fbe.target());
                     break;
                 case REMOVE:
                     mod = builder.buildFlowDel();
-                    if (adaptiveFlowSampling && collector != null) {
-                        // Remove TypedFlowEntry to deviceFlowEntries in NewAdaptiveFlowStatsCollector
-                        collector.removeFlows(fbe.target());
-                    }
+                    flowStatsScheduler.flowRemoved(dpid, fbe.target());
                     break;
                 case MODIFY:
                     mod = builder.buildFlowMod();
-                    if (adaptiveFlowSampling && collector != null) {
-                        // Add or Update TypedFlowEntry to deviceFlowEntries in NewAdaptiveFlowStatsCollector
-                        // afsCollectors.get(dpid).addWithFlowRule(fbe.target()); //check if add is good or not
-                        collector.addOrUpdateFlows((FlowEntry) fbe.target());
-                    }
+                    flowStatsScheduler.flowChanged(dpid, fbe.target());
                     break;
                 default:
                     log.error("Unsupported batch operation {}; skipping flowmod {}",
                             fbe.operator(), fbe);
                     continue;
             }
-            sw.sendMsg(mod);
+            messages.add(mod);
+        }
+        pipelines.computeIfAbsent(dpid, id -> createPipeline(id, sw)).write(batch.id(), messages);
+    }
+
+    private FlowModPipeline createPipeline(Dpid dpid, OpenFlowSwitch sw) {
+        Meter flowModMeter = null;
+        com.codahale.metrics.Timer barrierTimer = null;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(dpid.toString());
+            flowModMeter = metricsService.createMeter(component, feature, FLOW_MOD_METER);
+            barrierTimer = metricsService.createTimer(component, feature, BARRIER_TIMER);
+        }
+        return new FlowModPipeline(sw, BARRIER_TIMEOUT_SECONDS, flowModMeter, barrierTimer);
+    }
+
+    private void removePipeline(Dpid dpid) {
+        FlowModPipeline pipeline = pipelines.remove(dpid);
+        if (pipeline != null) {
+            pipeline.close();
+        }
+        if (pipeline != null && metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(dpid.toString());
+            metricsService.removeMetric(component, feature, FLOW_MOD_METER);
+            metricsService.removeMetric(component, feature, BARRIER_TIMER);
         }
-        OFBarrierRequest.Builder builder = sw.factory().buildBarrierRequest()
-                .setXid(batch.id());
-        sw.sendMsg(builder.build());
     }
 
     private boolean hasPayload(FlowRuleExtPayLoad flowRuleExtPayLoad) {
@@ -386,29 +417,13 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
         @Override
         public void switchAdded(Dpid dpid) {
-
-            OpenFlowSwitch sw = controller.getSwitch(dpid);
-
             createCollector(controller.getSwitch(dpid));
         }
 
         @Override
         public void switchRemoved(Dpid dpid) {
-            if (adaptiveFlowSampling) {
-                NewAdaptiveFlowStatsCollector collector = afsCollectors.remove(dpid);
-                if (collector != null) {
-                    collector.stop();
-                }
-            } else {
-                FlowStatsCollector collector = simpleCollectors.remove(dpid);
-                if (collector != null) {
-                    collector.stop();
-                }
-            }
-            TableStatisticsCollector tsc = tableStatsCollectors.remove(dpid);
-            if (tsc != null) {
-                tsc.stop();
-            }
+            removeCollector(dpid);
+            removePipeline(dpid);
         }
 
         @Override
@@ -429,14 +444,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
                     FlowEntry fr = new FlowEntryBuilder(dpid, removed, driverService).build();
                     providerService.flowRemoved(fr);
-
-                    if (adaptiveFlowSampling) {
-                        // Removed TypedFlowEntry to deviceFlowEntries in NewAdaptiveFlowStatsCollector
-                        NewAdaptiveFlowStatsCollector collector = afsCollectors.get(dpid);
-                        if (collector != null) {
-                            collector.flowRemoved(fr);
-                        }
-                    }
+                    flowStatsScheduler.flowRemoved(dpid, fr);
                     break;
                 case STATS_REPLY:
                     if (((OFStatsReply) msg).getStatsType() == OFStatsType.FLOW) {
@@ -446,19 +454,15 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     }
                     break;
                 case BARRIER_REPLY:
-                    try {
-                        InternalCacheEntry entry = pendingBatches.getIfPresent(msg.getXid());
-                        if (entry != null) {
-                            providerService
-                                    .batchOperationCompleted(msg.getXid(),
-                                                             entry.completed());
-                        } else {
-                            log.warn("Received unknown Barrier Reply: {}",
-                                     msg.getXid());
-                        }
-                    } finally {
-                        pendingBatches.invalidate(msg.getXid());
+                    FlowModPipeline pipeline = pipelines.get(dpid);
+                    List<Long> batchIds = pipeline == null ? Collections.emptyList()
+                            : pipeline.barrierReplied(msg.getXid());
+                    if (batchIds.isEmpty()) {
+                        log.warn("Received unknown Barrier Reply: {}",
+                                 msg.getXid());
                     }
+                    // the barrier completes every batch written before it
+                    batchIds.forEach(this::batchCompleted);
                     break;
                 case ERROR:
                     // TODO: This needs to get suppressed in a better way.
@@ -494,6 +498,17 @@ public class OpenFlowRuleProvider extends AbstractProvider
             }
         }
 
+        private void batchCompleted(long batchId) {
+            try {
+                InternalCacheEntry entry = pendingBatches.getIfPresent(batchId);
+                if (entry != null) {
+                    providerService.batchOperationCompleted(batchId, entry.completed());
+                }
+            } finally {
+                pendingBatches.invalidate(batchId);
+            }
+        }
+
         @Override
         public void receivedRoleReply(Dpid dpid, RoleState requested,
                                       RoleState response) {
@@ -501,45 +516,10 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
 
         private void pushFlowMetrics(Dpid dpid, OFFlowStatsReply replies) {
-
-            DeviceId did = DeviceId.deviceId(Dpid.uri(dpid));
-
             List<FlowEntry> flowEntries = replies.getEntries().stream()
                     .map(entry -> new FlowEntryBuilder(dpid, entry, driverService).build())
                     .collect(Collectors.toList());
-
-            if (adaptiveFlowSampling)  {
-                NewAdaptiveFlowStatsCollector afsc = afsCollectors.get(dpid);
-
-                synchronized (afsc) {
-                    if (afsc.getFlowMissingXid() != NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID) {
-                        log.debug("OpenFlowRuleProvider:pushFlowMetrics, flowMissingXid={}, "
-                                        + "OFFlowStatsReply Xid={}, for {}",
-                                afsc.getFlowMissingXid(), replies.getXid(), dpid);
-                    }
-
-                    // Check that OFFlowStatsReply Xid is same with the one of OFFlowStatsRequest?
-                    if (afsc.getFlowMissingXid() != NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID) {
-                        if (afsc.getFlowMissingXid() == replies.getXid()) {
-                            // call entire flow stats update with flowMissing synchronization.
-                            // used existing pushFlowMetrics
-                            providerService.pushFlowMetrics(did, flowEntries);
-                        }
-                        // reset flowMissingXid to NO_FLOW_MISSING_XID
-                        afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
-
-                    } else {
-                        // call individual flow stats update
-                        providerService.pushFlowMetricsWithoutFlowMissing(did, flowEntries);
-                    }
-
-                    // Update TypedFlowEntry to deviceFlowEntries in NewAdaptiveFlowStatsCollector
-                    afsc.pushFlowMetrics(flowEntries);
-                }
-            } else {
-                // call existing entire flow stats update with flowMissing synchronization
-                providerService.pushFlowMetrics(did, flowEntries);
-            }
+            flowStatsScheduler.statsReplied(dpid, replies, flowEntries);
         }
 
         private void pushTableStatistics(Dpid dpid, OFTableStatsReply replies) {
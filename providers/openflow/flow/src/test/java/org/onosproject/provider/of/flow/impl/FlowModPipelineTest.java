@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestTools.assertAfter;
+
+/**
+ * Unit tests for the flow mod write pipeline.
+ */
+public class FlowModPipelineTest {
+
+    private final TestOpenFlowSwitch sw = new TestOpenFlowSwitch(1);
+    private final List<OFMessage> flowMods = ImmutableList.of(sw.factory().buildFlowAdd().build());
+
+    private FlowModPipeline pipeline;
+
+    private List<Long> barriers() {
+        return sw.sent.stream()
+                .filter(msg -> msg instanceof OFBarrierRequest)
+                .map(OFMessage::getXid)
+                .collect(Collectors.toList());
+    }
+
+    @After
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    /**
+     * Tests that batches written while a barrier is outstanding share the
+     * next barrier.
+     */
+    @Test
+    public void sharedBarriers() {
+        pipeline = new FlowModPipeline(sw, 60, null, null);
+        pipeline.write(1, flowMods);
+        assertEquals("flow mods should be written", 2, sw.sent.size());
+        assertEquals("incorrect barriers", ImmutableList.of(1L), barriers());
+
+        pipeline.write(2, flowMods);
+        pipeline.write(3, flowMods);
+        assertEquals("batches should wait for the outstanding barrier", ImmutableList.of(1L), barriers());
+
+        assertEquals("incorrect completed batches", ImmutableList.of(1L), pipeline.barrierReplied(1));
+        assertEquals("one barrier should cover the waiting batches", ImmutableList.of(1L, 3L), barriers());
+        assertEquals("incorrect completed batches", ImmutableList.of(2L, 3L), pipeline.barrierReplied(3));
+        assertTrue("unknown barrier should complete nothing", pipeline.barrierReplied(3).isEmpty());
+    }
+
+    /**
+     * Tests that a lost barrier is sent again, covering the batches written
+     * after it.
+     */
+    @Test
+    public void lostBarrier() {
+        pipeline = new FlowModPipeline(sw, 1, null, null);
+        pipeline.write(1, flowMods);
+        pipeline.write(2, flowMods);
+
+        assertAfter(3000, () -> assertEquals("barrier should be sent again",
+                                             ImmutableList.of(1L, 2L), barriers()));
+        assertEquals("incorrect completed batches", ImmutableList.of(1L, 2L), pipeline.barrierReplied(2));
+    }
+
+    /**
+     * Tests that a barrier is given up on after a few attempts, without
+     * holding back later batches.
+     */
+    @Test
+    public void abandonedBarrier() {
+        pipeline = new FlowModPipeline(sw, 60, null, null);
+        pipeline.write(1, flowMods);
+        pipeline.barrierTimedOut(1);
+        pipeline.barrierTimedOut(1);
+        assertEquals("barrier should be sent again", ImmutableList.of(1L, 1L, 1L), barriers());
+
+        pipeline.barrierTimedOut(1);
+        assertTrue("abandoned barrier should complete nothing", pipeline.barrierReplied(1).isEmpty());
+        pipeline.write(2, flowMods);
+        assertEquals("later batch should get its own barrier", ImmutableList.of(1L, 1L, 1L, 2L), barriers());
+    }
+}
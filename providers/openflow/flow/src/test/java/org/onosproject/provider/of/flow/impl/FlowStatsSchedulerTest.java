@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.CompletedBatchOperation;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleProvider;
+import org.onosproject.net.flow.FlowRuleProviderService;
+import org.onosproject.net.flow.TableStatisticsEntry;
+import org.onosproject.openflow.controller.Dpid;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.TableId;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the flow statistics scheduler.
+ */
+public class FlowStatsSchedulerTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+
+    private final TestProviderService providerService = new TestProviderService();
+    private final FlowRule rule = DefaultFlowRule.builder()
+            .forDevice(DeviceId.deviceId("of:0000000000000001"))
+            .withSelector(DefaultTrafficSelector.emptySelector())
+            .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+            .withPriority(10)
+            .fromApp(new DefaultApplicationId(1, "test"))
+            .makePermanent()
+            .build();
+
+    private FlowStatsScheduler scheduler;
+    private long start;
+
+    private TestOpenFlowSwitch add(long id) {
+        TestOpenFlowSwitch sw = new TestOpenFlowSwitch(id);
+        scheduler.addSwitch(sw, null, null);
+        start = System.nanoTime();
+        return sw;
+    }
+
+    private void tickAt(long millis) {
+        scheduler.tick(start + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private void reply(TestOpenFlowSwitch sw, OFMessage request, int entries) {
+        OFFlowStatsReply reply = FACTORY.buildFlowStatsReply()
+                .setXid(request.getXid())
+                .setFlags(ImmutableSet.of())
+                .build();
+        List<FlowEntry> flowEntries = Collections.nCopies(entries, new DefaultFlowEntry(rule));
+        scheduler.statsReplied(new Dpid(sw.getId()), reply, flowEntries);
+    }
+
+    private static boolean isFullPoll(OFMessage msg) {
+        return ((OFFlowStatsRequest) msg).getTableId().equals(TableId.ALL);
+    }
+
+    private static int fullPolls(TestOpenFlowSwitch sw) {
+        return (int) sw.sent.stream().filter(FlowStatsSchedulerTest::isFullPoll).count();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    /**
+     * Tests that a complete full poll is pushed with missing flow detection.
+     */
+    @Test
+    public void fullPoll() {
+        scheduler = new FlowStatsScheduler(providerService, 1, false, 1_000_000);
+        TestOpenFlowSwitch sw = add(1);
+
+        tickAt(2_000);
+        assertEquals("incorrect request count", 1, sw.sent.size());
+        assertTrue("should poll all flows", isFullPoll(sw.sent.get(0)));
+
+        reply(sw, sw.sent.get(0), 3);
+        assertEquals("full poll should be pushed", 1, providerService.full.size());
+        assertEquals("incorrect entry count", 3, providerService.full.get(0).size());
+    }
+
+    /**
+     * Tests that changed flows are sampled between full polls and merged
+     * without missing flow detection.
+     */
+    @Test
+    public void samplesChangedFlows() {
+        scheduler = new FlowStatsScheduler(providerService, 1, true, 1_000_000);
+        TestOpenFlowSwitch sw = add(1);
+        tickAt(2_000);
+        reply(sw, sw.sent.get(0), 0);
+
+        scheduler.flowChanged(new Dpid(1), rule);
+        tickAt(4_000);
+        assertEquals("incorrect request count", 2, sw.sent.size());
+        OFMessage sample = sw.sent.get(1);
+        assertEquals("should sample by cookie", rule.id().value(),
+                     ((OFFlowStatsRequest) sample).getCookie().getValue());
+
+        reply(sw, sample, 1);
+        tickAt(4_250);
+        assertEquals("sample should be merged", 1, providerService.sampled.size());
+        assertEquals("only the first full poll should be pushed", 1, providerService.full.size());
+        assertEquals("no full poll should be due yet", 1, fullPolls(sw));
+    }
+
+    /**
+     * Tests that a sampled flow missing on the switch brings the next full
+     * poll forward.
+     */
+    @Test
+    public void missingSampledFlow() {
+        scheduler = new FlowStatsScheduler(providerService, 1, true, 1_000_000);
+        TestOpenFlowSwitch sw = add(1);
+        tickAt(2_000);
+        reply(sw, sw.sent.get(0), 0);
+
+        scheduler.flowChanged(new Dpid(1), rule);
+        tickAt(4_000);
+        reply(sw, sw.sent.get(1), 0);
+
+        tickAt(4_250);
+        assertEquals("missing flow should trigger a full poll", 2, fullPolls(sw));
+    }
+
+    /**
+     * Tests that a switch with a large flow table defers its own polls only.
+     */
+    @Test
+    public void largeSwitchDefersOnlyItself() {
+        scheduler = new FlowStatsScheduler(providerService, 1, false, 1_000);
+        TestOpenFlowSwitch large = add(1);
+        TestOpenFlowSwitch small = add(2);
+
+        tickAt(2_000);
+        reply(large, large.sent.get(0), 1_000);
+        reply(small, small.sent.get(0), 1);
+        for (int i = 2; i <= 4; i++) {
+            tickAt(i * 2_000);
+        }
+
+        assertEquals("large switch should be deferred", 2, fullPolls(large));
+        assertEquals("small switch should not be deferred", 4, fullPolls(small));
+    }
+
+    /**
+     * Tests that without a bandwidth limit a switch with a large flow table
+     * is polled every interval.
+     */
+    @Test
+    public void unlimitedBandwidth() {
+        scheduler = new FlowStatsScheduler(providerService, 1, false, 0);
+        TestOpenFlowSwitch large = add(1);
+
+        tickAt(2_000);
+        reply(large, large.sent.get(0), 100_000);
+        for (int i = 2; i <= 4; i++) {
+            tickAt(i * 2_000);
+        }
+
+        assertEquals("large switch should not be deferred", 4, fullPolls(large));
+    }
+
+    private static final class TestProviderService implements FlowRuleProviderService {
+        private final List<List<FlowEntry>> full = Lists.newArrayList();
+        private final List<List<FlowEntry>> sampled = Lists.newArrayList();
+
+        @Override
+        public void flowRemoved(FlowEntry flowEntry) {
+        }
+
+        @Override
+        public void pushFlowMetrics(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
+            full.add(Lists.newArrayList(flowEntries));
+        }
+
+        @Override
+        public void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
+            sampled.add(Lists.newArrayList(flowEntries));
+        }
+
+        @Override
+        public void pushTableStatistics(DeviceId deviceId, List<TableStatisticsEntry> tableStatsEntries) {
+        }
+
+        @Override
+        public void batchOperationCompleted(long batchId, CompletedBatchOperation operation) {
+        }
+
+        @Override
+        public FlowRuleProvider provider() {
+            return null;
+        }
+    }
+}
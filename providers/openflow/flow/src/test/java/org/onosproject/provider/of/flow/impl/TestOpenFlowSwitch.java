@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.Lists;
+import org.onosproject.net.Device;
+import org.onosproject.openflow.controller.Dpid;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.onosproject.openflow.controller.RoleState;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFPortDesc;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+
+import java.util.List;
+
+/**
+ * OpenFlow 1.3 switch, mastered by this instance, recording the messages
+ * sent to it.
+ */
+class TestOpenFlowSwitch implements OpenFlowSwitch {
+
+    final List<OFMessage> sent = Lists.newCopyOnWriteArrayList();
+    private final long id;
+
+    TestOpenFlowSwitch(long id) {
+        this.id = id;
+    }
+
+    @Override
+    public void sendMsg(OFMessage msg) {
+        sent.add(msg);
+    }
+
+    @Override
+    public void sendMsg(List<OFMessage> msgs) {
+        sent.addAll(msgs);
+    }
+
+    @Override
+    public void handleMessage(OFMessage fromSwitch) {
+    }
+
+    @Override
+    public void setRole(RoleState role) {
+    }
+
+    @Override
+    public RoleState getRole() {
+        return RoleState.MASTER;
+    }
+
+    @Override
+    public List<OFPortDesc> getPorts() {
+        return null;
+    }
+
+    @Override
+    public OFFactory factory() {
+        return OFFactories.getFactory(OFVersion.OF_13);
+    }
+
+    @Override
+    public String getStringId() {
+        return new Dpid(id).toString();
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String manufacturerDescription() {
+        return null;
+    }
+
+    @Override
+    public String datapathDescription() {
+        return null;
+    }
+
+    @Override
+    public String hardwareDescription() {
+        return null;
+    }
+
+    @Override
+    public String softwareDescription() {
+        return null;
+    }
+
+    @Override
+    public String serialNumber() {
+        return null;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public void disconnectSwitch() {
+    }
+
+    @Override
+    public void returnRoleReply(RoleState requested, RoleState response) {
+    }
+
+    @Override
+    public Device.Type deviceType() {
+        return Device.Type.SWITCH;
+    }
+
+    @Override
+    public String channelId() {
+        return null;
+    }
+}
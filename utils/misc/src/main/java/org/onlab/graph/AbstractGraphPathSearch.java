@@ -297,6 +297,34 @@ public abstract class AbstractGraphPathSearch<V extends Vertex, E extends Edge<V
         return path.edges().isEmpty() ? dst : path.edges().get(0).src();
     }
 
+    /**
+     * Creates a search result from the vertex costs and parent edges
+     * accrued by a search over the compact form of a graph.
+     *
+     * @param graph    compact graph that was searched
+     * @param scratch  search state
+     * @param src      source vertex
+     * @param dst      optional destination vertex
+     * @param maxPaths limit on the number of paths built;
+     *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return search result with its paths built
+     */
+    DefaultResult createResult(CompactGraph<V, E> graph, SearchScratch scratch,
+                               V src, V dst, int maxPaths) {
+        DefaultResult result = new DefaultResult(src, dst, maxPaths);
+        for (int i = 0; i < scratch.reachedCount(); i++) {
+            int v = scratch.reached(i);
+            V vertex = graph.vertex(v);
+            double cost = scratch.cost(v);
+            result.costs.put(vertex, cost);
+            for (int p = scratch.firstParent(v); p >= 0; p = scratch.nextParent(p)) {
+                result.updateVertex(vertex, graph.edge(scratch.parentEdge(p)), cost, false);
+            }
+        }
+        result.buildPaths();
+        return result;
+    }
+
     /**
      * Checks the specified path search arguments for validity.
      *
@@ -313,4 +341,19 @@ public abstract class AbstractGraphPathSearch<V extends Vertex, E extends Edge<V
                       "Destination not in graph");
     }
 
+    /**
+     * Checks the specified compact graph path search arguments for validity.
+     *
+     * @param graph compact graph; must not be null
+     * @param src   source vertex; must not be null and belong to graph
+     * @param dst   optional target vertex; must belong to graph
+     */
+    protected void checkArguments(CompactGraph<V, E> graph, V src, V dst) {
+        checkNotNull(graph, "Graph cannot be null");
+        checkNotNull(src, "Source cannot be null");
+        checkArgument(graph.index(src) >= 0, "Source not in the graph");
+        checkArgument(dst == null || graph.index(dst) >= 0,
+                      "Destination not in graph");
+    }
+
 }
@@ -39,6 +39,9 @@ public class AdjacencyListsGraph<V extends Vertex, E extends Edge<V>>
     private final ImmutableSetMultimap<V, E> sources;
     private final ImmutableSetMultimap<V, E> destinations;
 
+    // Compact form for path searches; built on first use.
+    private transient volatile CompactGraph<V, E> compact;
+
     /**
      * Creates a graph comprising of the specified vertexes and edges.
      *
@@ -93,6 +96,20 @@ public class AdjacencyListsGraph<V extends Vertex, E extends Edge<V>>
         return destinations.get(dst);
     }
 
+    /**
+     * Returns the compact form of this graph, building it on first use.
+     *
+     * @return compact graph
+     */
+    CompactGraph<V, E> compact() {
+        CompactGraph<V, E> result = compact;
+        if (result == null) {
+            result = new CompactGraph<>(this);
+            compact = result;
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
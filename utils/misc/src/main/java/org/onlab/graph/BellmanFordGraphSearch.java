@@ -26,35 +26,72 @@ public class BellmanFordGraphSearch<V extends Vertex, E extends Edge<V>>
     public Result<V, E> search(Graph<V, E> graph, V src, V dst,
                                EdgeWeight<V, E> weight, int maxPaths) {
         checkArguments(graph, src, dst);
+        return search(CompactGraph.of(graph), src, dst, weight, maxPaths);
+    }
 
-        // Prepare the graph search result.
-        DefaultResult result = new DefaultResult(src, dst, maxPaths);
+    /**
+     * Searches the compact form of a graph for paths between the source
+     * and the destination, or all reachable destinations.
+     *
+     * @param graph    compact graph to be searched
+     * @param src      source vertex
+     * @param dst      optional destination vertex
+     * @param weight   optional edge-weight; if null cost of each edge will be
+     *                 assumed to be 1.0
+     * @param maxPaths limit on number of paths; {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return search results
+     */
+    public Result<V, E> search(CompactGraph<V, E> graph, V src, V dst,
+                               EdgeWeight<V, E> weight, int maxPaths) {
+        checkArguments(graph, src, dst);
 
-        // The source vertex has cost 0, of course.
-        result.updateVertex(src, null, 0.0, true);
+        SearchScratch scratch = SearchScratch.acquire(graph.vertexCount());
+        try {
+            // The source vertex has cost 0, of course.
+            scratch.update(graph.index(src), -1, 0.0, true, maxPaths);
 
-        int max = graph.getVertexes().size() - 1;
-        for (int i = 0; i < max; i++) {
-            // Relax, if possible, all egress edges of the current vertex.
-            for (E edge : graph.getEdges()) {
-                if (result.hasCost(edge.src())) {
-                    result.relaxEdge(edge, result.cost(edge.src()), weight);
+            // Relax, if possible, all edges from reached vertexes; stop early
+            // once a round no longer lowers any cost.
+            int max = graph.vertexCount() - 1;
+            boolean relaxed = true;
+            for (int i = 0; relaxed && i < max; i++) {
+                relaxed = false;
+                for (int e = 0; e < graph.edgeCount(); e++) {
+                    relaxed |= relaxEdge(graph, scratch, e, weight, maxPaths);
                 }
             }
-        }
 
-        // Remove any vertexes reached by traversing edges with negative weights.
-        for (E edge : graph.getEdges()) {
-            if (result.hasCost(edge.src())) {
-                if (result.relaxEdge(edge, result.cost(edge.src()), weight)) {
-                    result.removeVertex(edge.dst());
+            // Remove any vertexes reached by traversing edges with negative weights.
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                if (relaxEdge(graph, scratch, e, weight, maxPaths)) {
+                    scratch.clearParents(graph.target(e));
                 }
             }
+
+            // Finally, but the paths on the search result and return.
+            return createResult(graph, scratch, src, dst, maxPaths);
+        } finally {
+            scratch.release();
         }
+    }
 
-        // Finally, but the paths on the search result and return.
-        result.buildPaths();
-        return result;
+    // Relaxes, if possible, the specified edge if its source was reached;
+    // returns true if the cost of its destination was lowered.
+    private boolean relaxEdge(CompactGraph<V, E> graph, SearchScratch scratch, int e,
+                              EdgeWeight<V, E> weight, int maxPaths) {
+        int u = graph.source(e);
+        if (!scratch.hasCost(u)) {
+            return false;
+        }
+        int v = graph.target(e);
+        double oldCost = scratch.cost(v);
+        double newCost = scratch.cost(u) + (weight == null ? 1.0 : weight.weight(graph.edge(e)));
+        boolean relaxed = newCost < oldCost;
+        boolean same = Math.abs(newCost - oldCost) <= samenessThreshold();
+        if (same || relaxed) {
+            scratch.update(v, e, newCost, !same, maxPaths);
+        }
+        return relaxed;
     }
 
 }
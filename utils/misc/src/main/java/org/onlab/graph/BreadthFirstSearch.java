@@ -15,9 +15,6 @@
  */
 package org.onlab.graph;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * Implementation of the BFS algorithm.
  */
@@ -28,52 +25,59 @@ public class BreadthFirstSearch<V extends Vertex, E extends Edge<V>>
     public Result<V, E> search(Graph<V, E> graph, V src, V dst,
                                EdgeWeight<V, E> weight, int maxPaths) {
         checkArguments(graph, src, dst);
+        return search(CompactGraph.of(graph), src, dst, weight, maxPaths);
+    }
 
-        // Prepare the graph result.
-        DefaultResult result = new DefaultResult(src, dst, maxPaths);
-
-        // Setup the starting frontier with the source as the sole vertex.
-        Set<V> frontier = new HashSet<>();
-        result.updateVertex(src, null, 0.0, true);
-        frontier.add(src);
+    /**
+     * Searches the compact form of a graph for paths between the source
+     * and the destination, or all reachable destinations.
+     *
+     * @param graph    compact graph to be searched
+     * @param src      source vertex
+     * @param dst      optional destination vertex
+     * @param weight   optional edge-weight; if null cost of each edge will be
+     *                 assumed to be 1.0
+     * @param maxPaths limit on number of paths; {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return search results
+     */
+    public Result<V, E> search(CompactGraph<V, E> graph, V src, V dst,
+                               EdgeWeight<V, E> weight, int maxPaths) {
+        checkArguments(graph, src, dst);
 
-        boolean reachedEnd = false;
-        while (!reachedEnd && !frontier.isEmpty()) {
-            // Prepare the next frontier.
-            Set<V> next = new HashSet<>();
+        SearchScratch scratch = SearchScratch.acquire(graph.vertexCount());
+        try {
+            // Start with the source as the sole vertex; vertexes are reached
+            // one frontier after another, so the order in which they are
+            // reached serves as the queue of vertexes to visit.
+            int target = dst == null ? -1 : graph.index(dst);
+            scratch.update(graph.index(src), -1, 0.0, true, maxPaths);
 
-            // Visit all vertexes in the current frontier.
-            for (V vertex : frontier) {
-                double cost = result.cost(vertex);
+            boolean reachedEnd = false;
+            for (int i = 0; !reachedEnd && i < scratch.reachedCount(); i++) {
+                int vertex = scratch.reached(i);
+                double cost = scratch.cost(vertex);
 
                 // Visit all egress edges of the current frontier vertex.
-                for (E edge : graph.getEdgesFrom(vertex)) {
-                    V nextVertex = edge.dst();
-                    if (!result.hasCost(nextVertex)) {
+                for (int e = graph.firstEdge(vertex); e < graph.lastEdge(vertex); e++) {
+                    int nextVertex = graph.target(e);
+                    if (!scratch.hasCost(nextVertex)) {
                         // If this vertex has not been visited yet, update it.
-                        double newCost = cost + (weight == null ? 1.0 : weight.weight(edge));
-                        result.updateVertex(nextVertex, edge, newCost, true);
+                        double newCost = cost + (weight == null ? 1.0 : weight.weight(graph.edge(e)));
+                        scratch.update(nextVertex, e, newCost, true, maxPaths);
                         // If we have reached our intended destination, bail.
-                        if (nextVertex.equals(dst)) {
+                        if (nextVertex == target) {
                             reachedEnd = true;
                             break;
                         }
-                        next.add(nextVertex);
-                    }
-
-                    if (reachedEnd) {
-                        break;
                     }
                 }
             }
 
-            // Promote the next frontier.
-            frontier = next;
+            // Finally, but the paths on the search result and return.
+            return createResult(graph, scratch, src, dst, maxPaths);
+        } finally {
+            scratch.release();
         }
-
-        // Finally, but the paths on the search result and return.
-        result.buildPaths();
-        return result;
     }
 
 }
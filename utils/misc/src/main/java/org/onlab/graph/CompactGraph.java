@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.primitives.Ints;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable compact form of a graph, used by the path searches to walk the
+ * graph without hashing vertexes or allocating per edge.
+ * <p>
+ * Vertexes are numbered from 0 and edges are stored in compressed sparse
+ * row form: the egress edges of vertex {@code v} are numbered from
+ * {@code firstEdge(v)} up to, but excluding, {@code lastEdge(v)}, in the
+ * order in which the source graph returns them.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public final class CompactGraph<V extends Vertex, E extends Edge<V>> {
+
+    private final Map<V, Integer> indexes;
+    private final Object[] vertexes;
+    private final int[] firstEdges;
+    private final int[] sources;
+    private final int[] targets;
+    private final Object[] edges;
+
+    /**
+     * Creates a compact form of the specified graph.
+     *
+     * @param graph graph to compact
+     */
+    public CompactGraph(Graph<V, E> graph) {
+        checkNotNull(graph, "Graph cannot be null");
+        indexes = new HashMap<>();
+        List<V> order = new ArrayList<>();
+        for (V vertex : graph.getVertexes()) {
+            number(vertex, order);
+        }
+        // Make sure that all edge end-points are numbered as well.
+        for (E edge : graph.getEdges()) {
+            number(edge.src(), order);
+            number(edge.dst(), order);
+        }
+
+        // Edges are taken from the adjacency of each vertex, which mutable
+        // graphs may leave pointing at vertexes no longer listed; those are
+        // numbered as they are met, as a search over the graph would reach
+        // them too.
+        List<Integer> sourceList = new ArrayList<>();
+        List<Integer> targetList = new ArrayList<>();
+        List<E> edgeList = new ArrayList<>();
+        List<Integer> firstEdgeList = new ArrayList<>();
+        for (int v = 0; v < order.size(); v++) {
+            firstEdgeList.add(edgeList.size());
+            for (E edge : graph.getEdgesFrom(order.get(v))) {
+                sourceList.add(v);
+                targetList.add(number(edge.dst(), order));
+                edgeList.add(edge);
+            }
+        }
+
+        int n = order.size();
+        vertexes = order.toArray();
+        firstEdges = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            firstEdges[v] = firstEdgeList.get(v);
+        }
+        firstEdges[n] = edgeList.size();
+        sources = Ints.toArray(sourceList);
+        targets = Ints.toArray(targetList);
+        edges = edgeList.toArray();
+    }
+
+    // Returns the number of a vertex, numbering it if it is new.
+    private int number(V vertex, List<V> order) {
+        Integer index = indexes.get(vertex);
+        if (index == null) {
+            index = order.size();
+            indexes.put(vertex, index);
+            order.add(vertex);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the compact form of the specified graph, reusing the one
+     * cached by immutable graphs.
+     *
+     * @param graph graph to compact
+     * @param <V>   vertex type
+     * @param <E>   edge type
+     * @return compact graph
+     */
+    public static <V extends Vertex, E extends Edge<V>> CompactGraph<V, E> of(Graph<V, E> graph) {
+        if (graph instanceof AdjacencyListsGraph) {
+            return ((AdjacencyListsGraph<V, E>) graph).compact();
+        }
+        return new CompactGraph<>(graph);
+    }
+
+    /**
+     * Returns the number of vertexes.
+     *
+     * @return vertex count
+     */
+    public int vertexCount() {
+        return vertexes.length;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return edge count
+     */
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * Returns the number of the specified vertex.
+     *
+     * @param vertex graph vertex
+     * @return vertex number; -1 if the vertex is not in the graph
+     */
+    public int index(V vertex) {
+        Integer index = indexes.get(vertex);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the vertex with the specified number.
+     *
+     * @param index vertex number
+     * @return graph vertex
+     */
+    @SuppressWarnings("unchecked")
+    public V vertex(int index) {
+        return (V) vertexes[index];
+    }
+
+    /**
+     * Returns the edge with the specified number.
+     *
+     * @param index edge number
+     * @return graph edge
+     */
+    @SuppressWarnings("unchecked")
+    public E edge(int index) {
+        return (E) edges[index];
+    }
+
+    /**
+     * Returns the number of the first egress edge of the specified vertex.
+     *
+     * @param vertex vertex number
+     * @return edge number
+     */
+    public int firstEdge(int vertex) {
+        return firstEdges[vertex];
+    }
+
+    /**
+     * Returns the number following that of the last egress edge of the
+     * specified vertex.
+     *
+     * @param vertex vertex number
+     * @return edge number
+     */
+    public int lastEdge(int vertex) {
+        return firstEdges[vertex + 1];
+    }
+
+    /**
+     * Returns the number of the source vertex of the specified edge.
+     *
+     * @param edge edge number
+     * @return vertex number
+     */
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Returns the number of the destination vertex of the specified edge.
+     *
+     * @param edge edge number
+     * @return vertex number
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+}
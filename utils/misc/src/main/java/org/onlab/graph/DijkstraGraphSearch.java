@@ -15,10 +15,6 @@
  */
 package org.onlab.graph;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Set;
-
 /**
  * Dijkstra shortest-path graph search algorithm capable of finding not just
  * one, but all shortest paths between the source and destinations.
@@ -30,68 +26,83 @@ public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
     public Result<V, E> search(Graph<V, E> graph, V src, V dst,
                                EdgeWeight<V, E> weight, int maxPaths) {
         checkArguments(graph, src, dst);
+        return search(CompactGraph.of(graph), src, dst, weight, maxPaths);
+    }
 
-        // Use the default result to remember cumulative costs and parent
-        // edges to each each respective vertex.
-        DefaultResult result = new DefaultResult(src, dst, maxPaths);
+    /**
+     * Searches the compact form of a graph for paths between the source
+     * and the destination, or all reachable destinations.
+     *
+     * @param graph    compact graph to be searched
+     * @param src      source vertex
+     * @param dst      optional destination vertex
+     * @param weight   optional edge-weight; if null cost of each edge will be
+     *                 assumed to be 1.0
+     * @param maxPaths limit on number of paths; {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return search results
+     */
+    public Result<V, E> search(CompactGraph<V, E> graph, V src, V dst,
+                               EdgeWeight<V, E> weight, int maxPaths) {
+        checkArguments(graph, src, dst);
 
-        // Cost to reach the source vertex is 0 of course.
-        result.updateVertex(src, null, 0.0, false);
+        // Remember cumulative costs and parent edges to each respective
+        // vertex in the search scratch.
+        SearchScratch scratch = SearchScratch.acquire(graph.vertexCount());
+        try {
+            // Cost to reach the source vertex is 0 of course.
+            int source = graph.index(src);
+            int target = dst == null ? -1 : graph.index(dst);
+            scratch.update(source, -1, 0.0, false, maxPaths);
+            scratch.enqueue(source);
 
-        if (graph.getEdges().isEmpty()) {
-            result.buildPaths();
-            return result;
-        }
+            // Use the indexed min priority queue to progressively find each
+            // nearest reachable vertex until we reach the desired
+            // destination, if one was given, or until we reach all possible
+            // destinations.
+            while (!scratch.isQueueEmpty()) {
+                // Stop once the destination is among the nearest vertexes;
+                // it is preferred over any other vertex of the same cost.
+                if (target >= 0 && scratch.cost(target) <= scratch.leastQueuedCost()) {
+                    break;
+                }
 
-        // Use the min priority queue to progressively find each nearest
-        // vertex until we reach the desired destination, if one was given,
-        // or until we reach all possible destinations.
-        Heap<V> minQueue = createMinQueue(graph.getVertexes(),
-                                          new PathCostComparator(result));
-        while (!minQueue.isEmpty()) {
-            // Get the nearest vertex
-            V nearest = minQueue.extractExtreme();
-            if (nearest.equals(dst)) {
-                break;
-            }
+                // Get the nearest vertex
+                int nearest = scratch.dequeue();
 
-            // Find its cost and use it to determine if the vertex is reachable.
-            double cost = result.cost(nearest);
-            if (cost < Double.MAX_VALUE) {
-                // If the vertex is reachable, relax all its egress edges.
-                for (E e : graph.getEdgesFrom(nearest)) {
-                    result.relaxEdge(e, cost, weight, true);
+                // Find its cost and use it to determine if the vertex is reachable.
+                double cost = scratch.cost(nearest);
+                if (cost < Double.MAX_VALUE) {
+                    // If the vertex is reachable, relax all its egress edges.
+                    for (int e = graph.firstEdge(nearest); e < graph.lastEdge(nearest); e++) {
+                        relaxEdge(graph, scratch, e, cost, weight, maxPaths);
+                    }
                 }
             }
 
-            // Re-prioritize the min queue.
-            minQueue.heapify();
+            // Now construct a set of paths from the results.
+            return createResult(graph, scratch, src, dst, maxPaths);
+        } finally {
+            scratch.release();
         }
-
-        // Now construct a set of paths from the results.
-        result.buildPaths();
-        return result;
     }
 
-    // Compares path weights using their accrued costs; used for sorting the
-    // min priority queue.
-    private final class PathCostComparator implements Comparator<V> {
-        private final DefaultResult result;
-
-        private PathCostComparator(DefaultResult result) {
-            this.result = result;
+    // Relaxes, if possible, the specified edge using the supplied base cost,
+    // forbidding edges with negative weight, and queues its destination.
+    private void relaxEdge(CompactGraph<V, E> graph, SearchScratch scratch, int e,
+                           double cost, EdgeWeight<V, E> weight, int maxPaths) {
+        double hopCost = weight == null ? 1.0 : weight.weight(graph.edge(e));
+        if (hopCost < 0) {
+            return;
         }
-
-        @Override
-        public int compare(V v1, V v2) {
-            double delta = result.cost(v2) - result.cost(v1);
-            return delta < 0 ? -1 : (delta > 0 ? 1 : 0);
+        int v = graph.target(e);
+        double oldCost = scratch.cost(v);
+        double newCost = cost + hopCost;
+        boolean relaxed = newCost < oldCost;
+        boolean same = Math.abs(newCost - oldCost) <= samenessThreshold();
+        if (same || relaxed) {
+            scratch.update(v, e, newCost, !same, maxPaths);
+            scratch.enqueue(v);
         }
     }
 
-    // Creates a min priority queue from the specified vertexes and comparator.
-    private Heap<V> createMinQueue(Set<V> vertexes, Comparator<V> comparator) {
-        return new Heap<>(new ArrayList<>(vertexes), comparator);
-    }
-
 }
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread working state of the path searches over compact graphs:
+ * vertex costs, parent edges and an indexed binary min-heap of vertexes,
+ * all held in primitive arrays that are reused from one search to the next.
+ * <p>
+ * Rather than being cleared, per-vertex state is stamped with the epoch of
+ * the search that wrote it, so starting a search costs nothing regardless
+ * of the size of the graph.
+ * </p>
+ */
+final class SearchScratch {
+
+    private static final ThreadLocal<SearchScratch> SCRATCH = ThreadLocal.withInitial(SearchScratch::new);
+
+    // heap positions of vertexes never queued and already dequeued
+    private static final int UNQUEUED = -1;
+    private static final int DEQUEUED = -2;
+
+    private boolean inUse;
+    private int epoch;
+
+    private int[] stamps = new int[0];
+    private double[] costs = new double[0];
+    private int[] parentHeads = new int[0];
+    private int[] parentCounts = new int[0];
+    private int[] heapPositions = new int[0];
+
+    // parent edges as linked lists threaded through these arrays
+    private int[] parentEdges = new int[16];
+    private int[] parentNexts = new int[16];
+    private int parentSize;
+
+    // vertexes reached by the current search, in order of first reach
+    private int[] reached = new int[0];
+    private int reachedSize;
+
+    private int[] heap = new int[0];
+    private int heapSize;
+
+    /**
+     * Acquires the scratch of the current thread for a search over a graph
+     * with the given number of vertexes. Searches started while another
+     * one is under way on the same thread get a scratch of their own.
+     *
+     * @param vertexCount number of vertexes of the graph to search
+     * @return scratch ready for a new search
+     */
+    static SearchScratch acquire(int vertexCount) {
+        SearchScratch scratch = SCRATCH.get();
+        if (scratch.inUse) {
+            scratch = new SearchScratch();
+        }
+        scratch.inUse = true;
+        scratch.reset(vertexCount);
+        return scratch;
+    }
+
+    /**
+     * Releases the scratch for subsequent searches.
+     */
+    void release() {
+        inUse = false;
+    }
+
+    private void reset(int vertexCount) {
+        if (stamps.length < vertexCount) {
+            int size = Math.max(vertexCount, stamps.length * 2);
+            stamps = new int[size];
+            costs = new double[size];
+            parentHeads = new int[size];
+            parentCounts = new int[size];
+            heapPositions = new int[size];
+            reached = new int[size];
+            heap = new int[size];
+            epoch = 0;
+        }
+        if (++epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+        parentSize = 0;
+        reachedSize = 0;
+        heapSize = 0;
+    }
+
+    /**
+     * Indicates whether the vertex has been assigned a cost.
+     *
+     * @param v vertex number
+     * @return true if reached
+     */
+    boolean hasCost(int v) {
+        return stamps[v] == epoch;
+    }
+
+    /**
+     * Returns the cost of the vertex.
+     *
+     * @param v vertex number
+     * @return cost; {@link Double#MAX_VALUE} if not reached
+     */
+    double cost(int v) {
+        return stamps[v] == epoch ? costs[v] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Updates the cost of a vertex and, unless null, records the edge
+     * through which it was reached; mirrors the semantics of the result
+     * update of {@link AbstractGraphPathSearch}.
+     *
+     * @param v        vertex number
+     * @param edge     parent edge number; -1 if none
+     * @param cost     new cost
+     * @param replace  true to drop previously recorded parent edges
+     * @param maxPaths maximum number of parent edges to record
+     * @return true if a parent edge was recorded or dropped
+     */
+    boolean update(int v, int edge, double cost, boolean replace, int maxPaths) {
+        if (stamps[v] != epoch) {
+            stamps[v] = epoch;
+            parentHeads[v] = -1;
+            parentCounts[v] = 0;
+            heapPositions[v] = UNQUEUED;
+            reached[reachedSize++] = v;
+        }
+        costs[v] = cost;
+        if (edge < 0) {
+            return false;
+        }
+        boolean changed = false;
+        if (replace && parentCounts[v] > 0) {
+            clearParents(v);
+            changed = true;
+        }
+        if ((maxPaths == GraphPathSearch.ALL_PATHS || parentCounts[v] < maxPaths) &&
+                !hasParent(v, edge)) {
+            if (parentSize == parentEdges.length) {
+                parentEdges = Arrays.copyOf(parentEdges, parentSize * 2);
+                parentNexts = Arrays.copyOf(parentNexts, parentSize * 2);
+            }
+            parentEdges[parentSize] = edge;
+            parentNexts[parentSize] = parentHeads[v];
+            parentHeads[v] = parentSize++;
+            parentCounts[v]++;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Drops the parent edges of the vertex.
+     *
+     * @param v vertex number
+     */
+    void clearParents(int v) {
+        parentHeads[v] = -1;
+        parentCounts[v] = 0;
+    }
+
+    private boolean hasParent(int v, int edge) {
+        for (int p = parentHeads[v]; p >= 0; p = parentNexts[p]) {
+            if (parentEdges[p] == edge) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of vertexes reached by the search.
+     *
+     * @return reached vertex count
+     */
+    int reachedCount() {
+        return reachedSize;
+    }
+
+    /**
+     * Returns the i-th vertex reached by the search.
+     *
+     * @param i order of reach
+     * @return vertex number
+     */
+    int reached(int i) {
+        return reached[i];
+    }
+
+    /**
+     * Returns the first parent edge entry of the vertex; entries are walked
+     * with {@link #nextParent(int)} and resolved with {@link #parentEdge(int)}.
+     *
+     * @param v vertex number
+     * @return parent entry; -1 if none
+     */
+    int firstParent(int v) {
+        return parentHeads[v];
+    }
+
+    int nextParent(int entry) {
+        return parentNexts[entry];
+    }
+
+    int parentEdge(int entry) {
+        return parentEdges[entry];
+    }
+
+    // Indexed min-heap of vertexes ordered by cost.
+
+    /**
+     * Queues the vertex or, if already queued, restores the heap order
+     * after its cost changed. Vertexes already dequeued are ignored.
+     *
+     * @param v vertex number
+     */
+    void enqueue(int v) {
+        int position = heapPositions[v];
+        if (position == DEQUEUED) {
+            return;
+        }
+        if (position == UNQUEUED) {
+            position = heapSize++;
+            heap[position] = v;
+            heapPositions[v] = position;
+        }
+        siftUp(position);
+        if (heapPositions[v] == position) {
+            siftDown(position);
+        }
+    }
+
+    boolean isQueueEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Returns the cost of the queued vertex with the least cost.
+     *
+     * @return least queued cost
+     */
+    double leastQueuedCost() {
+        return costs[heap[0]];
+    }
+
+    /**
+     * Removes and returns the queued vertex with the least cost.
+     *
+     * @return vertex number
+     */
+    int dequeue() {
+        int v = heap[0];
+        heapPositions[v] = DEQUEUED;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapPositions[last] = 0;
+            siftDown(0);
+        }
+        return v;
+    }
+
+    private void siftUp(int position) {
+        int v = heap[position];
+        double cost = costs[v];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int p = heap[parent];
+            if (costs[p] <= cost) {
+                break;
+            }
+            heap[position] = p;
+            heapPositions[p] = position;
+            position = parent;
+        }
+        heap[position] = v;
+        heapPositions[v] = position;
+    }
+
+    private void siftDown(int position) {
+        int v = heap[position];
+        double cost = costs[v];
+        int half = heapSize >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < heapSize && costs[heap[right]] < costs[heap[child]]) {
+                child = right;
+            }
+            if (cost <= costs[heap[child]]) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapPositions[heap[child]] = position;
+            position = child;
+        }
+        heap[position] = v;
+        heapPositions[v] = position;
+    }
+}
@@ -0,0 +1,623 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onlab.packet;
+
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Read-only, lazily decoded view of an Ethernet frame.
+ * <p>
+ * Unlike {@link Ethernet#deserializer()}, which builds the complete object
+ * tree of a packet, the view reads header fields in place from the original
+ * bytes. Offsets of the network and transport headers are located on first
+ * use and cached, and all field accessors return primitives, so inspecting a
+ * packet allocates nothing beyond the view itself. A view may be re-pointed
+ * at another frame with {@link #reset(byte[], int, int)} to avoid even that.
+ * </p>
+ * <p>
+ * Accessors for a header are only meaningful when the corresponding
+ * {@code isXxx()} method returns true; otherwise they either throw
+ * {@link IndexOutOfBoundsException} or return unspecified values. Views are
+ * not thread-safe.
+ * </p>
+ */
+public final class PacketView {
+
+    private static final int UNKNOWN = -2;
+    private static final int ABSENT = -1;
+
+    private static final int ARP_LENGTH = 28;
+    private static final int IPV4_MIN_LENGTH = 20;
+    private static final int IPV6_LENGTH = 40;
+    private static final int TCP_MIN_LENGTH = 20;
+    private static final int UDP_LENGTH = 8;
+    private static final int ICMP_MIN_LENGTH = 4;
+    private static final int LLDP_TLV_HEADER_LENGTH = 2;
+
+    private byte[] data;
+    private int start;
+    private int end;
+
+    // lazily located offsets, absolute within data
+    private int networkOffset;
+    private int transportOffset;
+    private short etherType;
+    private short vlanId;
+    private byte priorityCode;
+
+    private PacketView() {
+    }
+
+    /**
+     * Creates a view of the frame held in the given bytes.
+     *
+     * @param data   frame bytes
+     * @param offset offset of the frame within the bytes
+     * @param length length of the frame
+     * @return packet view
+     * @throws IndexOutOfBoundsException if offset and length do not fit the bytes
+     */
+    public static PacketView wrap(byte[] data, int offset, int length) {
+        return new PacketView().reset(data, offset, length);
+    }
+
+    /**
+     * Creates a view of the whole given frame.
+     *
+     * @param data frame bytes
+     * @return packet view
+     */
+    public static PacketView wrap(byte[] data) {
+        return wrap(data, 0, checkNotNull(data).length);
+    }
+
+    /**
+     * Creates a view of the remaining bytes of the given buffer. The
+     * position of the buffer is not changed. Buffers without an accessible
+     * backing array are copied.
+     *
+     * @param buffer frame buffer
+     * @return packet view
+     */
+    public static PacketView wrap(ByteBuffer buffer) {
+        checkNotNull(buffer);
+        if (buffer.hasArray()) {
+            return wrap(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        buffer.remaining());
+        }
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        return wrap(copy);
+    }
+
+    /**
+     * Re-points this view at another frame.
+     *
+     * @param data   frame bytes
+     * @param offset offset of the frame within the bytes
+     * @param length length of the frame
+     * @return this view
+     * @throws IndexOutOfBoundsException if offset and length do not fit the bytes
+     */
+    public PacketView reset(byte[] data, int offset, int length) {
+        checkNotNull(data);
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("Unable to view " + length + " bytes from a "
+                    + data.length + " byte array starting at offset " + offset);
+        }
+        this.data = data;
+        this.start = offset;
+        this.end = offset + length;
+        this.networkOffset = UNKNOWN;
+        this.transportOffset = UNKNOWN;
+        return this;
+    }
+
+    /**
+     * Returns the bytes this view reads from; these are not copied.
+     *
+     * @return frame bytes
+     */
+    public byte[] data() {
+        return data;
+    }
+
+    /**
+     * Returns the length of the viewed frame.
+     *
+     * @return length in bytes
+     */
+    public int length() {
+        return end - start;
+    }
+
+    // Ethernet
+
+    /**
+     * Returns whether the frame holds a complete Ethernet header.
+     *
+     * @return true if the frame can be read as Ethernet
+     */
+    public boolean isEthernet() {
+        return end - start >= Ethernet.ETHERNET_HEADER_LENGTH;
+    }
+
+    /**
+     * Returns the destination MAC address as the low 48 bits of a long.
+     *
+     * @return destination MAC address
+     */
+    public long destinationMac() {
+        return getMac(start);
+    }
+
+    /**
+     * Returns the source MAC address as the low 48 bits of a long.
+     *
+     * @return source MAC address
+     */
+    public long sourceMac() {
+        return getMac(start + Ethernet.DATALAYER_ADDRESS_LENGTH);
+    }
+
+    /**
+     * Returns the ethertype of the frame payload, following an 802.1Q tag
+     * if present.
+     *
+     * @return ethertype
+     */
+    public short etherType() {
+        network();
+        return etherType;
+    }
+
+    /**
+     * Returns the VLAN identifier of the 802.1Q tag.
+     *
+     * @return VLAN identifier; {@link Ethernet#VLAN_UNTAGGED} if untagged
+     */
+    public short vlanId() {
+        network();
+        return vlanId;
+    }
+
+    /**
+     * Returns the priority code point of the 802.1Q tag.
+     *
+     * @return priority code; 0 if untagged
+     */
+    public byte priorityCode() {
+        network();
+        return priorityCode;
+    }
+
+    /**
+     * Returns the offset of the Ethernet payload within {@link #data()}.
+     *
+     * @return payload offset
+     */
+    public int payloadOffset() {
+        return network();
+    }
+
+    // ARP
+
+    /**
+     * Returns whether the frame holds a complete Ethernet/IPv4 ARP message.
+     *
+     * @return true if the frame is ARP
+     */
+    public boolean isArp() {
+        return isEthernet() && etherType() == Ethernet.TYPE_ARP &&
+                end - network() >= ARP_LENGTH;
+    }
+
+    /**
+     * Returns the ARP opcode.
+     *
+     * @return opcode
+     */
+    public short arpOpcode() {
+        return getShort(network() + 6);
+    }
+
+    /**
+     * Returns the ARP sender hardware address as the low 48 bits of a long.
+     *
+     * @return sender MAC address
+     */
+    public long arpSenderHardwareAddress() {
+        return getMac(network() + 8);
+    }
+
+    /**
+     * Returns the ARP sender protocol address.
+     *
+     * @return sender IPv4 address
+     */
+    public int arpSenderProtocolAddress() {
+        return getInt(network() + 14);
+    }
+
+    /**
+     * Returns the ARP target hardware address as the low 48 bits of a long.
+     *
+     * @return target MAC address
+     */
+    public long arpTargetHardwareAddress() {
+        return getMac(network() + 18);
+    }
+
+    /**
+     * Returns the ARP target protocol address.
+     *
+     * @return target IPv4 address
+     */
+    public int arpTargetProtocolAddress() {
+        return getInt(network() + 24);
+    }
+
+    // IPv4
+
+    /**
+     * Returns whether the frame holds a complete IPv4 header.
+     *
+     * @return true if the frame is IPv4
+     */
+    public boolean isIpv4() {
+        if (!isEthernet() || etherType() != Ethernet.TYPE_IPV4) {
+            return false;
+        }
+        int offset = network();
+        return end - offset >= IPV4_MIN_LENGTH &&
+                (data[offset] >> 4 & 0xf) == 4 &&
+                end - offset >= ipv4HeaderLength();
+    }
+
+    /**
+     * Returns the IPv4 header length.
+     *
+     * @return header length in bytes
+     */
+    public int ipv4HeaderLength() {
+        return (getByte(network()) & 0xf) * 4;
+    }
+
+    /**
+     * Returns the IPv4 differentiated services code point.
+     *
+     * @return DSCP
+     */
+    public byte ipv4Dscp() {
+        return (byte) ((getByte(network() + 1) & 0xff) >>> 2);
+    }
+
+    /**
+     * Returns the IPv4 time to live.
+     *
+     * @return TTL
+     */
+    public byte ipv4Ttl() {
+        return getByte(network() + 8);
+    }
+
+    /**
+     * Returns the IPv4 source address.
+     *
+     * @return source address
+     */
+    public int ipv4SourceAddress() {
+        return getInt(network() + 12);
+    }
+
+    /**
+     * Returns the IPv4 destination address.
+     *
+     * @return destination address
+     */
+    public int ipv4DestinationAddress() {
+        return getInt(network() + 16);
+    }
+
+    // IPv6
+
+    /**
+     * Returns whether the frame holds a complete IPv6 header.
+     *
+     * @return true if the frame is IPv6
+     */
+    public boolean isIpv6() {
+        return isEthernet() && etherType() == Ethernet.TYPE_IPV6 &&
+                end - network() >= IPV6_LENGTH &&
+                (data[network()] >> 4 & 0xf) == 6;
+    }
+
+    /**
+     * Returns the IPv6 hop limit.
+     *
+     * @return hop limit
+     */
+    public byte ipv6HopLimit() {
+        return getByte(network() + 7);
+    }
+
+    /**
+     * Returns the IPv6 flow label.
+     *
+     * @return flow label
+     */
+    public int ipv6FlowLabel() {
+        return getInt(network()) & 0xfffff;
+    }
+
+    /**
+     * Returns the offset of the IPv6 source address within {@link #data()}.
+     * The address may be compared in place or materialized with
+     * {@link Ip6Address#valueOf(byte[], int)}.
+     *
+     * @return source address offset
+     */
+    public int ipv6SourceAddressOffset() {
+        return network() + 8;
+    }
+
+    /**
+     * Returns the offset of the IPv6 destination address within
+     * {@link #data()}.
+     *
+     * @return destination address offset
+     */
+    public int ipv6DestinationAddressOffset() {
+        return network() + 24;
+    }
+
+    // transport
+
+    /**
+     * Returns the IPv4 protocol or the IPv6 next header.
+     *
+     * @return IP protocol number; -1 if the frame is neither IPv4 nor IPv6
+     */
+    public int ipProtocol() {
+        if (isIpv4()) {
+            return getByte(network() + 9) & 0xff;
+        } else if (isIpv6()) {
+            return getByte(network() + 6) & 0xff;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the offset of the transport header within {@link #data()}.
+     * Only the fixed IPv6 header is skipped; extension headers are reported
+     * as the protocol.
+     *
+     * @return transport offset; -1 if the frame is neither IPv4 nor IPv6
+     */
+    public int transportOffset() {
+        if (transportOffset == UNKNOWN) {
+            if (isIpv4()) {
+                transportOffset = network() + ipv4HeaderLength();
+            } else if (isIpv6()) {
+                transportOffset = network() + IPV6_LENGTH;
+            } else {
+                transportOffset = ABSENT;
+            }
+        }
+        return transportOffset;
+    }
+
+    /**
+     * Returns whether the frame holds a complete TCP header.
+     *
+     * @return true if the frame is TCP
+     */
+    public boolean isTcp() {
+        return ipProtocol() == (IPv4.PROTOCOL_TCP & 0xff) &&
+                end - transportOffset() >= TCP_MIN_LENGTH;
+    }
+
+    /**
+     * Returns whether the frame holds a complete UDP header.
+     *
+     * @return true if the frame is UDP
+     */
+    public boolean isUdp() {
+        return ipProtocol() == (IPv4.PROTOCOL_UDP & 0xff) &&
+                end - transportOffset() >= UDP_LENGTH;
+    }
+
+    /**
+     * Returns whether the frame holds an ICMP or ICMPv6 header.
+     *
+     * @return true if the frame is ICMP
+     */
+    public boolean isIcmp() {
+        int protocol = ipProtocol();
+        return (protocol == (IPv4.PROTOCOL_ICMP & 0xff) ||
+                protocol == (IPv6.PROTOCOL_ICMP6 & 0xff)) &&
+                end - transportOffset() >= ICMP_MIN_LENGTH;
+    }
+
+    /**
+     * Returns the TCP or UDP source port.
+     *
+     * @return source port
+     */
+    public int sourcePort() {
+        return getShort(transportOffset()) & 0xffff;
+    }
+
+    /**
+     * Returns the TCP or UDP destination port.
+     *
+     * @return destination port
+     */
+    public int destinationPort() {
+        return getShort(transportOffset() + 2) & 0xffff;
+    }
+
+    /**
+     * Returns the TCP flags.
+     *
+     * @return flags
+     */
+    public short tcpFlags() {
+        return (short) (getShort(transportOffset() + 12) & 0x1ff);
+    }
+
+    /**
+     * Returns the ICMP type.
+     *
+     * @return type
+     */
+    public byte icmpType() {
+        return getByte(transportOffset());
+    }
+
+    /**
+     * Returns the ICMP code.
+     *
+     * @return code
+     */
+    public byte icmpCode() {
+        return getByte(transportOffset() + 1);
+    }
+
+    // LLDP
+
+    /**
+     * Returns whether the frame is LLDP or BDDP.
+     *
+     * @return true if the frame is LLDP
+     */
+    public boolean isLldp() {
+        if (!isEthernet()) {
+            return false;
+        }
+        short type = etherType();
+        return type == Ethernet.TYPE_LLDP || type == Ethernet.TYPE_BSN;
+    }
+
+    /**
+     * Returns the offset of the value of the first LLDP TLV of the given
+     * type within {@link #data()}.
+     *
+     * @param type TLV type
+     * @return value offset; -1 if there is no such TLV
+     */
+    public int lldpTlvOffset(int type) {
+        int offset = network();
+        while (offset + LLDP_TLV_HEADER_LENGTH <= end) {
+            int header = getShort(offset) & 0xffff;
+            int tlvType = header >>> 9;
+            int tlvLength = header & 0x1ff;
+            if (tlvType == 0 || offset + LLDP_TLV_HEADER_LENGTH + tlvLength > end) {
+                return ABSENT;
+            }
+            if (tlvType == type) {
+                return offset + LLDP_TLV_HEADER_LENGTH;
+            }
+            offset += LLDP_TLV_HEADER_LENGTH + tlvLength;
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Returns the length of the LLDP TLV value at the given offset.
+     *
+     * @param valueOffset value offset as returned by {@link #lldpTlvOffset(int)}
+     * @return value length in bytes
+     */
+    public int lldpTlvLength(int valueOffset) {
+        return getShort(valueOffset - LLDP_TLV_HEADER_LENGTH) & 0x1ff;
+    }
+
+    // raw access
+
+    /**
+     * Returns the byte at the given offset within {@link #data()}.
+     *
+     * @param offset absolute offset
+     * @return byte value
+     */
+    public byte getByte(int offset) {
+        checkBounds(offset, 1);
+        return data[offset];
+    }
+
+    /**
+     * Returns the big-endian short at the given offset within {@link #data()}.
+     *
+     * @param offset absolute offset
+     * @return short value
+     */
+    public short getShort(int offset) {
+        checkBounds(offset, 2);
+        return (short) ((data[offset] & 0xff) << 8 | data[offset + 1] & 0xff);
+    }
+
+    /**
+     * Returns the big-endian int at the given offset within {@link #data()}.
+     *
+     * @param offset absolute offset
+     * @return int value
+     */
+    public int getInt(int offset) {
+        checkBounds(offset, 4);
+        return (data[offset] & 0xff) << 24 | (data[offset + 1] & 0xff) << 16 |
+                (data[offset + 2] & 0xff) << 8 | data[offset + 3] & 0xff;
+    }
+
+    private long getMac(int offset) {
+        checkBounds(offset, Ethernet.DATALAYER_ADDRESS_LENGTH);
+        long mac = 0;
+        for (int i = 0; i < Ethernet.DATALAYER_ADDRESS_LENGTH; i++) {
+            mac = mac << 8 | data[offset + i] & 0xff;
+        }
+        return mac;
+    }
+
+    private void checkBounds(int offset, int length) {
+        if (offset < start || offset + length > end) {
+            throw new IndexOutOfBoundsException("Unable to read " + length + " bytes at offset "
+                    + offset + " of a frame spanning " + start + " to " + end);
+        }
+    }
+
+    // Locates the network header, skipping an 802.1Q tag.
+    private int network() {
+        if (networkOffset == UNKNOWN) {
+            int offset = start + 2 * Ethernet.DATALAYER_ADDRESS_LENGTH;
+            short type = getShort(offset);
+            vlanId = Ethernet.VLAN_UNTAGGED;
+            priorityCode = 0;
+            if (type == Ethernet.TYPE_VLAN) {
+                short tci = getShort(offset + 2);
+                priorityCode = (byte) (tci >> 13 & 0x7);
+                vlanId = (short) (tci & 0xfff);
+                offset += Ethernet.VLAN_HEADER_LENGTH;
+                type = getShort(offset);
+            }
+            etherType = type;
+            networkOffset = offset + 2;
+        }
+        return networkOffset;
+    }
+}
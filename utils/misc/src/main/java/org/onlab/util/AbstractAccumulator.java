@@ -29,7 +29,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * Base implementation of an item accumulator. It allows triggering based on
  * item inter-arrival time threshold, maximum batch life threshold and maximum
- * batch size.
+ * batch size. Subclasses may override the threshold accessors to adapt the
+ * thresholds to their load.
  */
 public abstract class AbstractAccumulator<T> implements Accumulator<T> {
 
@@ -76,15 +77,15 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
         items.add(checkNotNull(item, "Item cannot be null"));
 
         // Did we hit the max item threshold?
-        if (items.size() >= maxItems) {
+        if (items.size() >= maxItems()) {
             maxTask = cancelIfActive(maxTask);
             scheduleNow();
         } else {
             // Otherwise, schedule idle task and if this is a first item
             // also schedule the max batch age task.
-            idleTask = schedule(maxIdleMillis);
+            idleTask = schedule(maxIdleMillis());
             if (items.size() == 1) {
-                maxTask = schedule(maxBatchMillis);
+                maxTask = schedule(maxBatchMillis());
             }
         }
     }
@@ -97,6 +98,9 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
         if (isReady()) {
             TimerTask task = new ProcessorTask(finalizeCurrentBatch());
             timer.schedule(task, 1);
+        } else {
+            // Retry once ready rather than waiting for the next item.
+            idleTask = schedule(maxIdleMillis());
         }
     }
 
@@ -154,7 +158,7 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
                 }
             } else {
                 synchronized (AbstractAccumulator.this) {
-                    idleTask = schedule(maxIdleMillis);
+                    idleTask = schedule(maxIdleMillis());
                 }
             }
         }
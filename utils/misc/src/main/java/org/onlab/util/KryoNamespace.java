@@ -17,6 +17,7 @@ package org.onlab.util;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.List;
 import org.apache.commons.lang3.tuple.Pair;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.ByteBufferOutput;
@@ -48,6 +50,9 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
     public static final int DEFAULT_BUFFER_SIZE = 4096;
     public static final int MAX_BUFFER_SIZE = 100 * 1000 * 1000;
 
+    // Prefix of the message Kryo uses when an output buffer is exhausted
+    private static final String BUFFER_OVERFLOW = "Buffer overflow";
+
     /**
      * ID to use if this KryoNamespace does not define registration id.
      */
@@ -250,8 +255,12 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
     /**
      * Serializes given object to byte buffer using Kryo instance in pool.
      *
+     * The buffer position is advanced past the serialized bytes.
+     *
      * @param obj Object to serialize
      * @param buffer to write to
+     * @throws BufferOverflowException if the object does not fit in the
+     *         remaining space of the buffer
      */
     public void serialize(final Object obj, final ByteBuffer buffer) {
         ByteBufferOutput out = new ByteBufferOutput(buffer);
@@ -259,6 +268,12 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
         try {
             kryo.writeClassAndObject(out, obj);
             out.flush();
+            buffer.position(out.position());
+        } catch (KryoException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith(BUFFER_OVERFLOW)) {
+                throw new BufferOverflowException();
+            }
+            throw e;
         } finally {
             release(kryo);
         }
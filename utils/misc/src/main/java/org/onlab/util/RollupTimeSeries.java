@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Fixed memory time series of a number of metrics, rolled up per second,
+ * per minute and per hour. Each resolution keeps a ring buffer of the most
+ * recent intervals, stored in primitive arrays; older intervals are dropped
+ * as the ring wraps around.
+ * <p>
+ * Metrics are recorded as amounts accumulated over a time span, such as the
+ * difference of two counter samples, and are spread evenly over the
+ * intervals the span covers.
+ * </p>
+ */
+public final class RollupTimeSeries {
+
+    /**
+     * Resolution of the intervals of a time series.
+     */
+    public enum Resolution {
+        SECOND(TimeUnit.SECONDS.toMillis(1)),
+        MINUTE(TimeUnit.MINUTES.toMillis(1)),
+        HOUR(TimeUnit.HOURS.toMillis(1));
+
+        private final long millis;
+
+        Resolution(long millis) {
+            this.millis = millis;
+        }
+
+        /**
+         * Returns the length of an interval in milliseconds.
+         *
+         * @return interval length
+         */
+        public long millis() {
+            return millis;
+        }
+
+        /**
+         * Returns the start of the interval containing the given time.
+         *
+         * @param timeMillis time in milliseconds
+         * @return interval start in milliseconds
+         */
+        public long intervalStart(long timeMillis) {
+            return Math.floorDiv(timeMillis, millis) * millis;
+        }
+    }
+
+    // default number of intervals kept per second, per minute and per hour
+    public static final int DEFAULT_SECONDS = 120;
+    public static final int DEFAULT_MINUTES = 120;
+    public static final int DEFAULT_HOURS = 48;
+
+    private final int metrics;
+    private final Ring[] rings = new Ring[Resolution.values().length];
+
+    /**
+     * Creates a time series of the given number of metrics with the default
+     * number of intervals per resolution.
+     *
+     * @param metrics number of metrics
+     */
+    public RollupTimeSeries(int metrics) {
+        this(metrics, DEFAULT_SECONDS, DEFAULT_MINUTES, DEFAULT_HOURS);
+    }
+
+    /**
+     * Creates a time series of the given number of metrics and intervals
+     * per resolution.
+     *
+     * @param metrics number of metrics
+     * @param seconds number of per second intervals kept
+     * @param minutes number of per minute intervals kept
+     * @param hours   number of per hour intervals kept
+     */
+    public RollupTimeSeries(int metrics, int seconds, int minutes, int hours) {
+        checkArgument(metrics > 0, "Number of metrics must be positive");
+        checkArgument(seconds > 0 && minutes > 0 && hours > 0, "Number of intervals must be positive");
+        this.metrics = metrics;
+        rings[Resolution.SECOND.ordinal()] = new Ring(Resolution.SECOND, seconds);
+        rings[Resolution.MINUTE.ordinal()] = new Ring(Resolution.MINUTE, minutes);
+        rings[Resolution.HOUR.ordinal()] = new Ring(Resolution.HOUR, hours);
+    }
+
+    /**
+     * Records amounts of all metrics accumulated over the given time span.
+     * Spans that are empty or run backwards are attributed to their end.
+     *
+     * @param fromMillis start of the time span, in milliseconds
+     * @param toMillis   end of the time span, in milliseconds
+     * @param amounts    amount of each metric
+     */
+    public synchronized void record(long fromMillis, long toMillis, long... amounts) {
+        checkArgument(amounts.length == metrics, "Expected %s metrics", metrics);
+        for (Ring ring : rings) {
+            ring.record(Math.min(fromMillis, toMillis), toMillis, amounts);
+        }
+    }
+
+    /**
+     * Returns the values of a metric in the intervals of the given resolution
+     * overlapping the given time range, starting with the interval containing
+     * the start of the range. Intervals no longer or not yet kept read zero;
+     * the range may span at most as many intervals as are kept.
+     *
+     * @param metric     index of the metric
+     * @param resolution interval resolution
+     * @param fromMillis start of the time range, in milliseconds
+     * @param toMillis   end of the time range, exclusive, in milliseconds
+     * @return value of the metric per interval
+     */
+    public synchronized long[] values(int metric, Resolution resolution, long fromMillis, long toMillis) {
+        checkArgument(metric >= 0 && metric < metrics, "Unknown metric %s", metric);
+        return rings[resolution.ordinal()].values(metric, fromMillis, toMillis);
+    }
+
+    /**
+     * Returns the number of intervals kept at the given resolution.
+     *
+     * @param resolution interval resolution
+     * @return number of intervals
+     */
+    public int capacity(Resolution resolution) {
+        return rings[resolution.ordinal()].intervals.length;
+    }
+
+    /**
+     * Ring buffer of the intervals of one resolution.
+     */
+    private final class Ring {
+        private final long millis;
+        // interval number of each slot, and the values of all metrics by slot
+        private final long[] intervals;
+        private final long[] values;
+
+        private Ring(Resolution resolution, int size) {
+            this.millis = resolution.millis();
+            this.intervals = new long[size];
+            this.values = new long[size * metrics];
+            Arrays.fill(intervals, Long.MIN_VALUE);
+        }
+
+        private void record(long fromMillis, long toMillis, long[] amounts) {
+            long first = Math.floorDiv(fromMillis, millis);
+            long last = Math.floorDiv(Math.max(fromMillis, toMillis - 1), millis);
+            // a span longer than the ring goes to the intervals still kept
+            first = Math.max(first, last - intervals.length + 1);
+            long span = Math.max(1, toMillis - Math.max(fromMillis, first * millis));
+
+            long[] remaining = amounts.clone();
+            for (long interval = first; interval <= last; interval++) {
+                long overlap = Math.min(toMillis, (interval + 1) * millis)
+                        - Math.max(fromMillis, interval * millis);
+                int slot = slot(interval);
+                if (slot < 0) {
+                    continue;
+                }
+                int base = slot * metrics;
+                for (int m = 0; m < metrics; m++) {
+                    // the last interval takes what rounding left over
+                    long share = interval == last ? remaining[m] : amounts[m] * overlap / span;
+                    values[base + m] += share;
+                    remaining[m] -= share;
+                }
+            }
+        }
+
+        // Returns the slot of an interval, clearing it if it held an older
+        // one; -1 if it holds a newer one and the interval is gone.
+        private int slot(long interval) {
+            int slot = (int) Math.floorMod(interval, (long) intervals.length);
+            if (intervals[slot] > interval) {
+                return -1;
+            } else if (intervals[slot] != interval) {
+                intervals[slot] = interval;
+                Arrays.fill(values, slot * metrics, (slot + 1) * metrics, 0L);
+            }
+            return slot;
+        }
+
+        private long[] values(int metric, long fromMillis, long toMillis) {
+            long first = Math.floorDiv(fromMillis, millis);
+            long end = Math.floorDiv(toMillis + millis - 1, millis);
+            checkArgument(end - first <= intervals.length, "Time range exceeds the %s intervals kept",
+                          intervals.length);
+            long[] result = new long[(int) Math.max(0, end - first)];
+            for (int i = 0; i < result.length; i++) {
+                long interval = first + i;
+                int slot = (int) Math.floorMod(interval, (long) intervals.length);
+                if (intervals[slot] == interval) {
+                    result[i] = values[slot * metrics + metric];
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests of the compact graph form.
+ */
+public class CompactGraphTest extends GraphTest {
+
+    @Test
+    public void basics() {
+        graph = new AdjacencyListsGraph<>(ImmutableSet.of(A, B, C, D, Z),
+                                          ImmutableSet.of(new TestEdge(A, B, 1), new TestEdge(A, C, 1),
+                                                          new TestEdge(B, D, 1), new TestEdge(C, D, 1)));
+        CompactGraph<TestVertex, TestEdge> compact = new CompactGraph<>(graph);
+        assertEquals("incorrect vertex count", 5, compact.vertexCount());
+        assertEquals("incorrect edge count", 4, compact.edgeCount());
+        assertEquals("incorrect index", -1, compact.index(H));
+
+        Set<TestEdge> edges = new HashSet<>();
+        for (TestVertex vertex : graph.getVertexes()) {
+            int v = compact.index(vertex);
+            assertSame("incorrect vertex", vertex, compact.vertex(v));
+            assertEquals("incorrect egress edge count", graph.getEdgesFrom(vertex).size(),
+                         compact.lastEdge(v) - compact.firstEdge(v));
+            for (int e = compact.firstEdge(v); e < compact.lastEdge(v); e++) {
+                TestEdge edge = compact.edge(e);
+                assertEquals("incorrect source", v, compact.source(e));
+                assertEquals("incorrect target", compact.index(edge.dst()), compact.target(e));
+                edges.add(edge);
+            }
+        }
+        assertEquals("incorrect edges", graph.getEdges(), edges);
+    }
+
+    @Test
+    public void cached() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        assertSame("compact form not cached", CompactGraph.of(graph), CompactGraph.of(graph));
+    }
+
+    @Test
+    public void search() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        CompactGraph<TestVertex, TestEdge> compact = CompactGraph.of(graph);
+        DijkstraGraphSearch<TestVertex, TestEdge> search = new DijkstraGraphSearch<>();
+        assertEquals("incorrect paths",
+                     search.search(graph, A, H, weight, GraphPathSearch.ALL_PATHS).paths(),
+                     search.search(compact, A, H, weight, GraphPathSearch.ALL_PATHS).paths());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onlab.packet;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for class {@link PacketView}.
+ */
+public class PacketViewTest {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final Ip4Address SRC_IP = Ip4Address.valueOf("10.0.0.1");
+    private static final Ip4Address DST_IP = Ip4Address.valueOf("10.0.0.2");
+
+    private static Ethernet ethernet(short etherType, IPacket payload) {
+        Ethernet eth = new Ethernet();
+        eth.setSourceMACAddress(SRC_MAC);
+        eth.setDestinationMACAddress(DST_MAC);
+        eth.setEtherType(etherType);
+        eth.setPayload(payload);
+        return eth;
+    }
+
+    private static Ethernet ipv4(byte protocol, IPacket payload) {
+        IPv4 ip = new IPv4();
+        ip.setSourceAddress(SRC_IP.toInt());
+        ip.setDestinationAddress(DST_IP.toInt());
+        ip.setTtl((byte) 64);
+        ip.setProtocol(protocol);
+        ip.setPayload(payload);
+        return ethernet(Ethernet.TYPE_IPV4, ip);
+    }
+
+    private static PacketView view(Ethernet eth) {
+        return PacketView.wrap(eth.serialize());
+    }
+
+    @Test
+    public void testTaggedTcp() throws Exception {
+        TCP tcp = new TCP();
+        tcp.setSourcePort(5000);
+        tcp.setDestinationPort(80);
+        tcp.setFlags((short) 0x12);
+        Ethernet eth = ipv4(IPv4.PROTOCOL_TCP, tcp);
+        eth.setVlanID((short) 10);
+        eth.setPriorityCode((byte) 3);
+        byte[] bytes = eth.serialize();
+
+        Ethernet parsed = Ethernet.deserializer().deserialize(bytes, 0, bytes.length);
+        PacketView view = PacketView.wrap(bytes);
+        assertTrue(view.isEthernet());
+        assertEquals(parsed.getDestinationMAC().toLong(), view.destinationMac());
+        assertEquals(parsed.getSourceMAC().toLong(), view.sourceMac());
+        assertEquals(parsed.getEtherType(), view.etherType());
+        assertEquals(parsed.getVlanID(), view.vlanId());
+        assertEquals(parsed.getPriorityCode(), view.priorityCode());
+
+        IPv4 ip = (IPv4) parsed.getPayload();
+        assertTrue(view.isIpv4());
+        assertFalse(view.isIpv6());
+        assertEquals(ip.getSourceAddress(), view.ipv4SourceAddress());
+        assertEquals(ip.getDestinationAddress(), view.ipv4DestinationAddress());
+        assertEquals(ip.getTtl(), view.ipv4Ttl());
+        assertEquals(ip.getHeaderLength() * 4, view.ipv4HeaderLength());
+        assertEquals(ip.getProtocol(), (byte) view.ipProtocol());
+
+        TCP parsedTcp = (TCP) ip.getPayload();
+        assertTrue(view.isTcp());
+        assertFalse(view.isUdp());
+        assertEquals(parsedTcp.getSourcePort(), view.sourcePort());
+        assertEquals(parsedTcp.getDestinationPort(), view.destinationPort());
+        assertEquals(parsedTcp.getFlags(), view.tcpFlags());
+    }
+
+    @Test
+    public void testUdp() {
+        UDP udp = new UDP();
+        udp.setSourcePort(68);
+        udp.setDestinationPort(67);
+        PacketView view = view(ipv4(IPv4.PROTOCOL_UDP, udp));
+        assertEquals(Ethernet.VLAN_UNTAGGED, view.vlanId());
+        assertTrue(view.isUdp());
+        assertFalse(view.isTcp());
+        assertEquals(68, view.sourcePort());
+        assertEquals(67, view.destinationPort());
+    }
+
+    @Test
+    public void testIcmp() {
+        ICMP icmp = new ICMP();
+        icmp.setIcmpType(ICMP.TYPE_ECHO_REQUEST);
+        icmp.setIcmpCode((byte) 0);
+        PacketView view = view(ipv4(IPv4.PROTOCOL_ICMP, icmp));
+        assertTrue(view.isIcmp());
+        assertEquals(ICMP.TYPE_ECHO_REQUEST, view.icmpType());
+        assertEquals(0, view.icmpCode());
+    }
+
+    @Test
+    public void testArp() {
+        ARP arp = new ARP();
+        arp.setHardwareType(ARP.HW_TYPE_ETHERNET);
+        arp.setProtocolType(ARP.PROTO_TYPE_IP);
+        arp.setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH);
+        arp.setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH);
+        arp.setOpCode(ARP.OP_REQUEST);
+        arp.setSenderHardwareAddress(SRC_MAC.toBytes());
+        arp.setSenderProtocolAddress(SRC_IP.toOctets());
+        arp.setTargetHardwareAddress(MacAddress.ZERO.toBytes());
+        arp.setTargetProtocolAddress(DST_IP.toOctets());
+        PacketView view = view(ethernet(Ethernet.TYPE_ARP, arp));
+        assertTrue(view.isArp());
+        assertFalse(view.isIpv4());
+        assertEquals(-1, view.ipProtocol());
+        assertEquals(ARP.OP_REQUEST, view.arpOpcode());
+        assertEquals(SRC_MAC.toLong(), view.arpSenderHardwareAddress());
+        assertEquals(SRC_IP.toInt(), view.arpSenderProtocolAddress());
+        assertEquals(0L, view.arpTargetHardwareAddress());
+        assertEquals(DST_IP.toInt(), view.arpTargetProtocolAddress());
+    }
+
+    @Test
+    public void testLldp() {
+        ONOSLLDP lldp = new ONOSLLDP();
+        lldp.setChassisId(new ChassisId(42));
+        lldp.setPortId(7);
+        lldp.setDevice("of:0000000000000001");
+        PacketView view = view(ethernet(Ethernet.TYPE_LLDP, lldp));
+        assertTrue(view.isLldp());
+        int offset = view.lldpTlvOffset(2);
+        assertTrue(offset > 0);
+        assertEquals(5, view.lldpTlvLength(offset));
+        assertEquals(7, view.getInt(offset + 1));
+        assertEquals(-1, view.lldpTlvOffset(100));
+    }
+
+    @Test
+    public void testBufferOffset() {
+        byte[] frame = ipv4(IPv4.PROTOCOL_UDP, new UDP()).serialize();
+        ByteBuffer buffer = ByteBuffer.allocate(frame.length + 10);
+        buffer.position(10);
+        buffer.put(frame);
+        buffer.position(10);
+        PacketView view = PacketView.wrap(buffer);
+        assertEquals(frame.length, view.length());
+        assertEquals(DST_MAC.toLong(), view.destinationMac());
+        assertEquals(10, buffer.position());
+        assertTrue(view.isUdp());
+    }
+
+    @Test
+    public void testTruncated() {
+        byte[] frame = ipv4(IPv4.PROTOCOL_TCP, new TCP()).serialize();
+        PacketView view = PacketView.wrap(frame, 0, Ethernet.ETHERNET_HEADER_LENGTH + 10);
+        assertTrue(view.isEthernet());
+        assertEquals(Ethernet.TYPE_IPV4, view.etherType());
+        assertFalse(view.isIpv4());
+        assertFalse(view.isTcp());
+
+        view.reset(frame, 0, 10);
+        assertFalse(view.isEthernet());
+        assertFalse(view.isIpv4());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadPastEnd() {
+        byte[] frame = ipv4(IPv4.PROTOCOL_TCP, new TCP()).serialize();
+        PacketView.wrap(frame, 0, Ethernet.ETHERNET_HEADER_LENGTH).ipv4SourceAddress();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.onlab.util.RollupTimeSeries.Resolution.HOUR;
+import static org.onlab.util.RollupTimeSeries.Resolution.MINUTE;
+import static org.onlab.util.RollupTimeSeries.Resolution.SECOND;
+
+/**
+ * Unit tests for the rollup time series.
+ */
+public class RollupTimeSeriesTest {
+
+    private static final long START = 1_000_000_000_000L;
+
+    private final RollupTimeSeries series = new RollupTimeSeries(2, 10, 5, 3);
+
+    @Test
+    public void spreadOverSpan() {
+        series.record(START, START + 4_000, 400, 40);
+        assertArrayEquals(new long[]{0, 100, 100, 100, 100, 0},
+                          series.values(0, SECOND, START - 1_000, START + 5_000));
+        assertArrayEquals(new long[]{10, 10, 10, 10},
+                          series.values(1, SECOND, START, START + 4_000));
+    }
+
+    @Test
+    public void rollups() {
+        long minute = MINUTE.intervalStart(START);
+        series.record(minute, minute + 90_000, 900, 0);
+        assertArrayEquals(new long[]{600, 300}, series.values(0, MINUTE, minute, minute + 120_000));
+        long hour = HOUR.intervalStart(minute);
+        assertEquals(900, series.values(0, HOUR, minute, minute + 1)[0]);
+        assertEquals(1, series.values(0, HOUR, hour, hour + 1).length);
+    }
+
+    @Test
+    public void roundingGoesToLastInterval() {
+        series.record(START, START + 3_000, 10, 0);
+        assertArrayEquals(new long[]{3, 3, 4}, series.values(0, SECOND, START, START + 3_000));
+    }
+
+    @Test
+    public void wrapsAround() {
+        series.record(START, START + 1_000, 5, 0);
+        series.record(START + 10_000, START + 11_000, 7, 0);
+        // the second interval took over the slot of the first
+        assertArrayEquals(new long[]{0}, series.values(0, SECOND, START, START + 1_000));
+        assertArrayEquals(new long[]{7}, series.values(0, SECOND, START + 10_000, START + 11_000));
+        // late samples for intervals already overwritten are dropped
+        series.record(START, START + 1_000, 3, 0);
+        assertArrayEquals(new long[]{7}, series.values(0, SECOND, START + 10_000, START + 11_000));
+    }
+
+    @Test
+    public void longSpanKeepsRecentIntervals() {
+        series.record(START, START + 100_000, 1_000, 0);
+        long[] values = series.values(0, SECOND, START + 90_000, START + 100_000);
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        assertEquals(1_000, total);
+    }
+
+    @Test
+    public void emptySpan() {
+        series.record(START + 500, START + 500, 8, 2);
+        assertArrayEquals(new long[]{8}, series.values(0, SECOND, START, START + 1_000));
+        assertArrayEquals(new long[]{2}, series.values(1, SECOND, START, START + 1_000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeTooLong() {
+        series.values(0, SECOND, START, START + 11_000);
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.onlab.netty;
 
+import io.netty.buffer.ByteBuf;
+
 import org.onlab.util.ByteArraySizeHashPrinter;
 import org.onosproject.store.cluster.messaging.Endpoint;
 
@@ -23,13 +25,18 @@ import com.google.common.base.MoreObjects;
 /**
  * Internal message representation with additional attributes
  * for supporting, synchronous request/reply behavior.
+ * <p>
+ * The payload is held either as a byte array or as a reference counted
+ * buffer. A buffer payload is owned by the message until it is handed off
+ * via {@link #payload()}, or until {@link #release()} is called.
  */
 public final class InternalMessage {
 
     private final long id;
     private final Endpoint sender;
     private final String type;
-    private final byte[] payload;
+    private byte[] payload;
+    private ByteBuf payloadBuffer;
 
     public InternalMessage(long id, Endpoint sender, String type, byte[] payload) {
         this.id = id;
@@ -38,6 +45,13 @@ public final class InternalMessage {
         this.payload = payload;
     }
 
+    public InternalMessage(long id, Endpoint sender, String type, ByteBuf payloadBuffer) {
+        this.id = id;
+        this.sender = sender;
+        this.type = type;
+        this.payloadBuffer = payloadBuffer;
+    }
+
     public long id() {
         return id;
     }
@@ -50,17 +64,48 @@ public final class InternalMessage {
         return sender;
     }
 
-    public byte[] payload() {
+    /**
+     * Returns the payload as a byte array. If the payload is held in a
+     * buffer, its content is copied out and the buffer is released.
+     *
+     * @return payload bytes
+     */
+    public synchronized byte[] payload() {
+        if (payload == null && payloadBuffer != null) {
+            payload = new byte[payloadBuffer.readableBytes()];
+            payloadBuffer.getBytes(payloadBuffer.readerIndex(), payload);
+            release();
+        }
         return payload;
     }
 
+    /**
+     * Returns the payload buffer, if the payload is held in one and has not
+     * been released yet.
+     *
+     * @return payload buffer or null
+     */
+    public synchronized ByteBuf payloadBuffer() {
+        return payloadBuffer;
+    }
+
+    /**
+     * Releases the payload buffer, if any. Safe to call more than once.
+     */
+    public synchronized void release() {
+        if (payloadBuffer != null) {
+            payloadBuffer.release();
+            payloadBuffer = null;
+        }
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("id", id)
                 .add("type", type)
                 .add("sender", sender)
-                .add("payload", ByteArraySizeHashPrinter.of(payload))
+                .add("payload", payloadBuffer != null ? payloadBuffer : ByteArraySizeHashPrinter.of(payload))
                 .toString();
     }
 }
@@ -82,8 +82,10 @@ public class MessageDecoder extends ReplayingDecoder<DecoderState> {
             contentLength = buffer.readInt();
             checkpoint(DecoderState.READ_CONTENT);
         case READ_CONTENT:
-            byte[] payload = new byte[contentLength];
-            buffer.readBytes(payload);
+            // payload is copied once out of the cumulation buffer, which
+            // the decoder compacts and reallocates regardless of retained
+            // slices; the copy is pooled and released by consumers
+            ByteBuf payload = buffer.readBytes(contentLength);
             InternalMessage message = new InternalMessage(
                     messageId,
                     new Endpoint(senderIp, senderPort),
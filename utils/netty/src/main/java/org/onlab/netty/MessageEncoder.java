@@ -16,11 +16,13 @@
 package org.onlab.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpAddress.Version;
@@ -31,10 +33,11 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Charsets;
 
 /**
- * Encode InternalMessage out into a byte buffer.
+ * Encode InternalMessage out into a header buffer followed by the payload
+ * buffer, which is handed to the channel without being copied.
  */
 @Sharable
-public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
+public class MessageEncoder extends MessageToMessageEncoder<InternalMessage> {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -42,7 +45,9 @@ public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
     protected void encode(
             ChannelHandlerContext context,
             InternalMessage message,
-            ByteBuf out) throws Exception {
+            List<Object> outs) throws Exception {
+
+        ByteBuf out = context.alloc().buffer();
 
         // write message id
         out.writeLong(message.id());
@@ -68,13 +73,29 @@ public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
         // write message type bytes
         out.writeBytes(messageTypeBytes);
 
+        ByteBuf payloadBuffer = message.payloadBuffer();
+        if (payloadBuffer != null) {
+            try {
+                // write payload length
+                out.writeInt(payloadBuffer.readableBytes());
+                outs.add(out);
+
+                // pass the pooled payload buffer on; the channel releases it
+                outs.add(payloadBuffer.retain());
+            } finally {
+                message.release();
+            }
+            return;
+        }
+
         byte[] payload = message.payload();
 
         // write payload length
         out.writeInt(payload.length);
+        outs.add(out);
 
         // write payload.
-        out.writeBytes(payload);
+        outs.add(Unpooled.wrappedBuffer(payload));
     }
 
     @Override
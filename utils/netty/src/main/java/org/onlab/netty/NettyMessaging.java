@@ -17,6 +17,8 @@ package org.onlab.netty;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -37,6 +39,8 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.security.KeyStore;
 
 import java.util.Map;
@@ -81,6 +85,8 @@ public class NettyMessaging implements MessagingService {
     private final AtomicBoolean started = new AtomicBoolean(false);
     private final Map<String, Consumer<InternalMessage>> handlers = new ConcurrentHashMap<>();
     private final AtomicLong messageIdGenerator = new AtomicLong(0);
+    // Buffer capacity that a payload last grew to, per message type
+    private final Map<String, Integer> payloadCapacities = new ConcurrentHashMap<>();
     private final Cache<Long, CompletableFuture<byte[]>> responseFutures = CacheBuilder.newBuilder()
             .expireAfterWrite(10, TimeUnit.SECONDS)
             .removalListener(new RemovalListener<Long, CompletableFuture<byte[]>>() {
@@ -161,6 +167,23 @@ public class NettyMessaging implements MessagingService {
         return sendAsync(ep, message);
     }
 
+    @Override
+    public CompletableFuture<Void> sendAsync(Endpoint ep, String type, Consumer<OutputStream> payloadWriter) {
+        ByteBuf payload;
+        try {
+            payload = encodePayload(type, payloadWriter);
+        } catch (Exception e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        InternalMessage message = new InternalMessage(messageIdGenerator.incrementAndGet(),
+                                                      localEp,
+                                                      type,
+                                                      payload);
+        return sendAsync(ep, message);
+    }
+
     protected CompletableFuture<Void> sendAsync(Endpoint ep, InternalMessage message) {
         CompletableFuture<Void> future = new CompletableFuture<>();
         try {
@@ -173,6 +196,7 @@ public class NettyMessaging implements MessagingService {
                     channel = channels.borrowObject(ep);
                     channel.writeAndFlush(message).addListener(channelFuture -> {
                         if (!channelFuture.isSuccess()) {
+                            message.release();
                             future.completeExceptionally(channelFuture.cause());
                         } else {
                             future.complete(null);
@@ -183,6 +207,7 @@ public class NettyMessaging implements MessagingService {
                 }
             }
         } catch (Exception e) {
+            message.release();
             future.completeExceptionally(e);
         }
         return future;
@@ -203,6 +228,51 @@ public class NettyMessaging implements MessagingService {
         return response;
     }
 
+    @Override
+    public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, Consumer<OutputStream> payloadWriter) {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        ByteBuf payload;
+        try {
+            payload = encodePayload(type, payloadWriter);
+        } catch (Exception e) {
+            response.completeExceptionally(e);
+            return response;
+        }
+        Long messageId = messageIdGenerator.incrementAndGet();
+        responseFutures.put(messageId, response);
+        InternalMessage message = new InternalMessage(messageId, localEp, type, payload);
+        try {
+            sendAsync(ep, message);
+        } catch (Exception e) {
+            responseFutures.invalidate(messageId);
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    /**
+     * Runs the payload writer once against a pooled direct buffer, which
+     * grows as the payload is written.
+     *
+     * @param type message type; used to remember the size the buffer grew to
+     * @param payloadWriter function writing the payload
+     * @return buffer holding the payload; caller owns the reference
+     */
+    private ByteBuf encodePayload(String type, Consumer<OutputStream> payloadWriter) {
+        int capacity = payloadCapacities.getOrDefault(type, DEFAULT_PAYLOAD_CAPACITY);
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(capacity, MAX_PAYLOAD_CAPACITY);
+        try {
+            payloadWriter.accept(new ByteBufOutputStream(buffer));
+        } catch (RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+        if (buffer.capacity() > capacity) {
+            payloadCapacities.put(type, buffer.capacity());
+        }
+        return buffer;
+    }
+
     @Override
     public void registerHandler(String type, Consumer<byte[]> handler, Executor executor) {
         handlers.put(type, message -> executor.execute(() -> handler.accept(message.payload())));
@@ -226,6 +296,50 @@ public class NettyMessaging implements MessagingService {
         }));
     }
 
+    @Override
+    public void registerBufferHandler(String type, Consumer<ByteBuffer> handler, Executor executor) {
+        handlers.put(type, message -> executeAndRelease(message, executor, () -> {
+            ByteBuf payload = message.payloadBuffer();
+            handler.accept(payload != null ? payload.nioBuffer() : ByteBuffer.wrap(message.payload()));
+        }));
+    }
+
+    @Override
+    public void registerBufferHandler(String type, Function<ByteBuffer, byte[]> handler, Executor executor) {
+        handlers.put(type, message -> executeAndRelease(message, executor, () -> {
+            ByteBuf payload = message.payloadBuffer();
+            byte[] responsePayload = handler.apply(payload != null
+                    ? payload.nioBuffer() : ByteBuffer.wrap(message.payload()));
+            if (responsePayload != null) {
+                InternalMessage response = new InternalMessage(message.id(),
+                        localEp,
+                        REPLY_MESSAGE_TYPE,
+                        responsePayload);
+                sendAsync(message.sender(), response).whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.debug("Failed to respond", error);
+                    }
+                });
+            }
+        }));
+    }
+
+    // Runs the task on the executor and releases the message payload once done
+    private void executeAndRelease(InternalMessage message, Executor executor, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    message.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            message.release();
+            throw e;
+        }
+    }
+
     @Override
     public void registerHandler(String type, Function<byte[], CompletableFuture<byte[]>> handler) {
         handlers.put(type, message -> {
@@ -418,6 +532,7 @@ public class NettyMessaging implements MessagingService {
             try {
                 dispatchLocally(message);
             } catch (RejectedExecutionException e) {
+                message.release();
                 log.warn("Unable to dispatch message due to {}", e.getMessage());
             }
         }
@@ -438,6 +553,7 @@ public class NettyMessaging implements MessagingService {
                 if (futureResponse != null) {
                     futureResponse.complete(message.payload());
                 } else {
+                    message.release();
                     log.warn("Received a reply for message id:[{}]. "
                             + " from {}. But was unable to locate the"
                             + " request handle", message.id(), message.sender());
@@ -451,6 +567,7 @@ public class NettyMessaging implements MessagingService {
         if (handler != null) {
             handler.accept(message);
         } else {
+            message.release();
             log.debug("No handler registered for {}", type);
         }
     }
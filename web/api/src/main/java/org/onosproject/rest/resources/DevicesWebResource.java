@@ -26,8 +26,11 @@ import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.util.Tools.nullIsNotFound;
@@ -43,14 +46,39 @@ public class DevicesWebResource extends AbstractWebResource {
 
     /**
      * Get all infrastructure devices.
-     * Returns array of all discovered infrastructure devices.
+     * Returns array of all discovered infrastructure devices, optionally
+     * filtered by type and availability. When a limit is given, devices are
+     * returned a page at a time, ordered by id, and the result carries the
+     * cursor of the next page in its "next" field.
      *
+     * @param type      device type; optional
+     * @param available device availability; optional
+     * @param cursor    cursor the page starts after; optional
+     * @param limit     maximum number of devices returned; optional
+     * @param fields    comma separated device fields returned; optional
      * @return 200 OK
      */
     @GET
-    public Response getDevices() {
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        return ok(encodeArray(Device.class, "devices", devices)).build();
+    public Response getDevices(@QueryParam("type") String type,
+                               @QueryParam("available") Boolean available,
+                               @QueryParam("cursor") String cursor,
+                               @QueryParam("limit") int limit,
+                               @QueryParam("fields") String fields) {
+        DeviceService service = get(DeviceService.class);
+        Predicate<Device> filter = device -> true;
+        if (type != null) {
+            Device.Type deviceType = Device.Type.valueOf(type.toUpperCase());
+            filter = filter.and(device -> device.type() == deviceType);
+        }
+        if (available != null) {
+            filter = filter.and(device -> service.isAvailable(device.id()) == available);
+        }
+        Iterator<Device> devices = StreamingArray.select(service.getDevices(), filter,
+                                                         device -> device.id().toString(),
+                                                         cursor, limit);
+        return new StreamingArray<>(this, codec(Device.class), "devices", devices,
+                                    device -> device.id().toString(), limit, fields)
+                .response().build();
     }
 
     /**
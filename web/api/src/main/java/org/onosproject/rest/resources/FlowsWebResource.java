@@ -19,6 +19,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
 
 import javax.ws.rs.Consumes;
@@ -28,14 +33,18 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.onlab.util.ItemNotFoundException;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.CoreService;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.rest.AbstractWebResource;
@@ -43,6 +52,11 @@ import org.onosproject.rest.AbstractWebResource;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Strings;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+import static org.onlab.util.Tools.nullIsNotFound;
 
 /**
  * Query and program flow rules.
@@ -51,6 +65,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 @Path("flows")
 public class FlowsWebResource extends AbstractWebResource {
     public static final String DEVICE_NOT_FOUND = "Device is not found";
+    public static final String APP_NOT_FOUND = "Application is not found";
 
     final FlowRuleService service = get(FlowRuleService.class);
     final ObjectNode root = mapper().createObjectNode();
@@ -58,46 +73,82 @@ public class FlowsWebResource extends AbstractWebResource {
 
     /**
      * Get all flow entries. Returns array of all flow rules in the system.
+     * The flows are streamed and may be filtered by application and state.
+     * When a limit is given, flows are returned a page at a time, ordered by
+     * device and flow id, and the result carries the cursor of the next page
+     * in its "next" field.
      *
-     * @return array of all the intents in the system
+     * @param appId  name of the application owning the flows; optional
+     * @param state  flow entry state; optional
+     * @param cursor cursor the page starts after; optional
+     * @param limit  maximum number of flows returned; optional
+     * @param fields comma separated flow fields returned; optional
+     * @return array of all the flows in the system
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getFlows() {
-        final Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (final Device device : devices) {
-            final Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (final FlowEntry entry : flowEntries) {
-                    flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                }
-            }
-        }
+    public Response getFlows(@QueryParam("appId") String appId,
+                             @QueryParam("state") String state,
+                             @QueryParam("cursor") String cursor,
+                             @QueryParam("limit") int limit,
+                             @QueryParam("fields") String fields) {
+        final Predicate<FlowEntry> filter = flowFilter(appId, state);
+        final boolean paged = limit > 0 || cursor != null;
+        final String cursorDevice = cursor == null ? null :
+                cursor.substring(0, Math.max(0, cursor.lastIndexOf('/')));
 
-        return ok(root).build();
+        final List<Device> devices = Lists.newArrayList(get(DeviceService.class).getDevices());
+        if (paged) {
+            devices.sort(Comparator.comparing((Device device) -> device.id().toString()));
+        }
+        // flows of a device are only fetched once the previous device is written
+        final Iterator<FlowEntry> entries = Iterators.concat(Iterators.transform(devices.iterator(), device -> {
+            int position = cursorDevice == null ? 1 : device.id().toString().compareTo(cursorDevice);
+            if (position < 0) {
+                return Collections.<FlowEntry>emptyIterator();
+            }
+            return StreamingArray.select(service.getFlowEntries(device.id()), filter,
+                                         FlowsWebResource::flowCursor,
+                                         position == 0 ? cursor : null, limit);
+        }));
+        return new StreamingArray<>(this, codec(FlowEntry.class), "flows", entries,
+                                    FlowsWebResource::flowCursor, limit, fields)
+                .response().build();
     }
 
     /**
      * Get flow entries of a device. Returns array of all flow rules for the
-     * specified device.
+     * specified device, filtered and paged as for all flows.
      *
      * @param deviceId device identifier
+     * @param appId    name of the application owning the flows; optional
+     * @param state    flow entry state; optional
+     * @param cursor   cursor the page starts after; optional
+     * @param limit    maximum number of flows returned; optional
+     * @param fields   comma separated flow fields returned; optional
      * @return flow data as an array
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("{deviceId}")
-    public Response getFlowByDeviceId(@PathParam("deviceId") String deviceId) {
+    public Response getFlowByDeviceId(@PathParam("deviceId") String deviceId,
+                                      @QueryParam("appId") String appId,
+                                      @QueryParam("state") String state,
+                                      @QueryParam("cursor") String cursor,
+                                      @QueryParam("limit") int limit,
+                                      @QueryParam("fields") String fields) {
         final Iterable<FlowEntry> flowEntries =
                 service.getFlowEntries(DeviceId.deviceId(deviceId));
 
         if (!flowEntries.iterator().hasNext()) {
             throw new ItemNotFoundException(DEVICE_NOT_FOUND);
         }
-        for (final FlowEntry entry : flowEntries) {
-            flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-        }
-        return ok(root).build();
+        final Iterator<FlowEntry> entries =
+                StreamingArray.select(flowEntries, flowFilter(appId, state),
+                                      FlowsWebResource::flowCursor, cursor, limit);
+        return new StreamingArray<>(this, codec(FlowEntry.class), "flows", entries,
+                                    FlowsWebResource::flowCursor, limit, fields)
+                .response().build();
     }
 
     /**
@@ -164,6 +215,27 @@ public class FlowsWebResource extends AbstractWebResource {
                 .build();
     }
 
+    // Filter of flow entries by owning application and state.
+    private Predicate<FlowEntry> flowFilter(String appId, String state) {
+        Predicate<FlowEntry> filter = entry -> true;
+        if (appId != null) {
+            ApplicationId app = nullIsNotFound(get(CoreService.class).getAppId(appId),
+                                               APP_NOT_FOUND);
+            filter = filter.and(entry -> entry.appId() == app.id());
+        }
+        if (state != null) {
+            FlowEntryState flowState = FlowEntryState.valueOf(state.toUpperCase());
+            filter = filter.and(entry -> entry.state() == flowState);
+        }
+        return filter;
+    }
+
+    // Cursor of a flow entry; the flow id is written in fixed width so that
+    // cursors of a device sort in flow id order.
+    private static String flowCursor(FlowEntry entry) {
+        return entry.deviceId() + "/" + Strings.padStart(Long.toHexString(entry.id().value()), 16, '0');
+    }
+
     /**
      * Remove flow rule. Removes the specified flow rule.
      *
@@ -39,6 +39,7 @@ import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
@@ -51,6 +52,7 @@ import java.net.URI;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import static org.onlab.util.Tools.nullIsNotFound;
 import static org.onosproject.net.HostId.hostId;
@@ -67,16 +69,33 @@ public class HostsWebResource extends AbstractWebResource {
 
     /**
      * Get all end-station hosts.
-     * Returns array of all known end-station hosts.
+     * Returns array of all known end-station hosts, optionally only those
+     * attached to a device. When a limit is given, hosts are returned a page
+     * at a time, ordered by id, and the result carries the cursor of the next
+     * page in its "next" field.
      *
+     * @param deviceId identifier of the device the hosts are attached to; optional
+     * @param cursor   cursor the page starts after; optional
+     * @param limit    maximum number of hosts returned; optional
+     * @param fields   comma separated host fields returned; optional
      * @return 200 OK
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getHosts() {
-        final Iterable<Host> hosts = get(HostService.class).getHosts();
-        final ObjectNode root = encodeArray(Host.class, "hosts", hosts);
-        return ok(root).build();
+    public Response getHosts(@QueryParam("deviceId") String deviceId,
+                             @QueryParam("cursor") String cursor,
+                             @QueryParam("limit") int limit,
+                             @QueryParam("fields") String fields) {
+        Predicate<Host> filter = host -> true;
+        if (deviceId != null) {
+            filter = host -> host.location().deviceId().toString().equals(deviceId);
+        }
+        final Iterator<Host> hosts = StreamingArray.select(get(HostService.class).getHosts(), filter,
+                                                           host -> host.id().toString(),
+                                                           cursor, limit);
+        return new StreamingArray<>(this, codec(Host.class), "hosts", hosts,
+                                    host -> host.id().toString(), limit, fields)
+                .response().build();
     }
 
     /**
@@ -17,9 +17,13 @@ package org.onosproject.rest.resources;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -28,6 +32,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -47,6 +52,8 @@ import org.onosproject.net.intent.PointToPointIntent;
 import org.onosproject.rest.AbstractWebResource;
 import org.slf4j.Logger;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import static org.onlab.util.Tools.nullIsNotFound;
@@ -66,19 +73,51 @@ public class IntentsWebResource extends AbstractWebResource {
     private static final int WITHDRAW_EVENT_TIMEOUT_SECONDS = 5;
 
     public static final String INTENT_NOT_FOUND = "Intent is not found";
+    public static final String APP_NOT_FOUND = "Application is not found";
 
     /**
      * Get all intents.
-     * Returns array containing all the intents in the system.
+     * Returns array containing all the intents in the system, optionally
+     * filtered by application and state. When a limit is given, intents are
+     * returned a page at a time, ordered by application and key, and the
+     * result carries the cursor of the next page in its "next" field.
      *
+     * @param appId  name of the application owning the intents; optional
+     * @param state  intent state; optional
+     * @param cursor cursor the page starts after; optional
+     * @param limit  maximum number of intents returned; optional
+     * @param fields comma separated intent fields returned; optional
      * @return array of all the intents in the system
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getIntents() {
-        final Iterable<Intent> intents = get(IntentService.class).getIntents();
-        final ObjectNode root = encodeArray(Intent.class, "intents", intents);
-        return ok(root).build();
+    public Response getIntents(@QueryParam("appId") String appId,
+                               @QueryParam("state") String state,
+                               @QueryParam("cursor") String cursor,
+                               @QueryParam("limit") int limit,
+                               @QueryParam("fields") String fields) {
+        final IntentService service = get(IntentService.class);
+        Predicate<Intent> filter = intent -> true;
+        if (appId != null) {
+            final ApplicationId app = nullIsNotFound(get(CoreService.class).getAppId(appId),
+                                                     APP_NOT_FOUND);
+            filter = filter.and(intent -> app.equals(intent.appId()));
+        }
+        if (state != null) {
+            final IntentState intentState = IntentState.valueOf(state.toUpperCase());
+            filter = filter.and(intent -> service.getIntentState(intent.key()) == intentState);
+        }
+        final Iterator<Intent> intents = StreamingArray.select(service.getIntents(), filter,
+                                                               IntentsWebResource::intentCursor,
+                                                               cursor, limit);
+        return new StreamingArray<>(this, codec(Intent.class), "intents", intents,
+                                    IntentsWebResource::intentCursor, limit, fields)
+                .response().build();
+    }
+
+    // Cursor of an intent, made of its application name and key.
+    private static String intentCursor(Intent intent) {
+        return intent.appId().name() + "/" + intent.key();
     }
 
     /**
@@ -162,6 +201,99 @@ public class IntentsWebResource extends AbstractWebResource {
         }
     }
 
+    /**
+     * Submit a batch of new intents.
+     * Creates and submits all intents of the JSON request at once.
+     *
+     * @param stream input JSON with an array of intents
+     * @return status of the request - ACCEPTED if the JSON is correct,
+     * BAD_REQUEST if the JSON is invalid
+     */
+    @POST
+    @Path("batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response createIntents(InputStream stream) {
+        try {
+            ObjectNode root = (ObjectNode) mapper().readTree(stream);
+            List<Intent> intents = codec(Intent.class).decode(intentsArray(root), this);
+            get(IntentService.class).submitAll(intents);
+            return Response.status(Response.Status.ACCEPTED)
+                    .entity(encodeKeys(intents))
+                    .build();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        }
+    }
+
+    /**
+     * Withdraw a batch of intents.
+     * Withdraws all intents given by application and key in the JSON request
+     * at once; intents not found are ignored.
+     *
+     * @param stream input JSON with an array of intent application and keys
+     * @return status of the request - ACCEPTED if the JSON is correct,
+     * BAD_REQUEST if the JSON is invalid
+     */
+    @POST
+    @Path("batch/withdraw")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response deleteIntents(InputStream stream) {
+        try {
+            ObjectNode root = (ObjectNode) mapper().readTree(stream);
+            List<Intent> intents = new ArrayList<>();
+            for (JsonNode node : intentsArray(root)) {
+                ApplicationId app = get(CoreService.class).getAppId(node.path("appId").asText());
+                Intent intent = app == null ? null : lookup(app, node.path("key").asText());
+                if (intent != null) {
+                    intents.add(intent);
+                }
+            }
+            get(IntentService.class).withdrawAll(intents);
+            return Response.status(Response.Status.ACCEPTED)
+                    .entity(encodeKeys(intents))
+                    .build();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        }
+    }
+
+    // Returns the array of intents of a batch request.
+    private ArrayNode intentsArray(ObjectNode root) {
+        JsonNode intents = root.get("intents");
+        if (intents == null || !intents.isArray()) {
+            throw new IllegalArgumentException("Intents array is missing");
+        }
+        return (ArrayNode) intents;
+    }
+
+    // Looks the intent up by its string key or else its numerical key.
+    private Intent lookup(ApplicationId app, String key) {
+        IntentService service = get(IntentService.class);
+        Intent intent = service.getIntent(Key.of(key, app));
+        if (intent == null) {
+            try {
+                intent = service.getIntent(Key.of(Long.decode(key), app));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return intent;
+    }
+
+    // Encodes the application and key of the given intents.
+    private ObjectNode encodeKeys(List<Intent> intents) {
+        ObjectNode root = mapper().createObjectNode();
+        ArrayNode array = root.putArray("intents");
+        for (Intent intent : intents) {
+            array.addObject()
+                    .put("appId", intent.appId().name())
+                    .put("key", intent.key().toString());
+        }
+        return root;
+    }
+
     /**
      * Withdraw intent.
      * Withdraws the specified intent from the system.
@@ -19,6 +19,7 @@ import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.stream.StreamSupport;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -30,6 +31,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
+import org.onlab.util.RollupTimeSeries.Resolution;
 import org.onosproject.codec.JsonCodec;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.Device;
@@ -39,7 +41,9 @@ import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.TableStatisticsEntry;
 import org.onosproject.net.link.LinkService;
+import org.onosproject.net.statistic.FlowStatisticService;
 import org.onosproject.net.statistic.Load;
+import org.onosproject.net.statistic.PortStatisticHistoryService;
 import org.onosproject.net.statistic.StatisticService;
 import org.onosproject.rest.AbstractWebResource;
 
@@ -54,6 +58,8 @@ import static org.onosproject.net.PortNumber.portNumber;
  */
 @Path("statistics")
 public class StatisticsWebResource  extends AbstractWebResource {
+    private static final int DEFAULT_INTERVALS = 60;
+
     @Context
     UriInfo uriInfo;
 
@@ -153,4 +159,85 @@ public class StatisticsWebResource  extends AbstractWebResource {
         rootArrayNode.add(deviceStatsNode);
         return ok(root).build();
     }
+
+    /**
+     * Get the history of a port counter of a specified port.
+     *
+     * @param deviceId   device ID
+     * @param port       port number
+     * @param metric     (optional) counter; one of BYTES_SENT, BYTES_RECEIVED,
+     *                   PACKETS_SENT, PACKETS_RECEIVED
+     * @param resolution (optional) interval resolution; one of SECOND,
+     *                   MINUTE, HOUR
+     * @param from       (optional) start of the time range, in milliseconds
+     * @param to         (optional) end of the time range, in milliseconds
+     * @return JSON encoded counter increase per interval
+     */
+    @GET
+    @Path("ports/{deviceId}/{port}/history")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getPortHistory(@PathParam("deviceId") String deviceId,
+                                   @PathParam("port") String port,
+                                   @QueryParam("metric") @DefaultValue("BYTES_SENT") String metric,
+                                   @QueryParam("resolution") @DefaultValue("SECOND") String resolution,
+                                   @QueryParam("from") Long from,
+                                   @QueryParam("to") Long to) {
+        PortStatisticHistoryService.MetricType metricType = PortStatisticHistoryService.MetricType.valueOf(metric);
+        Resolution res = Resolution.valueOf(resolution);
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_INTERVALS * res.millis();
+        long[] values = get(PortStatisticHistoryService.class)
+                .history(new ConnectPoint(deviceId(deviceId), portNumber(port)), metricType, res, start, end);
+
+        ObjectNode root = historyNode(res, start, values);
+        root.put("device", deviceId);
+        root.put("port", port);
+        root.put("metric", metricType.toString());
+        return ok(root).build();
+    }
+
+    /**
+     * Get the history of the flow counters of a specified device, summed
+     * over all its flows.
+     *
+     * @param deviceId   device ID
+     * @param metric     (optional) counter; one of BYTES, PACKETS
+     * @param resolution (optional) interval resolution; one of SECOND,
+     *                   MINUTE, HOUR
+     * @param from       (optional) start of the time range, in milliseconds
+     * @param to         (optional) end of the time range, in milliseconds
+     * @return JSON encoded counter increase per interval
+     */
+    @GET
+    @Path("flows/{deviceId}/history")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getFlowHistory(@PathParam("deviceId") String deviceId,
+                                   @QueryParam("metric") @DefaultValue("BYTES") String metric,
+                                   @QueryParam("resolution") @DefaultValue("SECOND") String resolution,
+                                   @QueryParam("from") Long from,
+                                   @QueryParam("to") Long to) {
+        FlowStatisticService.MetricType metricType = FlowStatisticService.MetricType.valueOf(metric);
+        Resolution res = Resolution.valueOf(resolution);
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_INTERVALS * res.millis();
+        long[] values = get(FlowStatisticService.class)
+                .history(deviceId(deviceId), metricType, res, start, end);
+
+        ObjectNode root = historyNode(res, start, values);
+        root.put("device", deviceId);
+        root.put("metric", metricType.toString());
+        return ok(root).build();
+    }
+
+    private ObjectNode historyNode(Resolution resolution, long start, long[] values) {
+        ObjectNode root = mapper().createObjectNode();
+        root.put("resolution", resolution.toString());
+        root.put("start", resolution.intervalStart(start));
+        root.put("interval", resolution.millis());
+        ArrayNode valuesNode = root.putArray("values");
+        for (long value : values) {
+            valuesNode.add(value);
+        }
+        return root;
+    }
 }
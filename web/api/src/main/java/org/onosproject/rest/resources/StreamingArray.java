@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.rest.resources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import org.onosproject.codec.CodecContext;
+import org.onosproject.codec.JsonCodec;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * JSON object holding an array of items, streamed to the client one item at
+ * a time instead of being built as a whole tree before it is written.
+ * <p>
+ * The array may be limited to a page of items, in which case the object also
+ * carries the cursor from which the next page starts, and the items may be
+ * projected onto a set of their top level fields.
+ * </p>
+ */
+final class StreamingArray<T> implements StreamingOutput {
+
+    /**
+     * Field holding the cursor of the next page.
+     */
+    static final String NEXT = "next";
+
+    // items written between flushes of the generator
+    private static final int FLUSH_ITEMS = 256;
+
+    private final CodecContext context;
+    private final JsonCodec<T> codec;
+    private final String field;
+    private final Iterator<T> items;
+    private final Function<T, String> cursor;
+    private final int limit;
+    private final Set<String> fields;
+
+    /**
+     * Creates a streamed array of the given items.
+     *
+     * @param context codec context
+     * @param codec   codec of the items
+     * @param field   field holding the array
+     * @param items   items, in cursor order when paged
+     * @param cursor  function giving the cursor of an item
+     * @param limit   maximum number of items written; 0 for all of them
+     * @param fields  comma separated fields the items are projected onto;
+     *                null or empty for all fields
+     */
+    StreamingArray(CodecContext context, JsonCodec<T> codec, String field,
+                   Iterator<T> items, Function<T, String> cursor,
+                   int limit, String fields) {
+        checkArgument(limit >= 0, "Limit must not be negative");
+        this.context = context;
+        this.codec = codec;
+        this.field = field;
+        this.items = items;
+        this.cursor = cursor;
+        this.limit = limit;
+        this.fields = fields == null ? ImmutableSet.of() :
+                ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(fields));
+    }
+
+    /**
+     * Returns the response streaming the array.
+     *
+     * @return response builder
+     */
+    Response.ResponseBuilder response() {
+        return Response.ok(this).type(MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        JsonGenerator generator = context.mapper().getFactory().createGenerator(output);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart(field);
+
+        int count = 0;
+        T last = null;
+        while ((limit == 0 || count < limit) && items.hasNext()) {
+            last = items.next();
+            ObjectNode node = codec.encode(last, context);
+            if (!fields.isEmpty()) {
+                node.retain(fields);
+            }
+            context.mapper().writeTree(generator, node);
+            if (++count % FLUSH_ITEMS == 0) {
+                generator.flush();
+            }
+        }
+        generator.writeEndArray();
+
+        if (last != null && items.hasNext()) {
+            generator.writeStringField(NEXT, cursor.apply(last));
+        }
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    /**
+     * Returns the items passing the filter. Unless all items are requested,
+     * they are ordered by their cursors and start after the given cursor.
+     * <p>
+     * The services hand out their items in no particular order, so every
+     * page still scans the whole collection; only the items of the page,
+     * plus one telling whether another page follows, are kept and sorted.
+     * Without a limit, all the items after the cursor are sorted.
+     * </p>
+     *
+     * @param items  items
+     * @param filter filter of the items
+     * @param cursor function giving the cursor of an item
+     * @param after  cursor the items start after; null for the first page
+     * @param limit  number of items of the page; 0 for all of them
+     * @param <T>    item type
+     * @return iterator of the selected items
+     */
+    static <T> Iterator<T> select(Iterable<T> items, Predicate<T> filter,
+                                  Function<T, String> cursor, String after,
+                                  int limit) {
+        if (items == null) {
+            return Collections.emptyIterator();
+        }
+        if (limit == 0 && after == null) {
+            return Iterators.filter(items.iterator(), filter::test);
+        }
+        // Cursors are derived once per item, not on every comparison
+        Iterator<Map.Entry<String, T>> selected = Iterators.filter(
+                Iterators.transform(Iterators.filter(items.iterator(), filter::test),
+                                    item -> Maps.immutableEntry(cursor.apply(item), item)),
+                entry -> after == null || entry.getKey().compareTo(after) > 0);
+        Ordering<Map.Entry<String, T>> order = Ordering.from(Map.Entry.comparingByKey());
+        List<Map.Entry<String, T>> sorted = limit == 0 ?
+                order.sortedCopy(Lists.newArrayList(selected)) : order.leastOf(selected, limit + 1);
+        return Iterators.transform(sorted.iterator(), Map.Entry::getValue);
+    }
+}
@@ -551,6 +551,67 @@ public class FlowsResourceTest extends ResourceTest {
         assertThat(jsonFlows, not(hasFlow(flow6)));
     }
 
+    /**
+     * Tests the first page of a paged rest api GET of all flows.
+     */
+    @Test
+    public void testFlowsFirstPage() {
+        setupMockFlows();
+        replay(mockFlowService);
+        replay(mockDeviceService);
+        final WebResource rs = resource();
+        final String response = rs.path("flows").queryParam("limit", "3").get(String.class);
+        final JsonObject result = JsonObject.readFrom(response);
+
+        final JsonArray jsonFlows = result.get("flows").asArray();
+        assertThat(jsonFlows.size(), is(3));
+        assertThat(jsonFlows, hasFlow(flow1));
+        assertThat(jsonFlows, hasFlow(flow2));
+        assertThat(jsonFlows, hasFlow(flow3));
+        assertThat(result.get("next").asString(),
+                   is(deviceId2 + "/" + String.format("%016x", flow3.id().value())));
+    }
+
+    /**
+     * Tests the last page of a paged rest api GET of all flows.
+     */
+    @Test
+    public void testFlowsLastPage() {
+        setupMockFlows();
+        replay(mockFlowService);
+        replay(mockDeviceService);
+        final WebResource rs = resource();
+        final String cursor = deviceId2 + "/" + String.format("%016x", flow3.id().value());
+        final String response = rs.path("flows").queryParam("limit", "3")
+                .queryParam("cursor", cursor).get(String.class);
+        final JsonObject result = JsonObject.readFrom(response);
+
+        assertThat(result.names(), hasSize(1));
+        final JsonArray jsonFlows = result.get("flows").asArray();
+        assertThat(jsonFlows.size(), is(1));
+        assertThat(jsonFlows, hasFlow(flow4));
+    }
+
+    /**
+     * Tests a rest api GET of flows projected onto some of their fields.
+     */
+    @Test
+    public void testFlowsProjected() {
+        setupMockFlows();
+        replay(mockFlowService);
+        replay(mockDeviceService);
+        final WebResource rs = resource();
+        final String response = rs.path("flows/" + deviceId1)
+                .queryParam("fields", "id,deviceId").get(String.class);
+        final JsonObject result = JsonObject.readFrom(response);
+
+        final JsonArray jsonFlows = result.get("flows").asArray();
+        assertThat(jsonFlows.size(), is(2));
+        for (int i = 0; i < jsonFlows.size(); i++) {
+            assertThat(jsonFlows.get(i).asObject().names(), Matchers.containsInAnyOrder("id", "deviceId"));
+        }
+    }
+
     /**
      * Tests that a fetch of a non-existent device object throws an exception.
      */
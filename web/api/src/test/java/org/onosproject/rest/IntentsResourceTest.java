@@ -19,6 +19,7 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
 
 import javax.ws.rs.core.MediaType;
 
@@ -403,6 +404,32 @@ public class IntentsResourceTest extends ResourceTest {
         assertThat(location, Matchers.startsWith("/intents/myApp/"));
     }
 
+    /**
+     * Tests creating a batch of intents with POST.
+     */
+    @Test
+    public void testBatchPost() {
+        ApplicationId testId = new DefaultApplicationId(2, "myApp");
+        expect(mockCoreService.getAppId("myApp"))
+                .andReturn(testId).anyTimes();
+        replay(mockCoreService);
+
+        expect(mockIntentService.submitAll(anyObject()))
+                .andReturn(CompletableFuture.completedFuture(Collections.emptyMap()));
+        replay(mockIntentService);
+
+        InputStream jsonStream = IntentsResourceTest.class
+                .getResourceAsStream("post-intents.json");
+        WebResource rs = resource();
+
+        ClientResponse response = rs.path("intents/batch")
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .post(ClientResponse.class, jsonStream);
+        assertThat(response.getStatus(), is(HttpURLConnection.HTTP_ACCEPTED));
+        JsonObject result = JsonObject.readFrom(response.getEntity(String.class));
+        assertThat(result.get("intents").asArray().size(), is(2));
+    }
+
     /**
      * Tests creating an intent with POST and illegal JSON.
      */
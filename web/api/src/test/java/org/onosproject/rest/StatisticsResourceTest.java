@@ -23,11 +23,13 @@ import org.junit.Test;
 import org.onlab.osgi.ServiceDirectory;
 import org.onlab.osgi.TestServiceDirectory;
 import org.onlab.rest.BaseResource;
+import org.onlab.util.RollupTimeSeries.Resolution;
 import org.onosproject.codec.CodecService;
 import org.onosproject.codec.impl.CodecManager;
 import org.onosproject.net.Link;
 import org.onosproject.net.link.LinkService;
 import org.onosproject.net.statistic.DefaultLoad;
+import org.onosproject.net.statistic.PortStatisticHistoryService;
 import org.onosproject.net.statistic.StatisticService;
 
 import com.eclipsesource.json.JsonArray;
@@ -59,6 +61,7 @@ public class StatisticsResourceTest extends ResourceTest {
 
     LinkService mockLinkService;
     StatisticService mockStatisticService;
+    PortStatisticHistoryService mockPortHistoryService;
 
     /**
      * Initializes test mocks and environment.
@@ -79,7 +82,13 @@ public class StatisticsResourceTest extends ResourceTest {
         expect(mockStatisticService.load(link3))
                 .andReturn(new DefaultLoad(222, 111, 1));
 
-        replay(mockLinkService, mockStatisticService);
+        mockPortHistoryService = createMock(PortStatisticHistoryService.class);
+        expect(mockPortHistoryService.history(connectPoint("0000000000000001", 2),
+                                              PortStatisticHistoryService.MetricType.BYTES_RECEIVED,
+                                              Resolution.MINUTE, 60_000L, 240_000L))
+                .andReturn(new long[]{10, 20, 30});
+
+        replay(mockLinkService, mockStatisticService, mockPortHistoryService);
 
         // Register the services needed for the test
         CodecManager codecService = new CodecManager();
@@ -88,6 +97,7 @@ public class StatisticsResourceTest extends ResourceTest {
                 new TestServiceDirectory()
                         .add(LinkService.class, mockLinkService)
                         .add(StatisticService.class, mockStatisticService)
+                        .add(PortStatisticHistoryService.class, mockPortHistoryService)
                         .add(CodecService.class, codecService);
 
         BaseResource.setServiceDirectory(testDirectory);
@@ -176,4 +186,29 @@ public class StatisticsResourceTest extends ResourceTest {
         checkValues(load3, 111, 222, true, "src3");
 
     }
+
+    /**
+     * Tests GET of the history of a port counter.
+     */
+    @Test
+    public void testPortHistoryGet() {
+        final WebResource rs = resource();
+        final String response = rs.path("statistics/ports/of:0000000000000001/2/history")
+                .queryParam("metric", "BYTES_RECEIVED")
+                .queryParam("resolution", "MINUTE")
+                .queryParam("from", "60000")
+                .queryParam("to", "240000")
+                .get(String.class);
+
+        final JsonObject result = JsonObject.readFrom(response);
+        assertThat(result, notNullValue());
+        assertThat(result.get("device").asString(), is("of:0000000000000001"));
+        assertThat(result.get("metric").asString(), is("BYTES_RECEIVED"));
+        assertThat(result.get("start").asLong(), is(60_000L));
+        assertThat(result.get("interval").asLong(), is(60_000L));
+
+        final JsonArray values = result.get("values").asArray();
+        assertThat(values.size(), is(3));
+        assertThat(values.get(2).asLong(), is(30L));
+    }
 }
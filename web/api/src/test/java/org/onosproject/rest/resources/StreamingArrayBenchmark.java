@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.rest.resources;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Strings;
+import org.onosproject.codec.JsonCodec;
+import org.onosproject.codec.impl.MockCodecContext;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.CoreService;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+
+/**
+ * Auxiliary test fixture to measure the heap use and latency of streaming
+ * and paging a large list of flows, against building the whole JSON tree.
+ * <p>
+ * Arguments: flow count, page size, pages fetched.
+ */
+public final class StreamingArrayBenchmark {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "bench");
+
+    private StreamingArrayBenchmark() {
+    }
+
+    /**
+     * Main entry point to launch the benchmark.
+     *
+     * @param args command-line arguments
+     * @throws IOException if writing the JSON fails
+     */
+    public static void main(String[] args) throws IOException {
+        int flows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int pageSize = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int pageCount = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        MockCodecContext context = new MockCodecContext();
+        context.registerService(CoreService.class, new CoreServiceAdapter() {
+            @Override
+            public ApplicationId getAppId(Short id) {
+                return APP_ID;
+            }
+        });
+        JsonCodec<FlowEntry> codec = context.codec(FlowEntry.class);
+
+        List<FlowEntry> entries = new ArrayList<>(flows);
+        for (int f = 0; f < flows; f++) {
+            entries.add(new DefaultFlowEntry(DefaultFlowRule.builder()
+                    .forDevice(DID)
+                    .withCookie(f)
+                    .withSelector(DefaultTrafficSelector.builder()
+                                          .matchInPort(PortNumber.portNumber(f)).build())
+                    .withTreatment(DefaultTrafficTreatment.builder()
+                                           .setOutput(PortNumber.portNumber(f + 1)).build())
+                    .withPriority(10)
+                    .makePermanent()
+                    .build()));
+        }
+        out.println(String.format("Loaded %,d flows", flows));
+
+        tree(context, codec, entries);
+        stream(context, codec, entries);
+        pages(context, codec, entries, pageSize, pageCount);
+    }
+
+    // Whole tree built before writing, as the resources used to do.
+    private static void tree(MockCodecContext context, JsonCodec<FlowEntry> codec,
+                             List<FlowEntry> entries) throws IOException {
+        long base = usedHeap();
+        long start = nanoTime();
+        ArrayNode array = context.mapper().createArrayNode();
+        entries.forEach(entry -> array.add(codec.encode(entry, context)));
+        ObjectNode root = context.mapper().createObjectNode();
+        root.set("flows", array);
+        long treeHeap = usedHeap() - base;
+        CountingStream sink = new CountingStream(base);
+        context.mapper().writeTree(context.mapper().getFactory().createGenerator(sink), root);
+        report("Tree", nanoTime() - start, sink.bytes, treeHeap);
+    }
+
+    // Items encoded and written one at a time.
+    private static void stream(MockCodecContext context, JsonCodec<FlowEntry> codec,
+                               List<FlowEntry> entries) throws IOException {
+        long base = usedHeap();
+        long start = nanoTime();
+        CountingStream sink = new CountingStream(base);
+        new StreamingArray<>(context, codec, "flows", entries.iterator(),
+                             StreamingArrayBenchmark::cursor, 0, null).write(sink);
+        report("Stream", nanoTime() - start, sink.bytes, sink.peakHeap);
+    }
+
+    // The first pages, each selected from the whole list and streamed.
+    private static void pages(MockCodecContext context, JsonCodec<FlowEntry> codec,
+                              List<FlowEntry> entries, int pageSize, int pageCount)
+            throws IOException {
+        CountingStream sink = new CountingStream(usedHeap());
+        String after = null;
+        int pages = 0;
+        long start = nanoTime();
+        do {
+            Iterator<FlowEntry> page = StreamingArray.select(entries, entry -> true,
+                                                             StreamingArrayBenchmark::cursor,
+                                                             after, pageSize);
+            List<FlowEntry> selected = new ArrayList<>(pageSize + 1);
+            page.forEachRemaining(selected::add);
+            new StreamingArray<>(context, codec, "flows", selected.iterator(),
+                                 StreamingArrayBenchmark::cursor, pageSize, null).write(sink);
+            after = selected.size() > pageSize ? cursor(selected.get(pageSize - 1)) : null;
+            pages++;
+        } while (after != null && pages < pageCount);
+        long elapsed = nanoTime() - start;
+        report("Pages", elapsed, sink.bytes, sink.peakHeap);
+        out.println(String.format("%,d pages of %,d flows: %,.1f ms per page",
+                                  pages, pageSize, elapsed / 1_000_000.0 / pages));
+    }
+
+    // Same ordering as the cursors of the flows resource.
+    private static String cursor(FlowEntry entry) {
+        return entry.deviceId() + "/" + Strings.padStart(Long.toHexString(entry.id().value()), 16, '0');
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String mode, long nanos, long bytes, long heap) {
+        out.println(String.format("%-6s: %,8.1f ms, %,d bytes of JSON, %,d MB of heap above baseline",
+                                  mode, nanos / 1_000_000.0, bytes, heap >> 20));
+    }
+
+    // Discards the JSON, counting its bytes and sampling the heap use on
+    // every flush, without forcing a collection.
+    private static final class CountingStream extends OutputStream {
+        private final long base;
+        private long bytes;
+        private long peakHeap;
+
+        private CountingStream(long base) {
+            this.base = base;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+
+        @Override
+        public void flush() {
+            Runtime runtime = Runtime.getRuntime();
+            peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory() - base);
+        }
+    }
+}
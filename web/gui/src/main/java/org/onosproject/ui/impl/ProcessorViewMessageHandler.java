@@ -44,17 +44,21 @@ public class ProcessorViewMessageHandler extends UiMessageHandler {
     private static final String DIRECTOR = "director";
     private static final String ADVISOR = "advisor";
 
+    private static final String SYNC = "sync";
+    private static final String ASYNC = "async";
+
     private static final String ID = "id";
     private static final String TYPE = "type";
     private static final String PRIORITY = "priority";
     private static final String PROCESSOR = "processor";
+    private static final String MODE = "mode";
     private static final String PACKETS = "packets";
     private static final String AVG_MS = "avgMillis";
 
     private static final long NANOS_IN_MS = 1_000_000;
 
     private static final String[] COL_IDS = {
-            ID, TYPE, PRIORITY, PROCESSOR, PACKETS, AVG_MS
+            ID, TYPE, PRIORITY, PROCESSOR, MODE, PACKETS, AVG_MS
     };
 
     @Override
@@ -91,6 +95,7 @@ public class ProcessorViewMessageHandler extends UiMessageHandler {
                     .cell(TYPE, processorType(entry.priority()))
                     .cell(PRIORITY, processorPriority(entry.priority()))
                     .cell(PROCESSOR, entry.processor().getClass().getName())
+                    .cell(MODE, entry.isAsync() ? ASYNC : SYNC)
                     .cell(PACKETS, entry.invocations())
                     .cell(AVG_MS, (double) entry.averageNanos() / NANOS_IN_MS);
         }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ui.impl;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Topology view message about a single element, such as the addition,
+ * update or removal of a device, and the rules by which a newer message
+ * about the same element is merged into a pending one.
+ * <p>
+ * The message is encoded at most once, so that the same text can be handed
+ * to every session.
+ * </p>
+ */
+final class TopoUpdate {
+
+    static final String ADD = "add";
+    static final String UPDATE = "update";
+    static final String REMOVE = "remove";
+
+    private final String kind;
+    private final String subject;
+    private final String key;
+    private final ObjectNode message;
+    private volatile String text;
+
+    private TopoUpdate(String kind, String subject, String key, ObjectNode message) {
+        this.kind = kind;
+        this.subject = subject;
+        this.key = key;
+        this.message = message;
+    }
+
+    /**
+     * Creates an update from a topology view message.
+     *
+     * @param message message with an event such as addDevice and a payload
+     *                with the id of the element
+     * @return topology update
+     */
+    static TopoUpdate of(ObjectNode message) {
+        checkNotNull(message, "Message cannot be null");
+        String event = message.path("event").asText();
+        String kind = kind(event);
+        String subject = event.substring(kind.length());
+        return new TopoUpdate(kind, subject, subject + ":" + message.path("payload").path("id").asText(),
+                              message);
+    }
+
+    private static String kind(String event) {
+        if (event.startsWith(ADD)) {
+            return ADD;
+        } else if (event.startsWith(REMOVE)) {
+            return REMOVE;
+        } else if (event.startsWith(UPDATE)) {
+            return UPDATE;
+        }
+        return "";
+    }
+
+    /**
+     * Returns the kind of the update: add, update, remove or, for other
+     * messages, an empty string.
+     *
+     * @return update kind
+     */
+    String kind() {
+        return kind;
+    }
+
+    /**
+     * Returns the key of the element the update is about, made of the kind
+     * of element and its id.
+     *
+     * @return element key
+     */
+    String key() {
+        return key;
+    }
+
+    /**
+     * Returns the encoded message.
+     *
+     * @return message text
+     */
+    String text() {
+        String encoded = text;
+        if (encoded == null) {
+            encoded = message.toString();
+            text = encoded;
+        }
+        return encoded;
+    }
+
+    // Returns a copy of this update changed to the given kind.
+    private TopoUpdate withKind(String newKind) {
+        if (newKind.equals(kind)) {
+            return this;
+        }
+        ObjectNode copy = message.deepCopy();
+        copy.put("event", newKind + subject);
+        return new TopoUpdate(newKind, subject, key, copy);
+    }
+
+    /**
+     * Merges an update into a map of pending updates keyed by element, in
+     * the place of the pending update of the same element, if any, so that
+     * elements keep their order. Removing an element added by a pending
+     * update drops both, as the element was never shown; any later update
+     * of an added element remains an addition; adding an element removed
+     * by a pending update turns into an update.
+     *
+     * @param pending pending updates by element key
+     * @param update  newer update
+     * @return true if the update was merged with a pending one
+     */
+    static boolean merge(Map<String, TopoUpdate> pending, TopoUpdate update) {
+        TopoUpdate previous = pending.get(update.key);
+        if (previous == null) {
+            pending.put(update.key, update);
+            return false;
+        }
+        if (ADD.equals(previous.kind) && REMOVE.equals(update.kind)) {
+            pending.remove(update.key);
+        } else if (ADD.equals(previous.kind)) {
+            pending.put(update.key, update.withKind(ADD));
+        } else if (REMOVE.equals(previous.kind) && ADD.equals(update.kind)) {
+            pending.put(update.key, update.withKind(UPDATE));
+        } else {
+            pending.put(update.key, update);
+        }
+        return true;
+    }
+}
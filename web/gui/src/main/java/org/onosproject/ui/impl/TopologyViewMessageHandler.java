@@ -16,6 +16,7 @@
 package org.onosproject.ui.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableSet;
@@ -23,7 +24,6 @@ import org.onlab.osgi.ServiceDirectory;
 import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.Accumulator;
 import org.onosproject.cluster.ClusterEvent;
-import org.onosproject.cluster.ClusterEventListener;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
@@ -31,7 +31,6 @@ import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.event.Event;
 import org.onosproject.mastership.MastershipAdminService;
 import org.onosproject.mastership.MastershipEvent;
-import org.onosproject.mastership.MastershipListener;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
@@ -40,7 +39,6 @@ import org.onosproject.net.HostId;
 import org.onosproject.net.HostLocation;
 import org.onosproject.net.Link;
 import org.onosproject.net.device.DeviceEvent;
-import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.FlowRuleEvent;
@@ -48,7 +46,6 @@ import org.onosproject.net.flow.FlowRuleListener;
 import org.onosproject.net.flow.TrafficSelector;
 import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.host.HostEvent;
-import org.onosproject.net.host.HostListener;
 import org.onosproject.net.intent.HostToHostIntent;
 import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentEvent;
@@ -56,7 +53,6 @@ import org.onosproject.net.intent.IntentListener;
 import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.MultiPointToSinglePointIntent;
 import org.onosproject.net.link.LinkEvent;
-import org.onosproject.net.link.LinkListener;
 import org.onosproject.ui.JsonUtils;
 import org.onosproject.ui.RequestHandler;
 import org.onosproject.ui.UiConnection;
@@ -65,12 +61,14 @@ import org.onosproject.ui.topo.Highlights;
 import org.onosproject.ui.topo.NodeSelection;
 import org.onosproject.ui.topo.PropertyPanel;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -83,7 +81,6 @@ import static org.onosproject.net.DeviceId.deviceId;
 import static org.onosproject.net.HostId.hostId;
 import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_ADDED;
 import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_UPDATED;
-import static org.onosproject.net.device.DeviceEvent.Type.PORT_STATS_UPDATED;
 import static org.onosproject.net.host.HostEvent.Type.HOST_ADDED;
 import static org.onosproject.net.link.LinkEvent.Type.LINK_ADDED;
 import static org.onosproject.ui.JsonUtils.envelope;
@@ -156,6 +153,8 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
             (o1, o2) -> o1.id().toString().compareTo(o2.id().toString());
 
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final Timer timer = new Timer("onos-topology-view");
 
     private static final int MAX_EVENTS = 1000;
@@ -164,11 +163,6 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
 
     private ApplicationId appId;
 
-    private final ClusterEventListener clusterListener = new InternalClusterListener();
-    private final MastershipListener mastershipListener = new InternalMastershipListener();
-    private final DeviceListener deviceListener = new InternalDeviceListener();
-    private final LinkListener linkListener = new InternalLinkListener();
-    private final HostListener hostListener = new InternalHostListener();
     private final IntentListener intentListener = new InternalIntentListener();
     private final FlowRuleListener flowListener = new InternalFlowListener();
 
@@ -687,11 +681,7 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
     // Adds all internal listeners.
     private synchronized void addListeners() {
         listenersRemoved = false;
-        clusterService.addListener(clusterListener);
-        mastershipService.addListener(mastershipListener);
-        deviceService.addListener(deviceListener);
-        linkService.addListener(linkListener);
-        hostService.addListener(hostListener);
+        TopologyViewPublisher.subscribe(this, directory);
         intentService.addListener(intentListener);
         flowService.addListener(flowListener);
     }
@@ -700,64 +690,66 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
     private synchronized void removeListeners() {
         if (!listenersRemoved) {
             listenersRemoved = true;
-            clusterService.removeListener(clusterListener);
-            mastershipService.removeListener(mastershipListener);
-            deviceService.removeListener(deviceListener);
-            linkService.removeListener(linkListener);
-            hostService.removeListener(hostListener);
+            TopologyViewPublisher.unsubscribe(this);
             intentService.removeListener(intentListener);
             flowService.removeListener(flowListener);
         }
     }
 
-    // Cluster event listener.
-    private class InternalClusterListener implements ClusterEventListener {
-        @Override
-        public void event(ClusterEvent event) {
-            msgSender.execute(() -> sendMessage(instanceMessage(event, null)));
-        }
-    }
-
-    // Mastership change listener
-    private class InternalMastershipListener implements MastershipListener {
-        @Override
-        public void event(MastershipEvent event) {
-            msgSender.execute(() -> {
-                sendAllInstances(UPDATE_INSTANCE);
-                Device device = deviceService.getDevice(event.subject());
-                if (device != null) {
-                    sendMessage(deviceMessage(new DeviceEvent(DEVICE_UPDATED, device)));
-                }
-            });
-        }
-    }
-
-    // Device event listener.
-    private class InternalDeviceListener implements DeviceListener {
-        @Override
-        public void event(DeviceEvent event) {
-            if (event.type() != PORT_STATS_UPDATED) {
-                msgSender.execute(() -> sendMessage(deviceMessage(event)));
-                eventAccummulator.add(event);
+    /**
+     * Produces the messages describing the effect of a topology event; they
+     * are the same for all sessions.
+     *
+     * @param event cluster, mastership, device, link or host event
+     * @return messages bound to the clients
+     */
+    List<ObjectNode> topoMessages(Event event) {
+        List<ObjectNode> messages = new ArrayList<>();
+        if (event instanceof ClusterEvent) {
+            messages.add(instanceMessage((ClusterEvent) event, null));
+        } else if (event instanceof MastershipEvent) {
+            List<ControllerNode> nodes = new ArrayList<>(clusterService.getNodes());
+            Collections.sort(nodes, NODE_COMPARATOR);
+            for (ControllerNode node : nodes) {
+                messages.add(instanceMessage(new ClusterEvent(INSTANCE_ADDED, node), UPDATE_INSTANCE));
             }
+            Device device = deviceService.getDevice(((MastershipEvent) event).subject());
+            if (device != null) {
+                messages.add(deviceMessage(new DeviceEvent(DEVICE_UPDATED, device)));
+            }
+        } else if (event instanceof DeviceEvent) {
+            messages.add(deviceMessage((DeviceEvent) event));
+        } else if (event instanceof LinkEvent) {
+            messages.add(linkMessage((LinkEvent) event));
+        } else if (event instanceof HostEvent) {
+            messages.add(hostMessage((HostEvent) event));
         }
+        return messages;
     }
 
-    // Link event listener.
-    private class InternalLinkListener implements LinkListener {
-        @Override
-        public void event(LinkEvent event) {
-            msgSender.execute(() -> sendMessage(linkMessage(event)));
-            eventAccummulator.add(event);
-        }
-    }
-
-    // Host event listener.
-    private class InternalHostListener implements HostListener {
-        @Override
-        public void event(HostEvent event) {
-            msgSender.execute(() -> sendMessage(hostMessage(event)));
-            eventAccummulator.add(event);
+    /**
+     * Delivers a topology delta to the client of this session.
+     *
+     * @param version version of the topology the delta brings the client to
+     * @param updates updates by the element they describe
+     * @param events  events the delta was made of
+     */
+    void topoDelta(long version, Map<String, TopoUpdate> updates, List<Event> events) {
+        UiConnection connection = connection();
+        if (connection instanceof UiWebSocket) {
+            ((UiWebSocket) connection).sendUpdates(version, updates);
+        } else if (connection != null) {
+            updates.values().forEach(update -> connection.sendMessage(parse(update.text())));
+        }
+        events.stream().filter(event -> !(event instanceof ClusterEvent || event instanceof MastershipEvent))
+                .forEach(eventAccummulator::add);
+    }
+
+    private ObjectNode parse(String message) {
+        try {
+            return (ObjectNode) MAPPER.readTree(message);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
         }
     }
 
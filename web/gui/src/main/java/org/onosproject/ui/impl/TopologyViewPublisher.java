@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ui.impl;
+
+import com.google.common.collect.Maps;
+import org.onlab.osgi.ServiceDirectory;
+import org.onlab.util.AbstractAccumulator;
+import org.onlab.util.Accumulator;
+import org.onosproject.cluster.ClusterEventListener;
+import org.onosproject.cluster.ClusterService;
+import org.onosproject.event.Event;
+import org.onosproject.mastership.MastershipListener;
+import org.onosproject.mastership.MastershipService;
+import org.onosproject.net.device.DeviceListener;
+import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.host.HostListener;
+import org.onosproject.net.host.HostService;
+import org.onosproject.net.link.LinkListener;
+import org.onosproject.net.link.LinkService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.onosproject.net.device.DeviceEvent.Type.PORT_STATS_UPDATED;
+
+/**
+ * Publishes topology changes to all sessions of the topology view.
+ * <p>
+ * Topology events are collected into batches. Each batch is turned into one
+ * delta, holding the latest message of every element changed in the batch,
+ * which is encoded once and handed as the same text to every subscribed
+ * session. Deltas are numbered by the version of the topology they bring the
+ * sessions to.
+ * </p>
+ */
+final class TopologyViewPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(TopologyViewPublisher.class);
+
+    private static final int MAX_EVENTS = 1000;
+    private static final int MAX_BATCH_MS = 200;
+    private static final int MAX_IDLE_MS = 50;
+
+    private static TopologyViewPublisher instance;
+
+    private final ClusterService clusterService;
+    private final MastershipService mastershipService;
+    private final DeviceService deviceService;
+    private final LinkService linkService;
+    private final HostService hostService;
+
+    private final ClusterEventListener clusterListener = this::submit;
+    private final MastershipListener mastershipListener = this::submit;
+    private final DeviceListener deviceListener = event -> {
+        if (event.type() != PORT_STATS_UPDATED) {
+            submit(event);
+        }
+    };
+    private final LinkListener linkListener = this::submit;
+    private final HostListener hostListener = this::submit;
+
+    private final Timer timer = new Timer("onos-topology-view-publisher");
+    private final Accumulator<Event> accumulator = new InternalEventAccumulator();
+    private final List<TopologyViewMessageHandler> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile long version;
+
+    private TopologyViewPublisher(ServiceDirectory directory) {
+        clusterService = directory.get(ClusterService.class);
+        mastershipService = directory.get(MastershipService.class);
+        deviceService = directory.get(DeviceService.class);
+        linkService = directory.get(LinkService.class);
+        hostService = directory.get(HostService.class);
+    }
+
+    /**
+     * Subscribes a topology view session to the topology deltas, starting
+     * the publisher for the first session.
+     *
+     * @param handler   topology view message handler of the session
+     * @param directory service directory
+     * @return the publisher
+     */
+    static synchronized TopologyViewPublisher subscribe(TopologyViewMessageHandler handler,
+                                                        ServiceDirectory directory) {
+        if (instance == null) {
+            instance = new TopologyViewPublisher(directory);
+            instance.addListeners();
+        }
+        instance.subscribers.add(handler);
+        return instance;
+    }
+
+    /**
+     * Unsubscribes a topology view session, stopping the publisher once no
+     * session is left.
+     *
+     * @param handler topology view message handler of the session
+     */
+    static synchronized void unsubscribe(TopologyViewMessageHandler handler) {
+        if (instance != null && instance.subscribers.remove(handler) && instance.subscribers.isEmpty()) {
+            instance.removeListeners();
+            instance = null;
+        }
+    }
+
+    /**
+     * Returns the version of the topology last published.
+     *
+     * @return topology version
+     */
+    long version() {
+        return version;
+    }
+
+    private void addListeners() {
+        clusterService.addListener(clusterListener);
+        mastershipService.addListener(mastershipListener);
+        deviceService.addListener(deviceListener);
+        linkService.addListener(linkListener);
+        hostService.addListener(hostListener);
+    }
+
+    private void removeListeners() {
+        clusterService.removeListener(clusterListener);
+        mastershipService.removeListener(mastershipListener);
+        deviceService.removeListener(deviceListener);
+        linkService.removeListener(linkListener);
+        hostService.removeListener(hostListener);
+        timer.cancel();
+    }
+
+    private void submit(Event event) {
+        accumulator.add(event);
+    }
+
+    // Turns a batch of events into a delta and hands it to all sessions.
+    private void publish(List<Event> events) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // messages do not depend on the session, so any one of them encodes
+        TopologyViewMessageHandler encoder = subscribers.get(0);
+        Map<String, TopoUpdate> delta = Maps.newLinkedHashMap();
+        for (Event event : events) {
+            encoder.topoMessages(event).forEach(message -> TopoUpdate.merge(delta, TopoUpdate.of(message)));
+        }
+
+        long deltaVersion = ++version;
+        log.debug("Publishing topology version {}: {} events, {} updates",
+                  deltaVersion, events.size(), delta.size());
+        for (TopologyViewMessageHandler subscriber : subscribers) {
+            subscriber.topoDelta(deltaVersion, delta, events);
+        }
+    }
+
+    // Accumulates topology events into batches.
+    private class InternalEventAccumulator extends AbstractAccumulator<Event> {
+        InternalEventAccumulator() {
+            super(timer, MAX_EVENTS, MAX_BATCH_MS, MAX_IDLE_MS);
+        }
+
+        @Override
+        public void processItems(List<Event> items) {
+            try {
+                publish(items);
+            } catch (Exception e) {
+                log.warn("Unable to publish topology changes", e);
+            }
+        }
+    }
+}
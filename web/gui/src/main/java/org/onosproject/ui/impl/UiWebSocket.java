@@ -15,12 +15,17 @@
  */
 package org.onosproject.ui.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.eclipse.jetty.websocket.WebSocket;
 import org.onlab.osgi.ServiceDirectory;
 import org.onlab.osgi.ServiceNotFoundException;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.ui.UiConnection;
@@ -33,8 +38,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Web socket capable of interacting with the GUI.
@@ -50,7 +63,22 @@ public class UiWebSocket
     private static final byte PONG = 0xA;
     private static final byte[] PING_DATA = new byte[]{(byte) 0xde, (byte) 0xad};
 
+    // topology updates written per flush, and the pause between flushes
+    private static final int MAX_UPDATES_PER_FLUSH = 200;
+    private static final long FLUSH_INTERVAL_MS = 100;
+    // pending topology updates beyond which the client is better off reloading
+    private static final int MAX_PENDING_UPDATES = 50_000;
+
+    private static final String METRICS_COMPONENT = "GuiWebSocket";
+    private static final String UPDATES_SENT = "topoUpdatesSent";
+    private static final String UPDATES_COALESCED = "topoUpdatesCoalesced";
+    private static final String UPDATES_PENDING = "topoUpdatesPending";
+    private static final String VERSION_LAG = "topoVersionLag";
+
+    private static final AtomicInteger SESSIONS = new AtomicInteger();
+
     private final ServiceDirectory directory;
+    private final ScheduledExecutorService flusher;
 
     private Connection connection;
     private FrameConnection control;
@@ -62,13 +90,28 @@ public class UiWebSocket
     private Map<String, UiMessageHandler> handlers;
     private TopoOverlayCache overlayCache;
 
+    private final String session = "session-" + SESSIONS.incrementAndGet();
+
+    // topology updates not yet written, by element; a newer update of an
+    // element is merged into the pending one
+    private final Map<String, TopoUpdate> pendingUpdates = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    private long receivedVersion;
+    private long sentVersion;
+
+    private MetricsService metricsService;
+    private Meter updatesSent;
+    private Meter updatesCoalesced;
+
     /**
      * Creates a new web-socket for serving data to GUI.
      *
      * @param directory service directory
+     * @param flusher   executor writing rate limited topology updates
      */
-    public UiWebSocket(ServiceDirectory directory) {
+    public UiWebSocket(ServiceDirectory directory, ScheduledExecutorService flusher) {
         this.directory = directory;
+        this.flusher = flusher;
     }
 
     /**
@@ -76,6 +119,7 @@ public class UiWebSocket
      */
     synchronized void close() {
         destroyHandlersAndOverlays();
+        removeMetrics();
         if (connection.isOpen()) {
             connection.close();
         }
@@ -108,6 +152,7 @@ public class UiWebSocket
         this.control = (FrameConnection) connection;
         try {
             createHandlersAndOverlays();
+            createMetrics();
             sendInstanceData();
             log.info("GUI client connected");
 
@@ -122,6 +167,7 @@ public class UiWebSocket
     @Override
     public synchronized void onClose(int closeCode, String message) {
         destroyHandlersAndOverlays();
+        removeMetrics();
         log.info("GUI client disconnected [close-code={}, message={}]",
                  closeCode, message);
     }
@@ -175,6 +221,129 @@ public class UiWebSocket
 
     }
 
+    /**
+     * Queues topology updates for the client. The updates are written in
+     * rate limited flushes; an update of an element still pending from an
+     * earlier delta is merged into it as by {@link TopoUpdate#merge}, so a
+     * slow client skips the intermediate states.
+     *
+     * @param version version of the topology the updates bring the client to
+     * @param updates updates by the element they describe
+     */
+    void sendUpdates(long version, Map<String, TopoUpdate> updates) {
+        boolean overflow;
+        synchronized (pendingUpdates) {
+            int coalesced = 0;
+            for (TopoUpdate update : updates.values()) {
+                if (TopoUpdate.merge(pendingUpdates, update)) {
+                    coalesced++;
+                }
+            }
+            receivedVersion = version;
+            if (updatesCoalesced != null && coalesced > 0) {
+                updatesCoalesced.mark(coalesced);
+            }
+            overflow = pendingUpdates.size() > MAX_PENDING_UPDATES;
+            if (overflow) {
+                pendingUpdates.clear();
+            } else if (!flushScheduled) {
+                flushScheduled = schedule(0);
+            }
+        }
+        if (overflow) {
+            log.warn("GUI client {} fell behind by {} topology versions; closing it so that it reloads",
+                     session, version - sentVersion);
+            close();
+        }
+    }
+
+    // Writes a limited number of pending updates, scheduling the next flush
+    // if more remain.
+    private void flushUpdates() {
+        List<String> batch = new ArrayList<>();
+        long version;
+        synchronized (pendingUpdates) {
+            Iterator<TopoUpdate> it = pendingUpdates.values().iterator();
+            while (it.hasNext() && batch.size() < MAX_UPDATES_PER_FLUSH) {
+                batch.add(it.next().text());
+                it.remove();
+            }
+            version = pendingUpdates.isEmpty() ? receivedVersion : sentVersion;
+        }
+
+        synchronized (this) {
+            try {
+                if (connection != null && connection.isOpen()) {
+                    for (String update : batch) {
+                        connection.sendMessage(update);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Unable to send topology updates to GUI due to {}", e);
+                log.debug("Boom!!!", e);
+            }
+        }
+        if (updatesSent != null) {
+            updatesSent.mark(batch.size());
+        }
+
+        synchronized (pendingUpdates) {
+            sentVersion = version;
+            if (pendingUpdates.isEmpty()) {
+                flushScheduled = false;
+            } else {
+                flushScheduled = schedule(FLUSH_INTERVAL_MS);
+            }
+        }
+    }
+
+    // Schedules a flush of the pending updates; false if the GUI is stopping.
+    private boolean schedule(long delayMs) {
+        try {
+            flusher.schedule(this::flushUpdates, delayMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.debug("GUI stopping; topology updates of {} not written", session);
+            return false;
+        }
+    }
+
+    // Registers the back-pressure metrics of this session.
+    private void createMetrics() {
+        try {
+            metricsService = directory.get(MetricsService.class);
+        } catch (ServiceNotFoundException e) {
+            log.debug("No metrics service; GUI session metrics not tracked");
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(session);
+        updatesSent = metricsService.createMeter(component, feature, UPDATES_SENT);
+        updatesCoalesced = metricsService.createMeter(component, feature, UPDATES_COALESCED);
+        metricsService.registerMetric(component, feature, UPDATES_PENDING, (Gauge<Integer>) () -> {
+            synchronized (pendingUpdates) {
+                return pendingUpdates.size();
+            }
+        });
+        metricsService.registerMetric(component, feature, VERSION_LAG, (Gauge<Long>) () -> {
+            synchronized (pendingUpdates) {
+                return receivedVersion - sentVersion;
+            }
+        });
+    }
+
+    private void removeMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(session);
+            metricsService.removeMetric(component, feature, UPDATES_SENT);
+            metricsService.removeMetric(component, feature, UPDATES_COALESCED);
+            metricsService.removeMetric(component, feature, UPDATES_PENDING);
+            metricsService.removeMetric(component, feature, VERSION_LAG);
+            metricsService = null;
+        }
+    }
+
     // Creates new message handlers.
     private synchronized void createHandlersAndOverlays() {
         log.debug("creating handlers and overlays...");
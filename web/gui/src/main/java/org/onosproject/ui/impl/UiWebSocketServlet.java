@@ -27,6 +27,10 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.onlab.util.Tools.groupedThreads;
 
 /**
  * Web socket servlet capable of creating web sockets for the user interface.
@@ -34,6 +38,7 @@ import java.util.TimerTask;
 public class UiWebSocketServlet extends WebSocketServlet {
 
     private static final long PING_DELAY_MS = 5000;
+    private static final int FLUSHER_THREADS = 4;
 
     private static UiWebSocketServlet instance;
 
@@ -42,6 +47,7 @@ public class UiWebSocketServlet extends WebSocketServlet {
     private final Set<UiWebSocket> sockets = new HashSet<>();
     private final Timer timer = new Timer();
     private final TimerTask pruner = new Pruner();
+    private ScheduledExecutorService flusher;
     private boolean isStopped = false;
 
     /**
@@ -54,6 +60,7 @@ public class UiWebSocketServlet extends WebSocketServlet {
             instance.sockets.clear();
             instance.pruner.cancel();
             instance.timer.cancel();
+            instance.stopFlusher();
         }
     }
 
@@ -61,15 +68,34 @@ public class UiWebSocketServlet extends WebSocketServlet {
     public void init() throws ServletException {
         super.init();
         instance = this;
+        flusher = newScheduledThreadPool(FLUSHER_THREADS, groupedThreads("onos/gui", "ws-flusher-%d"));
         timer.schedule(pruner, PING_DELAY_MS, PING_DELAY_MS);
     }
 
+    @Override
+    public void destroy() {
+        stopFlusher();
+        super.destroy();
+    }
+
+    // Stops the executor writing topology updates to the web sockets.
+    private synchronized void stopFlusher() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+    }
+
     @Override
     public WebSocket doWebSocketConnect(HttpServletRequest request, String protocol) {
-        if (isStopped) {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = flusher;
+        }
+        if (isStopped || executor == null) {
             return null;
         }
-        UiWebSocket socket = new UiWebSocket(directory);
+        UiWebSocket socket = new UiWebSocket(directory, executor);
         synchronized (sockets) {
             sockets.add(socket);
         }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ui.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the merging of topology view updates.
+ */
+public class TopoUpdateTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, TopoUpdate> pending = new LinkedHashMap<>();
+
+    private static TopoUpdate update(String event, String id, String label) {
+        ObjectNode message = MAPPER.createObjectNode();
+        message.put("event", event);
+        ObjectNode payload = message.putObject("payload");
+        payload.put("id", id);
+        payload.put("label", label);
+        return TopoUpdate.of(message);
+    }
+
+    private String event(String key) {
+        return pending.get(key).text().replaceAll(".*\"event\":\"([a-zA-Z]+)\".*", "$1");
+    }
+
+    @Test
+    public void parse() {
+        TopoUpdate update = update("updateDevice", "of:1", "a");
+        assertEquals("incorrect kind", TopoUpdate.UPDATE, update.kind());
+        assertEquals("incorrect key", "Device:of:1", update.key());
+        assertSame("text should be encoded once", update.text(), update.text());
+    }
+
+    @Test
+    public void newElement() {
+        assertFalse("nothing to merge with", TopoUpdate.merge(pending, update("addDevice", "of:1", "a")));
+        assertFalse("other element", TopoUpdate.merge(pending, update("addDevice", "of:2", "b")));
+        assertFalse("other kind of element", TopoUpdate.merge(pending, update("addHost", "of:1", "c")));
+        assertEquals("incorrect pending count", 3, pending.size());
+    }
+
+    @Test
+    public void updateReplacesUpdate() {
+        TopoUpdate.merge(pending, update("updateDevice", "of:1", "a"));
+        TopoUpdate newer = update("updateDevice", "of:1", "b");
+        assertTrue("should be merged", TopoUpdate.merge(pending, newer));
+        assertSame("newer update should be pending", newer, pending.get("Device:of:1"));
+    }
+
+    @Test
+    public void addThenRemoveCancels() {
+        TopoUpdate.merge(pending, update("addLink", "l1", "a"));
+        assertTrue("should be merged", TopoUpdate.merge(pending, update("removeLink", "l1", "a")));
+        assertNull("element was never shown", pending.get("Link:l1"));
+    }
+
+    @Test
+    public void addThenUpdateStaysAdd() {
+        TopoUpdate.merge(pending, update("addDevice", "of:1", "a"));
+        TopoUpdate.merge(pending, update("updateDevice", "of:1", "b"));
+        assertEquals("should still be an addition", "addDevice", event("Device:of:1"));
+        assertTrue("should carry the newer payload", pending.get("Device:of:1").text().contains("\"b\""));
+    }
+
+    @Test
+    public void removeThenAddBecomesUpdate() {
+        TopoUpdate.merge(pending, update("removeHost", "h1", "a"));
+        TopoUpdate added = update("addHost", "h1", "b");
+        TopoUpdate.merge(pending, added);
+        assertEquals("should be an update", "updateHost", event("Host:h1"));
+        assertEquals("merged update should not change the shared one", TopoUpdate.ADD, added.kind());
+        assertTrue("shared text should be unchanged", added.text().contains("addHost"));
+    }
+
+    @Test
+    public void coalescingKeepsElementOrder() {
+        // pending updates of a slow session, merged with a later delta
+        TopoUpdate.merge(pending, update("addDevice", "of:1", "a"));
+        TopoUpdate.merge(pending, update("updateDevice", "of:2", "b"));
+        TopoUpdate.merge(pending, update("addLink", "l1", "c"));
+
+        int coalesced = 0;
+        for (TopoUpdate update : ImmutableList.of(update("updateLink", "l1", "d"),
+                                                  update("updateDevice", "of:1", "e"),
+                                                  update("addHost", "h1", "f"))) {
+            if (TopoUpdate.merge(pending, update)) {
+                coalesced++;
+            }
+        }
+        assertEquals("incorrect coalesced count", 2, coalesced);
+        assertEquals("elements should keep their order",
+                     ImmutableList.of("Device:of:1", "Device:of:2", "Link:l1", "Host:h1"),
+                     Lists.newArrayList(pending.keySet()));
+        assertEquals("queued addition should not be lost", "addDevice", event("Device:of:1"));
+        assertEquals("queued addition should not be lost", "addLink", event("Link:l1"));
+    }
+}